@@ -18,14 +18,13 @@
 package org.breedinginsight.api.auth;
 
 import io.micronaut.security.authentication.UserDetails;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import org.breedinginsight.model.ProgramUser;
 import org.breedinginsight.services.exceptions.DoesNotExistException;
 
-import java.util.Collection;
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
 
 @Getter
 @Setter
@@ -34,10 +33,80 @@ public class AuthenticatedUser extends UserDetails {
     private UUID id;
     private List<ProgramUser> programRoles;
 
+    // Roles resolved to enums once so role checks are set intersections instead of string comparisons
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private EnumSet<ProgramSecuredRole> systemSecuredRoles;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private Map<UUID, EnumSet<ProgramSecuredRole>> programSecuredRoles;
+
     public AuthenticatedUser(String username, Collection<String> roles, UUID id, List<ProgramUser> programRoles) {
         super(username, roles);
         this.id = id;
+        this.systemSecuredRoles = toSecuredRoles(roles);
+        setProgramRoles(programRoles);
+    }
+
+    public void setProgramRoles(List<ProgramUser> programRoles) {
         this.programRoles = programRoles;
+
+        Map<UUID, EnumSet<ProgramSecuredRole>> securedRoles = new HashMap<>();
+        if (programRoles != null) {
+            for (ProgramUser programUser : programRoles) {
+                if (programUser.getProgramId() == null || !Boolean.TRUE.equals(programUser.getActive())) {
+                    continue;
+                }
+                List<String> domains = new ArrayList<>();
+                if (programUser.getRoles() != null) {
+                    programUser.getRoles().forEach(role -> domains.add(role.getDomain()));
+                }
+                // First active entry for a program wins, same as the previous list based lookup
+                securedRoles.putIfAbsent(programUser.getProgramId(), toSecuredRoles(domains));
+            }
+        }
+        this.programSecuredRoles = securedRoles;
+    }
+
+    /**
+     * Returns the system roles of the user plus the roles the user holds in the given program, if active in it.
+     */
+    public EnumSet<ProgramSecuredRole> getProgramSecuredRoles(UUID programId) {
+        EnumSet<ProgramSecuredRole> userRoles = EnumSet.copyOf(systemSecuredRoles);
+        EnumSet<ProgramSecuredRole> programRoleSet = programSecuredRoles.get(programId);
+        if (programRoleSet != null) {
+            userRoles.addAll(programRoleSet);
+        }
+        return userRoles;
+    }
+
+    public boolean hasSystemRole(ProgramSecuredRole role) {
+        return systemSecuredRoles.contains(role);
+    }
+
+    private static EnumSet<ProgramSecuredRole> toSecuredRoles(Collection<String> domains) {
+        EnumSet<ProgramSecuredRole> securedRoles = EnumSet.noneOf(ProgramSecuredRole.class);
+        if (domains != null) {
+            for (String domain : domains) {
+                // Roles without a secured counterpart can never satisfy a role check, so they are left out
+                try {
+                    securedRoles.add(ProgramSecuredRole.getEnum(domain));
+                } catch (IllegalArgumentException e) {
+                    continue;
+                }
+            }
+        }
+        return securedRoles;
+    }
+
+    /**
+     * @return a copy of this user with its own role lists, so callers can change it without affecting other requests
+     */
+    public AuthenticatedUser copy() {
+        return new AuthenticatedUser(getUsername(),
+                                     getRoles() != null ? new ArrayList<>(getRoles()) : null,
+                                     id,
+                                     programRoles != null ? new ArrayList<>(programRoles) : null);
     }
 
     public ProgramUser extractProgramUser(UUID programId) throws DoesNotExistException {
@@ -0,0 +1,89 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.api.auth;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micronaut.context.annotation.Property;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Short lived, in-memory cache of resolved principals and known program ids used by the security rules.
+ *
+ * Entries are evicted whenever the services that change users, system roles or program roles run. The TTL bounds
+ * how stale an entry can get when the change was made by another api instance or directly in the database.
+ */
+@Slf4j
+@Singleton
+public class AuthenticatedUserCache {
+
+    private static final long MAX_USERS = 10000;
+    private static final long MAX_PROGRAMS = 10000;
+
+    private final Cache<UUID, AuthenticatedUser> users;
+    private final Cache<UUID, Boolean> existingPrograms;
+
+    @Inject
+    public AuthenticatedUserCache(@Property(name = "micronaut.bi.api.user-cache.ttl") Duration ttl) {
+        log.debug("Caching authenticated users for " + ttl);
+        this.users = CacheBuilder.newBuilder()
+                .expireAfterWrite(ttl.toMillis(), TimeUnit.MILLISECONDS)
+                .maximumSize(MAX_USERS)
+                .build();
+        this.existingPrograms = CacheBuilder.newBuilder()
+                .expireAfterWrite(ttl.toMillis(), TimeUnit.MILLISECONDS)
+                .maximumSize(MAX_PROGRAMS)
+                .build();
+    }
+
+    /**
+     * @return a copy of the cached user, as the same user may be resolved by concurrent requests
+     */
+    public Optional<AuthenticatedUser> getUser(UUID userId) {
+        return Optional.ofNullable(users.getIfPresent(userId)).map(AuthenticatedUser::copy);
+    }
+
+    /**
+     * Caches a copy of the user, so changes to the given instance are not seen by other requests
+     */
+    public void putUser(AuthenticatedUser user) {
+        users.put(user.getId(), user.copy());
+    }
+
+    public void invalidateUser(UUID userId) {
+        users.invalidate(userId);
+    }
+
+    /**
+     * Only positive lookups are cached, programs can be created at any time but are never deleted through the api.
+     */
+    public boolean isKnownProgram(UUID programId) {
+        return existingPrograms.getIfPresent(programId) != null;
+    }
+
+    public void putKnownProgram(UUID programId) {
+        existingPrograms.put(programId, Boolean.TRUE);
+    }
+}
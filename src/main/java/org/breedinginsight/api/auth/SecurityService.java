@@ -39,14 +39,17 @@ public class SecurityService extends DefaultSecurityService {
     private ProgramDao programDao;
     private UserDAO userDAO;
     private Provider<ActingUserProvider> actingUserProvider;
+    private AuthenticatedUserCache authenticatedUserCache;
 
     @Inject
     public SecurityService(ProgramDao programDao, UserDAO userDAO,
-                           Provider<ActingUserProvider> actingUserProvider, TokenConfiguration tokenConfiguration) {
+                           Provider<ActingUserProvider> actingUserProvider, TokenConfiguration tokenConfiguration,
+                           AuthenticatedUserCache authenticatedUserCache) {
         super(tokenConfiguration);
         this.programDao = programDao;
         this.userDAO = userDAO;
         this.actingUserProvider = actingUserProvider;
+        this.authenticatedUserCache = authenticatedUserCache;
     }
 
     public AuthenticatedUser getUser() {
@@ -64,6 +67,14 @@ public class SecurityService extends DefaultSecurityService {
                 UUID id;
                 if (userId != null) {
                     id = UUID.fromString(userId.toString());
+
+                    // Users are resolved across requests through a short lived cache
+                    Optional<AuthenticatedUser> cachedUser = authenticatedUserCache.getUser(id);
+                    if (cachedUser.isPresent()) {
+                        actingUserProvider.get().setActingUser(cachedUser.get());
+                        return cachedUser.get();
+                    }
+
                     Optional<User> optionalUser = userDAO.getUser(id);
                     if (optionalUser.isPresent()) {
                         User user = optionalUser.get();
@@ -71,6 +82,7 @@ public class SecurityService extends DefaultSecurityService {
                                 .map(systemRole -> systemRole.getDomain()).collect(Collectors.toList());
                         AuthenticatedUser authenticatedUser = new AuthenticatedUser(user.getName(),
                                 systemRoles, id, user.getProgramRoles());
+                        authenticatedUserCache.putUser(authenticatedUser);
                         actingUserProvider.get().setActingUser(authenticatedUser);
                         return authenticatedUser;
                     }
@@ -82,7 +94,7 @@ public class SecurityService extends DefaultSecurityService {
     }
 
     public List<UUID> getEnrolledProgramIds(AuthenticatedUser actingUser) {
-        if (actingUser.getRoles().contains(ProgramSecuredRole.SYSTEM_ADMIN.toString())){
+        if (actingUser.hasSystemRole(ProgramSecuredRole.SYSTEM_ADMIN)){
             return programDao.findAll().stream().map(ProgramEntity::getId).collect(Collectors.toList());
         }
 
@@ -94,7 +106,7 @@ public class SecurityService extends DefaultSecurityService {
 
     public boolean canUpdateUserRoles(AuthenticatedUser actingUser, UUID targetUserId) {
         // Admins can update their own program roles, others cannot
-        if (actingUser.getRoles().contains(ProgramSecuredRole.SYSTEM_ADMIN.toString())) {
+        if (actingUser.hasSystemRole(ProgramSecuredRole.SYSTEM_ADMIN)) {
             return true;
         }
 
@@ -106,7 +118,7 @@ public class SecurityService extends DefaultSecurityService {
 
     public boolean canUpdateUser(AuthenticatedUser actingUser, UUID targetUserId) {
         // Only admins and self can update user info
-        if (actingUser.getRoles().contains(ProgramSecuredRole.SYSTEM_ADMIN.toString())) {
+        if (actingUser.hasSystemRole(ProgramSecuredRole.SYSTEM_ADMIN)) {
             return true;
         }
 
@@ -28,13 +28,11 @@ import io.micronaut.web.router.MethodBasedRouteMatch;
 import io.micronaut.web.router.RouteMatch;
 import org.breedinginsight.api.auth.*;
 import org.breedinginsight.daos.ProgramDAO;
-import org.breedinginsight.model.ProgramUser;
 import org.jetbrains.annotations.Nullable;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Singleton
 public class ProgramSecuredAnnotationRule extends SecuredAnnotationRule {
@@ -50,6 +48,8 @@ public class ProgramSecuredAnnotationRule extends SecuredAnnotationRule {
     private SecurityService securityService;
     @Inject
     private ProgramDAO programDAO;
+    @Inject
+    private AuthenticatedUserCache authenticatedUserCache;
 
     @Override
     public SecurityRuleResult check(HttpRequest<?> request, @Nullable RouteMatch<?> routeMatch, @Nullable Map<String, Object> claims) {
@@ -66,29 +66,24 @@ public class ProgramSecuredAnnotationRule extends SecuredAnnotationRule {
                     throw new HttpServerException("Endpoint does not have program id to check roles against");
                 }
 
-                if (!programDAO.existsById(UUID.fromString(programId))) {
+                UUID programUUID = UUID.fromString(programId);
+                if (!programExists(programUUID)) {
                     throw new HttpStatusException(HttpStatus.NOT_FOUND, "Program does not exist");
                 }
 
                 if (claims != null){
                     AuthenticatedUser user = securityService.getUser();
-                    List<ProgramUser> allProgramRoles = user.getProgramRoles();
-                    List<String> systemRoles = (List<String>) user.getRoles();
 
-                    // Get program roles for given program and system roles into single list
-                    List<ProgramSecuredRole> userRoles = processRoles(allProgramRoles, systemRoles, programId);
+                    // Get program roles for given program and system roles into single set
+                    EnumSet<ProgramSecuredRole> userRoles = user.getProgramSecuredRoles(programUUID);
 
                     // Get route allowed roles
-                    List<ProgramSecuredRole> allowedRoles = getAllowedRoles(methodRoute);
-
-                    List<String> allowedRolesString = allowedRoles
-                            .stream().map(ProgramSecuredRole::toString).collect(Collectors.toList());
+                    EnumSet<ProgramSecuredRole> allowedRoles = getAllowedRoleSet(methodRoute);
 
-                    List<String> userRolesString = userRoles.stream()
-                            .map(ProgramSecuredRole::toString).collect(Collectors.toList());
-
-                    SecurityRuleResult securityRuleResult = compareRoles(allowedRolesString, userRolesString);
-                    return securityRuleResult;
+                    userRoles.retainAll(allowedRoles);
+                    if (!userRoles.isEmpty()) {
+                        return SecurityRuleResult.ALLOWED;
+                    }
                 }
 
                 // Rejects if no claims, or does not have correct roles
@@ -99,22 +94,22 @@ public class ProgramSecuredAnnotationRule extends SecuredAnnotationRule {
         return SecurityRuleResult.UNKNOWN;
     }
 
-    public List<ProgramSecuredRole> processRoles(List<ProgramUser> allProgramRoles, List<String> systemRoles, String programId) {
-
-        // Check that they have a role in the program they are requesting data for
-        List<ProgramUser> matchedProgramRoles = allProgramRoles.stream().filter(programRole ->
-                programRole.getProgramId().toString().equals(programId) && programRole.getActive()).collect(Collectors.toList());
+    private boolean programExists(UUID programId) {
+        if (authenticatedUserCache.isKnownProgram(programId)) {
+            return true;
+        }
 
-        // Get roles of the user for the given program
-        List<ProgramSecuredRole> userRoles = new ArrayList<>();
-        if (!matchedProgramRoles.isEmpty()){
-            matchedProgramRoles.get(0).getRoles().stream()
-                    .forEach(role -> userRoles.add(ProgramSecuredRole.getEnum(role.getDomain())));
+        boolean exists = programDAO.existsById(programId);
+        if (exists) {
+            authenticatedUserCache.putKnownProgram(programId);
         }
+        return exists;
+    }
 
-        // Add system roles to the user's roles. System roles apply to every program
-        systemRoles.stream().forEach(systemRole -> userRoles.add(ProgramSecuredRole.getEnum(systemRole)));
-        return userRoles;
+    public EnumSet<ProgramSecuredRole> getAllowedRoleSet(MethodBasedRouteMatch methodRoute) {
+        EnumSet<ProgramSecuredRole> allowedRoles = EnumSet.noneOf(ProgramSecuredRole.class);
+        allowedRoles.addAll(getAllowedRoles(methodRoute));
+        return allowedRoles;
     }
 
     public List<ProgramSecuredRole> getAllowedRoles(MethodBasedRouteMatch methodRoute) {
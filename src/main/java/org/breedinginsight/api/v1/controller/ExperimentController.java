@@ -20,9 +20,11 @@ import org.breedinginsight.api.model.v1.response.metadata.Metadata;
 import org.breedinginsight.api.model.v1.response.metadata.Pagination;
 import org.breedinginsight.api.model.v1.response.metadata.Status;
 import org.breedinginsight.api.model.v1.response.metadata.StatusCode;
+import org.breedinginsight.brapi.v2.model.request.query.DatasetWindowQuery;
 import org.breedinginsight.brapi.v2.model.request.query.ExperimentExportQuery;
 import org.breedinginsight.brapi.v2.services.BrAPITrialService;
 import org.breedinginsight.dao.db.tables.pojos.ExperimentProgramUserRoleEntity;
+import org.breedinginsight.daos.cache.ExperimentStatsCache;
 import org.breedinginsight.model.*;
 import org.breedinginsight.services.ExperimentalCollaboratorService;
 import org.breedinginsight.services.ProgramService;
@@ -112,6 +114,72 @@ public class ExperimentController {
         }
     }
 
+    /**
+     * Retrieves the statistics of a dataset, kept up to date as data is imported so they are served without loading
+     * the dataset.
+     * @param programId The UUID of the program.
+     * @param experimentId The UUID of the experiment.
+     * @param datasetId The UUID of the dataset.
+     * @return An HttpResponse with the observation unit, phenotype and observation counts of the dataset.
+     */
+    @Get("/${micronaut.bi.api.version}/programs/{programId}/experiments/{experimentId}/dataset/{datasetId}/stats")
+    @ExperimentCollaboratorSecured
+    @ProgramSecured(roleGroups = {ProgramSecuredRoleGroup.PROGRAM_SCOPED_ROLES})
+    @Produces(MediaType.APPLICATION_JSON)
+    public HttpResponse<Response<ExperimentStatsCache.DatasetStats>> getDatasetStats(
+            @PathVariable("programId") UUID programId,
+            @PathVariable("experimentId") UUID experimentId,
+            @PathVariable("datasetId") UUID datasetId) {
+        String downloadErrorMessage = "An error occurred while fetching the dataset. Contact the development team at bidevteam@cornell.edu.";
+        try {
+            Program program = programService.getById(programId).orElseThrow(() -> new DoesNotExistException("Program does not exist"));
+            Response<ExperimentStatsCache.DatasetStats> response = new Response(experimentService.getDatasetStats(program, experimentId, datasetId));
+            return HttpResponse.ok(response);
+        } catch (Exception e) {
+            log.info(e.getMessage(), e);
+            HttpResponse response = HttpResponse.status(HttpStatus.INTERNAL_SERVER_ERROR, downloadErrorMessage).contentType(MediaType.TEXT_PLAIN).body(downloadErrorMessage);
+            return response;
+        }
+    }
+
+    /**
+     * Retrieves a window of a dataset, for datasets too large to be fetched at once with getDatasetData.
+     * @param programId The UUID of the program.
+     * @param experimentId The UUID of the experiment.
+     * @param datasetId The UUID of the dataset.
+     * @param queryParams The page or cursor of the window, its size and the observation variables to include.
+     * @return An HttpResponse with the dataset window, and the observation unit count of the whole dataset as pagination.
+     */
+    @Get("/${micronaut.bi.api.version}/programs/{programId}/experiments/{experimentId}/dataset/{datasetId}/window{?queryParams*}")
+    @ExperimentCollaboratorSecured
+    @ProgramSecured(roleGroups = {ProgramSecuredRoleGroup.PROGRAM_SCOPED_ROLES})
+    @Produces(MediaType.APPLICATION_JSON)
+    public HttpResponse<Response<Dataset>> getDatasetWindow(
+            @PathVariable("programId") UUID programId,
+            @PathVariable("experimentId") UUID experimentId,
+            @PathVariable("datasetId") UUID datasetId,
+            @QueryValue @Valid DatasetWindowQuery queryParams) {
+        String downloadErrorMessage = "An error occurred while fetching the dataset. Contact the development team at bidevteam@cornell.edu.";
+        try {
+            Program program = programService.getById(programId).orElseThrow(() -> new DoesNotExistException("Program does not exist"));
+            DatasetWindow window = experimentService.getDatasetWindow(program, experimentId, datasetId, queryParams);
+
+            List<Status> metadataStatus = new ArrayList<>();
+            metadataStatus.add(new Status(StatusCode.INFO, "Successful Query"));
+            int totalPages = (int) Math.ceil(window.getTotalObservationUnits() / (double) window.getPageSize());
+            Pagination pagination = new Pagination(window.getTotalObservationUnits(), window.getPageSize(), totalPages, window.getPage());
+            Response<Dataset> response = new Response(new Metadata(pagination, metadataStatus), window.getDataset());
+            return HttpResponse.ok(response);
+        } catch (IllegalArgumentException e) {
+            log.info(e.getMessage(), e);
+            return HttpResponse.status(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (Exception e) {
+            log.info(e.getMessage(), e);
+            HttpResponse response = HttpResponse.status(HttpStatus.INTERNAL_SERVER_ERROR, downloadErrorMessage).contentType(MediaType.TEXT_PLAIN).body(downloadErrorMessage);
+            return response;
+        }
+    }
+
     /**
      * Creates a sub-entity dataset for a given program and experiment with the specified name and number of repeated measures.
      * @param programId The UUID of the program.
@@ -32,9 +32,9 @@ import org.brapi.v2.model.germ.BrAPIGermplasmSynonyms;
 import org.brapi.v2.model.germ.request.BrAPIGermplasmSearchRequest;
 import org.brapi.v2.model.germ.response.BrAPIGermplasmSingleResponse;
 import org.breedinginsight.brapi.v2.constants.BrAPIAdditionalInfoFields;
-import org.breedinginsight.brapps.importer.daos.ImportDAO;
 import org.breedinginsight.brapps.importer.model.ImportUpload;
 import org.breedinginsight.brapps.importer.services.ExternalReferenceSource;
+import org.breedinginsight.brapps.importer.services.ImportProgressReporter;
 import org.breedinginsight.daos.ProgramDAO;
 import org.breedinginsight.daos.cache.ProgramCache;
 import org.breedinginsight.daos.cache.ProgramCacheProvider;
@@ -42,6 +42,7 @@ import org.breedinginsight.model.Program;
 import org.breedinginsight.services.brapi.BrAPIEndpointProvider;
 import org.breedinginsight.services.exceptions.DoesNotExistException;
 import org.breedinginsight.utilities.BrAPIDAOUtil;
+import org.breedinginsight.utilities.CacheLookupUtil;
 import org.breedinginsight.utilities.Utilities;
 
 import javax.inject.Inject;
@@ -56,11 +57,9 @@ import java.util.stream.Collectors;
 public class BrAPIGermplasmDAO {
 
     private final ProgramDAO programDAO;
-    private final ImportDAO importDAO;
+    private final ImportProgressReporter progressReporter;
     private final BrAPIDAOUtil brAPIDAOUtil;
-
-    @Property(name = "brapi.server.reference-source")
-    private String referenceSource;
+    private final String referenceSource;
 
     @Property(name = "micronaut.bi.api.run-scheduled-tasks")
     private boolean runScheduledTasks;
@@ -70,10 +69,12 @@ public class BrAPIGermplasmDAO {
     private final BrAPIEndpointProvider brAPIEndpointProvider;
 
     @Inject
-    public BrAPIGermplasmDAO(ProgramDAO programDAO, ImportDAO importDAO, BrAPIDAOUtil brAPIDAOUtil, ProgramCacheProvider programCacheProvider, BrAPIEndpointProvider brAPIEndpointProvider) {
+    public BrAPIGermplasmDAO(ProgramDAO programDAO, ImportProgressReporter progressReporter, BrAPIDAOUtil brAPIDAOUtil, ProgramCacheProvider programCacheProvider, BrAPIEndpointProvider brAPIEndpointProvider,
+                             @Property(name = "brapi.server.reference-source") String referenceSource) {
         this.programDAO = programDAO;
-        this.importDAO = importDAO;
+        this.progressReporter = progressReporter;
         this.brAPIDAOUtil = brAPIDAOUtil;
+        this.referenceSource = referenceSource;
         this.programGermplasmCache = programCacheProvider.getProgramCache(this::fetchProgramGermplasm, BrAPIGermplasm.class);
         this.brAPIEndpointProvider = brAPIEndpointProvider;
     }
@@ -297,7 +298,7 @@ public class BrAPIGermplasmDAO {
         try {
             if (!postBrAPIGermplasmList.isEmpty()) {
                 Callable<Map<String, BrAPIGermplasm>> postFunction = () -> {
-                    List<BrAPIGermplasm> postResponse = brAPIDAOUtil.post(postBrAPIGermplasmList, upload, api::germplasmPost, importDAO::update);
+                    List<BrAPIGermplasm> postResponse = brAPIDAOUtil.post(postBrAPIGermplasmList, upload, api::germplasmPost, progressReporter::report);
                     return processGermplasmForDisplay(postResponse, program.getKey());
                 };
                 return programGermplasmCache.post(programId, postFunction);
@@ -327,10 +328,9 @@ public class BrAPIGermplasmDAO {
 
     public List<BrAPIGermplasm> getGermplasmByRawName(List<String> germplasmNames, UUID programId) throws ApiException {
         Program program = new Program(programDAO.fetchOneById(programId));
-        return getGermplasm(programId)
-                .stream()
-                .filter(brAPIGermplasm -> germplasmNames.contains(Utilities.appendProgramKey(brAPIGermplasm.getGermplasmName(),program.getKey(),brAPIGermplasm.getAccessionNumber())))
-                .collect(Collectors.toList());
+        return CacheLookupUtil.filterByKeys(getGermplasm(programId),
+                brAPIGermplasm -> Utilities.appendProgramKey(brAPIGermplasm.getGermplasmName(),program.getKey(),brAPIGermplasm.getAccessionNumber()),
+                germplasmNames);
     }
 
     public BrAPIGermplasm getGermplasmByUUID(String germplasmId, UUID programId) throws ApiException, DoesNotExistException {
@@ -376,7 +376,7 @@ public class BrAPIGermplasmDAO {
         //key is UUID, want to filter by DBID
         List<BrAPIGermplasm> germplasm = new ArrayList<>();
         if (cache != null) {
-            germplasm = cache.values().stream().filter(x -> germplasmDbIds.contains(x.getGermplasmDbId())).collect(Collectors.toList());
+            germplasm = CacheLookupUtil.filterByKeys(cache.values(), BrAPIGermplasm::getGermplasmDbId, germplasmDbIds);
         }
         return germplasm;
     }
@@ -17,6 +17,7 @@
 
 package org.breedinginsight.brapi.v2.dao;
 
+import com.google.gson.reflect.TypeToken;
 import lombok.extern.slf4j.Slf4j;
 import org.brapi.client.v2.ApiResponse;
 import org.brapi.client.v2.model.exceptions.ApiException;
@@ -34,31 +35,41 @@ import org.brapi.v2.model.pheno.BrAPIObservation;
 import org.breedinginsight.brapps.importer.daos.ImportDAO;
 import org.breedinginsight.brapps.importer.model.ImportUpload;
 import org.breedinginsight.daos.ProgramDAO;
+import org.breedinginsight.daos.cache.ExperimentStatsCache;
+import org.breedinginsight.daos.cache.ProgramMetadataCache;
+import org.breedinginsight.daos.cache.ProgramMetadataCacheProvider;
 import org.breedinginsight.services.brapi.BrAPIEndpointProvider;
 import org.breedinginsight.utilities.BrAPIDAOUtil;
 import org.breedinginsight.utilities.Utilities;
 
 import javax.inject.Inject;
+import javax.inject.Singleton;
 import javax.validation.constraints.NotNull;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
+import java.util.stream.Collectors;
 
 @Slf4j
+@Singleton
 public class BrAPIListDAO {
 
     private ProgramDAO programDAO;
     private ImportDAO importDAO;
     private final BrAPIDAOUtil brAPIDAOUtil;
     private final BrAPIEndpointProvider brAPIEndpointProvider;
+    private final ExperimentStatsCache experimentStatsCache;
+    private final ProgramMetadataCache<List<BrAPIListSummary>> listsByName;
+    private final ProgramMetadataCache<BrAPIListsSingleResponse> listsById;
 
     @Inject
-    public BrAPIListDAO(ProgramDAO programDAO, ImportDAO importDAO, BrAPIDAOUtil brAPIDAOUtil, BrAPIEndpointProvider brAPIEndpointProvider) {
+    public BrAPIListDAO(ProgramDAO programDAO, ImportDAO importDAO, BrAPIDAOUtil brAPIDAOUtil, BrAPIEndpointProvider brAPIEndpointProvider, ExperimentStatsCache experimentStatsCache,
+                        ProgramMetadataCacheProvider metadataCacheProvider) {
         this.programDAO = programDAO;
         this.importDAO = importDAO;
         this.brAPIDAOUtil = brAPIDAOUtil;
+        this.experimentStatsCache = experimentStatsCache;
         this.brAPIEndpointProvider = brAPIEndpointProvider;
+        this.listsByName = metadataCacheProvider.getMetadataCache(new TypeToken<List<BrAPIListSummary>>() {}.getType());
+        this.listsById = metadataCacheProvider.getMetadataCache(BrAPIListsSingleResponse.class);
     }
 
     public List<BrAPIListSummary> getListByName(List<String> listNames, UUID programId) throws ApiException {
@@ -66,6 +77,15 @@ public class BrAPIListDAO {
             return Collections.emptyList();
         }
 
+        // Names without a list are searched again on the next call, they are not cached
+        return listsByName.getAll(programId, listNames, missingNames -> fetchListsByName(missingNames, programId))
+                .values()
+                .stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+    }
+
+    private Map<String, List<BrAPIListSummary>> fetchListsByName(List<String> listNames, UUID programId) throws ApiException {
         BrAPIListSearchRequest listSearch = new BrAPIListSearchRequest();
         listSearch.listNames(listNames);
         ListsApi api = brAPIEndpointProvider.get(programDAO.getCoreClient(programId), ListsApi.class);
@@ -73,10 +93,29 @@ public class BrAPIListDAO {
                 api::searchListsPost,
                 api::searchListsSearchResultsDbIdGet,
                 listSearch
-        );
+        ).stream()
+                .filter(list -> list.getListName() != null)
+                .collect(Collectors.groupingBy(BrAPIListSummary::getListName));
     }
 
     public BrAPIListsSingleResponse getListById(String listId, UUID programId) throws ApiException {
+        return getListById(listId, programId, false);
+    }
+
+    /**
+     * @param bypassCache read the list from the BrAPI service rather than the metadata cache, for callers that modify
+     *                    the list and must not overwrite changes made since it was cached
+     */
+    public BrAPIListsSingleResponse getListById(String listId, UUID programId, boolean bypassCache) throws ApiException {
+        if (bypassCache) {
+            BrAPIListsSingleResponse list = fetchListById(listId, programId);
+            listsById.put(programId, listId, list);
+            return list;
+        }
+        return listsById.get(programId, listId, () -> fetchListById(listId, programId));
+    }
+
+    private BrAPIListsSingleResponse fetchListById(String listId, UUID programId) throws ApiException {
         ListsApi api = brAPIEndpointProvider.get(programDAO.getCoreClient(programId), ListsApi.class);
         ApiResponse<BrAPIListsSingleResponse> response = api.listsListDbIdGet(listId);
         return response.getBody();
@@ -163,6 +202,13 @@ public class BrAPIListDAO {
             if (result.getData() == null) {
                 throw new ApiException("Response result is missing data", 0, response.getHeaders(), response.getBody().toString());
             }
+            listsById.invalidate(programId, brAPIListDbId);
+            if (mutatedList.getListName() != null) {
+                listsByName.invalidate(programId, mutatedList.getListName());
+            }
+            if (BrAPIListTypes.OBSERVATIONVARIABLES.equals(mutatedList.getListType())) {
+                experimentStatsCache.recordDatasetVariables(programId, mutatedList.getExternalReferences(), result.getData());
+            }
             return result.getData();
         }
 
@@ -191,6 +237,13 @@ public class BrAPIListDAO {
             if (result.getData() == null) {
                 throw new ApiException("Response result is missing data", 0, response.getHeaders(), response.getBody().toString());
             }
+            brapiLists.stream()
+                    .map(BrAPIListNewRequest::getListName)
+                    .filter(Objects::nonNull)
+                    .forEach(listName -> listsByName.invalidate(programId, listName));
+            brapiLists.stream()
+                    .filter(list -> BrAPIListTypes.OBSERVATIONVARIABLES.equals(list.getListType()))
+                    .forEach(list -> experimentStatsCache.recordDatasetVariables(programId, list.getExternalReferences(), list.getData()));
             return result.getData();
         }
 
@@ -21,7 +21,7 @@ import org.brapi.client.v2.model.exceptions.ApiException;
 import org.brapi.client.v2.modules.core.LocationsApi;
 import org.brapi.v2.model.core.BrAPILocation;
 import org.brapi.v2.model.core.request.BrAPILocationSearchRequest;
-import org.breedinginsight.brapps.importer.daos.ImportDAO;
+import org.breedinginsight.brapps.importer.services.ImportProgressReporter;
 import org.breedinginsight.brapps.importer.model.ImportUpload;
 import org.breedinginsight.daos.ProgramDAO;
 import org.breedinginsight.services.brapi.BrAPIEndpointProvider;
@@ -35,14 +35,14 @@ import java.util.*;
 public class BrAPILocationDAO {
 
     private ProgramDAO programDAO;
-    private ImportDAO importDAO;
+    private ImportProgressReporter progressReporter;
     private final BrAPIDAOUtil brAPIDAOUtil;
     private final BrAPIEndpointProvider brAPIEndpointProvider;
 
     @Inject
-    public BrAPILocationDAO(ProgramDAO programDAO, ImportDAO importDAO, BrAPIDAOUtil brAPIDAOUtil, BrAPIEndpointProvider brAPIEndpointProvider) {
+    public BrAPILocationDAO(ProgramDAO programDAO, ImportProgressReporter progressReporter, BrAPIDAOUtil brAPIDAOUtil, BrAPIEndpointProvider brAPIEndpointProvider) {
         this.programDAO = programDAO;
-        this.importDAO = importDAO;
+        this.progressReporter = progressReporter;
         this.brAPIDAOUtil = brAPIDAOUtil;
         this.brAPIEndpointProvider = brAPIEndpointProvider;
     }
@@ -65,7 +65,7 @@ public class BrAPILocationDAO {
 
     public List<BrAPILocation> createBrAPILocations(List<BrAPILocation> brAPILocationList, UUID programId, ImportUpload upload) throws ApiException {
         LocationsApi api = brAPIEndpointProvider.get(programDAO.getCoreClient(programId), LocationsApi.class);
-        return brAPIDAOUtil.post(brAPILocationList, upload, api::locationsPost, importDAO::update);
+        return brAPIDAOUtil.post(brAPILocationList, upload, api::locationsPost, progressReporter::report);
     }
 
     public List<BrAPILocation> getLocationsByDbId(Collection<String> locationDbIds, UUID programId) throws ApiException {
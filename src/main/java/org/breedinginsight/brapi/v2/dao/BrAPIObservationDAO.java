@@ -16,6 +16,8 @@
  */
 package org.breedinginsight.brapi.v2.dao;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import io.micronaut.context.annotation.Property;
 import io.micronaut.http.server.exceptions.InternalServerException;
 import io.micronaut.scheduling.annotation.Scheduled;
@@ -32,10 +34,11 @@ import org.brapi.v2.model.pheno.BrAPIObservationUnit;
 import org.brapi.v2.model.pheno.request.BrAPIObservationSearchRequest;
 import org.brapi.v2.model.pheno.response.BrAPIObservationListResponse;
 import org.brapi.v2.model.pheno.response.BrAPIObservationSingleResponse;
-import org.breedinginsight.brapps.importer.daos.ImportDAO;
 import org.breedinginsight.brapps.importer.model.ImportUpload;
 import org.breedinginsight.brapps.importer.services.ExternalReferenceSource;
+import org.breedinginsight.brapps.importer.services.ImportProgressReporter;
 import org.breedinginsight.daos.ProgramDAO;
+import org.breedinginsight.daos.cache.ExperimentStatsCache;
 import org.breedinginsight.daos.cache.ProgramCache;
 import org.breedinginsight.daos.cache.ProgramCacheProvider;
 import org.breedinginsight.model.Program;
@@ -46,8 +49,10 @@ import org.jetbrains.annotations.NotNull;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static org.brapi.v2.model.BrAPIWSMIMEDataTypes.APPLICATION_JSON;
@@ -57,31 +62,43 @@ import static org.brapi.v2.model.BrAPIWSMIMEDataTypes.APPLICATION_JSON;
 public class BrAPIObservationDAO {
 
     private ProgramDAO programDAO;
-    private ImportDAO importDAO;
+    private ImportProgressReporter progressReporter;
     private BrAPIObservationUnitDAO observationUnitDAO;
     private final BrAPIDAOUtil brAPIDAOUtil;
     private final BrAPIEndpointProvider brAPIEndpointProvider;
     private final String referenceSource;
     private boolean runScheduledTasks;
     private final ProgramCache<BrAPIObservation> programObservationCache;
+    private final Cache<UUID, ObservationColumnStore> observationStores;
+    private final ExperimentStatsCache experimentStatsCache;
 
     @Inject
     public BrAPIObservationDAO(ProgramDAO programDAO,
-                               ImportDAO importDAO,
+                               ImportProgressReporter progressReporter,
                                BrAPIObservationUnitDAO observationUnitDAO,
                                BrAPIDAOUtil brAPIDAOUtil,
                                BrAPIEndpointProvider brAPIEndpointProvider,
                                @Property(name = "brapi.server.reference-source") String referenceSource,
                                @Property(name = "micronaut.bi.api.run-scheduled-tasks") boolean runScheduledTasks,
-                               ProgramCacheProvider programCacheProvider) {
+                               ProgramCacheProvider programCacheProvider,
+                               ExperimentStatsCache experimentStatsCache,
+                               @Property(name = "brapi.observation-store.max-observations") long maxStoredObservations,
+                               @Property(name = "brapi.observation-store.expire-after-access") Duration storeExpireAfterAccess) {
         this.programDAO = programDAO;
-        this.importDAO = importDAO;
+        this.progressReporter = progressReporter;
         this.observationUnitDAO = observationUnitDAO;
         this.brAPIDAOUtil = brAPIDAOUtil;
         this.brAPIEndpointProvider = brAPIEndpointProvider;
         this.referenceSource = referenceSource;
         this.runScheduledTasks = runScheduledTasks;
         this.programObservationCache = programCacheProvider.getProgramCache(this::fetchProgramObservations, BrAPIObservation.class);
+        this.experimentStatsCache = experimentStatsCache;
+        // Stores are weighed by observation count so a few large programs can't hold every store in memory
+        this.observationStores = CacheBuilder.newBuilder()
+                .maximumWeight(maxStoredObservations)
+                .weigher((UUID programId, ObservationColumnStore store) -> Math.max(1, store.size()))
+                .expireAfterAccess(storeExpireAfterAccess.toMillis(), TimeUnit.MILLISECONDS)
+                .build();
     }
 
     @Scheduled(initialDelay = "3s")
@@ -93,6 +110,8 @@ public class BrAPIObservationDAO {
         log.debug("populating observation cache");
         List<Program> programs = programDAO.getActive();
         if (programs != null) {
+            // Stats recorded against the previous contents are reseeded once the cache is repopulated
+            programs.forEach(program -> experimentStatsCache.invalidate(program.getId()));
             programObservationCache.populate(programs.stream().map(Program::getId).collect(Collectors.toList()));
         }
     }
@@ -160,10 +179,19 @@ public class BrAPIObservationDAO {
     }
 
     /**
-     * Get all observations for a program from the cache.
+     * Get the column store of the program observations, rebuilding it when the cache of that program changed since
+     * it was built. Stores of programs that are not read are evicted after brapi.observation-store.expire-after-access.
      */
-    private Map<String, BrAPIObservation> getProgramObservations(UUID programId) throws ApiException {
-        return programObservationCache.get(programId);
+    private ObservationColumnStore getObservationStore(UUID programId) throws ApiException {
+        // Read the version before the values so a concurrent cache write makes the next call rebuild
+        long version = programObservationCache.getVersion(programId);
+        ObservationColumnStore store = observationStores.getIfPresent(programId);
+        if (store == null || store.getVersion() != version) {
+            store = ObservationColumnStore.build(version, programObservationCache.getSerialized(programId));
+            log.debug(String.format("Built observation store for program %s with %d observations", programId, store.size()));
+            observationStores.put(programId, store);
+        }
+        return store;
     }
 
     // Note: not using cache, because unique studyName (with "[ProgramKey-ExtraInfo]") is not stored directly on Observation.
@@ -197,11 +225,7 @@ public class BrAPIObservationDAO {
             return Collections.emptyList();
         }
 
-        // Filter the observations based on the provided program ID and the provided list of dbIds
-        // Collect the filtered observations into a List and return the result
-        return getProgramObservations(program.getId()).values().stream()
-                .filter(o -> dbIds.contains(o.getObservationDbId()))
-                .collect(Collectors.toList());
+        return getObservationStore(program.getId()).getByDbIds(dbIds);
     }
 
     public List<BrAPIObservation> getObservationsByTrialDbId(List<String> trialDbIds, Program program) throws ApiException {
@@ -212,36 +236,28 @@ public class BrAPIObservationDAO {
         List<String> observationUnitDbIds = observationUnitDAO.getObservationUnitsForTrialDbIds(program.getId(), trialDbIds)
                 .stream().map(BrAPIObservationUnit::getObservationUnitDbId).collect(Collectors.toList());
         // Finally, return all Observations for those ObservationUnits (Observations are linked to Trial through ObservationUnits).
-        return getProgramObservations(program.getId()).values().stream()
-                .filter(o -> observationUnitDbIds.contains(o.getObservationUnitDbId()))
-                .collect(Collectors.toList());
+        return getObservationStore(program.getId()).getByObservationUnits(observationUnitDbIds);
     }
 
     public List<BrAPIObservation> getObservationsByObservationUnitsAndVariables(Collection<String> ouDbIds, Collection<String> variableDbIds, Program program) throws ApiException {
         if(ouDbIds.isEmpty() || variableDbIds.isEmpty()) {
             return Collections.emptyList();
         }
-        return getProgramObservations(program.getId()).values().stream()
-                .filter(o -> ouDbIds.contains(o.getObservationUnitDbId()) && variableDbIds.contains(o.getObservationVariableDbId()))
-                .collect(Collectors.toList());
+        return getObservationStore(program.getId()).getByObservationUnitsAndVariables(ouDbIds, variableDbIds);
     }
 
     public List<BrAPIObservation> getObservationsByObservationUnits(Collection<String> ouDbIds, Program program) throws ApiException {
         if(ouDbIds.isEmpty()) {
             return Collections.emptyList();
         }
-        return getProgramObservations(program.getId()).values().stream()
-                .filter(o -> ouDbIds.contains(o.getObservationUnitDbId()))
-                .collect(Collectors.toList());
+        return getObservationStore(program.getId()).getByObservationUnits(ouDbIds);
     }
 
     public List<BrAPIObservation> getObservationsByObservationUnitsAndStudies(Collection<String> ouDbIds, Collection<String> studyDbIds, Program program) throws ApiException {
         if(ouDbIds.isEmpty()) {
             return Collections.emptyList();
         }
-        return getProgramObservations(program.getId()).values().stream()
-                .filter(o -> ouDbIds.contains(o.getObservationUnitDbId()) && studyDbIds.contains(o.getStudyDbId()))
-                .collect(Collectors.toList());
+        return getObservationStore(program.getId()).getByObservationUnitsAndStudies(ouDbIds, studyDbIds);
     }
 
     @NotNull
@@ -251,22 +267,40 @@ public class BrAPIObservationDAO {
     }
 
     public List<BrAPIObservation> createBrAPIObservations(List<BrAPIObservation> brAPIObservationList, UUID programId, ImportUpload upload) throws ApiException {
+        return createBrAPIObservations(brAPIObservationList, programId, upload, true);
+    }
+
+    /**
+     * Creates observations, leaving the observation cache to be refreshed with {@link #repopulateCache(UUID)} when
+     * repopulate is false.
+     */
+    public List<BrAPIObservation> createBrAPIObservations(List<BrAPIObservation> brAPIObservationList, UUID programId, ImportUpload upload, boolean repopulate) throws ApiException {
         ObservationsApi api = brAPIEndpointProvider.get(programDAO.getCoreClient(programId), ObservationsApi.class);
         var program = programDAO.fetchOneById(programId);
         try {
             if (!brAPIObservationList.isEmpty()) {
                 Callable<Map<String, BrAPIObservation>> postFunction = () -> {
-                    List<BrAPIObservation> postResponse = brAPIDAOUtil.post(brAPIObservationList, upload, api::observationsPost, importDAO::update);
+                    List<BrAPIObservation> postResponse = brAPIDAOUtil.post(brAPIObservationList, upload, api::observationsPost, progressReporter::report);
                     return processObservationsForCache(postResponse, program.getKey());
                 };
-                return programObservationCache.post(programId, postFunction);
+                List<BrAPIObservation> createdObservations = programObservationCache.post(programId, postFunction, repopulate);
+                experimentStatsCache.recordObservations(programId, createdObservations);
+                return createdObservations;
             }
             return new ArrayList<>();
         } catch (Exception e) {
+            experimentStatsCache.invalidate(programId);
             throw new InternalServerException("Unknown error has occurred: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Refreshes the observation cache of a program from the BrAPI service.
+     */
+    public void repopulateCache(UUID programId) {
+        programObservationCache.populate(programId);
+    }
+
     public BrAPIObservation updateBrAPIObservation(String dbId, BrAPIObservation observation, UUID programId) throws ApiException {
         ObservationsApi api = brAPIEndpointProvider.get(programDAO.getCoreClient(programId), ObservationsApi.class);
         var program = programDAO.fetchOneById(programId);
@@ -287,11 +321,15 @@ public class BrAPIObservationDAO {
                     }
                     return processObservationsForCache(List.of(updatedObservation), program.getKey());
             };
-            return programObservationCache.post(programId, postFunction).get(0);
+            List<BrAPIObservation> updatedObservations = programObservationCache.post(programId, postFunction);
+            experimentStatsCache.recordObservations(programId, updatedObservations);
+            return updatedObservations.get(0);
         } catch (ApiException e) {
             log.error(Utilities.generateApiExceptionLogMessage(e));
+            experimentStatsCache.invalidate(programId);
             throw new InternalServerException("Unknown error has occurred: " + e.getMessage(), e);
         } catch (Exception e) {
+            experimentStatsCache.invalidate(programId);
             throw new InternalServerException("Unknown error has occurred: " + e.getMessage(), e);
         }
     }
@@ -343,7 +381,9 @@ public class BrAPIObservationDAO {
                 }
             }
             Map<String, BrAPIObservation> processedObservations = processObservationsForCache(updatedObservations, program.getKey());
-            return programObservationCache.postThese(programId,processedObservations);
+            List<BrAPIObservation> cachedObservations = programObservationCache.postThese(programId,processedObservations);
+            experimentStatsCache.recordObservations(programId, cachedObservations);
+            return cachedObservations;
         } catch (ApiException e) {
             log.error("Error updating observation: " + Utilities.generateApiExceptionLogMessage(e), e);
             throw e;
@@ -37,10 +37,11 @@ import org.brapi.v2.model.pheno.BrAPIObservationUnitLevelRelationship;
 import org.brapi.v2.model.pheno.request.BrAPIObservationUnitSearchRequest;
 import org.breedinginsight.brapi.v2.constants.BrAPIAdditionalInfoFields;
 import org.breedinginsight.brapi.v2.services.BrAPIGermplasmService;
-import org.breedinginsight.brapps.importer.daos.ImportDAO;
 import org.breedinginsight.brapps.importer.model.ImportUpload;
 import org.breedinginsight.brapps.importer.services.ExternalReferenceSource;
+import org.breedinginsight.brapps.importer.services.ImportProgressReporter;
 import org.breedinginsight.daos.ProgramDAO;
+import org.breedinginsight.daos.cache.ExperimentStatsCache;
 import org.breedinginsight.daos.cache.ProgramCache;
 import org.breedinginsight.daos.cache.ProgramCacheProvider;
 import org.breedinginsight.model.Program;
@@ -48,6 +49,7 @@ import org.breedinginsight.services.ProgramService;
 import org.breedinginsight.services.brapi.BrAPIEndpointProvider;
 import org.breedinginsight.services.exceptions.DoesNotExistException;
 import org.breedinginsight.utilities.BrAPIDAOUtil;
+import org.breedinginsight.utilities.CacheLookupUtil;
 import org.breedinginsight.utilities.Utilities;
 
 import javax.inject.Inject;
@@ -63,7 +65,7 @@ import java.util.stream.Collectors;
 @Singleton
 public class BrAPIObservationUnitDAO {
     private final ProgramDAO programDAO;
-    private final ImportDAO importDAO;
+    private final ImportProgressReporter progressReporter;
     private final BrAPIDAOUtil brAPIDAOUtil;
     private final BrAPIEndpointProvider brAPIEndpointProvider;
     private final ProgramService programService;
@@ -76,19 +78,21 @@ public class BrAPIObservationUnitDAO {
     private final Type treatmentlistType = new TypeToken<ArrayList<BrAPIObservationTreatment>>(){}.getType();
 
     private final ProgramCache<BrAPIObservationUnit> programObservationUnitCache;
+    private final ExperimentStatsCache experimentStatsCache;
 
     @Inject
     public BrAPIObservationUnitDAO(ProgramDAO programDAO,
-                                   ImportDAO importDAO,
+                                   ImportProgressReporter progressReporter,
                                    BrAPIDAOUtil brAPIDAOUtil,
                                    BrAPIEndpointProvider brAPIEndpointProvider,
                                    BrAPIGermplasmService germplasmService,
                                    ProgramService programService,
                                    @Property(name = "brapi.server.reference-source") String referenceSource,
                                    @Property(name = "micronaut.bi.api.run-scheduled-tasks") boolean runScheduledTasks,
-                                   ProgramCacheProvider programCacheProvider) {
+                                   ProgramCacheProvider programCacheProvider,
+                                   ExperimentStatsCache experimentStatsCache) {
         this.programDAO = programDAO;
-        this.importDAO = importDAO;
+        this.progressReporter = progressReporter;
         this.brAPIDAOUtil = brAPIDAOUtil;
         this.brAPIEndpointProvider = brAPIEndpointProvider;
         this.referenceSource = referenceSource;
@@ -96,6 +100,7 @@ public class BrAPIObservationUnitDAO {
         this.programService = programService;
         this.germplasmService = germplasmService;
         this.programObservationUnitCache = programCacheProvider.getProgramCache(this::fetchProgramObservationUnits, BrAPIObservationUnit.class);
+        this.experimentStatsCache = experimentStatsCache;
     }
 
     @Scheduled(initialDelay = "3s")
@@ -107,6 +112,8 @@ public class BrAPIObservationUnitDAO {
         log.debug("populating observation unit cache");
         List<Program> programs = programDAO.getActive();
         if(programs != null) {
+            // Stats recorded against the previous contents are reseeded once the cache is repopulated
+            programs.forEach(program -> experimentStatsCache.invalidate(program.getId()));
             programObservationUnitCache.populate(programs.stream().map(Program::getId).collect(Collectors.toList()));
         }
     }
@@ -164,9 +171,7 @@ public class BrAPIObservationUnitDAO {
         if(observationUnitNames.isEmpty()) {
             return Collections.emptyList();
         }
-        return getProgramObservationUnits(program.getId()).values().stream()
-                .filter(ou -> observationUnitNames.contains(ou.getObservationUnitName()))
-                .collect(Collectors.toList());
+        return CacheLookupUtil.filterByKeys(getProgramObservationUnits(program.getId()).values(), BrAPIObservationUnit::getObservationUnitName, observationUnitNames);
     }
 
     /**
@@ -174,19 +179,31 @@ public class BrAPIObservationUnitDAO {
      * Mutates brAPIObservationUnitList.
      */
     public List<BrAPIObservationUnit> createBrAPIObservationUnits(List<BrAPIObservationUnit> brAPIObservationUnitList, UUID programId, ImportUpload upload) throws ApiException, DoesNotExistException {
+        return createBrAPIObservationUnits(brAPIObservationUnitList, programId, upload, true);
+    }
+
+    /**
+     * Create observation units with import progress, leaving the observation unit cache to be refreshed with
+     * {@link #repopulateCache(UUID)} when repopulate is false.
+     * Mutates brAPIObservationUnitList.
+     */
+    public List<BrAPIObservationUnit> createBrAPIObservationUnits(List<BrAPIObservationUnit> brAPIObservationUnitList, UUID programId, ImportUpload upload, boolean repopulate) throws ApiException, DoesNotExistException {
         Program program = programService.getById(programId).orElseThrow(() -> new DoesNotExistException("Program id does not exist"));
         ObservationUnitsApi api = brAPIEndpointProvider.get(programDAO.getCoreClient(programId), ObservationUnitsApi.class);
         try {
             if (!brAPIObservationUnitList.isEmpty()) {
                 Callable<Map<String, BrAPIObservationUnit>> postFunction = () -> {
                     preprocessObservationUnits(brAPIObservationUnitList);
-                    List<BrAPIObservationUnit> ous = brAPIDAOUtil.post(brAPIObservationUnitList, upload, api::observationunitsPost, importDAO::update);
+                    List<BrAPIObservationUnit> ous = brAPIDAOUtil.post(brAPIObservationUnitList, upload, api::observationunitsPost, progressReporter::report);
                     return processObservationUnitsForCache(ous, program, false);
                 };
-                return programObservationUnitCache.post(programId, postFunction);
+                List<BrAPIObservationUnit> createdObservationUnits = programObservationUnitCache.post(programId, postFunction, repopulate);
+                experimentStatsCache.recordObservationUnits(programId, createdObservationUnits);
+                return createdObservationUnits;
             }
             return new ArrayList<>();
         } catch (Exception e) {
+            experimentStatsCache.invalidate(programId);
             throw new InternalServerException("Unknown error has occurred: " + e.getMessage(), e);
         }
     }
@@ -205,22 +222,29 @@ public class BrAPIObservationUnitDAO {
                     List<BrAPIObservationUnit> ous = brAPIDAOUtil.post(brAPIObservationUnitList, api::observationunitsPost);
                     return processObservationUnitsForCache(ous, program, false);
                 };
-                return programObservationUnitCache.post(programId, postFunction);
+                List<BrAPIObservationUnit> createdObservationUnits = programObservationUnitCache.post(programId, postFunction);
+                experimentStatsCache.recordObservationUnits(programId, createdObservationUnits);
+                return createdObservationUnits;
             }
             return new ArrayList<>();
         } catch (Exception e) {
+            experimentStatsCache.invalidate(programId);
             throw new InternalServerException("Unknown error has occurred: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Refreshes the observation unit cache of a program from the BrAPI service.
+     */
+    public void repopulateCache(UUID programId) {
+        programObservationUnitCache.populate(programId);
+    }
+
     public List<BrAPIObservationUnit> getObservationUnitsById(Collection<String> observationUnitExternalIds, Program program) throws ApiException {
         if(observationUnitExternalIds.isEmpty()) {
             return Collections.emptyList();
         }
-        return getProgramObservationUnits(program.getId()).entrySet().stream()
-                .filter(entry -> observationUnitExternalIds.contains(entry.getKey()))
-                .map(Map.Entry::getValue)
-                .collect(Collectors.toList());
+        return CacheLookupUtil.getByKeys(getProgramObservationUnits(program.getId()), observationUnitExternalIds);
     }
 
     public List<BrAPIObservationUnit> getObservationUnitsForStudyDbId(@NotNull String studyDbId, Program program) throws ApiException {
@@ -233,9 +257,7 @@ public class BrAPIObservationUnitDAO {
         if (trialDbIds.isEmpty()) {
             return Collections.emptyList();
         }
-        return getProgramObservationUnits(programId).values().stream()
-                .filter(ou -> trialDbIds.contains(ou.getTrialDbId()))
-                .collect(Collectors.toList());
+        return CacheLookupUtil.filterByKeys(getProgramObservationUnits(programId).values(), BrAPIObservationUnit::getTrialDbId, trialDbIds);
     }
 
     public List<BrAPIObservationUnit> getObservationUnitsForTrialDbId(@NotNull UUID programId, @NotNull String trialDbId) throws ApiException {
@@ -257,13 +279,14 @@ public class BrAPIObservationUnitDAO {
     public List<BrAPIObservationUnit> getObservationUnitsForDatasetAndEnvs(@NotNull String datasetId, Collection<String> envIds, @NotNull Program program) throws ApiException {
         String datasetReferenceSource = Utilities.generateReferenceSource(referenceSource, ExternalReferenceSource.DATASET);
         String studyReferenceSource = Utilities.generateReferenceSource(referenceSource, ExternalReferenceSource.STUDIES);
+        Set<String> envIdLookup = CacheLookupUtil.toLookupSet(envIds);
         return getProgramObservationUnits(program.getId()).values().stream()
                 .filter(ou -> {
                     Optional<BrAPIExternalReference> datasetExRef = Utilities.getExternalReference(ou.getExternalReferences(), datasetReferenceSource);
                     Optional<BrAPIExternalReference> studyExRef = Utilities.getExternalReference(ou.getExternalReferences(), studyReferenceSource);
                     return Boolean.logicalAnd(
                             datasetExRef.map(x -> x.getReferenceId().equals(datasetId)).orElse(false),
-                            studyExRef.map(x -> envIds.contains(x.getReferenceId())).orElse(false)
+                            studyExRef.map(x -> envIdLookup.contains(x.getReferenceId())).orElse(false)
                     );
                 })
                 .collect(Collectors.toList());
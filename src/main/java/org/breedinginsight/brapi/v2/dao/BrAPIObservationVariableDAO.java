@@ -16,19 +16,21 @@
  */
 package org.breedinginsight.brapi.v2.dao;
 
+import com.google.gson.reflect.TypeToken;
 import org.brapi.client.v2.model.exceptions.ApiException;
 import org.brapi.client.v2.modules.phenotype.ObservationVariablesApi;
 import org.brapi.v2.model.pheno.BrAPIObservationVariable;
 import org.brapi.v2.model.pheno.request.BrAPIObservationVariableSearchRequest;
 import org.breedinginsight.daos.ProgramDAO;
+import org.breedinginsight.daos.cache.ProgramMetadataCache;
+import org.breedinginsight.daos.cache.ProgramMetadataCacheProvider;
 import org.breedinginsight.services.brapi.BrAPIEndpointProvider;
 import org.breedinginsight.utilities.BrAPIDAOUtil;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
-import java.util.Collections;
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
+import java.util.stream.Collectors;
 
 @Singleton
 public class BrAPIObservationVariableDAO {
@@ -36,12 +38,14 @@ public class BrAPIObservationVariableDAO {
     private ProgramDAO programDAO;
     private final BrAPIDAOUtil brAPIDAOUtil;
     private final BrAPIEndpointProvider brAPIEndpointProvider;
+    private final ProgramMetadataCache<List<BrAPIObservationVariable>> variablesByName;
 
     @Inject
-    public BrAPIObservationVariableDAO(ProgramDAO programDAO, BrAPIDAOUtil brAPIDAOUtil, BrAPIEndpointProvider brAPIEndpointProvider) {
+    public BrAPIObservationVariableDAO(ProgramDAO programDAO, BrAPIDAOUtil brAPIDAOUtil, BrAPIEndpointProvider brAPIEndpointProvider, ProgramMetadataCacheProvider metadataCacheProvider) {
         this.programDAO = programDAO;
         this.brAPIDAOUtil = brAPIDAOUtil;
         this.brAPIEndpointProvider = brAPIEndpointProvider;
+        this.variablesByName = metadataCacheProvider.getMetadataCache(new TypeToken<List<BrAPIObservationVariable>>() {}.getType());
     }
 
     public List<BrAPIObservationVariable> getVariableByName(List<String> variableNames, UUID programId) throws ApiException {
@@ -49,6 +53,24 @@ public class BrAPIObservationVariableDAO {
             return Collections.emptyList();
         }
 
+        // Names without a variable are searched again on the next call, they are not cached
+        return variablesByName.getAll(programId, variableNames, missingNames -> fetchVariablesByName(missingNames, programId))
+                .values()
+                .stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Drops cached lookups of the given variable names, called when a variable is renamed or edited.
+     */
+    public void invalidateVariables(UUID programId, Collection<String> variableNames) {
+        variableNames.stream()
+                .filter(Objects::nonNull)
+                .forEach(name -> variablesByName.invalidate(programId, name));
+    }
+
+    private Map<String, List<BrAPIObservationVariable>> fetchVariablesByName(List<String> variableNames, UUID programId) throws ApiException {
         BrAPIObservationVariableSearchRequest variableSearch = new BrAPIObservationVariableSearchRequest();
         variableSearch.observationVariableNames(variableNames);
         ObservationVariablesApi api = brAPIEndpointProvider.get(programDAO.getCoreClient(programId), ObservationVariablesApi.class);
@@ -56,7 +78,9 @@ public class BrAPIObservationVariableDAO {
                 api::searchVariablesPost,
                 api::searchVariablesSearchResultsDbIdGet,
                 variableSearch
-        );
+        ).stream()
+                .filter(variable -> variable.getObservationVariableName() != null)
+                .collect(Collectors.groupingBy(BrAPIObservationVariable::getObservationVariableName));
     }
 
 }
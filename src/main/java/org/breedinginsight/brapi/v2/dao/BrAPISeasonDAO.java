@@ -17,6 +17,7 @@
 
 package org.breedinginsight.brapi.v2.dao;
 
+import com.google.gson.reflect.TypeToken;
 import lombok.extern.slf4j.Slf4j;
 import org.brapi.client.v2.ApiResponse;
 import org.brapi.client.v2.model.exceptions.ApiException;
@@ -27,27 +28,48 @@ import org.brapi.v2.model.core.response.BrAPISeasonListResponse;
 import org.brapi.v2.model.core.response.BrAPISeasonListResponseResult;
 import org.brapi.v2.model.core.response.BrAPISeasonSingleResponse;
 import org.breedinginsight.daos.ProgramDAO;
+import org.breedinginsight.daos.cache.ProgramMetadataCache;
+import org.breedinginsight.daos.cache.ProgramMetadataCacheProvider;
 import org.breedinginsight.services.brapi.BrAPIEndpointProvider;
+import org.breedinginsight.services.brapi.BrAPITransport;
 import org.breedinginsight.utilities.BrAPIDAOUtil;
 
 import javax.inject.Inject;
-import java.util.Arrays;
-import java.util.List;
-import java.util.UUID;
+import javax.inject.Singleton;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Slf4j
+@Singleton
 public class BrAPISeasonDAO {
 
     private ProgramDAO programDAO;
     private final BrAPIEndpointProvider brAPIEndpointProvider;
+    private final ProgramMetadataCache<BrAPISeason> seasonsById;
+    private final ProgramMetadataCache<List<BrAPISeason>> seasonsByYear;
+    private final BrAPITransport brAPITransport;
 
     @Inject
-    public BrAPISeasonDAO(ProgramDAO programDAO, BrAPIEndpointProvider brAPIEndpointProvider) {
+    public BrAPISeasonDAO(ProgramDAO programDAO, BrAPIEndpointProvider brAPIEndpointProvider, ProgramMetadataCacheProvider metadataCacheProvider,
+                          BrAPITransport brAPITransport) {
         this.programDAO = programDAO;
         this.brAPIEndpointProvider = brAPIEndpointProvider;
+        this.brAPITransport = brAPITransport;
+        this.seasonsById = metadataCacheProvider.getMetadataCache(BrAPISeason.class);
+        this.seasonsByYear = metadataCacheProvider.getMetadataCache(new TypeToken<List<BrAPISeason>>() {}.getType());
     }
 
     public List<BrAPISeason> getSeasonsByYear(String year, UUID programId) throws ApiException {
+        // Years without seasons are not cached, the season may be created by another api instance
+        List<BrAPISeason> seasons = seasonsByYear.get(programId, year, () -> {
+            List<BrAPISeason> fetched = fetchSeasonsByYear(year, programId);
+            return fetched == null || fetched.isEmpty() ? null : fetched;
+        });
+        return seasons == null ? Collections.emptyList() : seasons;
+    }
+
+    private List<BrAPISeason> fetchSeasonsByYear(String year, UUID programId) throws ApiException {
         SeasonsApi api = brAPIEndpointProvider.get(programDAO.getCoreClient(programId), SeasonsApi.class);
         SeasonQueryParams queryParams =
                 SeasonQueryParams.builder()
@@ -61,6 +83,44 @@ public class BrAPISeasonDAO {
     }
 
     public BrAPISeason getSeasonById(String id, UUID programId) throws ApiException {
+        return seasonsById.get(programId, id, () -> fetchSeasonById(id, programId));
+    }
+
+    /**
+     * Get many seasons, only the seasons that are not cached are fetched.
+     *
+     * @return the found seasons by id
+     */
+    public Map<String, BrAPISeason> getSeasonsById(Collection<String> ids, UUID programId) throws ApiException {
+        return seasonsById.getAll(programId, ids, missingIds -> fetchSeasonsById(missingIds, programId));
+    }
+
+    private Map<String, BrAPISeason> fetchSeasonsById(List<String> ids, UUID programId) throws ApiException {
+        Map<String, BrAPISeason> seasons = new HashMap<>();
+        if (ids.size() == 1) {
+            seasons.put(ids.get(0), fetchSeasonById(ids.get(0), programId));
+            return seasons;
+        }
+
+        // BrAPI has no season search, so the seasons are fetched by id at the same time on the BrAPI call pool
+        Map<String, CompletableFuture<BrAPISeason>> requests = new LinkedHashMap<>();
+        for (String id : ids) {
+            requests.put(id, brAPITransport.call(() -> fetchSeasonById(id, programId)));
+        }
+        for (Map.Entry<String, CompletableFuture<BrAPISeason>> request : requests.entrySet()) {
+            try {
+                seasons.put(request.getKey(), request.getValue().join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof ApiException) {
+                    throw (ApiException) e.getCause();
+                }
+                throw e;
+            }
+        }
+        return seasons;
+    }
+
+    private BrAPISeason fetchSeasonById(String id, UUID programId) throws ApiException {
         SeasonsApi api = brAPIEndpointProvider.get(programDAO.getCoreClient(programId), SeasonsApi.class);
         ApiResponse<BrAPISeasonSingleResponse> apiResponse = api.seasonsSeasonDbIdGet(id);
         BrAPISeasonSingleResponse seasonListResponse = apiResponse.getBody();
@@ -78,6 +138,10 @@ public class BrAPISeasonDAO {
         List<BrAPISeason> seasons = result.getData();
         if (seasons.size() > 0) {
             resultSeason = seasons.get(0);
+            seasonsById.put(programId, resultSeason.getSeasonDbId(), resultSeason);
+            if (resultSeason.getYear() != null) {
+                seasonsByYear.invalidate(programId, String.valueOf(resultSeason.getYear()));
+            }
         }
         return resultSeason;
     }
@@ -26,15 +26,16 @@ import org.brapi.client.v2.modules.core.StudiesApi;
 import org.brapi.v2.model.BrAPIExternalReference;
 import org.brapi.v2.model.core.BrAPIStudy;
 import org.brapi.v2.model.core.request.BrAPIStudySearchRequest;
-import org.breedinginsight.brapps.importer.daos.ImportDAO;
 import org.breedinginsight.brapps.importer.model.ImportUpload;
 import org.breedinginsight.brapps.importer.services.ExternalReferenceSource;
+import org.breedinginsight.brapps.importer.services.ImportProgressReporter;
 import org.breedinginsight.daos.ProgramDAO;
 import org.breedinginsight.daos.cache.ProgramCache;
 import org.breedinginsight.daos.cache.ProgramCacheProvider;
 import org.breedinginsight.model.Program;
 import org.breedinginsight.services.brapi.BrAPIEndpointProvider;
 import org.breedinginsight.utilities.BrAPIDAOUtil;
+import org.breedinginsight.utilities.CacheLookupUtil;
 import org.breedinginsight.utilities.Utilities;
 
 import javax.inject.Inject;
@@ -53,16 +54,16 @@ public class BrAPIStudyDAO {
     private boolean runScheduledTasks;
 
     private ProgramDAO programDAO;
-    private ImportDAO importDAO;
+    private ImportProgressReporter progressReporter;
     private final BrAPIDAOUtil brAPIDAOUtil;
     private final BrAPIEndpointProvider brAPIEndpointProvider;
     private final ProgramCache<BrAPIStudy> programStudyCache;
 
 
     @Inject
-    public BrAPIStudyDAO(ProgramDAO programDAO, ImportDAO importDAO, BrAPIDAOUtil brAPIDAOUtil, BrAPIEndpointProvider brAPIEndpointProvider, ProgramCacheProvider programCacheProvider) {
+    public BrAPIStudyDAO(ProgramDAO programDAO, ImportProgressReporter progressReporter, BrAPIDAOUtil brAPIDAOUtil, BrAPIEndpointProvider brAPIEndpointProvider, ProgramCacheProvider programCacheProvider) {
         this.programDAO = programDAO;
-        this.importDAO = importDAO;
+        this.progressReporter = progressReporter;
         this.brAPIDAOUtil = brAPIDAOUtil;
         this.brAPIEndpointProvider = brAPIEndpointProvider;
         this.programStudyCache = programCacheProvider.getProgramCache(this::fetchProgramStudy, BrAPIStudy.class);
@@ -152,11 +153,30 @@ public class BrAPIStudyDAO {
         );
     }
 
+    /**
+     * Get studies by BI-assigned environment UUIDs from the study cache in a single pass.
+     * @param environmentIds BI-assigned environment UUIDs.
+     * @param program the program.
+     * @return the found studies by environment UUID.
+     */
+    public Map<UUID, BrAPIStudy> getStudiesByEnvironmentIdMap(@NotNull Collection<UUID> environmentIds, Program program) throws ApiException {
+        Set<UUID> wanted = CacheLookupUtil.toLookupSet(environmentIds);
+        Map<UUID, BrAPIStudy> studies = new HashMap<>();
+        for (Map.Entry<String, BrAPIStudy> entry : programStudyCache.get(program.getId()).entrySet()) {
+            UUID environmentId = UUID.fromString(entry.getKey());
+            if (wanted.contains(environmentId)) {
+                studies.put(environmentId, entry.getValue());
+            }
+        }
+        return studies;
+    }
+
     public List<BrAPIStudy> getStudiesByEnvironmentIds(@NotNull Collection<UUID> environmentIds, Program program) throws ApiException {
+        Set<UUID> environmentIdLookup = CacheLookupUtil.toLookupSet(environmentIds);
         return programStudyCache.get(program.getId())
                                 .entrySet()
                                 .stream()
-                                .filter(entry -> environmentIds.contains(UUID.fromString(entry.getKey())))
+                                .filter(entry -> environmentIdLookup.contains(UUID.fromString(entry.getKey())))
                                 .map(Map.Entry::getValue)
                                 .collect(Collectors.toList());
     }
@@ -184,16 +204,24 @@ public class BrAPIStudyDAO {
     }
 
     public List<BrAPIStudy> createBrAPIStudies(List<BrAPIStudy> brAPIStudyList, UUID programId, ImportUpload upload) throws ApiException {
+        return createBrAPIStudies(brAPIStudyList, programId, upload, true);
+    }
+
+    /**
+     * Creates studies, leaving the study cache to be refreshed with {@link #repopulateCache(UUID)} when repopulate is
+     * false.
+     */
+    public List<BrAPIStudy> createBrAPIStudies(List<BrAPIStudy> brAPIStudyList, UUID programId, ImportUpload upload, boolean repopulate) throws ApiException {
         StudiesApi api = brAPIEndpointProvider.get(programDAO.getCoreClient(programId), StudiesApi.class);
         List<BrAPIStudy> createdStudies = new ArrayList<>();
         try {
             if (!brAPIStudyList.isEmpty()) {
                 Callable<Map<String, BrAPIStudy>> postCallback = () -> {
                     List<BrAPIStudy> postedStudies = brAPIDAOUtil
-                            .post(brAPIStudyList, upload, api::studiesPost, importDAO::update);
+                            .post(brAPIStudyList, upload, api::studiesPost, progressReporter::report);
                     return environmentById(postedStudies);
                 };
-                createdStudies.addAll(programStudyCache.post(programId, postCallback));
+                createdStudies.addAll(programStudyCache.post(programId, postCallback, repopulate));
             }
 
             return createdStudies;
@@ -202,6 +230,13 @@ public class BrAPIStudyDAO {
         }
     }
 
+    /**
+     * Refreshes the study cache of a program from the BrAPI service.
+     */
+    public void repopulateCache(UUID programId) {
+        programStudyCache.populate(programId);
+    }
+
     /**
      * @return Map - Key = BI external reference ID, Value = BrAPIStudy
      * */
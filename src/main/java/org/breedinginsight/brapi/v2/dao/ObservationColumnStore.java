@@ -0,0 +1,234 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.brapi.v2.dao;
+
+import com.google.gson.Gson;
+import org.brapi.client.v2.JSON;
+import org.brapi.v2.model.pheno.BrAPIObservation;
+
+import java.util.*;
+
+/**
+ * Read-only, column oriented snapshot of the cached observations of one program.
+ *
+ * Observation unit, variable and study ids are dictionary encoded and every row stores the int codes of its ids.
+ * Each dictionary has a posting list of the rows that reference a code, so lookups by observation unit, variable
+ * or study touch only the matching rows. Rows keep the cached JSON of the observation and a
+ * {@link BrAPIObservation} is only deserialized for rows that are returned.
+ */
+class ObservationColumnStore {
+
+    private static final Gson GSON = new JSON().getGson();
+    private static final int MISSING = -1;
+
+    private final long version;
+    private final String[] json;
+    private final Map<String, Integer> rowByDbId;
+    private final Column observationUnits;
+    private final Column variables;
+    private final Column studies;
+
+    private ObservationColumnStore(long version, String[] json, Map<String, Integer> rowByDbId, Column observationUnits, Column variables, Column studies) {
+        this.version = version;
+        this.json = json;
+        this.rowByDbId = rowByDbId;
+        this.observationUnits = observationUnits;
+        this.variables = variables;
+        this.studies = studies;
+    }
+
+    /**
+     * Builds the store from the serialized observations of the program cache.
+     *
+     * @param version cache version the values were read at
+     * @param cachedObservations observation JSON by cache key
+     */
+    static ObservationColumnStore build(long version, Map<String, String> cachedObservations) {
+        int rows = cachedObservations.size();
+        String[] json = new String[rows];
+        Map<String, Integer> rowByDbId = new HashMap<>(rows * 2);
+        ColumnBuilder observationUnits = new ColumnBuilder(rows);
+        ColumnBuilder variables = new ColumnBuilder(rows);
+        ColumnBuilder studies = new ColumnBuilder(rows);
+
+        int row = 0;
+        for (String observationJson : cachedObservations.values()) {
+            // Only the id fields are read here, the rest of the observation stays serialized
+            ObservationIds ids = GSON.fromJson(observationJson, ObservationIds.class);
+            json[row] = observationJson;
+            if (ids.observationDbId != null) {
+                rowByDbId.put(ids.observationDbId, row);
+            }
+            observationUnits.add(row, ids.observationUnitDbId);
+            variables.add(row, ids.observationVariableDbId);
+            studies.add(row, ids.studyDbId);
+            row++;
+        }
+
+        return new ObservationColumnStore(version, json, rowByDbId, observationUnits.build(), variables.build(), studies.build());
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    int size() {
+        return json.length;
+    }
+
+    List<BrAPIObservation> getByDbIds(Collection<String> dbIds) {
+        List<BrAPIObservation> observations = new ArrayList<>();
+        for (String dbId : new LinkedHashSet<>(dbIds)) {
+            Integer row = rowByDbId.get(dbId);
+            if (row != null) {
+                observations.add(materialize(row));
+            }
+        }
+        return observations;
+    }
+
+    List<BrAPIObservation> getByObservationUnits(Collection<String> ouDbIds) {
+        List<BrAPIObservation> observations = new ArrayList<>();
+        for (int code : observationUnits.codesOf(ouDbIds)) {
+            for (int row : observationUnits.rowsOf(code)) {
+                observations.add(materialize(row));
+            }
+        }
+        return observations;
+    }
+
+    List<BrAPIObservation> getByObservationUnitsAndVariables(Collection<String> ouDbIds, Collection<String> variableDbIds) {
+        return getByObservationUnitsAnd(ouDbIds, variables, variableDbIds);
+    }
+
+    List<BrAPIObservation> getByObservationUnitsAndStudies(Collection<String> ouDbIds, Collection<String> studyDbIds) {
+        return getByObservationUnitsAnd(ouDbIds, studies, studyDbIds);
+    }
+
+    private List<BrAPIObservation> getByObservationUnitsAnd(Collection<String> ouDbIds, Column column, Collection<String> dbIds) {
+        List<BrAPIObservation> observations = new ArrayList<>();
+        BitSet wanted = column.codeSetOf(dbIds);
+        if (wanted.isEmpty()) {
+            return observations;
+        }
+        for (int code : observationUnits.codesOf(ouDbIds)) {
+            for (int row : observationUnits.rowsOf(code)) {
+                int rowCode = column.codeAt(row);
+                if (rowCode != MISSING && wanted.get(rowCode)) {
+                    observations.add(materialize(row));
+                }
+            }
+        }
+        return observations;
+    }
+
+    private BrAPIObservation materialize(int row) {
+        return GSON.fromJson(json[row], BrAPIObservation.class);
+    }
+
+    /**
+     * Dictionary encoded id column with a posting list per code, stored as offsets into a single row array.
+     */
+    private static class Column {
+        private final Map<String, Integer> codes;
+        private final int[] codeByRow;
+        private final int[] offsets;
+        private final int[] rows;
+
+        private Column(Map<String, Integer> codes, int[] codeByRow, int[] offsets, int[] rows) {
+            this.codes = codes;
+            this.codeByRow = codeByRow;
+            this.offsets = offsets;
+            this.rows = rows;
+        }
+
+        int codeAt(int row) {
+            return codeByRow[row];
+        }
+
+        int[] codesOf(Collection<String> dbIds) {
+            return new LinkedHashSet<>(dbIds).stream()
+                    .map(codes::get)
+                    .filter(Objects::nonNull)
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+        }
+
+        BitSet codeSetOf(Collection<String> dbIds) {
+            BitSet codeSet = new BitSet(codes.size());
+            for (int code : codesOf(dbIds)) {
+                codeSet.set(code);
+            }
+            return codeSet;
+        }
+
+        int[] rowsOf(int code) {
+            return Arrays.copyOfRange(rows, offsets[code], offsets[code + 1]);
+        }
+    }
+
+    private static class ColumnBuilder {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final int[] codeByRow;
+        private int[] counts = new int[16];
+
+        ColumnBuilder(int rows) {
+            this.codeByRow = new int[rows];
+        }
+
+        void add(int row, String dbId) {
+            if (dbId == null) {
+                codeByRow[row] = MISSING;
+                return;
+            }
+            int code = codes.computeIfAbsent(dbId, id -> codes.size());
+            if (code == counts.length) {
+                counts = Arrays.copyOf(counts, counts.length * 2);
+            }
+            codeByRow[row] = code;
+            counts[code]++;
+        }
+
+        Column build() {
+            // Counting sort of the rows by code, rows of a code stay in insertion order
+            int[] offsets = new int[codes.size() + 1];
+            for (int code = 0; code < codes.size(); code++) {
+                offsets[code + 1] = offsets[code] + counts[code];
+            }
+            int[] next = Arrays.copyOf(offsets, codes.size());
+            int[] rows = new int[offsets[codes.size()]];
+            for (int row = 0; row < codeByRow.length; row++) {
+                int code = codeByRow[row];
+                if (code != MISSING) {
+                    rows[next[code]++] = row;
+                }
+            }
+            return new Column(codes, codeByRow, offsets, rows);
+        }
+    }
+
+    /**
+     * The id fields of a serialized {@link BrAPIObservation}.
+     */
+    private static class ObservationIds {
+        private String observationDbId;
+        private String observationUnitDbId;
+        private String observationVariableDbId;
+        private String studyDbId;
+    }
+}
@@ -27,9 +27,9 @@ import org.brapi.v2.model.BrAPIExternalReference;
 import org.brapi.v2.model.core.BrAPITrial;
 import org.brapi.v2.model.core.request.BrAPITrialSearchRequest;
 import org.breedinginsight.brapi.v2.dao.BrAPITrialDAO;
-import org.breedinginsight.brapps.importer.daos.ImportDAO;
 import org.breedinginsight.brapps.importer.model.ImportUpload;
 import org.breedinginsight.brapps.importer.services.ExternalReferenceSource;
+import org.breedinginsight.brapps.importer.services.ImportProgressReporter;
 import org.breedinginsight.daos.ProgramDAO;
 import org.breedinginsight.daos.cache.ProgramCache;
 import org.breedinginsight.daos.cache.ProgramCacheProvider;
@@ -38,6 +38,7 @@ import org.breedinginsight.services.ProgramService;
 import org.breedinginsight.services.brapi.BrAPIEndpointProvider;
 import org.breedinginsight.services.exceptions.DoesNotExistException;
 import org.breedinginsight.utilities.BrAPIDAOUtil;
+import org.breedinginsight.utilities.CacheLookupUtil;
 import org.breedinginsight.utilities.Utilities;
 
 import javax.inject.Inject;
@@ -52,7 +53,7 @@ import java.util.stream.Collectors;
 public class BrAPITrialDAOImpl implements BrAPITrialDAO {
     private final ProgramCache<BrAPITrial> programExperimentCache;
     private final ProgramDAO programDAO;
-    private final ImportDAO importDAO;
+    private final ImportProgressReporter progressReporter;
     private final BrAPIDAOUtil brAPIDAOUtil;
     private final ProgramService programService;
     private final BrAPIEndpointProvider brAPIEndpointProvider;
@@ -62,7 +63,7 @@ public class BrAPITrialDAOImpl implements BrAPITrialDAO {
     @Inject
     public BrAPITrialDAOImpl(ProgramCacheProvider programCacheProvider,
                              ProgramDAO programDAO,
-                             ImportDAO importDAO,
+                             ImportProgressReporter progressReporter,
                              BrAPIDAOUtil brAPIDAOUtil,
                              ProgramService programService,
                              @Property(name = "brapi.server.reference-source") String referenceSource,
@@ -70,7 +71,7 @@ public class BrAPITrialDAOImpl implements BrAPITrialDAO {
                              @Property(name = "micronaut.bi.api.run-scheduled-tasks") boolean runScheduledTasks) {
         this.programExperimentCache = programCacheProvider.getProgramCache(this::fetchProgramExperiments, BrAPITrial.class);
         this.programDAO = programDAO;
-        this.importDAO = importDAO;
+        this.progressReporter = progressReporter;
         this.brAPIDAOUtil = brAPIDAOUtil;
         this.programService = programService;
         this.referenceSource = referenceSource;
@@ -138,11 +139,7 @@ public class BrAPITrialDAOImpl implements BrAPITrialDAO {
         if (cache != null) {
 
             // TODO: replace with more performant cache search, e.g. RediSearch
-            trials.addAll(cache
-                    .values()
-                    .stream()
-                    .filter(t -> trialNames.contains(t.getTrialName()))
-                    .collect(Collectors.toList()));
+            trials.addAll(CacheLookupUtil.filterByKeys(cache.values(), BrAPITrial::getTrialName, trialNames));
         }
 
         return trials;
@@ -179,7 +176,7 @@ public class BrAPITrialDAOImpl implements BrAPITrialDAO {
             if (!brAPITrialList.isEmpty()) {
                 Callable<Map<String, BrAPITrial>> postCallback = () -> {
                     List<BrAPITrial> postedTrials = brAPIDAOUtil
-                            .post(brAPITrialList, upload, api::trialsPost, importDAO::update);
+                            .post(brAPITrialList, upload, api::trialsPost, progressReporter::report);
                     return experimentById(postedTrials);
                 };
                 createdTrials.addAll(programExperimentCache.post(programId, postCallback));
@@ -252,11 +249,7 @@ public class BrAPITrialDAOImpl implements BrAPITrialDAO {
         Map<String, BrAPITrial> cache = programExperimentCache.get(program.getId());
         List<BrAPITrial> trials = new ArrayList<>();
         if (cache != null) {
-            trials.addAll(cache
-                    .values()
-                    .stream()
-                    .filter(t -> trialDbIds.contains(t.getTrialDbId()))
-                    .collect(Collectors.toList()));
+            trials.addAll(CacheLookupUtil.filterByKeys(cache.values(), BrAPITrial::getTrialDbId, trialDbIds));
         }
 
         return trials;
@@ -17,7 +17,6 @@
 
 package org.breedinginsight.brapi.v2.dao.impl;
 
-import io.micronaut.http.server.exceptions.InternalServerException;
 import org.breedinginsight.brapps.importer.daos.ImportDAO;
 import org.breedinginsight.brapps.importer.model.ImportProgress;
 import org.breedinginsight.brapps.importer.model.ImportUpload;
@@ -27,17 +26,13 @@ import org.breedinginsight.dao.db.tables.daos.ImporterImportDao;
 import org.breedinginsight.dao.db.tables.daos.ImporterProgressDao;
 import org.breedinginsight.model.Program;
 import org.breedinginsight.model.User;
-import org.breedinginsight.services.parsers.ParsingException;
-import org.breedinginsight.utilities.FileUtil;
-import org.jooq.Configuration;
-import org.jooq.DSLContext;
-import org.jooq.Record;
-import org.jooq.SelectOnConditionStep;
+import org.jooq.*;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -65,24 +60,45 @@ public class ImportDAOImpl extends ImporterImportDao implements ImportDAO {
         if (records.isEmpty()) {
             return Optional.empty();
         } else {
-            return Optional.of(parseRecords(records).get(0));
+            return Optional.of(parseRecords(records, false).get(0));
         }
     }
 
-    public List<ImportUpload> getProgramUploads(UUID programId) {
-        List<Record> records = getUploadsQuery().where(IMPORTER_IMPORT.PROGRAM_ID.eq(programId)).fetch();
+    public Optional<ImportUpload> getUploadSummaryById(UUID id, boolean includeMappedData) {
+        List<Record> records = getUploadSummariesQuery(includeMappedData)
+                .where(IMPORTER_IMPORT.ID.eq(id))
+                .fetch();
+
+        if (records.isEmpty()) {
+            return Optional.empty();
+        } else {
+            return Optional.of(parseRecords(records, true).get(0));
+        }
+    }
 
-        return parseRecords(records);
+    public List<ImportUpload> getProgramUploads(UUID programId, boolean includeMappedData) {
+        List<Record> records = getUploadSummariesQuery(includeMappedData)
+                .where(IMPORTER_IMPORT.PROGRAM_ID.eq(programId))
+                .fetch();
+
+        return parseRecords(records, true);
     }
 
     public void update(ImportUpload upload) {
-        super.update(upload);
-        upload.setUpdatedAt(OffsetDateTime.now());
-        upload.getProgress().setUpdatedAt(upload.getUpdatedAt());
-        progressDao.update(upload.getProgress());
+        if (upload.isSummary()) {
+            // Saving would clear the file data that was not selected
+            throw new IllegalStateException("Upload " + upload.getId() + " was read without its data and cannot be saved");
+        }
+        // Progress is also saved in the background while holding the upload, see ImportProgressReporter
+        synchronized (upload) {
+            super.update(upload);
+            upload.setUpdatedAt(OffsetDateTime.now());
+            upload.getProgress().setUpdatedAt(upload.getUpdatedAt());
+            progressDao.update(upload.getProgress());
+        }
     }
 
-    private List<ImportUpload> parseRecords(List<Record> records) {
+    private List<ImportUpload> parseRecords(List<Record> records, boolean summary) {
 
         List<ImportUpload> resultUploads = new ArrayList<>();
         BiUserTable createdByUser = BI_USER.as("createdByUser");
@@ -91,34 +107,59 @@ public class ImportDAOImpl extends ImporterImportDao implements ImportDAO {
         // Parse the result
         for (Record record : records) {
             ImportUpload upload = ImportUpload.parseSQLRecord(record);
+            upload.setSummary(summary);
             upload.setProgram(Program.parseSQLRecord(record));
             upload.setUser(User.parseSQLRecord(record));
             upload.setCreatedByUser(User.parseSQLRecord(record, createdByUser));
             upload.setUpdatedByUser(User.parseSQLRecord(record, updatedByUser));
             upload.setProgress(ImportProgress.parseSQLRecord(record));
             upload.setMapping(ImportMapping.parseSQLRecord(record));
-            // Parse our file data and modified data into a data table
-            try {
-                if (upload.getFileData() != null) {
-                    upload.setFileDataTable(FileUtil.parseTableFromJson(upload.getFileData().toString()));
-                }
-                if (upload.getModifiedData() != null) {
-                    upload.setModifiedDataTable(FileUtil.parseTableFromJson(upload.getModifiedData().toString()));
-                }
-            } catch (ParsingException e) {
-                throw new InternalServerException(e.toString(), e);
-            }
+            // File data and modified data are parsed into data tables when they are first used
             resultUploads.add(upload);
         }
         return resultUploads;
     }
 
     private SelectOnConditionStep<Record> getUploadsQuery() {
+        return joinUploadTables(dsl.select());
+    }
 
+    /**
+     * Selects uploads without the file data, modified data and mapping file, which can be several megabytes per upload.
+     * The mapped data is only selected when the preview is wanted.
+     */
+    private SelectOnConditionStep<Record> getUploadSummariesQuery(boolean includeMappedData) {
         BiUserTable createdByUser = BI_USER.as("createdByUser");
         BiUserTable updatedByUser = BI_USER.as("updatedByUser");
 
-        return dsl.select()
+        List<Field<?>> fields = new ArrayList<>();
+        for (Field<?> field : IMPORTER_IMPORT.fields()) {
+            if (!field.equals(IMPORTER_IMPORT.FILE_DATA) && !field.equals(IMPORTER_IMPORT.FILE_DATA_COMPACT)
+                    && !field.equals(IMPORTER_IMPORT.MODIFIED_DATA)
+                    && (includeMappedData || !field.equals(IMPORTER_IMPORT.MAPPED_DATA))) {
+                fields.add(field);
+            }
+        }
+        fields.addAll(Arrays.asList(IMPORTER_PROGRESS.fields()));
+        fields.addAll(Arrays.asList(PROGRAM.fields()));
+        fields.addAll(Arrays.asList(BI_USER.fields()));
+        for (Field<?> field : IMPORTER_MAPPING.fields()) {
+            if (!field.equals(IMPORTER_MAPPING.FILE)) {
+                fields.add(field);
+            }
+        }
+        fields.addAll(Arrays.asList(createdByUser.fields()));
+        fields.addAll(Arrays.asList(updatedByUser.fields()));
+
+        return joinUploadTables(dsl.select(fields));
+    }
+
+    private SelectOnConditionStep<Record> joinUploadTables(SelectSelectStep<Record> select) {
+
+        BiUserTable createdByUser = BI_USER.as("createdByUser");
+        BiUserTable updatedByUser = BI_USER.as("updatedByUser");
+
+        return select
                 .from(IMPORTER_IMPORT)
                 .leftJoin(IMPORTER_PROGRESS).on(IMPORTER_IMPORT.IMPORTER_PROGRESS_ID.eq(IMPORTER_PROGRESS.ID))
                 .innerJoin(PROGRAM).on(IMPORTER_IMPORT.PROGRAM_ID.eq(PROGRAM.ID))
@@ -133,6 +174,37 @@ public class ImportDAOImpl extends ImporterImportDao implements ImportDAO {
         progressDao.update(importProgress);
     }
 
+    public void heartbeat(String instanceId) {
+        OffsetDateTime now = OffsetDateTime.now();
+        dsl.insertInto(IMPORTER_INSTANCE)
+           .columns(IMPORTER_INSTANCE.ID, IMPORTER_INSTANCE.HEARTBEAT_AT)
+           .values(instanceId, now)
+           .onConflict(IMPORTER_INSTANCE.ID)
+           .doUpdate()
+           .set(IMPORTER_INSTANCE.HEARTBEAT_AT, now)
+           .execute();
+    }
+
+    public int updateAbandonedQueuedProgress(OffsetDateTime heartbeatBefore, short statuscode, String message) {
+        return dsl.update(IMPORTER_PROGRESS)
+                  .set(IMPORTER_PROGRESS.STATUSCODE, statuscode)
+                  .set(IMPORTER_PROGRESS.MESSAGE, message)
+                  .set(IMPORTER_PROGRESS.QUEUED_BY, (String) null)
+                  .set(IMPORTER_PROGRESS.UPDATED_AT, OffsetDateTime.now())
+                  .where(IMPORTER_PROGRESS.QUEUED_BY.isNotNull())
+                  .and(IMPORTER_PROGRESS.UPDATED_AT.lt(heartbeatBefore))
+                  .and(IMPORTER_PROGRESS.QUEUED_BY.notIn(dsl.select(IMPORTER_INSTANCE.ID)
+                                                            .from(IMPORTER_INSTANCE)
+                                                            .where(IMPORTER_INSTANCE.HEARTBEAT_AT.ge(heartbeatBefore))))
+                  .execute();
+    }
+
+    public void deleteStoppedInstances(OffsetDateTime heartbeatBefore) {
+        dsl.deleteFrom(IMPORTER_INSTANCE)
+           .where(IMPORTER_INSTANCE.HEARTBEAT_AT.lt(heartbeatBefore))
+           .execute();
+    }
+
     public void createProgress(ImportProgress importProgress) {
         importProgress.setCreatedAt(OffsetDateTime.now());
         importProgress.setUpdatedAt(OffsetDateTime.now());
@@ -0,0 +1,31 @@
+package org.breedinginsight.brapi.v2.model.request.query;
+
+import io.micronaut.core.annotation.Introspected;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import javax.validation.constraints.Positive;
+
+/**
+ * Window of a dataset over its observation units in the default sort order (environment, then observation unit name).
+ *
+ * A window starts either at a page or, when a cursor from a previous window is given, right after the last
+ * observation unit of that window. observationVariableDbIds is a comma separated list of the variables to include,
+ * all dataset variables are included when it is absent.
+ */
+@Getter
+@Setter
+@Introspected
+@ToString
+public class DatasetWindowQuery {
+    public static final int DEFAULT_PAGE = 1;
+    public static final int DEFAULT_PAGE_SIZE = 500;
+
+    @Positive
+    private Integer page;
+    @Positive
+    private Integer pageSize;
+    private String cursor;
+    private String observationVariableDbIds;
+}
@@ -21,6 +21,7 @@ import org.brapi.v2.model.pheno.*;
 import org.breedinginsight.api.model.v1.request.SubEntityDatasetRequest;
 import org.breedinginsight.brapi.v2.constants.BrAPIAdditionalInfoFields;
 import org.breedinginsight.brapi.v2.dao.*;
+import org.breedinginsight.brapi.v2.model.request.query.DatasetWindowQuery;
 import org.breedinginsight.brapi.v2.model.request.query.ExperimentExportQuery;
 import org.breedinginsight.brapps.importer.model.exports.FileType;
 import org.breedinginsight.brapps.importer.model.imports.experimentObservation.ExperimentObservation;
@@ -28,6 +29,7 @@ import org.breedinginsight.brapps.importer.model.imports.experimentObservation.E
 import org.breedinginsight.brapps.importer.services.ExternalReferenceSource;
 import org.breedinginsight.brapps.importer.services.FileMappingUtil;
 import org.breedinginsight.dao.db.enums.DataType;
+import org.breedinginsight.daos.cache.ExperimentStatsCache;
 import org.breedinginsight.model.BrAPIConstants;
 import org.breedinginsight.model.Column;
 import org.breedinginsight.model.DownloadFile;
@@ -47,6 +49,7 @@ import javax.inject.Singleton;
 import java.io.IOException;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
@@ -70,7 +73,9 @@ public class BrAPITrialService {
     private final BrAPIObservationUnitDAO ouDAO;
     private final BrAPIGermplasmDAO germplasmDAO;
     private final FileMappingUtil fileMappingUtil;
+    private final ExperimentStatsCache experimentStatsCache;
     private static final String SHEET_NAME = "Data";
+    private static final String DATASET_CURSOR_SEPARATOR = "\n";
 
     @Inject
     public BrAPITrialService(@Property(name = "brapi.server.reference-source") String referenceSource,
@@ -83,7 +88,8 @@ public class BrAPITrialService {
                              BrAPISeasonDAO seasonDAO,
                              BrAPIObservationUnitDAO ouDAO,
                              BrAPIGermplasmDAO germplasmDAO,
-                             FileMappingUtil fileMappingUtil) {
+                             FileMappingUtil fileMappingUtil,
+                             ExperimentStatsCache experimentStatsCache) {
 
         this.referenceSource = referenceSource;
         this.trialDAO = trialDAO;
@@ -96,6 +102,7 @@ public class BrAPITrialService {
         this.ouDAO = ouDAO;
         this.germplasmDAO = germplasmDAO;
         this.fileMappingUtil = fileMappingUtil;
+        this.experimentStatsCache = experimentStatsCache;
     }
 
     public List<BrAPITrial> getExperiments(UUID programId) throws ApiException, DoesNotExistException {
@@ -132,7 +139,12 @@ public class BrAPITrialService {
     }
 
     private long countGermplasm(UUID programId, String trialDbId) throws ApiException, DoesNotExistException{
+        Optional<Long> germplasmCount = experimentStatsCache.getGermplasmCount(programId, trialDbId);
+        if (germplasmCount.isPresent()) {
+            return germplasmCount.get();
+        }
         List<BrAPIObservationUnit> obUnits = ouDAO.getObservationUnitsForTrialDbId(programId, trialDbId);
+        experimentStatsCache.seedGermplasm(programId, trialDbId, obUnits);
         return obUnits.stream().map(BrAPIObservationUnit::getGermplasmDbId).distinct().count();
     }
 
@@ -311,30 +323,7 @@ public class BrAPITrialService {
         log.debug("fetching observationUnits for dataset: " + datasetId);
         List<BrAPIObservationUnit> datasetOUs = ouDAO.getObservationUnitsForDataset(datasetId.toString(), program);
 
-        //Add years to the addition_info elements
-        //TODO yearByStudyDbId will no longer be needed, and should be removed, once the seasonDAO uses the redis cache (BI-2261).
-        Map<String, Integer> yearByStudyDbId = new HashMap<>();  // used to prevent the same season from being fetched repeatedly.
-        for ( BrAPIObservationUnit ou: datasetOUs ) {
-            String environmentId = Utilities.getExternalReference(ou.getExternalReferences(), this.referenceSource, ExternalReferenceSource.STUDIES)
-                    .orElseThrow( ()-> new DoesNotExistException("No BI external reference for STUDIES was found"))
-                    .getReferenceId();
-            if( !yearByStudyDbId.containsKey( environmentId ))  {
-                // Get the Study and extract the year from its Season
-                BrAPIStudy study = studyDAO.getStudyByEnvironmentId(UUID.fromString(environmentId), program).orElseThrow( () -> new DoesNotExistException(String.format("Study Id '%s' not found.", environmentId)) );
-                if(study.getSeasons().isEmpty()){
-                    throw new DoesNotExistException(String.format("No Seasons found in Study Id = '%s'.", environmentId));
-                }
-                String seasonId = study.getSeasons().get(0);
-                BrAPISeason season = seasonDAO.getSeasonById(seasonId, program.getId());
-                if(season==null){
-                    throw new DoesNotExistException(String.format("Seasons not found for Id = '%s'.", seasonId));
-                }
-                Integer year = season.getYear();
-                yearByStudyDbId.put(environmentId, year);
-            }
-            
-            ou.putAdditionalInfoItem(BrAPIAdditionalInfoFields.ENV_YEAR, yearByStudyDbId.get(environmentId));
-        }
+        addEnvironmentYears(datasetOUs, program);
 
         log.debug("fetching dataset variables dataset: " + datasetId);
         List<Trait> datasetObsVars = getDatasetObsVars(datasetId.toString(), program);
@@ -346,21 +335,160 @@ public class BrAPITrialService {
         sortDefaultForObservationUnit(datasetOUs);
         Dataset dataset = new Dataset(datasetId.toString(), experimentId.toString(), data, datasetOUs, datasetObsVars);
         if (stats) {
-            Integer ouCount = datasetOUs.size();
-            Integer obsVarCount = datasetObsVars.size();
-            Integer obsCount = ouCount * obsVarCount;
-            Integer obsDataCount = data.size();
-            Integer emptyDataCount = obsCount - obsDataCount;
-            dataset = dataset.setStat(Dataset.DatasetStat.OBSERVATION_UNITS, ouCount)
-                    .setStat(Dataset.DatasetStat.PHENOTYPES, obsVarCount)
-                    .setStat(Dataset.DatasetStat.OBSERVATIONS, obsCount)
-                    .setStat(Dataset.DatasetStat.OBSERVATIONS_WITH_DATA, obsDataCount)
-                    .setStat(Dataset.DatasetStat.OBSERVATIONS_WITHOUT_DATA, emptyDataCount);
+            ExperimentStatsCache.DatasetStats datasetStats = experimentStatsCache.getDatasetStats(program.getId(), datasetId.toString())
+                    .orElseGet(() -> {
+                        // Everything needed is already loaded, seed the stats so they are kept up to date from now on
+                        experimentStatsCache.seedDatasetStats(program.getId(), datasetId.toString(), datasetOUs, datasetObsVars.size(), data);
+                        return new ExperimentStatsCache.DatasetStats(datasetOUs.size(), datasetObsVars.size(), data.size());
+                    });
+            dataset = setDatasetStats(dataset, datasetStats);
         }
 
         return dataset;
     }
 
+    /**
+     * Get the statistics of a dataset without loading its observation units and observations once they are cached.
+     */
+    public ExperimentStatsCache.DatasetStats getDatasetStats(Program program, UUID experimentId, UUID datasetId) throws ApiException, DoesNotExistException {
+        Optional<ExperimentStatsCache.DatasetStats> datasetStats = experimentStatsCache.getDatasetStats(program.getId(), datasetId.toString());
+        if (datasetStats.isPresent()) {
+            return datasetStats.get();
+        }
+        getDatasetData(program, experimentId, datasetId, true);
+        return experimentStatsCache.getDatasetStats(program.getId(), datasetId.toString())
+                .orElseThrow(() -> new InternalServerException("Dataset stats were not seeded"));
+    }
+
+    private Dataset setDatasetStats(Dataset dataset, ExperimentStatsCache.DatasetStats datasetStats) {
+        return dataset.setStat(Dataset.DatasetStat.OBSERVATION_UNITS, datasetStats.getObservationUnits())
+                .setStat(Dataset.DatasetStat.PHENOTYPES, datasetStats.getPhenotypes())
+                .setStat(Dataset.DatasetStat.OBSERVATIONS, datasetStats.getObservations())
+                .setStat(Dataset.DatasetStat.OBSERVATIONS_WITH_DATA, datasetStats.getObservationsWithData())
+                .setStat(Dataset.DatasetStat.OBSERVATIONS_WITHOUT_DATA, datasetStats.getObservationsWithoutData());
+    }
+
+    /**
+     * Add the year of the season of their environment to the additional info of observation units.
+     */
+    private void addEnvironmentYears(List<BrAPIObservationUnit> ous, Program program) throws ApiException, DoesNotExistException {
+        // Collect the environments first, so each study and season is looked up once for all observation units
+        List<UUID> environmentIdByOU = new ArrayList<>(ous.size());
+        for ( BrAPIObservationUnit ou: ous ) {
+            String environmentId = Utilities.getExternalReference(ou.getExternalReferences(), this.referenceSource, ExternalReferenceSource.STUDIES)
+                    .orElseThrow( ()-> new DoesNotExistException("No BI external reference for STUDIES was found"))
+                    .getReferenceId();
+            environmentIdByOU.add(UUID.fromString(environmentId));
+        }
+        Set<UUID> environmentIds = new LinkedHashSet<>(environmentIdByOU);
+
+        // Get the Studies and the Seasons they refer to
+        Map<UUID, BrAPIStudy> studyByEnvironmentId = studyDAO.getStudiesByEnvironmentIdMap(environmentIds, program);
+        Map<UUID, String> seasonIdByEnvironmentId = new HashMap<>();
+        for (UUID environmentId : environmentIds) {
+            BrAPIStudy study = studyByEnvironmentId.get(environmentId);
+            if(study == null){
+                throw new DoesNotExistException(String.format("Study Id '%s' not found.", environmentId));
+            }
+            if(study.getSeasons() == null || study.getSeasons().isEmpty()){
+                throw new DoesNotExistException(String.format("No Seasons found in Study Id = '%s'.", environmentId));
+            }
+            seasonIdByEnvironmentId.put(environmentId, study.getSeasons().get(0));
+        }
+        Map<String, BrAPISeason> seasonById = seasonDAO.getSeasonsById(new HashSet<>(seasonIdByEnvironmentId.values()), program.getId());
+
+        Map<UUID, Integer> yearByEnvironmentId = new HashMap<>();
+        for (Map.Entry<UUID, String> environmentSeason : seasonIdByEnvironmentId.entrySet()) {
+            BrAPISeason season = seasonById.get(environmentSeason.getValue());
+            if(season == null){
+                throw new DoesNotExistException(String.format("Seasons not found for Id = '%s'.", environmentSeason.getValue()));
+            }
+            yearByEnvironmentId.put(environmentSeason.getKey(), season.getYear());
+        }
+
+        for (int i = 0; i < ous.size(); i++) {
+            ous.get(i).putAdditionalInfoItem(BrAPIAdditionalInfoFields.ENV_YEAR, yearByEnvironmentId.get(environmentIdByOU.get(i)));
+        }
+    }
+
+    /**
+     * Get a window of a dataset. Observation units are sorted the same way as in getDatasetData and only the
+     * observations of the observation units in the window, limited to the requested variables, are fetched.
+     */
+    public DatasetWindow getDatasetWindow(Program program, UUID experimentId, UUID datasetId, DatasetWindowQuery query) throws ApiException, DoesNotExistException {
+        log.debug("fetching window of dataset: " + datasetId + " for experiment: " + experimentId + ": " + query);
+        List<BrAPIObservationUnit> datasetOUs = ouDAO.getObservationUnitsForDataset(datasetId.toString(), program);
+        sortDefaultForObservationUnit(datasetOUs);
+
+        int pageSize = Optional.ofNullable(query.getPageSize()).orElse(DatasetWindowQuery.DEFAULT_PAGE_SIZE);
+        int page = Optional.ofNullable(query.getPage()).orElse(DatasetWindowQuery.DEFAULT_PAGE);
+        int start;
+        if (StringUtils.isNotBlank(query.getCursor())) {
+            // Keyset: start after the last observation unit of the previous window, even if units were added since
+            start = windowStartAfter(datasetOUs, decodeDatasetCursor(query.getCursor()));
+            page = start / pageSize + 1;
+        } else {
+            start = Math.min((page - 1) * pageSize, datasetOUs.size());
+        }
+        int end = Math.min(start + pageSize, datasetOUs.size());
+        List<BrAPIObservationUnit> windowOUs = new ArrayList<>(datasetOUs.subList(start, end));
+        addEnvironmentYears(windowOUs, program);
+
+        List<Trait> windowObsVars = getDatasetObsVars(datasetId.toString(), program);
+        if (StringUtils.isNotBlank(query.getObservationVariableDbIds())) {
+            Set<String> requestedObsVarDbIds = Arrays.stream(query.getObservationVariableDbIds().split(","))
+                    .map(String::trim)
+                    .collect(Collectors.toSet());
+            windowObsVars = windowObsVars.stream()
+                    .filter(trait -> requestedObsVarDbIds.contains(trait.getObservationVariableDbId()))
+                    .collect(Collectors.toList());
+        }
+
+        Set<String> ouDbIds = windowOUs.stream().map(BrAPIObservationUnit::getObservationUnitDbId).collect(Collectors.toCollection(LinkedHashSet::new));
+        Set<String> obsVarDbIds = windowObsVars.stream().map(Trait::getObservationVariableDbId).collect(Collectors.toSet());
+        List<BrAPIObservation> data = observationDAO.getObservationsByObservationUnitsAndVariables(ouDbIds, obsVarDbIds, program);
+
+        Dataset dataset = new Dataset(datasetId.toString(), experimentId.toString(), data, windowOUs, windowObsVars);
+        if (end < datasetOUs.size() && !windowOUs.isEmpty()) {
+            dataset.nextCursor = encodeDatasetCursor(windowOUs.get(windowOUs.size() - 1));
+        }
+        return new DatasetWindow(dataset, datasetOUs.size(), page, pageSize);
+    }
+
+    private int windowStartAfter(List<BrAPIObservationUnit> sortedOUs, BrAPIObservationUnit cursor) {
+        Comparator<BrAPIObservationUnit> comparator = defaultObservationUnitComparator();
+        int low = 0;
+        int high = sortedOUs.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (comparator.compare(sortedOUs.get(mid), cursor) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private String encodeDatasetCursor(BrAPIObservationUnit ou) {
+        String key = ou.getStudyName() + DATASET_CURSOR_SEPARATOR + ou.getObservationUnitName();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private BrAPIObservationUnit decodeDatasetCursor(String cursor) {
+        String key;
+        try {
+            key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid dataset cursor", e);
+        }
+        String[] names = key.split(DATASET_CURSOR_SEPARATOR, -1);
+        if (names.length != 2) {
+            throw new IllegalArgumentException("Invalid dataset cursor");
+        }
+        return new BrAPIObservationUnit().studyName(names[0]).observationUnitName(names[1]);
+    }
+
     /**
      * Retrieves the metadata of datasets associated with a program and experiment.
      *
@@ -831,9 +959,13 @@ public class BrAPITrialService {
     }
 
     private void sortDefaultForObservationUnit(List<BrAPIObservationUnit> ous) {
+        ous.sort(defaultObservationUnitComparator());
+    }
+
+    private Comparator<BrAPIObservationUnit> defaultObservationUnitComparator() {
         Comparator<BrAPIObservationUnit> studyNameComparator = Comparator.comparing(BrAPIObservationUnit::getStudyName, new IntOrderComparator());
         Comparator<BrAPIObservationUnit> ouNameComparator = Comparator.comparing(BrAPIObservationUnit::getObservationUnitName, new IntOrderComparator());
-        ous.sort( (studyNameComparator).thenComparing(ouNameComparator));
+        return studyNameComparator.thenComparing(ouNameComparator);
     }
 
     private void sortDefaultForExportRows(@NotNull List<Map<String, Object>> exportRows) {
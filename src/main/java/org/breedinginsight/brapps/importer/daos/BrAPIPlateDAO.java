@@ -26,6 +26,7 @@ import org.brapi.v2.model.geno.request.BrAPIPlateNewRequest;
 import org.brapi.v2.model.geno.request.BrAPIPlateSearchRequest;
 import org.breedinginsight.brapps.importer.model.ImportUpload;
 import org.breedinginsight.brapps.importer.services.ExternalReferenceSource;
+import org.breedinginsight.brapps.importer.services.ImportProgressReporter;
 import org.breedinginsight.daos.ProgramDAO;
 import org.breedinginsight.model.Program;
 import org.breedinginsight.services.brapi.BrAPIEndpointProvider;
@@ -35,6 +36,7 @@ import org.breedinginsight.utilities.Utilities;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -44,19 +46,19 @@ public class BrAPIPlateDAO {
     private final String referenceSource;
 
     private final ProgramDAO programDAO;
-    private final ImportDAO importDAO;
+    private final ImportProgressReporter progressReporter;
     private final BrAPIDAOUtil brAPIDAOUtil;
     private final BrAPIEndpointProvider brAPIEndpointProvider;
 
     @Inject
     public BrAPIPlateDAO(ProgramDAO programDAO,
-                         ImportDAO importDAO,
+                         ImportProgressReporter progressReporter,
                          BrAPIDAOUtil brAPIDAOUtil,
                          BrAPIEndpointProvider brAPIEndpointProvider,
                          @Property(name = "brapi.server.reference-source") String referenceSource) {
         this.referenceSource = referenceSource;
         this.programDAO = programDAO;
-        this.importDAO = importDAO;
+        this.progressReporter = progressReporter;
         this.brAPIDAOUtil = brAPIDAOUtil;
         this.brAPIEndpointProvider = brAPIEndpointProvider;
     }
@@ -75,7 +77,7 @@ public class BrAPIPlateDAO {
                                                                                                            .trialDbId(plate.getTrialDbId())
                                                                    )
                                                                    .collect(Collectors.toList());
-        return brAPIDAOUtil.post(newPlatesRequests, upload, platesApi::platesPost, importDAO::update);
+        return brAPIDAOUtil.post(newPlatesRequests, upload, platesApi::platesPost, progressReporter::report);
     }
 
     public List<BrAPIPlate> readPlatesByIds(Program program, List<String> plateExternalIds) throws ApiException {
@@ -90,9 +92,17 @@ public class BrAPIPlateDAO {
     public List<BrAPIPlate> readPlatesBySubmissionIds(Program program, List<String> submissionExternalIds) throws ApiException {
         PlatesApi platesApi = brAPIEndpointProvider.get(programDAO.getSampleClient(program.getId()), PlatesApi.class);
 
-        BrAPIPlateSearchRequest request = new BrAPIPlateSearchRequest().externalReferenceIDs(submissionExternalIds)
-                                                                       .externalReferenceSources(List.of(Utilities.generateReferenceSource(referenceSource, ExternalReferenceSource.PLATE_SUBMISSIONS)));
+        return brAPIDAOUtil.search(platesApi::searchPlatesPost, platesApi::searchPlatesSearchResultsDbIdGet, submissionSearch(submissionExternalIds));
+    }
 
-        return brAPIDAOUtil.search(platesApi::searchPlatesPost, platesApi::searchPlatesSearchResultsDbIdGet, request);
+    public CompletableFuture<List<BrAPIPlate>> readPlatesBySubmissionIdsAsync(Program program, List<String> submissionExternalIds) {
+        PlatesApi platesApi = brAPIEndpointProvider.get(programDAO.getSampleClient(program.getId()), PlatesApi.class);
+
+        return brAPIDAOUtil.searchAsync(platesApi::searchPlatesPost, platesApi::searchPlatesSearchResultsDbIdGet, submissionSearch(submissionExternalIds));
+    }
+
+    private BrAPIPlateSearchRequest submissionSearch(List<String> submissionExternalIds) {
+        return new BrAPIPlateSearchRequest().externalReferenceIDs(submissionExternalIds)
+                                            .externalReferenceSources(List.of(Utilities.generateReferenceSource(referenceSource, ExternalReferenceSource.PLATE_SUBMISSIONS)));
     }
 }
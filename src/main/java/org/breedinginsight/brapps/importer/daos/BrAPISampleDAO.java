@@ -25,6 +25,7 @@ import org.brapi.v2.model.geno.BrAPISample;
 import org.brapi.v2.model.geno.request.BrAPISampleSearchRequest;
 import org.breedinginsight.brapps.importer.model.ImportUpload;
 import org.breedinginsight.brapps.importer.services.ExternalReferenceSource;
+import org.breedinginsight.brapps.importer.services.ImportProgressReporter;
 import org.breedinginsight.daos.ProgramDAO;
 import org.breedinginsight.model.Program;
 import org.breedinginsight.services.brapi.BrAPIEndpointProvider;
@@ -36,6 +37,7 @@ import javax.inject.Singleton;
 import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @Singleton
@@ -44,19 +46,19 @@ public class BrAPISampleDAO {
     private final String referenceSource;
 
     private final ProgramDAO programDAO;
-    private final ImportDAO importDAO;
+    private final ImportProgressReporter progressReporter;
     private final BrAPIDAOUtil brAPIDAOUtil;
     private final BrAPIEndpointProvider brAPIEndpointProvider;
 
     @Inject
     public BrAPISampleDAO(ProgramDAO programDAO,
-                          ImportDAO importDAO,
+                          ImportProgressReporter progressReporter,
                           BrAPIDAOUtil brAPIDAOUtil,
                           BrAPIEndpointProvider brAPIEndpointProvider,
                           @Property(name = "brapi.server.reference-source") String referenceSource) {
         this.referenceSource = referenceSource;
         this.programDAO = programDAO;
-        this.importDAO = importDAO;
+        this.progressReporter = progressReporter;
         this.brAPIDAOUtil = brAPIDAOUtil;
         this.brAPIEndpointProvider = brAPIEndpointProvider;
     }
@@ -64,7 +66,7 @@ public class BrAPISampleDAO {
     public List<BrAPISample> createSamples(Program program, List<BrAPISample> samplesToSave, ImportUpload upload) throws ApiException {
         SamplesApi samplesApi = brAPIEndpointProvider.get(programDAO.getSampleClient(program.getId()), SamplesApi.class);
 
-        return brAPIDAOUtil.post(samplesToSave, upload, samplesApi::samplesPost, importDAO::update);
+        return brAPIDAOUtil.post(samplesToSave, upload, samplesApi::samplesPost, progressReporter::report);
     }
 
     public List<BrAPISample> readSamplesByIds(Program program, List<String> sampleExternalIds) throws ApiException {
@@ -96,10 +98,21 @@ public class BrAPISampleDAO {
             return Collections.emptyList();
         }
 
-        BrAPISampleSearchRequest searchRequest = new BrAPISampleSearchRequest().externalReferenceIDs(submissionExternalIds)
-                                                                               .externalReferenceSources(List.of(Utilities.generateReferenceSource(referenceSource, ExternalReferenceSource.PLATE_SUBMISSIONS)));
+        SamplesApi samplesApi = brAPIEndpointProvider.get(programDAO.getSampleClient(program.getId()), SamplesApi.class);
+        return brAPIDAOUtil.search(samplesApi::searchSamplesPost, samplesApi::searchSamplesSearchResultsDbIdGet, submissionSearch(submissionExternalIds));
+    }
+
+    public CompletableFuture<List<BrAPISample>> readSamplesBySubmissionIdsAsync(Program program, List<String> submissionExternalIds) {
+        if(submissionExternalIds.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
 
         SamplesApi samplesApi = brAPIEndpointProvider.get(programDAO.getSampleClient(program.getId()), SamplesApi.class);
-        return brAPIDAOUtil.search(samplesApi::searchSamplesPost, samplesApi::searchSamplesSearchResultsDbIdGet, searchRequest);
+        return brAPIDAOUtil.searchAsync(samplesApi::searchSamplesPost, samplesApi::searchSamplesSearchResultsDbIdGet, submissionSearch(submissionExternalIds));
+    }
+
+    private BrAPISampleSearchRequest submissionSearch(List<String> submissionExternalIds) {
+        return new BrAPISampleSearchRequest().externalReferenceIDs(submissionExternalIds)
+                                             .externalReferenceSources(List.of(Utilities.generateReferenceSource(referenceSource, ExternalReferenceSource.PLATE_SUBMISSIONS)));
     }
 }
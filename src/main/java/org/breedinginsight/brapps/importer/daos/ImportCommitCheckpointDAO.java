@@ -0,0 +1,114 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.breedinginsight.brapps.importer.daos;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import org.brapi.client.v2.JSON;
+import org.jooq.DSLContext;
+import org.jooq.JSONB;
+import org.jooq.Record2;
+import org.jooq.impl.DSL;
+import org.jooq.impl.SQLDataType;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.lang.reflect.Type;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.breedinginsight.dao.db.Tables.IMPORTER_COMMIT_CHECKPOINT;
+
+@Singleton
+public class ImportCommitCheckpointDAO {
+
+    private static final Type DB_IDS_TYPE = new TypeToken<Map<String, String>>() {}.getType();
+
+    private final DSLContext dsl;
+    private final Gson gson = new JSON().getGson();
+
+    @Inject
+    public ImportCommitCheckpointDAO(DSLContext dsl) {
+        this.dsl = dsl;
+    }
+
+    /**
+     * @return Map - Key = entity type, Value = dbIds acknowledged for the import by pending object key
+     */
+    public Map<String, Map<String, String>> getDbIds(UUID importId) {
+        Map<String, Map<String, String>> dbIdsByEntityType = new HashMap<>();
+        for (Record2<String, JSONB> record : dsl.select(IMPORTER_COMMIT_CHECKPOINT.ENTITY_TYPE, IMPORTER_COMMIT_CHECKPOINT.DB_IDS)
+                .from(IMPORTER_COMMIT_CHECKPOINT)
+                .where(IMPORTER_COMMIT_CHECKPOINT.IMPORTER_IMPORT_ID.eq(importId))
+                .fetch()) {
+            Map<String, String> dbIds = gson.fromJson(record.value2().data(), DB_IDS_TYPE);
+            dbIdsByEntityType.computeIfAbsent(record.value1(), type -> new HashMap<>()).putAll(dbIds);
+        }
+        return dbIdsByEntityType;
+    }
+
+    /**
+     * Saves the dbIds of a chunk acknowledged by the BrAPI service. Saving the same chunk again adds to its dbIds.
+     */
+    public void save(UUID importId, String entityType, String chunkKey, Map<String, String> dbIdsByKey, UUID userId) {
+        JSONB dbIds = JSONB.valueOf(gson.toJson(dbIdsByKey));
+        OffsetDateTime now = OffsetDateTime.now();
+        dsl.insertInto(IMPORTER_COMMIT_CHECKPOINT)
+                .columns(IMPORTER_COMMIT_CHECKPOINT.IMPORTER_IMPORT_ID,
+                        IMPORTER_COMMIT_CHECKPOINT.ENTITY_TYPE,
+                        IMPORTER_COMMIT_CHECKPOINT.CHUNK_KEY,
+                        IMPORTER_COMMIT_CHECKPOINT.DB_IDS,
+                        IMPORTER_COMMIT_CHECKPOINT.CREATED_BY,
+                        IMPORTER_COMMIT_CHECKPOINT.CREATED_AT,
+                        IMPORTER_COMMIT_CHECKPOINT.UPDATED_BY,
+                        IMPORTER_COMMIT_CHECKPOINT.UPDATED_AT)
+                .values(importId, entityType, chunkKey, dbIds, userId, now, userId, now)
+                .onConflict(IMPORTER_COMMIT_CHECKPOINT.IMPORTER_IMPORT_ID,
+                        IMPORTER_COMMIT_CHECKPOINT.ENTITY_TYPE,
+                        IMPORTER_COMMIT_CHECKPOINT.CHUNK_KEY)
+                .doUpdate()
+                .set(IMPORTER_COMMIT_CHECKPOINT.DB_IDS,
+                        DSL.field("{0} || {1}", SQLDataType.JSONB, IMPORTER_COMMIT_CHECKPOINT.DB_IDS, DSL.val(dbIds, SQLDataType.JSONB)))
+                .set(IMPORTER_COMMIT_CHECKPOINT.UPDATED_BY, userId)
+                .set(IMPORTER_COMMIT_CHECKPOINT.UPDATED_AT, now)
+                .execute();
+    }
+
+    public void deleteByImportId(UUID importId) {
+        dsl.deleteFrom(IMPORTER_COMMIT_CHECKPOINT)
+                .where(IMPORTER_COMMIT_CHECKPOINT.IMPORTER_IMPORT_ID.eq(importId))
+                .execute();
+    }
+
+    /**
+     * Deletes the checkpoints of every import whose checkpoints were all last updated before the given time. The
+     * checkpoints of an import are always removed together, so a resumed commit never sees only part of them.
+     *
+     * @return the number of checkpoints deleted
+     */
+    public int deleteImportsUpdatedBefore(OffsetDateTime updatedBefore) {
+        return dsl.deleteFrom(IMPORTER_COMMIT_CHECKPOINT)
+                .where(IMPORTER_COMMIT_CHECKPOINT.IMPORTER_IMPORT_ID.in(
+                        dsl.select(IMPORTER_COMMIT_CHECKPOINT.IMPORTER_IMPORT_ID)
+                                .from(IMPORTER_COMMIT_CHECKPOINT)
+                                .groupBy(IMPORTER_COMMIT_CHECKPOINT.IMPORTER_IMPORT_ID)
+                                .having(DSL.max(IMPORTER_COMMIT_CHECKPOINT.UPDATED_AT).lt(updatedBefore))))
+                .execute();
+    }
+}
@@ -49,11 +49,38 @@ import static org.breedinginsight.dao.db.Tables.*;
 public interface ImportDAO extends DAO<ImporterImportRecord, ImporterImportEntity, UUID> {
 
     Optional<ImportUpload> getUploadById(UUID id);
-    List<ImportUpload> getProgramUploads(UUID programId);
+
+    /**
+     * Reads an upload without its file data, for status and preview reads. The upload cannot be saved with update.
+     */
+    Optional<ImportUpload> getUploadSummaryById(UUID id, boolean includeMappedData);
+
+    /**
+     * Reads the uploads of a program without their file data. The uploads cannot be saved with update.
+     */
+    List<ImportUpload> getProgramUploads(UUID programId, boolean includeMappedData);
 
     void update(ImportUpload upload);
 
     void updateProgress(ImportProgress importProgress);
 
     void createProgress(ImportProgress importProgress);
+
+    /**
+     * Records that the given server instance is still running.
+     */
+    void heartbeat(String instanceId);
+
+    /**
+     * Sets the status and message of queued progress whose owning instance has not recorded a heartbeat since the
+     * given time, and clears its owner. Progress queued since that time is left alone.
+     *
+     * @return the number of progress rows updated
+     */
+    int updateAbandonedQueuedProgress(OffsetDateTime heartbeatBefore, short statuscode, String message);
+
+    /**
+     * Removes instances that have not recorded a heartbeat since the given time.
+     */
+    void deleteStoppedInstances(OffsetDateTime heartbeatBefore);
 }
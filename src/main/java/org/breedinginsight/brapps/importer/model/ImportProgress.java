@@ -17,6 +17,7 @@
 
 package org.breedinginsight.brapps.importer.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -55,11 +56,19 @@ public class ImportProgress extends ImporterProgressEntity {
                 .finished(record.getValue(IMPORTER_PROGRESS.FINISHED))
                 .inProgress(record.getValue(IMPORTER_PROGRESS.IN_PROGRESS))
                 .body(record.getValue(IMPORTER_PROGRESS.BODY))
+                .queuedBy(record.getValue(IMPORTER_PROGRESS.QUEUED_BY))
                 .updatedAt(record.getValue(IMPORTER_PROGRESS.UPDATED_AT))
                 .createdAt(record.getValue(IMPORTER_PROGRESS.CREATED_AT))
                 .build();
     }
 
+    // The server instance holding a queued import is internal
+    @JsonIgnore
+    @Override
+    public String getQueuedBy() {
+        return super.getQueuedBy();
+    }
+
     @JsonProperty("rowErrors")
     public ArrayList<Object> getRowErrors() throws JsonProcessingException {
         ObjectMapper objectMapper = new ObjectMapper();
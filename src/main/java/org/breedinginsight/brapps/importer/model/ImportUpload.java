@@ -21,6 +21,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.http.server.exceptions.InternalServerException;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -32,6 +33,11 @@ import org.breedinginsight.brapps.importer.model.mapping.MappingField;
 import org.breedinginsight.dao.db.tables.pojos.ImporterImportEntity;
 import org.breedinginsight.model.Program;
 import org.breedinginsight.model.User;
+import org.breedinginsight.services.parsers.ParsingException;
+import org.breedinginsight.utilities.CompactTableFormat;
+import org.breedinginsight.utilities.FileUtil;
+import org.jooq.Field;
+import org.jooq.JSONB;
 import org.jooq.Record;
 import tech.tablesaw.api.Table;
 
@@ -59,6 +65,44 @@ public class ImportUpload extends ImporterImportEntity {
     private Table fileDataTable;
     private Table modifiedDataTable;
     private List<MappingField> mappedDataObjects;
+    // Read without the file data, see ImportDAO.getUploadSummaryById
+    @JsonIgnore
+    private boolean summary;
+
+    /**
+     * @return the file data as a table, parsed on first use. Uploads from before the compact format have their file
+     * data in JSON.
+     */
+    public Table getFileDataTable() {
+        if (fileDataTable == null && super.getFileDataCompact() != null) {
+            try {
+                fileDataTable = CompactTableFormat.read(super.getFileDataCompact());
+            } catch (ParsingException e) {
+                throw new InternalServerException(e.toString(), e);
+            }
+        } else if (fileDataTable == null && super.getFileData() != null) {
+            fileDataTable = parseTable(super.getFileData());
+        }
+        return fileDataTable;
+    }
+
+    /**
+     * @return the modified data as a table, parsed on first use
+     */
+    public Table getModifiedDataTable() {
+        if (modifiedDataTable == null && super.getModifiedData() != null) {
+            modifiedDataTable = parseTable(super.getModifiedData());
+        }
+        return modifiedDataTable;
+    }
+
+    private static Table parseTable(JSONB data) {
+        try {
+            return FileUtil.parseTableFromJson(data.toString());
+        } catch (ParsingException e) {
+            throw new InternalServerException(e.toString(), e);
+        }
+    }
 
     @JsonProperty("preview")
     public Map<String, Object> getPreview() throws JsonProcessingException {
@@ -71,6 +115,26 @@ public class ImportUpload extends ImporterImportEntity {
         progress.setInProgress((long) inProgress);
     }
 
+    /**
+     * Marks count objects as being sent to the BrAPI server. Progress is tracked in increments so that commits
+     * posting different entities at the same time keep accurate totals.
+     */
+    public synchronized void startProgress(int count) {
+        progress.setInProgress(valueOrZero(progress.getInProgress()) + count);
+    }
+
+    /**
+     * Moves count objects from in progress to finished.
+     */
+    public synchronized void finishProgress(int count) {
+        progress.setInProgress(Math.max(0, valueOrZero(progress.getInProgress()) - count));
+        progress.setFinished(valueOrZero(progress.getFinished()) + count);
+    }
+
+    private static long valueOrZero(Long value) {
+        return value != null ? value : 0;
+    }
+
     public void setDynamicColumnNames(List<String> dynamicColumnNames) {
         if(dynamicColumnNames != null) {
             super.setDynamicColumnNames(dynamicColumnNames.toArray(new String[0]));
@@ -91,9 +155,10 @@ public class ImportUpload extends ImporterImportEntity {
                 .importerProgressId(record.getValue(IMPORTER_IMPORT.IMPORTER_PROGRESS_ID))
                 .userId(record.getValue(IMPORTER_IMPORT.USER_ID))
                 .uploadFileName(record.getValue(IMPORTER_IMPORT.UPLOAD_FILE_NAME))
-                .fileData(record.getValue(IMPORTER_IMPORT.FILE_DATA))
-                .modifiedData(record.getValue(IMPORTER_IMPORT.MODIFIED_DATA))
-                .mappedData(record.getValue(IMPORTER_IMPORT.MAPPED_DATA))
+                .fileData(valueIfSelected(record, IMPORTER_IMPORT.FILE_DATA))
+                .fileDataCompact(valueIfSelected(record, IMPORTER_IMPORT.FILE_DATA_COMPACT))
+                .modifiedData(valueIfSelected(record, IMPORTER_IMPORT.MODIFIED_DATA))
+                .mappedData(valueIfSelected(record, IMPORTER_IMPORT.MAPPED_DATA))
                 .createdAt(record.getValue(IMPORTER_IMPORT.CREATED_AT))
                 .updatedAt(record.getValue(IMPORTER_IMPORT.UPDATED_AT))
                 .createdBy(record.getValue(IMPORTER_IMPORT.CREATED_BY))
@@ -101,4 +166,8 @@ public class ImportUpload extends ImporterImportEntity {
                 .dynamicColumnNames(record.getValue(IMPORTER_IMPORT.DYNAMIC_COLUMN_NAMES))
                 .build();
     }
+
+    private static <T> T valueIfSelected(Record record, Field<T> field) {
+        return record.field(field) != null ? record.getValue(field) : null;
+    }
 }
@@ -0,0 +1,99 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.brapps.importer.model.imports;
+
+import org.apache.commons.collections4.map.CaseInsensitiveMap;
+import org.breedinginsight.model.Trait;
+
+import java.util.*;
+
+/**
+ * Lookups memoized for the duration of a single import.
+ *
+ * The steps of an import ask for the same program metadata several times, each call to a service being a database
+ * query or a full deserialize of a program cache. The first call loads the value and every later call of the same
+ * import reuses it. Values are shared between steps, so only read-only views are handed out.
+ */
+public class ImportLookups {
+
+    private static final String PROGRAM_TRAITS = "program-traits";
+    private static final String PROGRAM_TRAITS_BY_NAME = "program-traits-by-name";
+
+    @FunctionalInterface
+    public interface Loader<T, E extends Exception> {
+        T load() throws E;
+    }
+
+    private final Map<String, Object> values = new HashMap<>();
+    private int loadCount;
+    private int reuseCount;
+
+    /**
+     * Gets a memoized value, loading it on the first call for the key.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T, E extends Exception> T get(String key, Loader<T, E> loader) throws E {
+        if (values.containsKey(key)) {
+            reuseCount++;
+            return (T) values.get(key);
+        }
+        T value = loader.load();
+        values.put(key, value);
+        loadCount++;
+        return value;
+    }
+
+    /**
+     * @return all active traits of the import program
+     */
+    public <E extends Exception> List<Trait> getProgramTraits(Loader<List<Trait>, E> loader) throws E {
+        return get(PROGRAM_TRAITS, () -> Collections.unmodifiableList(new ArrayList<>(loader.load())));
+    }
+
+    /**
+     * @return all active traits of the import program by case insensitive observation variable name
+     */
+    public <E extends Exception> Map<String, Trait> getProgramTraitsByName(Loader<List<Trait>, E> loader) throws E {
+        return get(PROGRAM_TRAITS_BY_NAME, () -> {
+            Map<String, Trait> traitsByName = new CaseInsensitiveMap<>();
+            for (Trait trait : getProgramTraits(loader)) {
+                traitsByName.put(trait.getObservationVariableName(), trait);
+            }
+            return Collections.unmodifiableMap(traitsByName);
+        });
+    }
+
+    /**
+     * @return the number of distinct lookups that were loaded
+     */
+    public synchronized int getLoadCount() {
+        return loadCount;
+    }
+
+    /**
+     * @return the number of lookups answered from a value loaded earlier in the import
+     */
+    public synchronized int getReuseCount() {
+        return reuseCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("ImportLookups(loaded=%d, reused=%d)", loadCount, reuseCount);
+    }
+}
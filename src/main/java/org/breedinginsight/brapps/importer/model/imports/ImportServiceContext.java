@@ -39,4 +39,5 @@ public class ImportServiceContext {
     private ImportUpload upload;
     private User user;
     private boolean commit;
+    private ImportLookups lookups;
 }
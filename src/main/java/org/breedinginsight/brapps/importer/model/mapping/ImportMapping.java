@@ -63,7 +63,8 @@ public class ImportMapping extends ImporterMappingEntity {
                 .draft(record.getValue(IMPORTER_MAPPING.DRAFT))
                 .name(record.getValue(IMPORTER_MAPPING.NAME))
                 .mapping(record.getValue(IMPORTER_MAPPING.MAPPING))
-                .file(record.getValue(IMPORTER_MAPPING.FILE))
+                // The mapping file is left out of upload summaries
+                .file(record.field(IMPORTER_MAPPING.FILE) != null ? record.getValue(IMPORTER_MAPPING.FILE) : null)
                 .createdAt(record.getValue(IMPORTER_MAPPING.CREATED_AT))
                 .updatedAt(record.getValue(IMPORTER_MAPPING.UPDATED_AT))
                 .createdBy(record.getValue(IMPORTER_MAPPING.CREATED_BY))
@@ -20,6 +20,7 @@ package org.breedinginsight.brapps.importer.model.workflow;
 import lombok.*;
 import org.breedinginsight.brapps.importer.model.ImportUpload;
 import org.breedinginsight.brapps.importer.model.imports.BrAPIImport;
+import org.breedinginsight.brapps.importer.model.imports.ImportLookups;
 import org.breedinginsight.brapps.importer.model.imports.ImportServiceContext;
 import org.breedinginsight.brapps.importer.model.imports.PendingImport;
 import org.breedinginsight.model.Program;
@@ -44,6 +45,7 @@ public class ImportContext {
     private Program program;
     private User user;
     private boolean commit;
+    private ImportLookups lookups;
 
     public static ImportContext from(ImportServiceContext importServiceContext) {
         return ImportContext.builder()
@@ -53,6 +55,7 @@ public class ImportContext {
                 .data(importServiceContext.getData())
                 .importRows(importServiceContext.getBrAPIImports())
                 .upload(importServiceContext.getUpload())
+                .lookups(importServiceContext.getLookups())
                 .build();
     }
 }
\ No newline at end of file
@@ -19,10 +19,12 @@ package org.breedinginsight.brapps.importer.services;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.context.annotation.Property;
 import io.micronaut.http.HttpStatus;
 import io.micronaut.http.exceptions.HttpStatusException;
 import io.micronaut.http.multipart.CompletedFileUpload;
 import io.micronaut.http.server.exceptions.InternalServerException;
+import io.micronaut.scheduling.annotation.Scheduled;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
@@ -36,6 +38,7 @@ import org.breedinginsight.brapps.importer.model.ImportProgress;
 import org.breedinginsight.brapps.importer.model.ImportUpload;
 import org.breedinginsight.brapps.importer.model.config.ImportConfigResponse;
 import org.breedinginsight.brapps.importer.model.imports.BrAPIImportService;
+import org.breedinginsight.brapps.importer.model.imports.ImportLookups;
 import org.breedinginsight.brapps.importer.model.imports.ImportServiceContext;
 import org.breedinginsight.brapps.importer.model.mapping.ImportMapping;
 import org.breedinginsight.brapps.importer.model.imports.BrAPIImport;
@@ -53,6 +56,7 @@ import org.breedinginsight.services.constants.SupportedMediaType;
 import org.breedinginsight.services.exceptions.*;
 import org.breedinginsight.services.parsers.MimeTypeParser;
 import org.breedinginsight.services.parsers.ParsingException;
+import org.breedinginsight.utilities.CompactTableFormat;
 import org.breedinginsight.utilities.FileUtil;
 import org.breedinginsight.utilities.Utilities;
 import org.jooq.DSLContext;
@@ -63,14 +67,21 @@ import tech.tablesaw.columns.Column;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import java.io.IOException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Singleton
 public class FileImportService {
 
+    private static final String QUEUED_MESSAGE = "Queued, waiting for other imports to finish";
+    private static final String QUEUE_FULL_MESSAGE = "Too many imports are waiting to run, try again later";
+    private static final String ABANDONED_MESSAGE = "The server this import was queued on stopped before running it, try again";
+
     private final ProgramUserService programUserService;
     private final ProgramService programService;
     private final UserService userService;
@@ -82,12 +93,18 @@ public class FileImportService {
     private final ImportDAO importDAO;
     private final DSLContext dsl;
     private final ImportMappingProgramDAO importMappingProgramDAO;
+    private final ImportScheduler importScheduler;
+    private final ImportProgressReporter progressReporter;
+    private final Duration instanceTimeout;
+    private final String instanceId = UUID.randomUUID().toString();
 
     @Inject
     FileImportService(ProgramUserService programUserService, ProgramService programService, MimeTypeParser mimeTypeParser,
                       ImportMappingDAO importMappingDAO, ObjectMapper objectMapper, MappingManager mappingManager,
                       ImportConfigManager configManager, ImportDAO importDAO, DSLContext dsl, ImportMappingProgramDAO importMappingProgramDAO,
-                      UserService userService) {
+                      UserService userService, ImportScheduler importScheduler,
+                      ImportProgressReporter progressReporter,
+                      @Property(name = "brapi.import.instance-timeout") Duration instanceTimeout) {
         this.programUserService = programUserService;
         this.programService = programService;
         this.mimeTypeParser = mimeTypeParser;
@@ -99,6 +116,25 @@ public class FileImportService {
         this.dsl = dsl;
         this.importMappingProgramDAO = importMappingProgramDAO;
         this.userService = userService;
+        this.importScheduler = importScheduler;
+        this.progressReporter = progressReporter;
+        this.instanceTimeout = instanceTimeout;
+    }
+
+    /**
+     * Imports are only queued in memory, so imports still queued on an instance that stopped never run. Each instance
+     * records a heartbeat, and queued imports whose instance has missed its heartbeats for brapi.import.instance-timeout
+     * are marked as failed. Imports queued on running instances are left alone.
+     */
+    @Scheduled(fixedDelay = "${brapi.import.heartbeat-interval}", initialDelay = "3s")
+    public void failAbandonedImports() {
+        importDAO.heartbeat(instanceId);
+        OffsetDateTime heartbeatBefore = OffsetDateTime.now().minus(instanceTimeout);
+        int failed = importDAO.updateAbandonedQueuedProgress(heartbeatBefore, (short) HttpStatus.INTERNAL_SERVER_ERROR.getCode(), ABANDONED_MESSAGE);
+        if (failed > 0) {
+            log.info(String.format("Marked %d imports queued on stopped instances as failed", failed));
+        }
+        importDAO.deleteStoppedInstances(heartbeatBefore);
     }
 
     public List<ImportConfigResponse> getAllImportTypeConfigs() {
@@ -281,9 +317,7 @@ public class FileImportService {
         ImportUpload upload = dsl.transactionResult(configuration -> {
             ImportUpload newUpload = new ImportUpload();
             newUpload.setProgramId(programId);
-            String jsonString = data.write().toString("json");
-            JSONB jsonb = JSONB.valueOf(jsonString);
-            newUpload.setFileData(jsonb);
+            newUpload.setFileDataCompact(CompactTableFormat.write(data));
             newUpload.setImporterMappingId(mappingId);
             newUpload.setUploadFileName(filename);
             newUpload.setUserId(actingUser.getId());
@@ -366,7 +400,7 @@ public class FileImportService {
             progress.setStatuscode((short) HttpStatus.UNPROCESSABLE_ENTITY.getCode());
             progress.setMessage(e.getMessage());
             progress.setUpdatedBy(actingUser.getId());
-            importDAO.update(upload);
+            progressReporter.flush(upload);
             throw e;
         } catch (ValidatorException e) {
             log.error("Validation errors", e);
@@ -376,7 +410,7 @@ public class FileImportService {
             String json = (new JSON()).getGson().toJson(e.getErrors());
             progress.setBody(JSONB.valueOf(json));
             progress.setUpdatedBy(actingUser.getId());
-            importDAO.update(upload);
+            progressReporter.flush(upload);
         }
 
         ImportResponse importResponse = new ImportResponse();
@@ -408,9 +442,20 @@ public class FileImportService {
     private void processFile(String workflowId, List<BrAPIImport> finalBrAPIImportList, Table data, Program program,
                              ImportUpload upload, User user, Boolean commit, BrAPIImportService importService,
                              AuthenticatedUser actingUser) {
+        String message = upload.getProgress().getMessage();
+        AtomicBoolean queued = new AtomicBoolean();
+
         // Spin off new process for processing the file
-        CompletableFuture.supplyAsync(() -> {
+        Runnable task = () -> {
             try {
+                // Held by the submitting thread until the queued message is saved
+                synchronized (upload) {
+                    if (queued.get()) {
+                        upload.getProgress().setQueuedBy(null);
+                        upload.getProgress().setMessage(message);
+                        progressReporter.flush(upload);
+                    }
+                }
                 ImportServiceContext context = ImportServiceContext.builder()
                         .workflowId(workflowId)
                         .brAPIImports(finalBrAPIImportList)
@@ -419,36 +464,38 @@ public class FileImportService {
                         .upload(upload)
                         .user(user)
                         .commit(commit)
+                        .lookups(new ImportLookups())
                         .build();
                 importService.process(context);
+                log.debug(String.format("Import %s: %s", upload.getId(), context.getLookups()));
             } catch (UnprocessableEntityException e) {
                 log.error(e.getMessage(), e);
                 ImportProgress progress = upload.getProgress();
                 progress.setStatuscode((short) HttpStatus.UNPROCESSABLE_ENTITY.getCode());
                 progress.setMessage(e.getMessage());
                 progress.setUpdatedBy(actingUser.getId());
-                importDAO.update(upload);
+                progressReporter.flush(upload);
             } catch (DoesNotExistException e) {
                 log.error(e.getMessage(), e);
                 ImportProgress progress = upload.getProgress();
                 progress.setStatuscode((short) HttpStatus.NOT_FOUND.getCode());
                 progress.setMessage(e.getMessage());
                 progress.setUpdatedBy(actingUser.getId());
-                importDAO.update(upload);
+                progressReporter.flush(upload);
             } catch (HttpStatusException e) {
                 log.error(e.getMessage(), e);
                 ImportProgress progress = upload.getProgress();
                 progress.setStatuscode((short) e.getStatus().getCode());
                 progress.setMessage(e.getMessage());
                 progress.setUpdatedBy(actingUser.getId());
-                importDAO.update(upload);
+                progressReporter.flush(upload);
             } catch (MissingRequiredInfoException e) {
                 log.error(e.getMessage(), e);
                 ImportProgress progress = upload.getProgress();
                 progress.setStatuscode((short) HttpStatus.UNPROCESSABLE_ENTITY.getCode());
                 progress.setMessage(e.getMessage());
                 progress.setUpdatedBy(actingUser.getId());
-                importDAO.update(upload);
+                progressReporter.flush(upload);
             }catch (ValidatorException e) {
                 log.info("Validation errors: \n" + e);
                 ImportProgress progress = upload.getProgress();
@@ -457,7 +504,7 @@ public class FileImportService {
                 String json = (new JSON()).getGson().toJson(e.getErrors());
                 progress.setBody(JSONB.valueOf(json));
                 progress.setUpdatedBy(actingUser.getId());
-                importDAO.update(upload);
+                progressReporter.flush(upload);
             } catch (Exception e) {
                 if(e instanceof ApiException) {
                     log.error("Error making BrAPI call: " + Utilities.generateApiExceptionLogMessage((ApiException) e), e);
@@ -469,15 +516,34 @@ public class FileImportService {
                 // TODO: Probably don't want to return this message. But do it for now
                 progress.setMessage(e.getMessage());
                 progress.setUpdatedBy(actingUser.getId());
-                importDAO.update(upload);
+                progressReporter.flush(upload);
             }
-            return null;
-        });
+        };
+
+        // Show the import as queued until a worker picks it up
+        synchronized (upload) {
+            try {
+                if (importScheduler.submit(program.getId(), task)) {
+                    queued.set(true);
+                    upload.getProgress().setQueuedBy(instanceId);
+                    upload.getProgress().setMessage(QUEUED_MESSAGE);
+                    progressReporter.flush(upload);
+                }
+            } catch (RejectedExecutionException e) {
+                log.warn(String.format("Import %s of program %s rejected: %s", upload.getId(), program.getId(), e.getMessage()));
+                ImportProgress progress = upload.getProgress();
+                progress.setStatuscode((short) HttpStatus.SERVICE_UNAVAILABLE.getCode());
+                progress.setMessage(QUEUE_FULL_MESSAGE);
+                progress.setUpdatedBy(actingUser.getId());
+                progressReporter.flush(upload);
+                throw new HttpStatusException(HttpStatus.SERVICE_UNAVAILABLE, QUEUE_FULL_MESSAGE);
+            }
+        }
     }
 
     public Pair<HttpStatus, ImportResponse> getDataUpload(UUID uploadId, Boolean includeMapping) throws DoesNotExistException {
 
-        Optional<ImportUpload> uploadOptional = importDAO.getUploadById(uploadId);
+        Optional<ImportUpload> uploadOptional = importDAO.getUploadSummaryById(uploadId, includeMapping);
         if (uploadOptional.isEmpty()){
             throw new DoesNotExistException("Upload with that id does not exist");
         }
@@ -502,7 +568,7 @@ public class FileImportService {
         if (!optionalProgram.isPresent()) {
             throw new DoesNotExistException("Program id does not exist");
         }
-        List<ImportUpload> uploads = importDAO.getProgramUploads(programId);
+        List<ImportUpload> uploads = importDAO.getProgramUploads(programId, includeMapping);
 
         return uploads.stream().map(upload -> {
             ImportResponse response = new ImportResponse();
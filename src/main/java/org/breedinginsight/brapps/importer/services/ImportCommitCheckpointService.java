@@ -0,0 +1,167 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.breedinginsight.brapps.importer.services;
+
+import io.micronaut.context.annotation.Property;
+import io.micronaut.scheduling.annotation.Scheduled;
+import lombok.extern.slf4j.Slf4j;
+import org.breedinginsight.brapps.importer.daos.ImportCommitCheckpointDAO;
+import org.breedinginsight.brapps.importer.model.ImportUpload;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Records the dbIds the BrAPI service returned for every chunk posted while committing an import. When a commit
+ * fails part way through and is run again for the same upload, objects that were already acknowledged get their
+ * dbIds back from the checkpoints instead of being posted a second time.
+ *
+ * The identifiers given to new objects while the commit is prepared, their UUIDs and experiment and environment
+ * numbers, are recorded as well. A resumed commit reuses them, so the objects it posts reference the ones the earlier
+ * attempt already created.
+ *
+ * Checkpoints are removed when the commit succeeds. A failed commit keeps them so it can be resumed, until none of
+ * them were updated for brapi.import.checkpoint-retention.
+ */
+@Slf4j
+@Singleton
+public class ImportCommitCheckpointService {
+
+    private static final String ASSIGNED_PREFIX = "assigned:";
+    private static final String ASSIGNED_CHUNK = "assigned";
+
+    private final ImportCommitCheckpointDAO checkpointDAO;
+    private final Duration retention;
+
+    @Inject
+    public ImportCommitCheckpointService(ImportCommitCheckpointDAO checkpointDAO,
+                                         @Property(name = "brapi.import.checkpoint-retention") Duration retention) {
+        this.checkpointDAO = checkpointDAO;
+        this.retention = retention;
+    }
+
+    /**
+     * Loads the checkpoints left by earlier attempts to commit the upload.
+     */
+    public Checkpoints load(ImportUpload upload) {
+        Map<String, Map<String, String>> dbIds = checkpointDAO.getDbIds(upload.getId());
+        int acknowledged = dbIds.entrySet()
+                .stream()
+                .filter(entry -> !entry.getKey().startsWith(ASSIGNED_PREFIX))
+                .mapToInt(entry -> entry.getValue().size())
+                .sum();
+        if (acknowledged > 0) {
+            log.info(String.format("Resuming commit of import %s from %d acknowledged objects", upload.getId(), acknowledged));
+        }
+        return new Checkpoints(upload.getId(), upload.getUpdatedBy(), dbIds);
+    }
+
+    /**
+     * Removes the checkpoints once the whole commit succeeded.
+     */
+    public void clear(ImportUpload upload) {
+        checkpointDAO.deleteByImportId(upload.getId());
+    }
+
+    /**
+     * Removes the checkpoints of failed commits that were not resumed within the retention period.
+     */
+    @Scheduled(fixedDelay = "${brapi.import.checkpoint-sweep-interval}", initialDelay = "1m")
+    public void removeExpired() {
+        int deleted = checkpointDAO.deleteImportsUpdatedBefore(OffsetDateTime.now().minus(retention));
+        if (deleted > 0) {
+            log.info(String.format("Removed %d commit checkpoints older than %s", deleted, retention));
+        }
+    }
+
+    public class Checkpoints {
+        private final UUID importId;
+        private final UUID userId;
+        private final Map<String, Map<String, String>> dbIdsByEntityType = new ConcurrentHashMap<>();
+        private final Map<String, Map<String, String>> unsavedByEntityType = new ConcurrentHashMap<>();
+
+        Checkpoints(UUID importId, UUID userId, Map<String, Map<String, String>> dbIds) {
+            this.importId = importId;
+            this.userId = userId;
+            dbIds.forEach((entityType, dbIdsByKey) -> dbIdsByEntityType.put(entityType, new ConcurrentHashMap<>(dbIdsByKey)));
+        }
+
+        /**
+         * @return the dbId acknowledged for the pending object with the given key, if it was already posted
+         */
+        public Optional<String> getDbId(String entityType, String key) {
+            return Optional.ofNullable(dbIdsByEntityType.getOrDefault(entityType, Collections.emptyMap()).get(key));
+        }
+
+        /**
+         * Persists the dbIds of a chunk as soon as the BrAPI service returned them. Safe to call from concurrent
+         * commit tasks.
+         *
+         * @param dbIdsByKey dbIds of the posted objects by pending object key
+         */
+        public void acknowledge(String entityType, String chunkKey, Map<String, String> dbIdsByKey) {
+            if (dbIdsByKey.isEmpty()) {
+                return;
+            }
+            checkpointDAO.save(importId, entityType, chunkKey, dbIdsByKey, userId);
+            dbIdsByEntityType.computeIfAbsent(entityType, type -> new ConcurrentHashMap<>()).putAll(dbIdsByKey);
+        }
+
+        /**
+         * Returns the identifier an earlier attempt gave the new object with the given key, or assigns it a new one.
+         * Newly assigned identifiers are only persisted by {@link #saveAssigned()}.
+         *
+         * @param identifierType what the identifier is, for example the UUID of a study or an environment number
+         * @param newIdentifier  creates the identifier when the object has none yet
+         */
+        public String assign(String identifierType, String key, Supplier<String> newIdentifier) {
+            String entityType = ASSIGNED_PREFIX + identifierType;
+            Optional<String> assigned = getDbId(entityType, key);
+            if (assigned.isPresent()) {
+                return assigned.get();
+            }
+            String identifier = newIdentifier.get();
+            dbIdsByEntityType.computeIfAbsent(entityType, type -> new ConcurrentHashMap<>()).put(key, identifier);
+            unsavedByEntityType.computeIfAbsent(entityType, type -> new ConcurrentHashMap<>()).put(key, identifier);
+            return identifier;
+        }
+
+        /**
+         * Assigns a random UUID the first time the new object with the given key is seen.
+         */
+        public UUID assignId(String identifierType, String key) {
+            return UUID.fromString(assign(identifierType, key, () -> UUID.randomUUID().toString()));
+        }
+
+        /**
+         * Persists the identifiers assigned since the checkpoints were loaded. Must be called before any of the
+         * objects they were assigned to are posted.
+         */
+        public void saveAssigned() {
+            unsavedByEntityType.forEach((entityType, identifiersByKey) -> checkpointDAO.save(importId, entityType, ASSIGNED_CHUNK, identifiersByKey, userId));
+            unsavedByEntityType.clear();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.breedinginsight.brapps.importer.services;
+
+import io.micronaut.context.annotation.Property;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs the independent parts of an import commit at the same time, for example the chains of study, observation
+ * unit and observation posts of different environments.
+ *
+ * Each task is expected to post its own entities in foreign key order, the scheduler only decides how many tasks
+ * run at once. Tasks are started in the order given, at most brapi.commit-parallelism at a time for a single call,
+ * and the call returns once every started task is done. After a task fails no new tasks are started and the first
+ * failure is rethrown.
+ *
+ * Workers run on the import-commit executor configured under micronaut.executors, which is shared by every import
+ * being committed and shut down with the application context.
+ */
+@Slf4j
+@Singleton
+public class ImportCommitScheduler {
+
+    private final int parallelism;
+    private final ExecutorService executor;
+
+    @Inject
+    public ImportCommitScheduler(@Property(name = "brapi.commit-parallelism") int parallelism,
+                                 @Named("import-commit") ExecutorService executor) {
+        this.parallelism = Math.max(1, parallelism);
+        this.executor = executor;
+    }
+
+    @FunctionalInterface
+    public interface CommitTask {
+        void run() throws Exception;
+    }
+
+    public void runAll(List<CommitTask> tasks) throws Exception {
+        if (parallelism == 1 || tasks.size() < 2) {
+            for (CommitTask task : tasks) {
+                task.run();
+            }
+            return;
+        }
+
+        Queue<CommitTask> pending = new ConcurrentLinkedQueue<>(tasks);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        int workerCount = Math.min(parallelism, tasks.size());
+        log.debug(String.format("Running %d commit tasks on %d workers", tasks.size(), workerCount));
+
+        List<Future<?>> workers = new ArrayList<>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            workers.add(executor.submit(() -> {
+                CommitTask task;
+                while (failure.get() == null && (task = pending.poll()) != null) {
+                    try {
+                        task.run();
+                    } catch (Exception e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            }));
+        }
+
+        for (Future<?> worker : workers) {
+            try {
+                worker.get();
+            } catch (ExecutionException e) {
+                // Errors thrown by a task rather than exceptions
+                failure.compareAndSet(null, new RuntimeException(e.getCause()));
+            }
+        }
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+}
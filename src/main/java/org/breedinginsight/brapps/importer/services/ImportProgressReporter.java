@@ -0,0 +1,93 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.brapps.importer.services;
+
+import io.micronaut.scheduling.annotation.Scheduled;
+import lombok.extern.slf4j.Slf4j;
+import org.breedinginsight.brapps.importer.daos.ImportDAO;
+import org.breedinginsight.brapps.importer.model.ImportUpload;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Saves the progress of running imports.
+ *
+ * Progress counts move with every chunk posted to the BrAPI server. {@link #report(ImportUpload)} only marks the
+ * upload's progress as changed, and changed progress is written in the background at most once every
+ * brapi.import.progress-interval, however many chunks were posted in between. State changes, such as a new status or
+ * message, are written right away with {@link #flush(ImportUpload)}.
+ *
+ * Only the progress row is written, the import row with its file and preview data is left as is.
+ */
+@Slf4j
+@Singleton
+public class ImportProgressReporter {
+
+    private final ImportDAO importDAO;
+    // Uploads with unsaved progress by progress id
+    private final Map<UUID, ImportUpload> changed = new ConcurrentHashMap<>();
+
+    @Inject
+    public ImportProgressReporter(ImportDAO importDAO) {
+        this.importDAO = importDAO;
+    }
+
+    /**
+     * Marks the progress of the upload as changed, it is saved with the next background write.
+     */
+    public void report(ImportUpload upload) {
+        changed.put(upload.getProgress().getId(), upload);
+    }
+
+    /**
+     * Saves the progress of the upload now.
+     */
+    public void flush(ImportUpload upload) {
+        changed.remove(upload.getProgress().getId());
+        write(upload);
+    }
+
+    /**
+     * Saves the progress of all uploads marked as changed since the last background write.
+     */
+    @Scheduled(fixedDelay = "${brapi.import.progress-interval}", initialDelay = "${brapi.import.progress-interval}")
+    public void flushChanged() {
+        for (UUID progressId : changed.keySet()) {
+            ImportUpload upload = changed.remove(progressId);
+            if (upload == null) {
+                continue;
+            }
+            try {
+                write(upload);
+            } catch (RuntimeException e) {
+                log.error("Unable to save progress of import " + upload.getId(), e);
+            }
+        }
+    }
+
+    private void write(ImportUpload upload) {
+        // Writes of the same upload are made while holding it, so an older state is never saved over a newer one
+        synchronized (upload) {
+            importDAO.updateProgress(upload.getProgress());
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.brapps.importer.services;
+
+import io.micronaut.context.annotation.Property;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs uploaded imports on the import-worker executor, separate from the common fork join pool. The executor has
+ * brapi.import.workers threads.
+ *
+ * Imports are queued per program and the programs take turns when a worker frees up, so a program with many queued
+ * imports does not hold back the imports of other programs. A program never runs more than
+ * brapi.import.max-per-program imports at once, and no more than brapi.import.max-queued imports wait for a worker. Queue wait and run times are kept in {@link Stats} and logged for
+ * every import.
+ */
+@Slf4j
+@Singleton
+public class ImportScheduler {
+
+    private final int workers;
+    private final int maxPerProgram;
+    private final int maxQueued;
+    private final ExecutorService executor;
+
+    // Programs with queued imports, in the order they take turns
+    private final LinkedHashMap<UUID, Deque<QueuedImport>> queues = new LinkedHashMap<>();
+    private final Map<UUID, Integer> runningByProgram = new HashMap<>();
+    private int running;
+    private int queued;
+
+    private long completed;
+    private long totalQueueWaitMillis;
+    private long maxQueueWaitMillis;
+    private long totalRunMillis;
+    private long maxRunMillis;
+
+    @Inject
+    public ImportScheduler(@Property(name = "brapi.import.workers") int workers,
+                           @Property(name = "brapi.import.max-per-program") int maxPerProgram,
+                           @Property(name = "brapi.import.max-queued") int maxQueued,
+                           @Named("import-worker") ExecutorService executor) {
+        this.workers = Math.max(1, workers);
+        this.maxPerProgram = Math.min(this.workers, Math.max(1, maxPerProgram));
+        this.maxQueued = Math.max(0, maxQueued);
+        this.executor = executor;
+    }
+
+    @Getter
+    @ToString
+    @AllArgsConstructor
+    public static class Stats {
+        private final int queued;
+        private final int running;
+        private final long completed;
+        private final long totalQueueWaitMillis;
+        private final long maxQueueWaitMillis;
+        private final long totalRunMillis;
+        private final long maxRunMillis;
+    }
+
+    @AllArgsConstructor
+    private static class QueuedImport {
+        private final UUID programId;
+        private final Runnable task;
+        private final long queuedAt;
+    }
+
+    /**
+     * Queues an import of a program, it is started as soon as a worker is free and it is the program's turn.
+     * The task is expected to handle its own errors.
+     *
+     * @return true if the import has to wait for other imports to finish, false if it was started right away
+     * @throws RejectedExecutionException if the import would have to wait and brapi.import.max-queued imports are
+     *                                    already waiting
+     */
+    public synchronized boolean submit(UUID programId, Runnable task) {
+        boolean waits = isBusy(programId);
+        if (waits && queued >= maxQueued) {
+            throw new RejectedExecutionException(String.format("%d imports are already waiting for a worker", queued));
+        }
+        queues.computeIfAbsent(programId, id -> new ArrayDeque<>()).add(new QueuedImport(programId, task, System.nanoTime()));
+        queued++;
+        dispatch();
+        return waits;
+    }
+
+    /**
+     * @return true if a new import of the program would have to wait for other imports to finish
+     */
+    public synchronized boolean isBusy(UUID programId) {
+        // Queued imports are only left waiting next to a free worker when their program is at its limit
+        return running >= workers || runningByProgram.getOrDefault(programId, 0) >= maxPerProgram || queues.containsKey(programId);
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(queued, running, completed, totalQueueWaitMillis, maxQueueWaitMillis, totalRunMillis, maxRunMillis);
+    }
+
+    private void dispatch() {
+        while (running < workers) {
+            QueuedImport next = nextImport();
+            if (next == null) {
+                return;
+            }
+            queued--;
+            running++;
+            runningByProgram.merge(next.programId, 1, Integer::sum);
+            executor.execute(() -> run(next));
+        }
+    }
+
+    private QueuedImport nextImport() {
+        Iterator<Map.Entry<UUID, Deque<QueuedImport>>> programs = queues.entrySet().iterator();
+        while (programs.hasNext()) {
+            Map.Entry<UUID, Deque<QueuedImport>> program = programs.next();
+            if (runningByProgram.getOrDefault(program.getKey(), 0) >= maxPerProgram) {
+                continue;
+            }
+            QueuedImport next = program.getValue().poll();
+            // Move the program to the back of the rotation
+            programs.remove();
+            if (!program.getValue().isEmpty()) {
+                queues.put(program.getKey(), program.getValue());
+            }
+            return next;
+        }
+        return null;
+    }
+
+    private void run(QueuedImport queuedImport) {
+        long startedAt = System.nanoTime();
+        try {
+            queuedImport.task.run();
+        } catch (RuntimeException e) {
+            log.error("Unhandled error in import of program " + queuedImport.programId, e);
+        } finally {
+            finish(queuedImport, startedAt, System.nanoTime());
+        }
+    }
+
+    private synchronized void finish(QueuedImport queuedImport, long startedAt, long finishedAt) {
+        long queueWaitMillis = TimeUnit.NANOSECONDS.toMillis(startedAt - queuedImport.queuedAt);
+        long runMillis = TimeUnit.NANOSECONDS.toMillis(finishedAt - startedAt);
+        log.info(String.format("Import of program %s waited %d ms in queue and ran for %d ms", queuedImport.programId, queueWaitMillis, runMillis));
+        completed++;
+        totalQueueWaitMillis += queueWaitMillis;
+        maxQueueWaitMillis = Math.max(maxQueueWaitMillis, queueWaitMillis);
+        totalRunMillis += runMillis;
+        maxRunMillis = Math.max(maxRunMillis, runMillis);
+
+        running--;
+        runningByProgram.computeIfPresent(queuedImport.programId, (id, count) -> count > 1 ? count - 1 : null);
+        dispatch();
+    }
+}
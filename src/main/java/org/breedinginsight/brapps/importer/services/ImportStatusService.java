@@ -33,25 +33,27 @@ import javax.inject.Singleton;
 public class ImportStatusService {
 
     private ImportDAO importDAO;
+    private ImportProgressReporter progressReporter;
     private ObjectMapper objMapper;
 
     @Inject
-    public ImportStatusService(ImportDAO importDAO, ObjectMapper objMapper) {
+    public ImportStatusService(ImportDAO importDAO, ImportProgressReporter progressReporter, ObjectMapper objMapper) {
         this.importDAO = importDAO;
+        this.progressReporter = progressReporter;
         this.objMapper = objMapper;
     }
 
     public void updateMessage(ImportUpload upload, String message) {
         log.debug(message);
         upload.getProgress().setMessage(message);
-        importDAO.update(upload);
+        progressReporter.flush(upload);
     }
 
     public void startUpload(ImportUpload upload, long numberObjects, String message) {
         log.debug(message);
         upload.getProgress().setTotal(numberObjects);
         upload.getProgress().setMessage(message);
-        importDAO.update(upload);
+        progressReporter.flush(upload);
     }
 
     public void finishUpload(ImportUpload upload, long numberObjects, String message) {
@@ -60,7 +62,7 @@ public class ImportStatusService {
         upload.updateProgress(Math.toIntExact(numberObjects), 0);
         upload.getProgress().setMessage(message);
         upload.getProgress().setStatuscode((short) HttpStatus.OK.getCode());
-        importDAO.update(upload);
+        progressReporter.flush(upload);
     }
 
     public void updateMappedData(ImportUpload upload, ImportPreviewResponse response, String message) {
@@ -75,7 +77,7 @@ public class ImportStatusService {
 
     public void updateOk(ImportUpload upload) {
         upload.getProgress().setStatuscode((short) HttpStatus.OK.getCode());
-        importDAO.update(upload);
+        progressReporter.flush(upload);
     }
 
 
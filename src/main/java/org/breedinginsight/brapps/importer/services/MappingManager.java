@@ -17,35 +17,22 @@
 
 package org.breedinginsight.brapps.importer.services;
 
-import io.micronaut.http.HttpStatus;
-import io.micronaut.http.exceptions.HttpStatusException;
-import io.micronaut.http.server.exceptions.InternalServerException;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.StringUtils;
-import org.breedinginsight.api.model.v1.response.ValidationError;
 import org.breedinginsight.api.model.v1.response.ValidationErrors;
-import org.breedinginsight.brapps.importer.model.mapping.ImportMapping;
-import org.breedinginsight.brapps.importer.model.mapping.MappingField;
-import org.breedinginsight.brapps.importer.model.mapping.MappingValue;
-import org.breedinginsight.brapps.importer.model.base.BrAPIObject;
-import org.breedinginsight.brapps.importer.model.config.*;
+import org.breedinginsight.brapps.importer.model.config.ImportFieldTypeEnum;
 import org.breedinginsight.brapps.importer.model.imports.BrAPIImport;
 import org.breedinginsight.brapps.importer.model.imports.BrAPIImportService;
+import org.breedinginsight.brapps.importer.model.mapping.ImportMapping;
 import org.breedinginsight.services.exceptions.UnprocessableEntityException;
 import org.breedinginsight.services.exceptions.ValidatorException;
-import org.breedinginsight.utilities.Utilities;
-import tech.tablesaw.api.ColumnType;
-import tech.tablesaw.api.Row;
 import tech.tablesaw.api.Table;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
-import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
-import java.util.*;
-import java.util.stream.Collectors;
-
-import static org.breedinginsight.brapps.importer.model.config.ImportRelationType.DB_LOOKUP_CONSTANT_VALUE;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @Slf4j
 @Singleton
@@ -84,21 +71,24 @@ public class MappingManager {
         // Go through the file and do the mapping
         // Validity of mapping is checked during the mapping
         List<BrAPIImport> brAPIImports = new ArrayList<>();
-        for (int rowIndex = 0; rowIndex < data.rowCount(); rowIndex++) {
+        if (data.rowCount() == 0) {
+            return brAPIImports;
+        }
 
-            Optional<BrAPIImportService> optionalImportService = configManager.getImportServiceById(importMapping.getImportTypeId());
-            if (optionalImportService.isEmpty()){
-                throw new UnprocessableEntityException("Import type with that id does not exist.");
-            }
-            BrAPIImportService importService = optionalImportService.get();
-            BrAPIImport brAPIImport = importService.getImportClass();
+        Optional<BrAPIImportService> optionalImportService = configManager.getImportServiceById(importMapping.getImportTypeId());
+        if (optionalImportService.isEmpty()){
+            throw new UnprocessableEntityException("Import type with that id does not exist.");
+        }
+        BrAPIImportService importService = optionalImportService.get();
 
-            // Run through the brapi fields and look for a match
-            Field[] fields = brAPIImport.getClass().getDeclaredFields();
-            for (Field field: fields) {
-                mapField(brAPIImport, field, importMapping.getMappingConfig(), data, rowIndex, userInput, process, validationErrors, importService);
+        // Fields, mappings and columns are matched once for the upload, not for every row
+        MappingPlan plan = null;
+        for (int rowIndex = 0; rowIndex < data.rowCount(); rowIndex++) {
+            BrAPIImport brAPIImport = importService.getImportClass();
+            if (plan == null) {
+                plan = MappingPlan.compile(brAPIImport.getClass(), importMapping.getMappingConfig(), data, userInput, process, importService);
             }
-
+            plan.mapRow(brAPIImport, rowIndex, validationErrors);
             brAPIImports.add(brAPIImport);
         }
 
@@ -109,271 +99,12 @@ public class MappingManager {
         return brAPIImports;
     }
 
-    private void mapField(Object parent, Field field, List<MappingField> mappings, Table importFile, Integer rowIndex,
-                          Map<String, Object> userInput, Boolean process, ValidationErrors validationErrors,
-                          BrAPIImportService importService) throws UnprocessableEntityException {
-
-        Row focusRow = importFile.row(rowIndex);
-        // Process this field
-        ImportFieldType type = field.getAnnotation(ImportFieldType.class);
-        ImportFieldMetadata metadata;
-        if (type == null) {
-            return;
-        } else if (type.type() != ImportFieldTypeEnum.LIST) {
-            metadata = field.getAnnotation(ImportFieldMetadata.class) != null ?
-                    field.getAnnotation(ImportFieldMetadata.class) : field.getType().getAnnotation(ImportFieldMetadata.class);
-        } else {
-            metadata = field.getAnnotation(ImportFieldMetadata.class) != null ?
-                    field.getAnnotation(ImportFieldMetadata.class) : (ImportFieldMetadata) type.clazz().getAnnotation(ImportFieldMetadata.class);
-        }
-        ImportMappingRequired required = field.getAnnotation(ImportMappingRequired.class);
-
-        // Check if it is a user input field
-        if (type.collectTime().equals(ImportCollectTimeEnum.UPLOAD)) {
-            // User input, check that it was passed
-            if (process) {
-                mapUserInputField(parent, field, userInput, type, metadata, required, importService);
-            }
-            return;
-        }
-        List<MappingField> foundMappings = new ArrayList<>();
-        if (mappings != null) {
-             foundMappings = mappings.stream()
-                    .filter(mappingField -> mappingField.getObjectId().equals(metadata.id())).collect(Collectors.toList());
-        }
-
-        // Check required field is present
-        // TODO: Separate into validation method to add other validations later on
-        if (required != null && foundMappings.size() == 0) {
-            throw new UnprocessableEntityException(String.format(
-                    "Required field, %s, not provided", metadata.id()));
-        } else if (required == null && foundMappings.size() == 0) {
-            return;
-        }
-        MappingField matchedMapping = foundMappings.get(0);
-        if (type == null) {
-            throw new InternalServerException("BrAPIObject is missing import type annotation");
-        } else if (type.type() == ImportFieldTypeEnum.OBJECT) {
-
-            Boolean objectIsEmpty = fieldObjectIsEmpty(matchedMapping);
-            if (required != null && objectIsEmpty) {
-                throw new UnprocessableEntityException(String.format(
-                        "Required object, %s, was not mapped", metadata.id()));
-            } else if (required == null && objectIsEmpty) {
-                return;
-            }
-
-            BrAPIObject brAPIObject;
-            try {
-                brAPIObject = (BrAPIObject) field.getType().getDeclaredConstructor().newInstance();
-                List<Field> fields = Arrays.asList(brAPIObject.getClass().getDeclaredFields());
-                for (Field lowerField: fields) {
-                    mapField(brAPIObject, lowerField, matchedMapping.getMapping(), importFile, rowIndex, userInput, process, validationErrors, importService);
-                }
-                if (brapiObjectIsEmpty(brAPIObject)) brAPIObject = null;
-
-                field.setAccessible(true);
-                field.set(parent, brAPIObject);
-                field.setAccessible(false);
-            } catch (InstantiationException | IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
-                throw new InternalServerException(e.toString(), e);
-            }
-        } else if (type.type() == ImportFieldTypeEnum.LIST) {
-            //TODO: Current can't handle primitive types, only BrAPIObject types
-
-            if (matchedMapping.getMapping() == null && required != null) {
-                throw new UnprocessableEntityException(String.format(
-                        "List field, %s, contains no entries", metadata.id()));
-            } else if (matchedMapping.getMapping() == null) {
-                return;
-            }
-
-            List<BrAPIObject> updatedList = new ArrayList<>();
-            for (MappingField listField: matchedMapping.getMapping()){
-
-                BrAPIObject newObject;
-                try {
-                    newObject = (BrAPIObject) type.clazz().getDeclaredConstructor().newInstance();
-                } catch (InstantiationException | IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
-                    throw new InternalServerException(e.toString(), e);
-                }
-
-                // Populate new object
-                List<Field> fields = Arrays.asList(newObject.getClass().getDeclaredFields());
-                for (Field lowerField: fields) {
-                    mapField(newObject, lowerField, listField.getMapping(), importFile, rowIndex, userInput, process, validationErrors, importService);
-                }
-
-                field.setAccessible(true);
-                List<BrAPIObject> currentList;
-                try {
-                    currentList = (List<BrAPIObject>) field.get(parent);
-                } catch (IllegalAccessException e) {
-                    throw new InternalServerException(e.toString(), e);
-                }
-                if (currentList != null) updatedList.addAll(currentList);
-                else updatedList.add(newObject);
-            }
-
-            try {
-                field.setAccessible(true);
-                field.set(parent, updatedList);
-                field.setAccessible(false);
-            } catch (IllegalAccessException e) {
-                throw new InternalServerException(e.toString(), e);
-            }
-        } else if (type.type() == ImportFieldTypeEnum.RELATIONSHIP) {
-            if (required != null && (matchedMapping.getValue() == null ||
-                    matchedMapping.getValue().getRelationMap() == null)) {
-                throw new UnprocessableEntityException(String.format("Relationship field %s is required", metadata.name()));
-            } else if (matchedMapping.getValue() == null || matchedMapping.getValue().getRelationMap() == null) {
-                return;
-            } else if (matchedMapping.getValue().getRelationMap().getReference() == null &&
-                    matchedMapping.getValue().getRelationMap().getTarget() == null)
-            {
-                throw new HttpStatusException(HttpStatus.BAD_REQUEST, "Relationship field is not properly formatted");
-            }
-
-            MappingValue value = matchedMapping.getValue();
-            MappedImportRelation relationship = new MappedImportRelation();
-            relationship.setType(value.getRelationValue());
-            relationship.setTargetColumn(value.getRelationMap().getTarget());
-            String referenceColumn = value.getRelationMap().getReference();
-            if (referenceColumn != null){
-                if (relationship.getType() == DB_LOOKUP_CONSTANT_VALUE) {
-                    relationship.setReferenceValue(referenceColumn);
-                } else {
-                    relationship.setReferenceValue(focusRow.getString(referenceColumn));
-                }
-            }
-            if (StringUtils.isBlank(relationship.getReferenceValue())) relationship = null;
-            try {
-                field.setAccessible(true);
-                field.set(parent, relationship);
-                field.setAccessible(false);
-            } catch (IllegalAccessException e) {
-                throw new InternalServerException(e.toString(), e);
-            }
-        } else {
-            // It is a simple type
-
-            // Check that request field is properly formatted
-            if (required != null && matchedMapping.getValue() == null) {
-                throw new UnprocessableEntityException(String.format("Field %s is required", metadata.name()));
-            } else if (required == null && matchedMapping.getValue() == null) {
-                return;
-            } else if (matchedMapping.getValue() != null &&
-                    matchedMapping.getValue().getFileFieldName() == null && matchedMapping.getValue().getConstantValue() == null){
-                throw new HttpStatusException(HttpStatus.BAD_REQUEST, "Basic mapping field must have file field or constant value specified.");
-            }
-
-            // Check if the mapping passed a constant value or a mapped value
-            if (matchedMapping.getValue().getFileFieldName() != null) {
-                // Check that the file has this name
-                if (!Utilities.containsCaseInsensitive(matchedMapping.getValue().getFileFieldName(), focusRow.columnNames())) {
-                    log.debug("Expected column missing from file: " + matchedMapping.getValue().getFileFieldName());
-                    throw new UnprocessableEntityException(importService.getMissingColumnMsg(matchedMapping.getValue().getFileFieldName()));
-                }
-
-                // TODO: should handle all types, not sure if better way to do this with tablesaw?
-                String fileValue;
-                ColumnType columnType = focusRow.getColumnType(matchedMapping.getValue().getFileFieldName());
-                if (columnType == ColumnType.DOUBLE) {
-                    fileValue = String.valueOf(focusRow.getDouble(matchedMapping.getValue().getFileFieldName()));
-                } else if (columnType == ColumnType.INTEGER) {
-                    fileValue = String.valueOf(focusRow.getInt(matchedMapping.getValue().getFileFieldName()));
-                }
-                else if (columnType == ColumnType.BOOLEAN) {
-                    fileValue = String.valueOf(focusRow.getBoolean(matchedMapping.getValue().getFileFieldName()));
-                }
-                else {
-                    fileValue = focusRow.getString(matchedMapping.getValue().getFileFieldName());
-                }
-
-                checkFieldType(type.type(), matchedMapping.getValue().getFileFieldName(), fileValue, importService);
-
-                // Check non-null value
-                if (required != null && fileValue.isBlank()) {
-                    ValidationError ve = new ValidationError(matchedMapping.getValue().getFileFieldName(),
-                            importService.getBlankRequiredFieldMsg(matchedMapping.getValue().getFileFieldName()), HttpStatus.UNPROCESSABLE_ENTITY);
-                    validationErrors.addError(getRowNumber(rowIndex), ve);
-                }
-
-                if (StringUtils.isBlank(fileValue)) fileValue = null;
-                try {
-                    field.setAccessible(true);
-                    field.set(parent, fileValue);
-                    field.setAccessible(false);
-                } catch (IllegalAccessException e) {
-                    throw new InternalServerException(e.toString(), e);
-                }
-            } else if (matchedMapping.getValue().getConstantValue() != null){
-                String value = matchedMapping.getValue().getConstantValue();
-                checkFieldType(type.type(), metadata.name(), value, importService);
-
-                // Check non-null value
-                if (required != null && value.isBlank()) {
-
-                    //throw new UnprocessableEntityException(String.format(blankRequiredField,  metadata.name()));
-                    ValidationError ve = new ValidationError(metadata.name(),
-                            importService.getBlankRequiredFieldMsg(metadata.name()), HttpStatus.UNPROCESSABLE_ENTITY);
-                    validationErrors.addError(getRowNumber(rowIndex), ve);
-                }
-
-                if (StringUtils.isBlank(value)) value = null;
-                try {
-                    field.setAccessible(true);
-                    field.set(parent, value);
-                    field.setAccessible(false);
-                } catch (IllegalAccessException e) {
-                    throw new InternalServerException(e.toString(), e);
-                }
-            }
-
-        }
-
-    }
-
-    private static int getRowNumber(int row) {
+    static int getRowNumber(int row) {
         // 0 index and header offset
         return row+2;
     }
 
-    private void mapUserInputField(Object parent, Field field, Map<String, Object> userInput, ImportFieldType type,
-                                   ImportFieldMetadata metadata, ImportMappingRequired required,
-                                   BrAPIImportService importService) throws UnprocessableEntityException {
-
-        // Only supports user input at the top level of an object at the moment. No nested objects. Map<String, String>
-        String fieldId = metadata.id();
-        if ((userInput == null || !userInput.containsKey(fieldId)) && required != null) {
-            throw new UnprocessableEntityException(importService.getMissingUserInputMsg(metadata.name()));
-        }
-        else if (required != null && userInput.containsKey(fieldId) && userInput.get(fieldId).toString().isBlank()) {
-            throw new UnprocessableEntityException(importService.getMissingUserInputMsg(metadata.name()));
-        }
-        else if (userInput != null && userInput.containsKey(fieldId)) {
-            String value = userInput.get(fieldId).toString();
-            if (!isCorrectType(type.type(), value)) {
-                throw new UnprocessableEntityException(importService.getWrongUserInputDataTypeMsg(metadata.name(), type.type().toString().toLowerCase()));
-            }
-            try {
-                field.setAccessible(true);
-                field.set(parent, value);
-                field.setAccessible(false);
-            } catch (IllegalAccessException e) {
-                throw new InternalServerException(e.toString(), e);
-            }
-        }
-    }
-
-    private void checkFieldType(ImportFieldTypeEnum expectedType, String column, String value, BrAPIImportService importService) throws UnprocessableEntityException {
-        //TODO: Do more type checks
-        if (!isCorrectType(expectedType, value)) {
-            throw new UnprocessableEntityException(importService.getInvalidIntegerMsg(column));
-        }
-    }
-
-    private Boolean isCorrectType(ImportFieldTypeEnum expectedType, String value) {
+    static boolean isCorrectType(ImportFieldTypeEnum expectedType, String value) {
         if (!value.isBlank()) {
             if (expectedType == ImportFieldTypeEnum.INTEGER) {
                 try {
@@ -388,63 +119,4 @@ public class MappingManager {
         }
         return true;
     }
-
-    /*
-        A mapped object is considered null if no fields in it have been mapped
-     */
-    private Boolean fieldObjectIsEmpty(MappingField mappedObject) {
-        if (mappedObject.getMapping() != null){
-            for (MappingField mappedField: mappedObject.getMapping()) {
-                if (mappedField != null &&
-                        (mappedField.getValue() != null ||
-                                (mappedField.getMapping() != null && mappedField.getMapping().size() > 0))
-                ){
-                    return false;
-                }
-            }
-        }
-
-        return true;
-    }
-
-    private Boolean brapiObjectIsEmpty(BrAPIObject brAPIObject) {
-
-        if (brAPIObject == null) return true;
-
-        Field[] fields = brAPIObject.getClass().getDeclaredFields();
-        for (Field field: fields) {
-
-            // Check the type
-            ImportFieldType type = field.getAnnotation(ImportFieldType.class);
-            if (type == null) continue;
-
-            Object fieldValue;
-            try {
-                field.setAccessible(true);
-                fieldValue = field.get(brAPIObject);
-                field.setAccessible(false);
-            } catch (IllegalAccessException e) {
-                throw new InternalServerException(e.toString(), e);
-            }
-
-            if (type.type() == ImportFieldTypeEnum.LIST) continue;
-            else if (type.type() == ImportFieldTypeEnum.OBJECT) {
-                // Dive deeper
-                BrAPIObject childBrAPIObject = (BrAPIObject) fieldValue;
-                Boolean childObjectIsEmpty = brapiObjectIsEmpty(childBrAPIObject);
-                if (!childObjectIsEmpty) return false;
-            }
-            else if (type.type() == ImportFieldTypeEnum.RELATIONSHIP) {
-                // Check the reference value of the relationship
-                MappedImportRelation relation = (MappedImportRelation) fieldValue;
-                if (relation != null && !StringUtils.isBlank(relation.getReferenceValue())) return false;
-            } else {
-                // Check the value isn't blank
-                String simpleValue = (String) fieldValue;
-                if (!StringUtils.isBlank(simpleValue)) return false;
-            }
-        }
-
-        return true;
-    }
 }
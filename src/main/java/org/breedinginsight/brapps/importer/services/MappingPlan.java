@@ -0,0 +1,500 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.brapps.importer.services;
+
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.exceptions.HttpStatusException;
+import io.micronaut.http.server.exceptions.InternalServerException;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.breedinginsight.api.model.v1.response.ValidationError;
+import org.breedinginsight.api.model.v1.response.ValidationErrors;
+import org.breedinginsight.brapps.importer.model.base.BrAPIObject;
+import org.breedinginsight.brapps.importer.model.config.*;
+import org.breedinginsight.brapps.importer.model.imports.BrAPIImportService;
+import org.breedinginsight.brapps.importer.model.mapping.MappingField;
+import org.breedinginsight.brapps.importer.model.mapping.MappingValue;
+import org.breedinginsight.services.exceptions.UnprocessableEntityException;
+import org.breedinginsight.utilities.Utilities;
+import tech.tablesaw.api.*;
+import tech.tablesaw.columns.Column;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.breedinginsight.brapps.importer.model.config.ImportRelationType.DB_LOOKUP_CONSTANT_VALUE;
+
+/**
+ * A mapping config compiled for one uploaded table.
+ *
+ * Mapping used to look up the field annotations, search the mapping config and find the mapped column by name for
+ * every field of every row. The plan does that once per upload: each mapped field becomes a step holding its column
+ * reader, its setter and the checks of its mapping, so mapping a row only reads cells and sets fields.
+ *
+ * Mapping errors that do not depend on the row, such as a missing required mapping or column, are kept as steps that
+ * throw. They are raised at the same point of the first row as before, after the errors of the fields before them.
+ */
+@Slf4j
+class MappingPlan {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    @FunctionalInterface
+    private interface Step {
+        void apply(Object parent, int rowIndex, ValidationErrors validationErrors) throws UnprocessableEntityException;
+    }
+
+    @FunctionalInterface
+    private interface CellReader {
+        String read(int rowIndex);
+    }
+
+    private final Table data;
+    private final Map<String, Object> userInput;
+    private final boolean process;
+    private final BrAPIImportService importService;
+    private final Map<String, CellReader> cellReaders = new HashMap<>();
+    private final Map<Class<?>, Emptiness> emptinessByClass = new HashMap<>();
+    private final List<Step> steps;
+
+    private MappingPlan(Class<?> importClass, List<MappingField> mappings, Table data, Map<String, Object> userInput,
+                        boolean process, BrAPIImportService importService) {
+        this.data = data;
+        this.userInput = userInput;
+        this.process = process;
+        this.importService = importService;
+        this.steps = compileFields(importClass, mappings);
+    }
+
+    static MappingPlan compile(Class<?> importClass, List<MappingField> mappings, Table data,
+                               Map<String, Object> userInput, boolean process, BrAPIImportService importService) {
+        return new MappingPlan(importClass, mappings, data, userInput, process, importService);
+    }
+
+    /**
+     * Maps a row of the table onto a new import object. Only reads the plan, so rows can be mapped from any thread.
+     */
+    void mapRow(Object brAPIImport, int rowIndex, ValidationErrors validationErrors) throws UnprocessableEntityException {
+        for (Step step : steps) {
+            step.apply(brAPIImport, rowIndex, validationErrors);
+        }
+    }
+
+    private List<Step> compileFields(Class<?> clazz, List<MappingField> mappings) {
+        List<Step> fieldSteps = new ArrayList<>();
+        for (Field field : clazz.getDeclaredFields()) {
+            ImportFieldType type = field.getAnnotation(ImportFieldType.class);
+            if (type == null) {
+                continue;
+            }
+            Step step;
+            try {
+                step = compileField(field, type, mappings);
+            } catch (UnprocessableEntityException | RuntimeException e) {
+                step = (parent, rowIndex, validationErrors) -> rethrow(e);
+            }
+            if (step != null) {
+                fieldSteps.add(step);
+            }
+        }
+        return fieldSteps;
+    }
+
+    private Step compileField(Field field, ImportFieldType type, List<MappingField> mappings) throws UnprocessableEntityException {
+        ImportFieldMetadata metadata;
+        if (type.type() != ImportFieldTypeEnum.LIST) {
+            metadata = field.getAnnotation(ImportFieldMetadata.class) != null ?
+                    field.getAnnotation(ImportFieldMetadata.class) : field.getType().getAnnotation(ImportFieldMetadata.class);
+        } else {
+            metadata = field.getAnnotation(ImportFieldMetadata.class) != null ?
+                    field.getAnnotation(ImportFieldMetadata.class) : (ImportFieldMetadata) type.clazz().getAnnotation(ImportFieldMetadata.class);
+        }
+        ImportMappingRequired required = field.getAnnotation(ImportMappingRequired.class);
+
+        // Check if it is a user input field
+        if (type.collectTime().equals(ImportCollectTimeEnum.UPLOAD)) {
+            if (!process) {
+                return null;
+            }
+            MethodHandle setter = setter(field);
+            return (parent, rowIndex, validationErrors) -> mapUserInputField(parent, setter, type, metadata, required);
+        }
+
+        List<MappingField> foundMappings = new ArrayList<>();
+        if (mappings != null) {
+            foundMappings = mappings.stream()
+                    .filter(mappingField -> mappingField.getObjectId().equals(metadata.id())).collect(Collectors.toList());
+        }
+
+        // Check required field is present
+        if (required != null && foundMappings.size() == 0) {
+            throw new UnprocessableEntityException(String.format(
+                    "Required field, %s, not provided", metadata.id()));
+        } else if (required == null && foundMappings.size() == 0) {
+            return null;
+        }
+        MappingField matchedMapping = foundMappings.get(0);
+        if (type.type() == ImportFieldTypeEnum.OBJECT) {
+            return compileObjectField(field, metadata, required, matchedMapping);
+        } else if (type.type() == ImportFieldTypeEnum.LIST) {
+            return compileListField(field, type, metadata, required, matchedMapping);
+        } else if (type.type() == ImportFieldTypeEnum.RELATIONSHIP) {
+            return compileRelationshipField(field, metadata, required, matchedMapping);
+        } else {
+            return compileSimpleField(field, type, metadata, required, matchedMapping);
+        }
+    }
+
+    private Step compileObjectField(Field field, ImportFieldMetadata metadata, ImportMappingRequired required,
+                                    MappingField matchedMapping) throws UnprocessableEntityException {
+        boolean objectIsEmpty = fieldObjectIsEmpty(matchedMapping);
+        if (required != null && objectIsEmpty) {
+            throw new UnprocessableEntityException(String.format(
+                    "Required object, %s, was not mapped", metadata.id()));
+        } else if (required == null && objectIsEmpty) {
+            return null;
+        }
+
+        MethodHandle constructor = constructor(field.getType());
+        List<Step> objectSteps = compileFields(field.getType(), matchedMapping.getMapping());
+        Emptiness emptiness = emptiness(field.getType());
+        MethodHandle setter = setter(field);
+        return (parent, rowIndex, validationErrors) -> {
+            Object brAPIObject = newInstance(constructor);
+            for (Step step : objectSteps) {
+                step.apply(brAPIObject, rowIndex, validationErrors);
+            }
+            if (emptiness.isEmpty(brAPIObject)) brAPIObject = null;
+            set(setter, parent, brAPIObject);
+        };
+    }
+
+    private Step compileListField(Field field, ImportFieldType type, ImportFieldMetadata metadata,
+                                  ImportMappingRequired required, MappingField matchedMapping) throws UnprocessableEntityException {
+        //TODO: Current can't handle primitive types, only BrAPIObject types
+        if (matchedMapping.getMapping() == null && required != null) {
+            throw new UnprocessableEntityException(String.format(
+                    "List field, %s, contains no entries", metadata.id()));
+        } else if (matchedMapping.getMapping() == null) {
+            return null;
+        }
+
+        List<List<Step>> entrySteps = new ArrayList<>();
+        for (MappingField listField : matchedMapping.getMapping()) {
+            entrySteps.add(compileFields(type.clazz(), listField.getMapping()));
+        }
+        MethodHandle constructor = entrySteps.isEmpty() ? null : constructor(type.clazz());
+        MethodHandle getter = getter(field);
+        MethodHandle setter = setter(field);
+        return (parent, rowIndex, validationErrors) -> {
+            List<BrAPIObject> updatedList = new ArrayList<>();
+            for (List<Step> objectSteps : entrySteps) {
+                BrAPIObject newObject = (BrAPIObject) newInstance(constructor);
+                for (Step step : objectSteps) {
+                    step.apply(newObject, rowIndex, validationErrors);
+                }
+                List<BrAPIObject> currentList = (List<BrAPIObject>) get(getter, parent);
+                if (currentList != null) updatedList.addAll(currentList);
+                else updatedList.add(newObject);
+            }
+            set(setter, parent, updatedList);
+        };
+    }
+
+    private Step compileRelationshipField(Field field, ImportFieldMetadata metadata, ImportMappingRequired required,
+                                          MappingField matchedMapping) throws UnprocessableEntityException {
+        if (required != null && (matchedMapping.getValue() == null ||
+                matchedMapping.getValue().getRelationMap() == null)) {
+            throw new UnprocessableEntityException(String.format("Relationship field %s is required", metadata.name()));
+        } else if (matchedMapping.getValue() == null || matchedMapping.getValue().getRelationMap() == null) {
+            return null;
+        } else if (matchedMapping.getValue().getRelationMap().getReference() == null &&
+                matchedMapping.getValue().getRelationMap().getTarget() == null) {
+            throw new HttpStatusException(HttpStatus.BAD_REQUEST, "Relationship field is not properly formatted");
+        }
+
+        MappingValue value = matchedMapping.getValue();
+        ImportRelationType relationType = value.getRelationValue();
+        String targetColumn = value.getRelationMap().getTarget();
+        String referenceColumn = value.getRelationMap().getReference();
+        CellReader referenceReader = referenceColumn != null && relationType != DB_LOOKUP_CONSTANT_VALUE ?
+                stringReader(referenceColumn) : null;
+        MethodHandle setter = setter(field);
+        return (parent, rowIndex, validationErrors) -> {
+            MappedImportRelation relationship = new MappedImportRelation();
+            relationship.setType(relationType);
+            relationship.setTargetColumn(targetColumn);
+            if (referenceColumn != null) {
+                if (relationType == DB_LOOKUP_CONSTANT_VALUE) {
+                    relationship.setReferenceValue(referenceColumn);
+                } else {
+                    relationship.setReferenceValue(referenceReader.read(rowIndex));
+                }
+            }
+            if (StringUtils.isBlank(relationship.getReferenceValue())) relationship = null;
+            set(setter, parent, relationship);
+        };
+    }
+
+    private Step compileSimpleField(Field field, ImportFieldType type, ImportFieldMetadata metadata,
+                                    ImportMappingRequired required, MappingField matchedMapping) throws UnprocessableEntityException {
+        // Check that request field is properly formatted
+        if (required != null && matchedMapping.getValue() == null) {
+            throw new UnprocessableEntityException(String.format("Field %s is required", metadata.name()));
+        } else if (required == null && matchedMapping.getValue() == null) {
+            return null;
+        } else if (matchedMapping.getValue().getFileFieldName() == null && matchedMapping.getValue().getConstantValue() == null) {
+            throw new HttpStatusException(HttpStatus.BAD_REQUEST, "Basic mapping field must have file field or constant value specified.");
+        }
+
+        MethodHandle setter = setter(field);
+        // Check if the mapping passed a constant value or a mapped value
+        String fileFieldName = matchedMapping.getValue().getFileFieldName();
+        if (fileFieldName != null) {
+            // Check that the file has this name
+            if (!Utilities.containsCaseInsensitive(fileFieldName, data.columnNames())) {
+                log.debug("Expected column missing from file: " + fileFieldName);
+                throw new UnprocessableEntityException(importService.getMissingColumnMsg(fileFieldName));
+            }
+
+            CellReader reader = cellReader(fileFieldName);
+            return (parent, rowIndex, validationErrors) -> {
+                String fileValue = reader.read(rowIndex);
+                checkFieldType(type.type(), fileFieldName, fileValue);
+
+                // Check non-null value
+                if (required != null && fileValue.isBlank()) {
+                    ValidationError ve = new ValidationError(fileFieldName,
+                            importService.getBlankRequiredFieldMsg(fileFieldName), HttpStatus.UNPROCESSABLE_ENTITY);
+                    validationErrors.addError(MappingManager.getRowNumber(rowIndex), ve);
+                }
+
+                set(setter, parent, StringUtils.isBlank(fileValue) ? null : fileValue);
+            };
+        } else {
+            String value = matchedMapping.getValue().getConstantValue();
+            return (parent, rowIndex, validationErrors) -> {
+                checkFieldType(type.type(), metadata.name(), value);
+
+                // Check non-null value
+                if (required != null && value.isBlank()) {
+                    ValidationError ve = new ValidationError(metadata.name(),
+                            importService.getBlankRequiredFieldMsg(metadata.name()), HttpStatus.UNPROCESSABLE_ENTITY);
+                    validationErrors.addError(MappingManager.getRowNumber(rowIndex), ve);
+                }
+
+                set(setter, parent, StringUtils.isBlank(value) ? null : value);
+            };
+        }
+    }
+
+    private void mapUserInputField(Object parent, MethodHandle setter, ImportFieldType type, ImportFieldMetadata metadata,
+                                   ImportMappingRequired required) throws UnprocessableEntityException {
+
+        // Only supports user input at the top level of an object at the moment. No nested objects. Map<String, String>
+        String fieldId = metadata.id();
+        if ((userInput == null || !userInput.containsKey(fieldId)) && required != null) {
+            throw new UnprocessableEntityException(importService.getMissingUserInputMsg(metadata.name()));
+        }
+        else if (required != null && userInput.containsKey(fieldId) && userInput.get(fieldId).toString().isBlank()) {
+            throw new UnprocessableEntityException(importService.getMissingUserInputMsg(metadata.name()));
+        }
+        else if (userInput != null && userInput.containsKey(fieldId)) {
+            String value = userInput.get(fieldId).toString();
+            if (!MappingManager.isCorrectType(type.type(), value)) {
+                throw new UnprocessableEntityException(importService.getWrongUserInputDataTypeMsg(metadata.name(), type.type().toString().toLowerCase()));
+            }
+            set(setter, parent, value);
+        }
+    }
+
+    private void checkFieldType(ImportFieldTypeEnum expectedType, String column, String value) throws UnprocessableEntityException {
+        if (!MappingManager.isCorrectType(expectedType, value)) {
+            throw new UnprocessableEntityException(importService.getInvalidIntegerMsg(column));
+        }
+    }
+
+    /**
+     * Reads cells of a column as the mapping expects them, numbers and booleans are read as their string value.
+     */
+    private CellReader cellReader(String columnName) {
+        return cellReaders.computeIfAbsent(columnName, name -> {
+            Column<?> column = data.column(data.columnIndex(name));
+            if (column.type() == ColumnType.DOUBLE) {
+                DoubleColumn doubleColumn = (DoubleColumn) column;
+                return rowIndex -> String.valueOf(doubleColumn.getDouble(rowIndex));
+            } else if (column.type() == ColumnType.INTEGER) {
+                IntColumn intColumn = (IntColumn) column;
+                return rowIndex -> String.valueOf(intColumn.getInt(rowIndex));
+            } else if (column.type() == ColumnType.BOOLEAN) {
+                BooleanColumn booleanColumn = (BooleanColumn) column;
+                return rowIndex -> String.valueOf(booleanColumn.get(rowIndex));
+            }
+            return stringReader(name);
+        });
+    }
+
+    private CellReader stringReader(String columnName) {
+        if (Utilities.containsCaseInsensitive(columnName, data.columnNames())) {
+            Column<?> column = data.column(data.columnIndex(columnName));
+            if (column.type() == ColumnType.STRING) {
+                StringColumn stringColumn = (StringColumn) column;
+                return stringColumn::get;
+            }
+        }
+        // Not a string column, read it through the row to fail as the row does
+        return rowIndex -> data.row(rowIndex).getString(columnName);
+    }
+
+    /*
+        A mapped object is considered null if no fields in it have been mapped
+     */
+    private static boolean fieldObjectIsEmpty(MappingField mappedObject) {
+        if (mappedObject.getMapping() != null){
+            for (MappingField mappedField: mappedObject.getMapping()) {
+                if (mappedField != null &&
+                        (mappedField.getValue() != null ||
+                                (mappedField.getMapping() != null && mappedField.getMapping().size() > 0))
+                ){
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Checks whether a mapped object of a class has any values, an object without values is not set on its parent.
+     */
+    private static class Emptiness {
+        private final List<MethodHandle> getters = new ArrayList<>();
+        private final List<ImportFieldTypeEnum> types = new ArrayList<>();
+        private final List<Emptiness> objects = new ArrayList<>();
+
+        boolean isEmpty(Object brAPIObject) {
+            if (brAPIObject == null) return true;
+
+            for (int i = 0; i < getters.size(); i++) {
+                ImportFieldTypeEnum type = types.get(i);
+                if (type == ImportFieldTypeEnum.LIST) continue;
+
+                Object fieldValue = get(getters.get(i), brAPIObject);
+                if (type == ImportFieldTypeEnum.OBJECT) {
+                    // Dive deeper
+                    if (!objects.get(i).isEmpty(fieldValue)) return false;
+                } else if (type == ImportFieldTypeEnum.RELATIONSHIP) {
+                    // Check the reference value of the relationship
+                    MappedImportRelation relation = (MappedImportRelation) fieldValue;
+                    if (relation != null && !StringUtils.isBlank(relation.getReferenceValue())) return false;
+                } else {
+                    // Check the value isn't blank
+                    if (!StringUtils.isBlank((String) fieldValue)) return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private Emptiness emptiness(Class<?> clazz) {
+        Emptiness emptiness = emptinessByClass.get(clazz);
+        if (emptiness != null) {
+            return emptiness;
+        }
+        emptiness = new Emptiness();
+        emptinessByClass.put(clazz, emptiness);
+        for (Field field : clazz.getDeclaredFields()) {
+            ImportFieldType type = field.getAnnotation(ImportFieldType.class);
+            if (type == null) continue;
+            emptiness.getters.add(getter(field));
+            emptiness.types.add(type.type());
+            emptiness.objects.add(type.type() == ImportFieldTypeEnum.OBJECT ? emptiness(field.getType()) : null);
+        }
+        return emptiness;
+    }
+
+    private static MethodHandle constructor(Class<?> clazz) {
+        try {
+            Constructor<?> constructor = clazz.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return LOOKUP.unreflectConstructor(constructor).asType(MethodType.methodType(Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new InternalServerException(e.toString(), e);
+        }
+    }
+
+    private static MethodHandle getter(Field field) {
+        try {
+            field.setAccessible(true);
+            return LOOKUP.unreflectGetter(field).asType(MethodType.methodType(Object.class, Object.class));
+        } catch (IllegalAccessException e) {
+            throw new InternalServerException(e.toString(), e);
+        }
+    }
+
+    private static MethodHandle setter(Field field) {
+        try {
+            field.setAccessible(true);
+            return LOOKUP.unreflectSetter(field).asType(MethodType.methodType(void.class, Object.class, Object.class));
+        } catch (IllegalAccessException e) {
+            throw new InternalServerException(e.toString(), e);
+        }
+    }
+
+    private static Object newInstance(MethodHandle constructor) {
+        try {
+            return (Object) constructor.invokeExact();
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new InternalServerException(e.toString(), e);
+        }
+    }
+
+    private static Object get(MethodHandle getter, Object parent) {
+        try {
+            return (Object) getter.invokeExact(parent);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new InternalServerException(e.toString(), e);
+        }
+    }
+
+    private static void set(MethodHandle setter, Object parent, Object value) {
+        try {
+            setter.invokeExact(parent, value);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new InternalServerException(e.toString(), e);
+        }
+    }
+
+    private static void rethrow(Exception e) throws UnprocessableEntityException {
+        if (e instanceof UnprocessableEntityException) {
+            throw (UnprocessableEntityException) e;
+        }
+        throw (RuntimeException) e;
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.brapps.importer.services;
+
+import io.micronaut.context.annotation.Property;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.breedinginsight.api.model.v1.response.ValidationErrors;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Validates import rows in parallel.
+ *
+ * Row rules only look at their own row. The rows are split into chunks of brapi.import.validation-chunk-size rows
+ * that are validated on the import-validation executor, each chunk into its own {@link ValidationErrors}.
+ * The chunk errors are merged in row order, so the errors read the same as if the rows were validated one by one.
+ *
+ * Rules across rows, such as duplicate detection, find the duplicate rows in a single pass over the rows that keeps the
+ * keys seen so far in a hash set before the chunks are validated. Their errors are then added in the chunks at the
+ * rule's position, like the errors of any other rule.
+ *
+ * The time spent in every rule is logged at debug level.
+ */
+@Slf4j
+@Singleton
+public class RowValidationEngine {
+
+    private final int chunkSize;
+    private final ExecutorService executor;
+
+    @Inject
+    public RowValidationEngine(@Named("import-validation") ExecutorService executor,
+                               @Property(name = "brapi.import.validation-chunk-size") int chunkSize) {
+        this.chunkSize = Math.max(1, chunkSize);
+        this.executor = executor;
+    }
+
+    /**
+     * Validates a single row, adding any errors to the given errors.
+     */
+    @FunctionalInterface
+    public interface RowRule<R> {
+        void validate(R row, int rowNum, ValidationErrors validationErrors);
+    }
+
+    /**
+     * The rules to validate a list of rows with, in the order their errors are added for a row.
+     */
+    public static class Rules<R> {
+        private final List<String> names = new ArrayList<>();
+        private final List<RowRule<R>> rules = new ArrayList<>();
+        // The key of every duplicate rule, null for row rules
+        private final List<Function<R, String>> duplicateKeys = new ArrayList<>();
+
+        /**
+         * Adds a rule that only looks at its own row. It can be run for rows of different chunks at the same time.
+         */
+        public Rules<R> rowRule(String name, RowRule<R> rule) {
+            names.add(name);
+            rules.add(rule);
+            duplicateKeys.add(null);
+            return this;
+        }
+
+        /**
+         * Adds a rule run for every row with the same key as an earlier row. Rows with a blank key are never
+         * duplicates.
+         */
+        public Rules<R> duplicateRule(String name, Function<R, String> key, RowRule<R> onDuplicate) {
+            names.add(name);
+            rules.add(onDuplicate);
+            duplicateKeys.add(key);
+            return this;
+        }
+    }
+
+    public <R> ValidationErrors validate(List<R> rows, Rules<R> rules) {
+        long start = System.nanoTime();
+        LongAdder[] ruleNanos = new LongAdder[rules.rules.size()];
+        List<RowRule<R>> rowRules = new ArrayList<>(rules.rules.size());
+        for (int i = 0; i < ruleNanos.length; i++) {
+            ruleNanos[i] = new LongAdder();
+            Function<R, String> duplicateKey = rules.duplicateKeys.get(i);
+            RowRule<R> rule = rules.rules.get(i);
+            if (duplicateKey == null) {
+                rowRules.add(rule);
+            } else {
+                long ruleStart = System.nanoTime();
+                BitSet duplicates = findDuplicates(rows, duplicateKey);
+                ruleNanos[i].add(System.nanoTime() - ruleStart);
+                rowRules.add((row, rowNum, validationErrors) -> {
+                    if (duplicates.get(rowNum)) {
+                        rule.validate(row, rowNum, validationErrors);
+                    }
+                });
+            }
+        }
+
+        int chunks = (rows.size() + chunkSize - 1) / chunkSize;
+        List<ValidationErrors> chunkErrors = new ArrayList<>(chunks);
+        if (chunks <= 1) {
+            chunkErrors.add(validateChunk(rows, 0, rows.size(), rowRules, ruleNanos));
+        } else {
+            List<Future<ValidationErrors>> futures = new ArrayList<>(chunks);
+            for (int from = 0; from < rows.size(); from += chunkSize) {
+                int chunkFrom = from;
+                int chunkTo = Math.min(rows.size(), from + chunkSize);
+                futures.add(executor.submit(() -> validateChunk(rows, chunkFrom, chunkTo, rowRules, ruleNanos)));
+            }
+            for (Future<ValidationErrors> future : futures) {
+                chunkErrors.add(join(future));
+            }
+        }
+
+        // Chunks hold different rows, so their rows are appended as they are
+        ValidationErrors validationErrors = new ValidationErrors();
+        for (ValidationErrors errors : chunkErrors) {
+            validationErrors.getRowErrors().addAll(errors.getRowErrors());
+        }
+
+        if (log.isDebugEnabled()) {
+            StringJoiner timings = new StringJoiner(", ");
+            for (int i = 0; i < ruleNanos.length; i++) {
+                timings.add(String.format("%s %d ms", rules.names.get(i), ruleNanos[i].sum() / 1_000_000));
+            }
+            log.debug(String.format("Validated %d rows in %d chunks in %d ms: %s", rows.size(), chunks,
+                    (System.nanoTime() - start) / 1_000_000, timings));
+        }
+        return validationErrors;
+    }
+
+    private <R> ValidationErrors validateChunk(List<R> rows, int from, int to, List<RowRule<R>> rules, LongAdder[] ruleNanos) {
+        ValidationErrors validationErrors = new ValidationErrors();
+        // Row by row, so the rows are added to the errors in row order and the errors of a row in the order of the rules
+        long[] chunkRuleNanos = new long[rules.size()];
+        for (int rowNum = from; rowNum < to; rowNum++) {
+            R row = rows.get(rowNum);
+            for (int i = 0; i < rules.size(); i++) {
+                long ruleStart = System.nanoTime();
+                rules.get(i).validate(row, rowNum, validationErrors);
+                chunkRuleNanos[i] += System.nanoTime() - ruleStart;
+            }
+        }
+        for (int i = 0; i < chunkRuleNanos.length; i++) {
+            ruleNanos[i].add(chunkRuleNanos[i]);
+        }
+        return validationErrors;
+    }
+
+    /**
+     * @return the rows with the same key as an earlier row
+     */
+    private <R> BitSet findDuplicates(List<R> rows, Function<R, String> key) {
+        BitSet duplicates = new BitSet(rows.size());
+        Set<String> seen = new HashSet<>();
+        for (int rowNum = 0; rowNum < rows.size(); rowNum++) {
+            String rowKey = key.apply(rows.get(rowNum));
+            if (StringUtils.isNotBlank(rowKey) && !seen.add(rowKey)) {
+                duplicates.set(rowNum);
+            }
+        }
+        return duplicates;
+    }
+
+    private static ValidationErrors join(Future<ValidationErrors> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while validating import rows", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
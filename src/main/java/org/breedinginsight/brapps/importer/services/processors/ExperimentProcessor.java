@@ -30,6 +30,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.collections4.map.CaseInsensitiveMap;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.Pair;
 import org.brapi.client.v2.JSON;
 import org.brapi.client.v2.model.exceptions.ApiException;
 import org.brapi.v2.model.BrAPIExternalReference;
@@ -39,7 +40,6 @@ import org.brapi.v2.model.core.response.BrAPIListDetails;
 import org.brapi.v2.model.germ.BrAPIGermplasm;
 import org.brapi.v2.model.pheno.BrAPIObservation;
 import org.brapi.v2.model.pheno.BrAPIObservationUnit;
-import org.brapi.v2.model.pheno.BrAPIScaleValidValuesCategories;
 import org.breedinginsight.api.auth.AuthenticatedUser;
 import org.breedinginsight.api.model.v1.request.ProgramLocationRequest;
 import org.breedinginsight.api.model.v1.response.ValidationError;
@@ -57,10 +57,15 @@ import org.breedinginsight.brapps.importer.model.response.ImportPreviewStatistic
 import org.breedinginsight.brapps.importer.model.response.PendingImportObject;
 import org.breedinginsight.brapps.importer.services.ExternalReferenceSource;
 import org.breedinginsight.brapps.importer.services.FileMappingUtil;
+import org.breedinginsight.brapps.importer.services.RowValidationEngine;
+import org.breedinginsight.brapps.importer.services.processors.experiment.service.ObservationService;
+import org.breedinginsight.brapps.importer.services.processors.experiment.validator.field.ScaleValidationReport;
+import org.breedinginsight.brapps.importer.services.processors.experiment.validator.field.ScaleValidator;
 import org.breedinginsight.dao.db.tables.pojos.TraitEntity;
 import org.breedinginsight.model.*;
 import org.breedinginsight.services.OntologyService;
 import org.breedinginsight.services.ProgramLocationService;
+import org.breedinginsight.services.SequenceAllocatorService;
 import org.breedinginsight.services.exceptions.DoesNotExistException;
 import org.breedinginsight.services.exceptions.MissingRequiredInfoException;
 import org.breedinginsight.services.exceptions.UnprocessableEntityException;
@@ -72,7 +77,6 @@ import tech.tablesaw.api.Table;
 import tech.tablesaw.columns.Column;
 
 import javax.inject.Inject;
-import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
@@ -113,6 +117,9 @@ public class ExperimentProcessor implements Processor {
     private final BrAPIListDAO brAPIListDAO;
     private final OntologyService ontologyService;
     private final FileMappingUtil fileMappingUtil;
+    private final SequenceAllocatorService sequenceAllocatorService;
+    private final RowValidationEngine rowValidationEngine;
+    private final ObservationService observationService;
 
 
     // used to make the yearsToSeasonDbId() function more efficient
@@ -156,7 +163,10 @@ public class ExperimentProcessor implements Processor {
                                BrAPISeasonDAO brAPISeasonDAO,
                                BrAPIGermplasmDAO brAPIGermplasmDAO,
                                BrAPIListDAO brAPIListDAO, OntologyService ontologyService,
-                               FileMappingUtil fileMappingUtil) {
+                               FileMappingUtil fileMappingUtil,
+                               SequenceAllocatorService sequenceAllocatorService,
+                               RowValidationEngine rowValidationEngine,
+                               ObservationService observationService) {
         this.dsl = dsl;
         this.brapiTrialDAO = brapiTrialDAO;
         this.locationService = locationService;
@@ -168,6 +178,9 @@ public class ExperimentProcessor implements Processor {
         this.brAPIListDAO = brAPIListDAO;
         this.ontologyService = ontologyService;
         this.fileMappingUtil = fileMappingUtil;
+        this.sequenceAllocatorService = sequenceAllocatorService;
+        this.rowValidationEngine = rowValidationEngine;
+        this.observationService = observationService;
         this.gson = new JSON().getGson();
     }
 
@@ -411,7 +424,7 @@ public class ExperimentProcessor implements Processor {
 
         datasetNewDataById.forEach((id, dataset) -> {
             try {
-                List<String> existingObsVarIds = brAPIListDAO.getListById(id, program.getId()).getResult().getData();
+                List<String> existingObsVarIds = brAPIListDAO.getListById(id, program.getId(), true).getResult().getData();
                 List<String> newObsVarIds = dataset
                         .getData()
                         .stream()
@@ -580,14 +593,16 @@ public class ExperimentProcessor implements Processor {
             log.error(String.format("Program, %s, is missing a value in the exp sequence column.", program.getName()));
             throw new HttpStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "Program is not properly configured for observation unit import");
         }
-        Supplier<BigInteger> expNextVal = () -> dsl.nextval(expSequenceName.toLowerCase());
+        // An import creates at most one experiment
+        Supplier<BigInteger> expNextVal = sequenceAllocatorService.allocate(expSequenceName.toLowerCase(), 1);
 
         String envSequenceName = program.getEnvSequence();
         if (envSequenceName == null) {
             log.error(String.format("Program, %s, is missing a value in the env sequence column.", program.getName()));
             throw new HttpStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "Program is not properly configured for environment import");
         }
-        Supplier<BigInteger> envNextVal = () -> dsl.nextval(envSequenceName.toLowerCase());
+        Supplier<BigInteger> envNextVal = sequenceAllocatorService.allocate(envSequenceName.toLowerCase(),
+                ExperimentUtilities.countNewEnvironments(importRows, studyByNameNoScope.keySet()));
         existingObsByObsHash = fetchExistingObservations(referencedTraits, program);
 
         for (int rowNum = 0; rowNum < importRows.size(); rowNum++) {
@@ -694,36 +709,74 @@ public class ExperimentProcessor implements Processor {
     private void validateFields(List<BrAPIImport> importRows, ValidationErrors validationErrors, Map<Integer, PendingImport> mappedBrAPIImport, List<Trait> referencedTraits, Program program,
                                 List<Column<?>> phenotypeCols, boolean commit, User user) {
         //fetching any existing observations for any OUs in the import
-        CaseInsensitiveMap<String, Trait> colVarMap = new CaseInsensitiveMap<>();
+        CaseInsensitiveMap<String, ScaleValidator> scaleValidatorByCol = new CaseInsensitiveMap<>();
         for ( Trait trait: referencedTraits) {
-            colVarMap.put(trait.getObservationVariableName(),trait);
+            scaleValidatorByCol.put(trait.getObservationVariableName(), ScaleValidator.of(trait, observationService));
+        }
+        ScaleValidationReport scaleReport = ScaleValidationReport.of(phenotypeCols, scaleValidatorByCol::get);
+        RowValidationEngine.Rules<BrAPIImport> rules = new RowValidationEngine.Rules<>();
+        if (!hasAllReferenceUnitIds) {
+            resolveSeasons(importRows, program, commit);
+            rules.rowRule("germplasm", (row, rowNum, errors) -> {
+                        ExperimentObservation importRow = (ExperimentObservation) row;
+                        if (StringUtils.isNotBlank(importRow.getGid())) { // if GID is blank, don't bother to check if it is valid.
+                            validateGermplasm(importRow, errors, rowNum, mappedBrAPIImport.get(rowNum).getGermplasm());
+                        }
+                    })
+                    .rowRule("test or check", (row, rowNum, errors) -> validateTestOrCheck((ExperimentObservation) row, errors, rowNum))
+                    .rowRule("conditionally required", (row, rowNum, errors) -> validateConditionallyRequired(errors, rowNum, (ExperimentObservation) row, program, commit))
+                    .duplicateRule("unique observation units", row -> createObservationUnitKey((ExperimentObservation) row),
+                            (row, rowNum, errors) -> addDuplicateObsUnitError(errors, rowNum, (ExperimentObservation) row))
+                    .rowRule("observation units", (row, rowNum, errors) -> validateObservationUnits(errors, rowNum, (ExperimentObservation) row));
         }
-        Set<String> uniqueStudyAndObsUnit = new HashSet<>();
-        for (int rowNum = 0; rowNum < importRows.size(); rowNum++) {
-            ExperimentObservation importRow = (ExperimentObservation) importRows.get(rowNum);
-            PendingImport mappedImportRow = mappedBrAPIImport.get(rowNum);
-            if (hasAllReferenceUnitIds) {
-                validateObservations(validationErrors, rowNum, importRow, phenotypeCols, colVarMap, commit, user);
-            } else {
-                if (StringUtils.isNotBlank(importRow.getGid())) { // if GID is blank, don't bother to check if it is valid.
-                    validateGermplasm(importRow, validationErrors, rowNum, mappedImportRow.getGermplasm());
-                }
-                validateTestOrCheck(importRow, validationErrors, rowNum);
-                validateConditionallyRequired(validationErrors, rowNum, importRow, program, commit);
-                validateObservationUnits(validationErrors, uniqueStudyAndObsUnit, rowNum, importRow);
-                validateObservations(validationErrors, rowNum, importRow, phenotypeCols, colVarMap, commit, user);
+        // Change log entries of updated observations, added if no row has errors
+        List<Pair<BrAPIObservation, ChangeLogEntry>> changeLogs = Collections.synchronizedList(new ArrayList<>());
+        rules.rowRule("observations", (row, rowNum, errors) -> validateObservations(errors, rowNum, (ExperimentObservation) row, phenotypeCols, scaleReport, commit, user, changeLogs));
+
+        validationErrors.merge(rowValidationEngine.validate(importRows, rules));
+        if (!validationErrors.hasErrors()) {
+            changeLogs.forEach(changeLog -> addChangeLogEntry(changeLog.getLeft(), changeLog.getRight()));
+        }
+    }
+
+    private void addChangeLogEntry(BrAPIObservation pendingObservation, ChangeLogEntry change) {
+        // create the changelog field in additional info if it does not already exist
+        if (pendingObservation.getAdditionalInfo().isJsonNull()) {
+            pendingObservation.setAdditionalInfo(new JsonObject());
+            pendingObservation.getAdditionalInfo().add(BrAPIAdditionalInfoFields.CHANGELOG, new JsonArray());
+        }
+
+        if (pendingObservation.getAdditionalInfo() != null && !pendingObservation.getAdditionalInfo().has(BrAPIAdditionalInfoFields.CHANGELOG)) {
+            pendingObservation.getAdditionalInfo().add(BrAPIAdditionalInfoFields.CHANGELOG, new JsonArray());
+        }
+
+        // add a new entry to the changelog
+        pendingObservation.getAdditionalInfo().get(BrAPIAdditionalInfoFields.CHANGELOG).getAsJsonArray().add(gson.toJsonTree(change).getAsJsonObject());
+    }
+
+    /**
+     * Looks up the seasons of the years that are validated against existing environments, creating the ones that do
+     * not exist yet, so the rows validated in parallel only read the season cache.
+     */
+    private void resolveSeasons(List<BrAPIImport> importRows, Program program, boolean commit) {
+        if (!commit) {
+            return;
+        }
+        for (BrAPIImport row : importRows) {
+            ExperimentObservation importRow = (ExperimentObservation) row;
+            ImportObjectState expState = this.trialByNameNoScope.get(importRow.getExpTitle()).getState();
+            ImportObjectState envState = this.studyByNameNoScope.get(importRow.getEnv()).getState();
+            if ((expState == ImportObjectState.NEW || envState == ImportObjectState.NEW) && StringUtils.isNotBlank(importRow.getEnvYear())) {
+                this.yearToSeasonDbId(importRow.getEnvYear(), program.getId());
             }
         }
     }
 
     private void validateObservationUnits(
             ValidationErrors validationErrors,
-            Set<String> uniqueStudyAndObsUnit,
             int rowNum,
             ExperimentObservation importRow
     ) {
-        validateUniqueObsUnits(validationErrors, uniqueStudyAndObsUnit, rowNum, importRow);
-
         String key = createObservationUnitKey(importRow);
         PendingImportObject<BrAPIObservationUnit> ouPIO = observationUnitByNameNoScope.get(key);
         if(ouPIO.getState() == ImportObjectState.NEW && StringUtils.isNotBlank(importRow.getObsUnitID())) {
@@ -851,9 +904,10 @@ public class ExperimentProcessor implements Processor {
                                       int rowNum,
                                       ExperimentObservation importRow,
                                       List<Column<?>> phenotypeCols,
-                                      CaseInsensitiveMap<String, Trait> colVarMap,
+                                      ScaleValidationReport scaleReport,
                                       boolean commit,
-                                      User user) {
+                                      User user,
+                                      List<Pair<BrAPIObservation, ChangeLogEntry>> changeLogs) {
         phenotypeCols.forEach(phenoCol -> {
             String importHash;
             String importObsValue = phenoCol.getString(rowNum);
@@ -886,7 +940,7 @@ public class ExperimentProcessor implements Processor {
 
                 // different data means validations still need to happen
                 // TODO consider moving these two calls into a separate method since called twice together
-                validateObservationValue(colVarMap.get(phenoCol.name()), phenoCol.getString(rowNum), phenoCol.name(), validationErrors, rowNum);
+                validateObservationValue(scaleReport.getResult(phenoCol.name(), rowNum), phenoCol.name(), validationErrors, rowNum);
 
                 //Timestamp validation
                 if(timeStampColByPheno.containsKey(phenoCol.name())) {
@@ -895,8 +949,8 @@ public class ExperimentProcessor implements Processor {
                 }
                 
                 // add a change log entry when updating the value of an observation
-                // only will update and thereby need change log entry if no error
-                if (commit && (!validationErrors.hasErrors())) {
+                // only will update and thereby need change log entry if no error, so they are added once all rows are validated
+                if (commit) {
                     BrAPIObservation pendingObservation = observationByHash.get(importHash).getBrAPIObject();
                     DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd:hh-mm-ssZ");
                     String timestamp = formatter.format(OffsetDateTime.now());
@@ -915,18 +969,7 @@ public class ExperimentProcessor implements Processor {
                             timestamp
                     );
 
-                    // create the changelog field in additional info if it does not already exist
-                    if (pendingObservation.getAdditionalInfo().isJsonNull()) {
-                        pendingObservation.setAdditionalInfo(new JsonObject());
-                        pendingObservation.getAdditionalInfo().add(BrAPIAdditionalInfoFields.CHANGELOG, new JsonArray());
-                    }
-
-                    if (pendingObservation.getAdditionalInfo() != null && !pendingObservation.getAdditionalInfo().has(BrAPIAdditionalInfoFields.CHANGELOG)) {
-                        pendingObservation.getAdditionalInfo().add(BrAPIAdditionalInfoFields.CHANGELOG, new JsonArray());
-                    }
-
-                    // add a new entry to the changelog
-                    pendingObservation.getAdditionalInfo().get(BrAPIAdditionalInfoFields.CHANGELOG).getAsJsonArray().add(gson.toJsonTree(change).getAsJsonObject());
+                    changeLogs.add(Pair.of(pendingObservation, change));
                 }
 
                 // preview case where observation has already been committed and import ObsVar data is the
@@ -941,7 +984,7 @@ public class ExperimentProcessor implements Processor {
             } else if(!existingObsByObsHash.containsKey(importHash) && (StringUtils.isBlank(phenoCol.getString(rowNum)))) {
                 observationByHash.get(importHash).setState(ImportObjectState.EXISTING);
             } else {
-                validateObservationValue(colVarMap.get(phenoCol.name()), phenoCol.getString(rowNum), phenoCol.name(), validationErrors, rowNum);
+                validateObservationValue(scaleReport.getResult(phenoCol.name(), rowNum), phenoCol.name(), validationErrors, rowNum);
 
                 //Timestamp validation
                 if(timeStampColByPheno.containsKey(phenoCol.name())) {
@@ -953,31 +996,19 @@ public class ExperimentProcessor implements Processor {
     }
 
     /**
-     * Validate that the observation unit is unique within a study.
-     * <br>
-     * SIDE EFFECTS:  validationErrors and uniqueStudyAndObsUnit can be modified.
+     * Adds the error for an observation unit that is not unique within a study, the rows with the same unit are found
+     * by the duplicate pass of the validation.
      *
      * @param validationErrors      can be modified as a side effect.
-     * @param uniqueStudyAndObsUnit can be modified as a side effect.
-     * @param rowNum                     counter that is always two less the file row being validated
+     * @param rowNum                counter that is always two less the file row being validated
      * @param importRow             the data row being validated
      */
-    private void validateUniqueObsUnits(
+    private void addDuplicateObsUnitError(
             ValidationErrors validationErrors,
-            Set<String> uniqueStudyAndObsUnit,
             int rowNum,
             ExperimentObservation importRow) {
-        String envIdPlusStudyId = createObservationUnitKey(importRow);
-        if (uniqueStudyAndObsUnit.contains(envIdPlusStudyId)) {
-            String errorMessage = String.format("The ID (%s) is not unique within the environment(%s)", importRow.getExpUnitId(), importRow.getEnv());
-            this.addRowError(Columns.EXP_UNIT_ID, errorMessage, validationErrors, rowNum);
-        } else {
-            //Only want to add valid unique study-obs unit combos
-            //To avoid situations like system counting a null value as a unique combo
-            if (!envIdPlusStudyId.isBlank()) {
-                uniqueStudyAndObsUnit.add(envIdPlusStudyId);
-            }
-        }
+        String errorMessage = String.format("The ID (%s) is not unique within the environment(%s)", importRow.getExpUnitId(), importRow.getEnv());
+        this.addRowError(Columns.EXP_UNIT_ID, errorMessage, validationErrors, rowNum);
     }
 
     private void validateConditionallyRequired(ValidationErrors validationErrors, int rowNum, ExperimentObservation importRow, Program program, boolean commit) {
@@ -2388,66 +2419,27 @@ public class ExperimentProcessor implements Processor {
 
     }
 
-    private boolean isNAObservation(String value){
-        return value.equalsIgnoreCase("NA");
-    }
-
-    private void validateObservationValue(Trait variable, String value,
+    private void validateObservationValue(ScaleValidator.Result result,
                                           String columnHeader, ValidationErrors validationErrors, int row) {
-        if (StringUtils.isBlank(value)) {
-            log.debug(String.format("skipping validation of observation because there is no value.\n\tvariable: %s\n\trow: %d", variable.getObservationVariableName(), row));
-            return;
-        }
-
-        if (isNAObservation(value)) {
-            log.debug(String.format("skipping validation of observation because it is NA.\n\tvariable: %s\n\trow: %d", variable.getObservationVariableName(), row));
-            return;
-        }
-
-        switch (variable.getScale().getDataType()) {
-            case NUMERICAL:
-                Optional<BigDecimal> number = validNumericValue(value);
-                if (number.isEmpty()) {
-                    addRowError(columnHeader, "Non-numeric text detected detected", validationErrors, row);
-                } else if (!validNumericRange(number.get(), variable.getScale())) {
-                    addRowError(columnHeader, "Value outside of min/max range detected", validationErrors, row);
-                }
+        switch (result) {
+            case NON_NUMERIC:
+                addRowError(columnHeader, "Non-numeric text detected detected", validationErrors, row);
                 break;
-            case DATE:
-                if (!validDateValue(value)) {
-                    addRowError(columnHeader, "Incorrect date format detected. Expected YYYY-MM-DD", validationErrors, row);
-                }
+            case OUT_OF_RANGE:
+                addRowError(columnHeader, "Value outside of min/max range detected", validationErrors, row);
                 break;
-            case ORDINAL:
-                if (!validCategory(variable.getScale().getCategories(), value)) {
-                    addRowError(columnHeader, "Undefined ordinal category detected", validationErrors, row);
-                }
+            case INVALID_DATE:
+                addRowError(columnHeader, "Incorrect date format detected. Expected YYYY-MM-DD", validationErrors, row);
                 break;
-            case NOMINAL:
-                if (!validCategory(variable.getScale().getCategories(), value)) {
-                    addRowError(columnHeader, "Undefined nominal category detected", validationErrors, row);
-                }
+            case UNDEFINED_ORDINAL:
+                addRowError(columnHeader, "Undefined ordinal category detected", validationErrors, row);
+                break;
+            case UNDEFINED_NOMINAL:
+                addRowError(columnHeader, "Undefined nominal category detected", validationErrors, row);
                 break;
             default:
                 break;
         }
-
-    }
-
-    private Optional<BigDecimal> validNumericValue(String value) {
-        BigDecimal number;
-        try {
-            number = new BigDecimal(value);
-        } catch (NumberFormatException e) {
-            return Optional.empty();
-        }
-        return Optional.of(number);
-    }
-
-    private boolean validNumericRange(BigDecimal value, Scale validValues) {
-        // account for empty min or max in valid determination
-        return (validValues.getValidValueMin() == null || value.compareTo(BigDecimal.valueOf(validValues.getValidValueMin())) >= 0) &&
-                (validValues.getValidValueMax() == null || value.compareTo(BigDecimal.valueOf(validValues.getValidValueMax())) <= 0);
     }
 
     private boolean validDateValue(String value) {
@@ -2470,13 +2462,6 @@ public class ExperimentProcessor implements Processor {
         return true;
     }
 
-    private boolean validCategory(List<BrAPIScaleValidValuesCategories> categories, String value) {
-        Set<String> categoryValues = categories.stream()
-                                               .map(category -> category.getValue().toLowerCase())
-                                               .collect(Collectors.toSet());
-        return categoryValues.contains(value.toLowerCase());
-    }
-
     /**
      * Converts year String to SeasonDbId
      * <br>
@@ -0,0 +1,233 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.brapps.importer.services.processors;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import lombok.Getter;
+import org.brapi.v2.model.germ.BrAPIGermplasm;
+import org.breedinginsight.brapi.v2.constants.BrAPIAdditionalInfoFields;
+
+import java.util.*;
+
+/**
+ * Orders new germplasm into generations for POSTing, so parents are always created in an earlier batch than
+ * their progeny.
+ *
+ * Pedigree strings are parsed once into indexed parent links and the batches are produced with Kahn's algorithm,
+ * which keeps the cost linear in the number of germplasm regardless of how many generations are in the file.
+ * Germplasm within a batch keep the order they have in the import.
+ */
+public class GermplasmPostOrder {
+
+    private static final int NO_PARENT = -1;
+    private static final int UNRESOLVED_PARENT = -2;
+
+    private GermplasmPostOrder() {}
+
+    /**
+     * @param newGermplasm germplasm to be created, pedigrees referencing parents by germplasm name
+     * @param createdNames names of germplasm that already exist and can be referenced as parents
+     * @return batches of germplasm, each one only depending on germplasm in earlier batches or already created
+     * @throws CircularDependencyException if some germplasm can never be created, naming the germplasm involved
+     */
+    public static List<List<BrAPIGermplasm>> create(List<BrAPIGermplasm> newGermplasm, Set<String> createdNames) {
+        int size = newGermplasm.size();
+
+        Map<String, Integer> indexByName = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            indexByName.putIfAbsent(newGermplasm.get(i).getGermplasmName(), i);
+        }
+
+        // Resolve both parents of every germplasm to an index in the list once
+        int[] femaleParents = new int[size];
+        int[] maleParents = new int[size];
+        int[] inDegree = new int[size];
+        int[] childCounts = new int[size];
+        for (int i = 0; i < size; i++) {
+            femaleParents[i] = NO_PARENT;
+            maleParents[i] = NO_PARENT;
+
+            BrAPIGermplasm germplasm = newGermplasm.get(i);
+            if (germplasm.getPedigree() == null) {
+                continue;
+            }
+
+            String[] pedigree = germplasm.getPedigree().split("/");
+            String femaleParent = pedigree[0];
+            String maleParent = pedigree.length > 1 ? pedigree[1] : null;
+
+            if (!isParentUnknown(germplasm, BrAPIAdditionalInfoFields.FEMALE_PARENT_UNKNOWN)) {
+                femaleParents[i] = resolveParent(femaleParent, indexByName, createdNames);
+            }
+            if (maleParent != null && !isParentUnknown(germplasm, BrAPIAdditionalInfoFields.MALE_PARENT_UNKNOWN)) {
+                maleParents[i] = resolveParent(maleParent, indexByName, createdNames);
+            }
+
+            for (int parent : new int[]{femaleParents[i], maleParents[i]}) {
+                if (parent >= 0) {
+                    inDegree[i]++;
+                    childCounts[parent]++;
+                } else if (parent == UNRESOLVED_PARENT) {
+                    // The parent will never be created, so this germplasm can never become ready
+                    inDegree[i]++;
+                }
+            }
+        }
+
+        // Flatten the child links of every germplasm into a single array
+        int[] childOffsets = new int[size + 1];
+        for (int i = 0; i < size; i++) {
+            childOffsets[i + 1] = childOffsets[i] + childCounts[i];
+        }
+        int[] children = new int[childOffsets[size]];
+        int[] fill = Arrays.copyOf(childOffsets, size);
+        for (int i = 0; i < size; i++) {
+            if (femaleParents[i] >= 0) {
+                children[fill[femaleParents[i]]++] = i;
+            }
+            if (maleParents[i] >= 0) {
+                children[fill[maleParents[i]]++] = i;
+            }
+        }
+
+        List<List<BrAPIGermplasm>> postOrder = new ArrayList<>();
+        int[] generation = new int[size];
+        int generationSize = 0;
+        for (int i = 0; i < size; i++) {
+            if (inDegree[i] == 0) {
+                generation[generationSize++] = i;
+            }
+        }
+
+        int recorded = 0;
+        int[] nextGeneration = new int[size];
+        while (generationSize > 0) {
+            List<BrAPIGermplasm> batch = new ArrayList<>(generationSize);
+            int nextGenerationSize = 0;
+            for (int g = 0; g < generationSize; g++) {
+                int node = generation[g];
+                batch.add(newGermplasm.get(node));
+                for (int c = childOffsets[node]; c < childOffsets[node + 1]; c++) {
+                    if (--inDegree[children[c]] == 0) {
+                        nextGeneration[nextGenerationSize++] = children[c];
+                    }
+                }
+            }
+            postOrder.add(batch);
+            recorded += generationSize;
+
+            Arrays.sort(nextGeneration, 0, nextGenerationSize);
+            int[] swap = generation;
+            generation = nextGeneration;
+            nextGeneration = swap;
+            generationSize = nextGenerationSize;
+        }
+
+        if (recorded < size) {
+            throw new CircularDependencyException(findBlockedGermplasm(newGermplasm, inDegree, childOffsets, children));
+        }
+
+        return postOrder;
+    }
+
+    /**
+     * Names the germplasm taking part in a cycle. Germplasm that are only blocked because an ancestor is in a cycle
+     * are trimmed off, unless nothing is left, in which case every blocked germplasm is named.
+     */
+    private static List<String> findBlockedGermplasm(List<BrAPIGermplasm> newGermplasm, int[] inDegree, int[] childOffsets, int[] children) {
+        int size = newGermplasm.size();
+        boolean[] inCycle = new boolean[size];
+        int[] blockedChildren = new int[size];
+        Deque<Integer> trimmable = new ArrayDeque<>();
+        for (int i = 0; i < size; i++) {
+            if (inDegree[i] == 0) {
+                continue;
+            }
+            inCycle[i] = true;
+            for (int c = childOffsets[i]; c < childOffsets[i + 1]; c++) {
+                if (inDegree[children[c]] > 0) {
+                    blockedChildren[i]++;
+                }
+            }
+            if (blockedChildren[i] == 0) {
+                trimmable.add(i);
+            }
+        }
+
+        // Germplasm without blocked progeny can't close a cycle, walk back up from them
+        List<String> blocked = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            if (inCycle[i]) {
+                blocked.add(newGermplasm.get(i).getDefaultDisplayName());
+            }
+        }
+        Map<Integer, List<Integer>> parents = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            if (!inCycle[i]) {
+                continue;
+            }
+            for (int c = childOffsets[i]; c < childOffsets[i + 1]; c++) {
+                parents.computeIfAbsent(children[c], k -> new ArrayList<>()).add(i);
+            }
+        }
+        while (!trimmable.isEmpty()) {
+            int node = trimmable.poll();
+            inCycle[node] = false;
+            for (int parent : parents.getOrDefault(node, Collections.emptyList())) {
+                if (inCycle[parent] && --blockedChildren[parent] == 0) {
+                    trimmable.add(parent);
+                }
+            }
+        }
+
+        List<String> cycleMembers = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            if (inCycle[i]) {
+                cycleMembers.add(newGermplasm.get(i).getDefaultDisplayName());
+            }
+        }
+        return cycleMembers.isEmpty() ? blocked : cycleMembers;
+    }
+
+    private static int resolveParent(String parentName, Map<String, Integer> indexByName, Set<String> createdNames) {
+        if (createdNames.contains(parentName)) {
+            return NO_PARENT;
+        }
+        return indexByName.getOrDefault(parentName, UNRESOLVED_PARENT);
+    }
+
+    private static boolean isParentUnknown(BrAPIGermplasm germplasm, String unknownField) {
+        JsonObject additionalInfo = germplasm.getAdditionalInfo();
+        if (additionalInfo == null) {
+            return false;
+        }
+        JsonElement unknown = additionalInfo.get(unknownField);
+        return unknown != null && !unknown.isJsonNull() && unknown.getAsBoolean();
+    }
+
+    @Getter
+    public static class CircularDependencyException extends RuntimeException {
+        private final List<String> germplasmNames;
+
+        public CircularDependencyException(List<String> germplasmNames) {
+            super("Circular dependency between germplasm: " + String.join(", ", germplasmNames));
+            this.germplasmNames = germplasmNames;
+        }
+    }
+}
@@ -46,6 +46,7 @@ import org.breedinginsight.dao.db.tables.pojos.ProgramBreedingMethodEntity;
 import org.breedinginsight.daos.BreedingMethodDAO;
 import org.breedinginsight.model.Program;
 import org.breedinginsight.model.User;
+import org.breedinginsight.services.SequenceAllocatorService;
 import org.breedinginsight.services.exceptions.ValidatorException;
 import org.breedinginsight.utilities.Utilities;
 import org.jooq.DSLContext;
@@ -71,6 +72,7 @@ public class GermplasmProcessor implements Processor {
     private final BrAPIListDAO brAPIListDAO;
     private final DSLContext dsl;
     private final BrAPIGermplasmDAO brAPIGermplasmDAO;
+    private final SequenceAllocatorService sequenceAllocatorService;
     private final Gson gson = new Gson();
 
     Map<String, PendingImportObject<BrAPIGermplasm>> germplasmByAccessionNumber = new HashMap<>();
@@ -92,6 +94,7 @@ public class GermplasmProcessor implements Processor {
     public static String missingEntryNumbersMsg = "Either all or none of the germplasm must have entry numbers";
     public static String duplicateEntryNoMsg = "Entry numbers must be unique. Duplicated entry numbers found: %s";
     public static String circularDependency = "Circular dependency in the pedigree tree";
+    public static String circularDependencyMembers = "%s: %s";
     public static String listNameAlreadyExists = "Import group name already exists";
     public static String missingGID = "No germplasm of GID %s was found in the database";
     public static String pedigreeAlreadyExists = "Pedigree information cannot be overwritten";
@@ -104,9 +107,11 @@ public class GermplasmProcessor implements Processor {
     };
 
     @Inject
-    public GermplasmProcessor(BrAPIGermplasmService brAPIGermplasmService, DSLContext dsl, BreedingMethodDAO breedingMethodDAO, BrAPIListDAO brAPIListDAO, BrAPIGermplasmDAO brAPIGermplasmDAO) {
+    public GermplasmProcessor(BrAPIGermplasmService brAPIGermplasmService, DSLContext dsl, BreedingMethodDAO breedingMethodDAO, BrAPIListDAO brAPIListDAO, BrAPIGermplasmDAO brAPIGermplasmDAO,
+                              SequenceAllocatorService sequenceAllocatorService) {
         this.brAPIGermplasmService = brAPIGermplasmService;
         this.dsl = dsl;
+        this.sequenceAllocatorService = sequenceAllocatorService;
         this.breedingMethodDAO = breedingMethodDAO;
         this.brAPIGermplasmDAO = brAPIGermplasmDAO;
         this.brAPIListDAO = brAPIListDAO;
@@ -247,7 +252,11 @@ public class GermplasmProcessor implements Processor {
             log.error(String.format("Program, %s, is missing a value in the germplasm sequence column.", program.getName()));
             throw new HttpStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "Program is not properly configured for germplasm import");
         }
-        Supplier<BigInteger> nextVal = () -> dsl.nextval(germplasmSequenceName.toLowerCase());
+        // Every row without a GID is new and will take an accession number on commit
+        int newGermplasmCount = (int) importRows.stream()
+                                                .filter(importRow -> importRow.getGermplasm().getAccessionNumber() == null)
+                                                .count();
+        Supplier<BigInteger> nextVal = sequenceAllocatorService.allocate(germplasmSequenceName.toLowerCase(), newGermplasmCount);
 
         // Create new objects
 
@@ -560,44 +569,12 @@ public class GermplasmProcessor implements Processor {
         // Construct a dependency tree for POSTing order
         Set<String> created = existingGermplasm.stream().map(BrAPIGermplasm::getGermplasmName).collect(Collectors.toSet());
 
-        //todo this gets messy
-
-        int totalRecorded = 0;
-
-        while (totalRecorded < newGermplasmList.size()) {
-            List<BrAPIGermplasm> createList = new ArrayList<>();
-            for (BrAPIGermplasm germplasm : newGermplasmList) {
-
-                // If we've already planned this germplasm, skip
-                if (created.contains(germplasm.getGermplasmName())) {
-                    continue;
-                }
-
-                // If it has no dependencies, add it
-                if (germplasm.getPedigree() == null) {
-                    createList.add(germplasm);
-                    continue;
-                }
-
-                // If both parents have been created already, add it
-                List<String> pedigreeArray = List.of(germplasm.getPedigree().split("/"));
-                String femaleParent = pedigreeArray.get(0);
-                String maleParent = pedigreeArray.size() > 1 ? pedigreeArray.get(1) : null;
-                if (created.contains(femaleParent) || germplasm.getAdditionalInfo().get(BrAPIAdditionalInfoFields.FEMALE_PARENT_UNKNOWN).getAsBoolean()) {
-                    if (maleParent == null || created.contains(maleParent) || germplasm.getAdditionalInfo().get(BrAPIAdditionalInfoFields.MALE_PARENT_UNKNOWN).getAsBoolean()) {
-                        createList.add(germplasm);
-                    }
-                }
-            }
-
-            totalRecorded += createList.size();
-            if (createList.size() > 0) {
-                created.addAll(createList.stream().map(BrAPIGermplasm::getGermplasmName).collect(Collectors.toList()));
-                postOrder.add(createList);
-            } else if (totalRecorded < newGermplasmList.size()) {
-                // We ran into circular dependencies, throw an error
-                throw new HttpStatusException(HttpStatus.UNPROCESSABLE_ENTITY, circularDependency);
-            }
+        try {
+            postOrder = GermplasmPostOrder.create(newGermplasmList, created);
+        } catch (GermplasmPostOrder.CircularDependencyException e) {
+            // We ran into circular dependencies, throw an error
+            throw new HttpStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                                          String.format(circularDependencyMembers, circularDependency, arrayOfStringFormatter.apply(e.getGermplasmNames())));
         }
     }
 
@@ -32,7 +32,6 @@ import org.apache.commons.lang3.StringUtils;
 import org.brapi.v2.model.BrAPIExternalReference;
 import org.brapi.v2.model.core.BrAPIStudy;
 import org.brapi.v2.model.pheno.BrAPIObservation;
-import org.brapi.v2.model.pheno.BrAPIScaleValidValuesCategories;
 import org.breedinginsight.api.model.v1.response.ValidationError;
 import org.breedinginsight.api.model.v1.response.ValidationErrors;
 import org.breedinginsight.brapi.v2.constants.BrAPIAdditionalInfoFields;
@@ -45,13 +44,11 @@ import org.breedinginsight.brapps.importer.services.processors.experiment.append
 import org.breedinginsight.brapps.importer.services.processors.experiment.create.model.PendingData;
 import org.breedinginsight.brapps.importer.services.processors.experiment.create.model.ProcessedPhenotypeData;
 import org.breedinginsight.brapps.importer.services.processors.experiment.model.ExpImportProcessConstants;
+import org.breedinginsight.brapps.importer.services.processors.experiment.validator.field.ScaleValidator;
 import org.breedinginsight.model.Program;
-import org.breedinginsight.model.Scale;
-import org.breedinginsight.model.Trait;
 import tech.tablesaw.columns.Column;
 
 import javax.inject.Singleton;
-import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
@@ -152,6 +149,23 @@ public class ExperimentUtilities {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Counts the distinct environment names in the import that are not already existing environments. This is an
+     * upper bound on the number of environment numbers the import will take from the program's environment sequence.
+     *
+     * @param importRows the import rows, expected to be ExperimentObservations
+     * @param existingEnvironments names of the environments that already exist and so do not take a new number
+     * @return the number of distinct, non-null environment names that are not existing environments
+     */
+    public static int countNewEnvironments(List<BrAPIImport> importRows, Set<String> existingEnvironments) {
+        return (int) importRows.stream()
+                .map(row -> ((ExperimentObservation) row).getEnv())
+                .filter(Objects::nonNull)
+                .filter(env -> !existingEnvironments.contains(env))
+                .distinct()
+                .count();
+    }
+
     /**
      * This method generates a unique key for an observation unit based on the environment and experimental unit ID.
      *
@@ -514,62 +528,31 @@ public class ExperimentUtilities {
         return isMatched;
     }
 
-    public static void validateObservationValue(Trait variable, String value,
-                                          String columnHeader, ValidationErrors validationErrors, int row) {
-        if (StringUtils.isBlank(value)) {
-            log.debug(String.format("skipping validation of observation because there is no value.\n\tvariable: %s\n\trow: %d", variable.getObservationVariableName(), row));
-            return;
-        }
-
-        if (isNAObservation(value)) {
-            log.debug(String.format("skipping validation of observation because it is NA.\n\tvariable: %s\n\trow: %d", variable.getObservationVariableName(), row));
-            return;
-        }
-
-        switch (variable.getScale().getDataType()) {
-            case NUMERICAL:
-                Optional<BigDecimal> number = validNumericValue(value);
-                if (number.isEmpty()) {
-                    addRowError(columnHeader, "Non-numeric text detected detected", validationErrors, row);
-                } else if (!validNumericRange(number.get(), variable.getScale())) {
-                    addRowError(columnHeader, "Value outside of min/max range detected", validationErrors, row);
-                }
+    /**
+     * Adds the error for the scale check result of an observation value, the value is checked by the
+     * {@link ScaleValidator} of its trait.
+     */
+    public static void validateObservationValue(ScaleValidator.Result result,
+                                                String columnHeader, ValidationErrors validationErrors, int row) {
+        switch (result) {
+            case NON_NUMERIC:
+                addRowError(columnHeader, "Non-numeric text detected detected", validationErrors, row);
+                break;
+            case OUT_OF_RANGE:
+                addRowError(columnHeader, "Value outside of min/max range detected", validationErrors, row);
                 break;
-            case DATE:
-                if (!validDateValue(value)) {
-                    addRowError(columnHeader, "Incorrect date format detected. Expected YYYY-MM-DD", validationErrors, row);
-                }
+            case INVALID_DATE:
+                addRowError(columnHeader, "Incorrect date format detected. Expected YYYY-MM-DD", validationErrors, row);
                 break;
-            case ORDINAL:
-                if (!validCategory(variable.getScale().getCategories(), value)) {
-                    addRowError(columnHeader, "Undefined ordinal category detected", validationErrors, row);
-                }
+            case UNDEFINED_ORDINAL:
+                addRowError(columnHeader, "Undefined ordinal category detected", validationErrors, row);
                 break;
-            case NOMINAL:
-                if (!validCategory(variable.getScale().getCategories(), value)) {
-                    addRowError(columnHeader, "Undefined nominal category detected", validationErrors, row);
-                }
+            case UNDEFINED_NOMINAL:
+                addRowError(columnHeader, "Undefined nominal category detected", validationErrors, row);
                 break;
             default:
                 break;
         }
-
-    }
-
-    public static Optional<BigDecimal> validNumericValue(String value) {
-        BigDecimal number;
-        try {
-            number = new BigDecimal(value);
-        } catch (NumberFormatException e) {
-            return Optional.empty();
-        }
-        return Optional.of(number);
-    }
-
-    public static boolean validNumericRange(BigDecimal value, Scale validValues) {
-        // account for empty min or max in valid determination
-        return (validValues.getValidValueMin() == null || value.compareTo(BigDecimal.valueOf(validValues.getValidValueMin())) >= 0) &&
-                (validValues.getValidValueMax() == null || value.compareTo(BigDecimal.valueOf(validValues.getValidValueMax())) <= 0);
     }
 
     public static boolean validDateValue(String value) {
@@ -582,13 +565,6 @@ public class ExperimentUtilities {
         return true;
     }
 
-    public static boolean validCategory(List<BrAPIScaleValidValuesCategories> categories, String value) {
-        Set<String> categoryValues = categories.stream()
-                .map(category -> category.getValue().toLowerCase())
-                .collect(Collectors.toSet());
-        return categoryValues.contains(value.toLowerCase());
-    }
-
     public static boolean isNAObservation(String value){
         return value.equalsIgnoreCase("NA");
     }
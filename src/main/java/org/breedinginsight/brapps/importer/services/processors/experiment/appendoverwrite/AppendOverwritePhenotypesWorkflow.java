@@ -109,6 +109,7 @@ public class AppendOverwritePhenotypesWorkflow implements ExperimentWorkflow {
                 .program(context.getProgram())
                 .user(context.getUser())
                 .commit(context.isCommit())
+                .lookups(context.getLookups())
                 .build();
         AppendOverwriteMiddlewareContext workflowContext = AppendOverwriteMiddlewareContext.builder()
                 .importContext(importContext)
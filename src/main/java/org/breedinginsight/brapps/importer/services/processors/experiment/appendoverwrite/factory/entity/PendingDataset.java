@@ -133,7 +133,7 @@ public class PendingDataset implements ExperimentImportEntity<BrAPIListDetails>
             String obsVarListDbId = obsVarList.getListDbId();
 
             // Get the current observation variables for the dataset from the BrAPI service
-            List<String> existingObsVarIds = brAPIListDAO.getListById(obsVarListDbId, importContext.getProgram().getId()).getResult().getData();
+            List<String> existingObsVarIds = brAPIListDAO.getListById(obsVarListDbId, importContext.getProgram().getId(), true).getResult().getData();
 
             // Find any observation variables that need to be added to the list in the BrAPI service
             List<String> newObsVarIds = obsVarList
@@ -18,7 +18,6 @@
 package org.breedinginsight.brapps.importer.services.processors.experiment.appendoverwrite.factory.entity;
 
 import io.micronaut.context.annotation.Prototype;
-import org.apache.commons.collections4.map.CaseInsensitiveMap;
 import org.brapi.client.v2.model.exceptions.ApiException;
 import org.brapi.v2.model.pheno.BrAPIObservation;
 import org.breedinginsight.brapi.v2.dao.BrAPIObservationDAO;
@@ -65,11 +64,8 @@ public class PendingObservation implements ExperimentImportEntity<BrAPIObservati
     public List<BrAPIObservation> brapiPost(List<BrAPIObservation> members) throws ApiException, DoesNotExistException {
         // TODO: move the trait setting out to a higher level
         // Fetch the program traits
-        List<Trait> traits = ontologyService.getTraitsByProgramId(importContext.getProgram().getId(), true);
-        CaseInsensitiveMap<String, Trait> traitMap = new CaseInsensitiveMap<>();
-        for ( Trait trait: traits) {
-            traitMap.put(trait.getObservationVariableName(),trait);
-        }
+        Map<String, Trait> traitMap = importContext.getLookups()
+                .getProgramTraitsByName(() -> ontologyService.getTraitsByProgramId(importContext.getProgram().getId(), true));
 
         // Set the trait dbId on the observation requests
         for (BrAPIObservation observation : members) {
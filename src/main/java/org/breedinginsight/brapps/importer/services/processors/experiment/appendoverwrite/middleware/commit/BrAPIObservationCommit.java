@@ -29,6 +29,7 @@ import org.breedinginsight.brapps.importer.services.processors.experiment.append
 import org.breedinginsight.brapps.importer.services.processors.experiment.appendoverwrite.model.AppendOverwriteMiddleware;
 import org.breedinginsight.brapps.importer.services.processors.experiment.appendoverwrite.model.AppendOverwriteMiddlewareContext;
 import org.breedinginsight.brapps.importer.services.processors.experiment.appendoverwrite.model.MiddlewareException;
+import org.breedinginsight.daos.cache.ExperimentStatsCache;
 import org.breedinginsight.services.exceptions.DoesNotExistException;
 import org.breedinginsight.services.exceptions.MissingRequiredInfoException;
 import org.breedinginsight.services.exceptions.UnprocessableEntityException;
@@ -42,13 +43,15 @@ import java.util.Optional;
 public class BrAPIObservationCommit extends AppendOverwriteMiddleware {
     private final BrAPICreationFactory brAPICreationFactory;
     private final BrAPIUpdateFactory brAPIUpdateFactory;
+    private final ExperimentStatsCache experimentStatsCache;
     private Optional<WorkflowCreation<BrAPIObservation>.BrAPICreationState<BrAPIObservation>> createdBrAPIObservations;
     private Optional<BrAPIUpdateFactory.WorkflowUpdate<BrAPIObservation>.BrAPIUpdateState<BrAPIObservation>> priorBrAPIObservations;
 
     @Inject
-    public BrAPIObservationCommit(BrAPICreationFactory brAPICreationFactory, BrAPIUpdateFactory brAPIUpdateFactory) {
+    public BrAPIObservationCommit(BrAPICreationFactory brAPICreationFactory, BrAPIUpdateFactory brAPIUpdateFactory, ExperimentStatsCache experimentStatsCache) {
         this.brAPICreationFactory = brAPICreationFactory;
         this.brAPIUpdateFactory = brAPIUpdateFactory;
+        this.experimentStatsCache = experimentStatsCache;
     }
     @Override
     public AppendOverwriteMiddlewareContext process(AppendOverwriteMiddlewareContext context) {
@@ -89,6 +92,9 @@ public class BrAPIObservationCommit extends AppendOverwriteMiddleware {
                 }
             });
 
+        // The stats recorded for the undone and restored observations no longer match the BrAPI service
+        experimentStatsCache.invalidate(context.getImportContext().getProgram().getId());
+
         // Undo the prior local transaction
         return compensatePrior(context);
     }
@@ -26,6 +26,7 @@ import org.breedinginsight.brapps.importer.services.processors.experiment.append
 import org.breedinginsight.brapps.importer.services.processors.experiment.appendoverwrite.model.AppendOverwriteMiddleware;
 import org.breedinginsight.brapps.importer.services.processors.experiment.appendoverwrite.model.AppendOverwriteMiddlewareContext;
 import org.breedinginsight.brapps.importer.services.processors.experiment.appendoverwrite.model.MiddlewareException;
+import org.breedinginsight.daos.cache.ExperimentStatsCache;
 import org.breedinginsight.services.exceptions.DoesNotExistException;
 import org.breedinginsight.services.exceptions.MissingRequiredInfoException;
 import org.breedinginsight.services.exceptions.UnprocessableEntityException;
@@ -37,11 +38,13 @@ import java.util.Optional;
 @Prototype
 public class BrAPIObservationUnitCommit extends AppendOverwriteMiddleware {
     private final BrAPICreationFactory brAPICreationFactory;
+    private final ExperimentStatsCache experimentStatsCache;
     private Optional<WorkflowCreation<BrAPIObservationUnit>.BrAPICreationState<BrAPIObservationUnit>> createdBrAPIObservationUnits;
 
     @Inject
-    public BrAPIObservationUnitCommit(BrAPICreationFactory brAPICreationFactory) {
+    public BrAPIObservationUnitCommit(BrAPICreationFactory brAPICreationFactory, ExperimentStatsCache experimentStatsCache) {
         this.brAPICreationFactory = brAPICreationFactory;
+        this.experimentStatsCache = experimentStatsCache;
     }
     @Override
     public AppendOverwriteMiddlewareContext process(AppendOverwriteMiddlewareContext context) {
@@ -65,6 +68,9 @@ public class BrAPIObservationUnitCommit extends AppendOverwriteMiddleware {
         // Delete any created trials from the BrAPI service
         createdBrAPIObservationUnits.ifPresent(WorkflowCreation.BrAPICreationState::undo);
 
+        // The stats recorded for the undone observation units no longer match the BrAPI service
+        experimentStatsCache.invalidate(context.getImportContext().getProgram().getId());
+
         // Undo the prior local transaction
         return compensatePrior(context);
     }
@@ -159,7 +159,7 @@ public class ImportTableProcess extends AppendOverwriteMiddleware {
 
             // Fetch the traits named in the observation variable columns
             Program program = context.getImportContext().getProgram();
-            List<Trait> traits = observationVariableService.fetchTraitsByName(Set.copyOf(varNames), program);
+            List<Trait> traits = observationVariableService.fetchTraitsByName(Set.copyOf(varNames), program, context.getImportContext().getLookups());
 
             // Map trait by phenotype column name
             Map<String, Trait> traitByPhenoColName = traits.stream().collect(
@@ -25,6 +25,7 @@ import org.brapi.v2.model.pheno.BrAPIObservation;
 import org.brapi.v2.model.pheno.BrAPIObservationUnit;
 import org.breedinginsight.api.model.v1.response.ValidationErrors;
 import org.breedinginsight.brapps.importer.model.response.PendingImportObject;
+import org.breedinginsight.brapps.importer.services.ImportCommitCheckpointService;
 import org.breedinginsight.model.ProgramLocation;
 import tech.tablesaw.columns.Column;
 
@@ -56,5 +57,8 @@ public class PendingData {
 
     // NOTE: populated in populate new step
     private Map<String, PendingImportObject<BrAPIObservation>> observationByHash;
+
+    // NOTE: loaded in populate new step when committing, holds the identifiers and dbIds of earlier commit attempts
+    private ImportCommitCheckpointService.Checkpoints commitCheckpoints;
 }
 
@@ -16,17 +16,19 @@
  */
 package org.breedinginsight.brapps.importer.services.processors.experiment.create.workflow.steps;
 
+import com.google.common.collect.Lists;
+import com.google.gson.JsonElement;
+import io.micronaut.context.annotation.Property;
 import io.micronaut.http.server.exceptions.InternalServerException;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.collections4.map.CaseInsensitiveMap;
 import org.apache.commons.lang3.StringUtils;
 import org.brapi.client.v2.model.exceptions.ApiException;
+import org.brapi.v2.model.BrAPIExternalReference;
 import org.brapi.v2.model.core.BrAPIListSummary;
 import org.brapi.v2.model.core.BrAPIStudy;
 import org.brapi.v2.model.core.BrAPITrial;
 import org.brapi.v2.model.core.request.BrAPIListNewRequest;
 import org.brapi.v2.model.core.response.BrAPIListDetails;
-import org.brapi.v2.model.germ.BrAPIGermplasm;
 import org.brapi.v2.model.pheno.BrAPIObservation;
 import org.brapi.v2.model.pheno.BrAPIObservationUnit;
 import org.breedinginsight.api.auth.AuthenticatedUser;
@@ -34,10 +36,15 @@ import org.breedinginsight.api.model.v1.request.ProgramLocationRequest;
 import org.breedinginsight.brapi.v2.constants.BrAPIAdditionalInfoFields;
 import org.breedinginsight.brapi.v2.dao.*;
 import org.breedinginsight.brapps.importer.model.ImportUpload;
+import org.breedinginsight.brapps.importer.model.imports.ImportLookups;
 import org.breedinginsight.brapps.importer.model.imports.PendingImport;
+import org.breedinginsight.brapps.importer.model.response.ImportObjectState;
 import org.breedinginsight.brapps.importer.model.response.PendingImportObject;
 import org.breedinginsight.brapps.importer.model.workflow.ImportContext;
 import org.breedinginsight.brapps.importer.model.workflow.ProcessedData;
+import org.breedinginsight.brapps.importer.services.ExternalReferenceSource;
+import org.breedinginsight.brapps.importer.services.ImportCommitCheckpointService;
+import org.breedinginsight.brapps.importer.services.ImportCommitScheduler;
 import org.breedinginsight.brapps.importer.services.processors.ProcessorData;
 import org.breedinginsight.brapps.importer.services.processors.experiment.ExperimentUtilities;
 import org.breedinginsight.brapps.importer.services.processors.experiment.create.model.PendingData;
@@ -52,16 +59,16 @@ import org.breedinginsight.utilities.Utilities;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.Objects;
+import java.util.*;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 @Singleton
 @Slf4j
 public class CommitPendingImportObjectsStep {
 
+    private static final String UNMATCHED_ENVIRONMENT = "";
+
     private final BrAPIListDAO brAPIListDAO;
     private final BrAPITrialDAO brapiTrialDAO;
     private final BrAPIStudyDAO brAPIStudyDAO;
@@ -69,6 +76,10 @@ public class CommitPendingImportObjectsStep {
     private final BrAPIObservationUnitDAO brAPIObservationUnitDAO;
     private final ProgramLocationService locationService;
     private final OntologyService ontologyService;
+    private final ImportCommitScheduler importCommitScheduler;
+    private final ImportCommitCheckpointService checkpointService;
+    private final String referenceSource;
+    private final int postGroupSize;
 
     @Inject
     public CommitPendingImportObjectsStep(BrAPIListDAO brAPIListDAO,
@@ -77,7 +88,11 @@ public class CommitPendingImportObjectsStep {
                                           BrAPIObservationDAO brAPIObservationDAO,
                                           BrAPIObservationUnitDAO brAPIObservationUnitDAO,
                                           ProgramLocationService locationService,
-                                          OntologyService ontologyService) {
+                                          OntologyService ontologyService,
+                                          ImportCommitScheduler importCommitScheduler,
+                                          ImportCommitCheckpointService checkpointService,
+                                          @Property(name = "brapi.server.reference-source") String referenceSource,
+                                          @Property(name = "brapi.post-group-size") int postGroupSize) {
         this.brAPIListDAO = brAPIListDAO;
         this.brapiTrialDAO = brapiTrialDAO;
         this.brAPIStudyDAO = brAPIStudyDAO;
@@ -85,6 +100,10 @@ public class CommitPendingImportObjectsStep {
         this.brAPIObservationUnitDAO = brAPIObservationUnitDAO;
         this.locationService = locationService;
         this.ontologyService = ontologyService;
+        this.importCommitScheduler = importCommitScheduler;
+        this.checkpointService = checkpointService;
+        this.referenceSource = referenceSource;
+        this.postGroupSize = postGroupSize;
     }
 
     // TODO: some common code between workflows here that could be broken out, removed append/update specific code
@@ -97,14 +116,15 @@ public class CommitPendingImportObjectsStep {
         Program program = importContext.getProgram();
         Map<Integer, PendingImport> mappedBrAPIImport = processedData.getMappedBrAPIImport();
 
+        // Objects acknowledged by an earlier, failed attempt to commit this upload are not posted again. The
+        // checkpoints were loaded when the new objects were given their identifiers.
+        ImportCommitCheckpointService.Checkpoints checkpoints = pendingData.getCommitCheckpoints();
+
         Map<String, PendingImportObject<BrAPITrial>> trialByNameNoScope = pendingData.getTrialByNameNoScope();
-        Map<String, PendingImportObject<BrAPIStudy>> studyByNameNoScope = pendingData.getStudyByNameNoScope();
         Map<String, PendingImportObject<BrAPIListDetails>> obsVarDatasetByName = pendingData.getObsVarDatasetByName();
         Map<String, PendingImportObject<ProgramLocation>> locationByName = pendingData.getLocationByName();
-        Map<String, PendingImportObject<BrAPIObservationUnit>> observationUnitByNameNoScope = pendingData.getObservationUnitByNameNoScope();
-        Map<String, PendingImportObject<BrAPIObservation>> observationByHash = pendingData.getObservationByHash();
 
-        List<BrAPITrial> newTrials = ProcessorData.getNewObjects(pendingData.getTrialByNameNoScope());
+        Map<String, BrAPITrial> newTrials = getUncommittedObjects(checkpoints, ExternalReferenceSource.TRIALS, trialByNameNoScope, BrAPITrial::setTrialDbId);
 
         List<ProgramLocationRequest> newLocations = ProcessorData.getNewObjects(pendingData.getLocationByName())
                 .stream()
@@ -113,9 +133,7 @@ public class CommitPendingImportObjectsStep {
                         .build())
                 .collect(Collectors.toList());
 
-        List<BrAPIStudy> newStudies = ProcessorData.getNewObjects(pendingData.getStudyByNameNoScope());
-
-        List<BrAPIListNewRequest> newDatasetRequests = ProcessorData.getNewObjects(pendingData.getObsVarDatasetByName()).stream().map(details -> {
+        List<BrAPIListNewRequest> newDatasetRequests = getUncommittedObjects(checkpoints, ExternalReferenceSource.DATASET, obsVarDatasetByName, BrAPIListDetails::setListDbId).values().stream().map(details -> {
             BrAPIListNewRequest request = new BrAPIListNewRequest();
             request.setListName(details.getListName());
             request.setListType(details.getListType());
@@ -128,78 +146,48 @@ public class CommitPendingImportObjectsStep {
         Map<String, BrAPIListDetails> datasetNewDataById = ProcessorData
                 .getMutationsByObjectId(pendingData.getObsVarDatasetByName(), BrAPIListSummary::getListDbId);
 
-        List<BrAPIObservationUnit> newObservationUnits = ProcessorData.getNewObjects(pendingData.getObservationUnitByNameNoScope());
-
-        // filter out observations with no 'value' so they will not be saved
-        List<BrAPIObservation> newObservations = ProcessorData.getNewObjects(observationByHash)
-                .stream()
-                .filter(obs -> !obs.getValue().isBlank())
-                .collect(Collectors.toList());
-
         AuthenticatedUser actingUser = new AuthenticatedUser(upload.getUpdatedByUser().getName(), new ArrayList<>(), upload.getUpdatedByUser().getId(), new ArrayList<>());
 
         try {
-            List<BrAPIListSummary> createdDatasets = new ArrayList<>(brAPIListDAO.createBrAPILists(newDatasetRequests, program.getId(), upload));
-            createdDatasets.forEach(summary -> obsVarDatasetByName.get(summary.getListName()).getBrAPIObject().setListDbId(summary.getListDbId()));
-
-            List<BrAPITrial> createdTrials = new ArrayList<>(brapiTrialDAO.createBrAPITrials(newTrials, program.getId(), upload));
-            // set the DbId to the for each newly created trial
-            for (BrAPITrial createdTrial : createdTrials) {
-                String createdTrialName = Utilities.removeProgramKey(createdTrial.getTrialName(), program.getKey());
-                trialByNameNoScope.get(createdTrialName)
-                        .getBrAPIObject()
-                        .setTrialDbId(createdTrial.getTrialDbId());
-            }
-
-            List<ProgramLocation> createdLocations = new ArrayList<>(locationService.create(actingUser, program.getId(), newLocations));
-            // set the DbId to the for each newly created location
-            for (ProgramLocation createdLocation : createdLocations) {
-                String createdLocationName = createdLocation.getName();
-                locationByName.get(createdLocationName)
-                        .getBrAPIObject()
-                        .setLocationDbId(createdLocation.getLocationDbId());
-            }
+            // Datasets, trials and locations don't reference each other and are shared by every environment
+            importCommitScheduler.runAll(List.of(
+                    () -> createDatasets(newDatasetRequests, obsVarDatasetByName, program, upload, checkpoints),
+                    () -> createTrials(newTrials, trialByNameNoScope, program, upload, checkpoints),
+                    () -> createLocations(actingUser, newLocations, locationByName, program)));
 
             updateStudyDependencyValues(pendingData, mappedBrAPIImport, program.getKey());
-            List<BrAPIStudy> createdStudies = brAPIStudyDAO.createBrAPIStudies(newStudies, program.getId(), upload);
-
-            // set the DbId to the for each newly created study
-            for (BrAPIStudy createdStudy : createdStudies) {
-                String createdStudy_name_no_key = Utilities.removeProgramKeyAndUnknownAdditionalData(createdStudy.getStudyName(), program.getKey());
-                studyByNameNoScope.get(createdStudy_name_no_key)
-                        .getBrAPIObject()
-                        .setStudyDbId(createdStudy.getStudyDbId());
-            }
-
-            updateObsUnitDependencyValues(pendingData, program.getKey());
-            List<BrAPIObservationUnit> createdObservationUnits = brAPIObservationUnitDAO.createBrAPIObservationUnits(newObservationUnits, program.getId(), upload);
-
-            // set the DbId to the for each newly created Observation Unit
-            for (BrAPIObservationUnit createdObservationUnit : createdObservationUnits) {
-                // retrieve the BrAPI ObservationUnit from this.observationUnitByNameNoScope
-                String createdObservationUnit_StripedStudyName = Utilities.removeProgramKeyAndUnknownAdditionalData(createdObservationUnit.getStudyName(), program.getKey());
-                String createdObservationUnit_StripedObsUnitName = Utilities.removeProgramKeyAndUnknownAdditionalData(createdObservationUnit.getObservationUnitName(), program.getKey());
-                String createdObsUnit_key = ExperimentUtilities.createObservationUnitKey(createdObservationUnit_StripedStudyName, createdObservationUnit_StripedObsUnitName);
-                observationUnitByNameNoScope.get(createdObsUnit_key)
-                        .getBrAPIObject()
-                        .setObservationUnitDbId(createdObservationUnit.getObservationUnitDbId());
-            }
-
-            updateObservationDependencyValues(pendingData, program);
-            brAPIObservationDAO.createBrAPIObservations(newObservations, program.getId(), upload);
+            updateGermplasmDbIds(pendingData);
+            updateObservationVariableDbIds(pendingData, program, importContext.getLookups());
+
+            // An environment only depends on the entities above, so the study, observation units and observations
+            // of one environment are posted in order while other environments are still being created
+            EnvironmentCommit unmatched = new EnvironmentCommit(UNMATCHED_ENVIRONMENT, null);
+            List<ImportCommitScheduler.CommitTask> environmentCommits = groupByEnvironment(pendingData, program.getKey(), unmatched)
+                    .stream()
+                    .map(environment -> (ImportCommitScheduler.CommitTask) () -> commitEnvironment(environment, pendingData, program, upload, checkpoints))
+                    .collect(Collectors.toList());
+            importCommitScheduler.runAll(environmentCommits);
+
+            // Anything not tied to an environment of this import is posted last, as it was before
+            commitEnvironment(unmatched, pendingData, program, upload, checkpoints);
         } catch (ApiException e) {
             log.error("Error saving experiment import: " + Utilities.generateApiExceptionLogMessage(e), e);
             throw new InternalServerException("Error saving experiment import", e);
         } catch (Exception e) {
             log.error("Error saving experiment import", e);
             throw new InternalServerException(e.getMessage(), e);
+        } finally {
+            // Environments are posted without refreshing the program caches, they are refreshed once all are posted
+            brAPIStudyDAO.repopulateCache(program.getId());
+            brAPIObservationUnitDAO.repopulateCache(program.getId());
+            brAPIObservationDAO.repopulateCache(program.getId());
         }
 
         // NOTE: removed mutated trials code
 
         datasetNewDataById.forEach((id, dataset) -> {
             try {
-                List<String> existingObsVarIds = brAPIListDAO.getListById(id, program.getId()).getResult().getData();
+                List<String> existingObsVarIds = brAPIListDAO.getListById(id, program.getId(), true).getResult().getData();
                 List<String> newObsVarIds = dataset
                         .getData()
                         .stream()
@@ -219,6 +207,215 @@ public class CommitPendingImportObjectsStep {
 
         // NOTE: removed mutated observations code
 
+        checkpointService.clear(upload);
+    }
+
+    private void createDatasets(List<BrAPIListNewRequest> newDatasetRequests,
+                                Map<String, PendingImportObject<BrAPIListDetails>> obsVarDatasetByName,
+                                Program program,
+                                ImportUpload upload,
+                                ImportCommitCheckpointService.Checkpoints checkpoints) throws ApiException {
+        List<BrAPIListSummary> createdDatasets = new ArrayList<>(brAPIListDAO.createBrAPILists(newDatasetRequests, program.getId(), upload));
+        Map<String, String> createdDbIds = new HashMap<>();
+        createdDatasets.forEach(summary -> {
+            obsVarDatasetByName.get(summary.getListName()).getBrAPIObject().setListDbId(summary.getListDbId());
+            createdDbIds.put(summary.getListName(), summary.getListDbId());
+        });
+        checkpoints.acknowledge(ExternalReferenceSource.DATASET.getName(), ExternalReferenceSource.DATASET.getName(), createdDbIds);
+    }
+
+    private void createTrials(Map<String, BrAPITrial> newTrials,
+                              Map<String, PendingImportObject<BrAPITrial>> trialByNameNoScope,
+                              Program program,
+                              ImportUpload upload,
+                              ImportCommitCheckpointService.Checkpoints checkpoints) throws ApiException {
+        List<BrAPITrial> createdTrials = new ArrayList<>(brapiTrialDAO.createBrAPITrials(new ArrayList<>(newTrials.values()), program.getId(), upload));
+        // set the DbId to the for each newly created trial
+        Map<String, String> createdDbIds = new HashMap<>();
+        for (BrAPITrial createdTrial : createdTrials) {
+            String createdTrialName = Utilities.removeProgramKey(createdTrial.getTrialName(), program.getKey());
+            trialByNameNoScope.get(createdTrialName)
+                    .getBrAPIObject()
+                    .setTrialDbId(createdTrial.getTrialDbId());
+            createdDbIds.put(createdTrialName, createdTrial.getTrialDbId());
+        }
+        checkpoints.acknowledge(ExternalReferenceSource.TRIALS.getName(), ExternalReferenceSource.TRIALS.getName(), createdDbIds);
+    }
+
+    private void createLocations(AuthenticatedUser actingUser,
+                                 List<ProgramLocationRequest> newLocations,
+                                 Map<String, PendingImportObject<ProgramLocation>> locationByName,
+                                 Program program) throws Exception {
+        List<ProgramLocation> createdLocations = new ArrayList<>(locationService.create(actingUser, program.getId(), newLocations));
+        // set the DbId to the for each newly created location
+        for (ProgramLocation createdLocation : createdLocations) {
+            String createdLocationName = createdLocation.getName();
+            locationByName.get(createdLocationName)
+                    .getBrAPIObject()
+                    .setLocationDbId(createdLocation.getLocationDbId());
+        }
+    }
+
+    /**
+     * Splits the studies, observation units and observations of the import by environment. Observation units whose
+     * study is not part of the import and observations without a matching observation unit go to unmatched.
+     */
+    private Collection<EnvironmentCommit> groupByEnvironment(PendingData pendingData, String programKey, EnvironmentCommit unmatched) {
+        Map<String, EnvironmentCommit> environmentsByName = new LinkedHashMap<>();
+        pendingData.getStudyByNameNoScope().values()
+                .stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .forEach(study -> {
+                    String environmentName = Utilities.removeProgramKeyAndUnknownAdditionalData(study.getBrAPIObject().getStudyName(), programKey);
+                    environmentsByName.putIfAbsent(environmentName, new EnvironmentCommit(environmentName, study));
+                });
+
+        Map<String, EnvironmentCommit> environmentsByObsUnitKey = new HashMap<>();
+        for (Map.Entry<String, PendingImportObject<BrAPIObservationUnit>> entry : pendingData.getObservationUnitByNameNoScope().entrySet()) {
+            PendingImportObject<BrAPIObservationUnit> obsUnit = entry.getValue();
+            EnvironmentCommit environment = environmentsByName.getOrDefault(obsUnit.getBrAPIObject().getStudyName(), unmatched);
+            environment.observationUnits.put(entry.getKey(), obsUnit);
+            environmentsByObsUnitKey.put(ExperimentUtilities.createObservationUnitKey(
+                    Utilities.removeProgramKeyAndUnknownAdditionalData(obsUnit.getBrAPIObject().getStudyName(), programKey),
+                    Utilities.removeProgramKeyAndUnknownAdditionalData(obsUnit.getBrAPIObject().getObservationUnitName(), programKey)), environment);
+        }
+
+        // FILTER LOGIC: Match on Env and Exp Unit ID
+        for (Map.Entry<String, PendingImportObject<BrAPIObservation>> entry : pendingData.getObservationByHash().entrySet()) {
+            BrAPIObservation brAPIObservation = entry.getValue().getBrAPIObject();
+            String obsUnitKey = null;
+            if (brAPIObservation.getAdditionalInfo() != null
+                    && brAPIObservation.getAdditionalInfo().get(BrAPIAdditionalInfoFields.STUDY_NAME) != null
+                    && brAPIObservation.getObservationUnitName() != null) {
+                obsUnitKey = ExperimentUtilities.createObservationUnitKey(
+                        brAPIObservation.getAdditionalInfo().get(BrAPIAdditionalInfoFields.STUDY_NAME).getAsString(),
+                        Utilities.removeProgramKeyAndUnknownAdditionalData(brAPIObservation.getObservationUnitName(), programKey));
+            }
+            environmentsByObsUnitKey.getOrDefault(obsUnitKey, unmatched).observations.put(entry.getKey(), entry.getValue());
+        }
+
+        return environmentsByName.values();
+    }
+
+    /**
+     * Posts the study, then the observation units and then the observations of a single environment, setting the
+     * dbIds returned by each post as foreign keys of the next. Every chunk is checkpointed as soon as it is posted.
+     */
+    private void commitEnvironment(EnvironmentCommit environment,
+                                   PendingData pendingData,
+                                   Program program,
+                                   ImportUpload upload,
+                                   ImportCommitCheckpointService.Checkpoints checkpoints) throws ApiException, DoesNotExistException {
+        String programKey = program.getKey();
+
+        PendingImportObject<BrAPIStudy> study = environment.study;
+        if (study != null && study.getState() == ImportObjectState.NEW) {
+            Optional<String> committedDbId = checkpoints.getDbId(ExternalReferenceSource.STUDIES.getName(), environment.name);
+            if (committedDbId.isPresent()) {
+                study.getBrAPIObject().setStudyDbId(committedDbId.get());
+            } else {
+                List<BrAPIStudy> createdStudies = brAPIStudyDAO.createBrAPIStudies(List.of(study.getBrAPIObject()), program.getId(), upload, false);
+                for (BrAPIStudy createdStudy : createdStudies) {
+                    study.getBrAPIObject().setStudyDbId(createdStudy.getStudyDbId());
+                }
+                checkpoints.acknowledge(ExternalReferenceSource.STUDIES.getName(), environment.name,
+                        Map.of(environment.name, study.getBrAPIObject().getStudyDbId()));
+            }
+        }
+
+        // update study DbIds
+        if (study != null) {
+            for (PendingImportObject<BrAPIObservationUnit> obsUnit : environment.observationUnits.values()) {
+                obsUnit.getBrAPIObject().setStudyDbId(study.getBrAPIObject().getStudyDbId());
+                obsUnit.getBrAPIObject().setTrialDbId(study.getBrAPIObject().getTrialDbId());
+            }
+        }
+
+        Map<String, BrAPIObservationUnit> newObservationUnits = getUncommittedObjects(checkpoints,
+                ExternalReferenceSource.OBSERVATION_UNITS, environment.observationUnits, BrAPIObservationUnit::setObservationUnitDbId);
+        List<List<String>> obsUnitChunks = Lists.partition(new ArrayList<>(newObservationUnits.keySet()), postGroupSize);
+        for (int chunk = 0; chunk < obsUnitChunks.size(); chunk++) {
+            List<BrAPIObservationUnit> chunkObservationUnits = obsUnitChunks.get(chunk).stream()
+                    .map(newObservationUnits::get)
+                    .collect(Collectors.toList());
+            List<BrAPIObservationUnit> createdObservationUnits = brAPIObservationUnitDAO.createBrAPIObservationUnits(chunkObservationUnits, program.getId(), upload, false);
+
+            // set the DbId to the for each newly created Observation Unit
+            Map<String, String> createdDbIds = new HashMap<>();
+            for (BrAPIObservationUnit createdObservationUnit : createdObservationUnits) {
+                // retrieve the BrAPI ObservationUnit from this.observationUnitByNameNoScope
+                String createdObservationUnit_StripedStudyName = Utilities.removeProgramKeyAndUnknownAdditionalData(createdObservationUnit.getStudyName(), programKey);
+                String createdObservationUnit_StripedObsUnitName = Utilities.removeProgramKeyAndUnknownAdditionalData(createdObservationUnit.getObservationUnitName(), programKey);
+                String createdObsUnit_key = ExperimentUtilities.createObservationUnitKey(createdObservationUnit_StripedStudyName, createdObservationUnit_StripedObsUnitName);
+                pendingData.getObservationUnitByNameNoScope().get(createdObsUnit_key)
+                        .getBrAPIObject()
+                        .setObservationUnitDbId(createdObservationUnit.getObservationUnitDbId());
+                createdDbIds.put(createdObsUnit_key, createdObservationUnit.getObservationUnitDbId());
+            }
+            checkpoints.acknowledge(ExternalReferenceSource.OBSERVATION_UNITS.getName(), chunkKey(environment, chunk), createdDbIds);
+        }
+
+        updateObservationDbIds(environment, programKey);
+
+        // filter out observations with no 'value' so they will not be saved
+        Map<String, BrAPIObservation> newObservations = getUncommittedObjects(checkpoints,
+                ExternalReferenceSource.OBSERVATIONS, environment.observations, BrAPIObservation::setObservationDbId);
+        newObservations.values().removeIf(obs -> obs.getValue().isBlank());
+        List<List<String>> observationChunks = Lists.partition(new ArrayList<>(newObservations.keySet()), postGroupSize);
+        for (int chunk = 0; chunk < observationChunks.size(); chunk++) {
+            // observations have no name, match the created ones back to their pending key by external reference
+            Map<String, String> keysByReferenceId = new HashMap<>();
+            List<BrAPIObservation> chunkObservations = new ArrayList<>();
+            for (String key : observationChunks.get(chunk)) {
+                BrAPIObservation observation = newObservations.get(key);
+                getObservationReferenceId(observation).ifPresent(referenceId -> keysByReferenceId.put(referenceId, key));
+                chunkObservations.add(observation);
+            }
+            List<BrAPIObservation> createdObservations = brAPIObservationDAO.createBrAPIObservations(chunkObservations, program.getId(), upload, false);
+
+            Map<String, String> createdDbIds = new HashMap<>();
+            for (BrAPIObservation createdObservation : createdObservations) {
+                getObservationReferenceId(createdObservation)
+                        .map(keysByReferenceId::get)
+                        .ifPresent(key -> createdDbIds.put(key, createdObservation.getObservationDbId()));
+            }
+            checkpoints.acknowledge(ExternalReferenceSource.OBSERVATIONS.getName(), chunkKey(environment, chunk), createdDbIds);
+        }
+    }
+
+    /**
+     * Gives new objects that were acknowledged by an earlier attempt of this commit their dbId back, so they are not
+     * posted again.
+     *
+     * @return Map - Key = pending object key, Value = new object that still has to be posted
+     */
+    private <T> Map<String, T> getUncommittedObjects(ImportCommitCheckpointService.Checkpoints checkpoints,
+                                                     ExternalReferenceSource entityType,
+                                                     Map<String, PendingImportObject<T>> pendingByKey,
+                                                     BiConsumer<T, String> setDbId) {
+        Map<String, T> uncommitted = new LinkedHashMap<>();
+        pendingByKey.forEach((key, pending) -> {
+            if (pending == null || pending.getState() != ImportObjectState.NEW) {
+                return;
+            }
+            Optional<String> committedDbId = checkpoints.getDbId(entityType.getName(), key);
+            if (committedDbId.isPresent()) {
+                setDbId.accept(pending.getBrAPIObject(), committedDbId.get());
+            } else {
+                uncommitted.put(key, pending.getBrAPIObject());
+            }
+        });
+        return uncommitted;
+    }
+
+    private Optional<String> getObservationReferenceId(BrAPIObservation observation) {
+        return Utilities.getExternalReference(observation.getExternalReferences(), referenceSource, ExternalReferenceSource.OBSERVATIONS)
+                .map(BrAPIExternalReference::getReferenceId);
+    }
+
+    private String chunkKey(EnvironmentCommit environment, int chunk) {
+        return String.format("%s/%d", environment.name, chunk);
     }
 
     private void updateStudyDependencyValues(PendingData pendingData, Map<Integer, PendingImport> mappedBrAPIImport, String programKey) {
@@ -263,75 +460,27 @@ public class CommitPendingImportObjectsStep {
                         .setLocationDbId(location.getBrAPIObject().getLocationDbId()));
     }
 
-    private void updateObsUnitDependencyValues(PendingData pendingData, String programKey) {
-        Map<String, PendingImportObject<BrAPIStudy>> studyByNameNoScope = pendingData.getStudyByNameNoScope();
-        Map<String, PendingImportObject<BrAPIGermplasm>> existingGermplasmByGID = pendingData.getExistingGermplasmByGID();
-
-        // update study DbIds
-        studyByNameNoScope.values()
-                .stream()
-                .filter(Objects::nonNull)
-                .distinct()
-                .map(PendingImportObject::getBrAPIObject)
-                .forEach(study -> updateStudyDbId(pendingData, study, programKey));
-
-        // update germplasm DbIds
-        existingGermplasmByGID.values()
+    private void updateGermplasmDbIds(PendingData pendingData) {
+        Map<String, String> germplasmDbIdByGID = new HashMap<>();
+        pendingData.getExistingGermplasmByGID().values()
                 .stream()
                 .filter(Objects::nonNull)
                 .distinct()
                 .map(PendingImportObject::getBrAPIObject)
-                .forEach(germplasm -> updateGermplasmDbId(pendingData, germplasm));
-    }
-
-    private void updateGermplasmDbId(PendingData pendingData, BrAPIGermplasm germplasm) {
-        Map<String, PendingImportObject<BrAPIObservationUnit>> observationUnitByNameNoScope = pendingData.getObservationUnitByNameNoScope();
-
-        observationUnitByNameNoScope.values()
-                .stream()
-                .filter(obsUnit -> germplasm.getAccessionNumber() != null &&
-                        germplasm.getAccessionNumber().equals(obsUnit
-                                .getBrAPIObject()
-                                .getAdditionalInfo().getAsJsonObject()
-                                .get(BrAPIAdditionalInfoFields.GID).getAsString()))
-                .forEach(obsUnit -> obsUnit.getBrAPIObject()
-                        .setGermplasmDbId(germplasm.getGermplasmDbId()));
-    }
+                .filter(germplasm -> germplasm.getAccessionNumber() != null)
+                .forEach(germplasm -> germplasmDbIdByGID.put(germplasm.getAccessionNumber(), germplasm.getGermplasmDbId()));
 
-    private void updateStudyDbId(PendingData pendingData, BrAPIStudy study, String programKey) {
-        Map<String, PendingImportObject<BrAPIObservationUnit>> observationUnitByNameNoScope = pendingData.getObservationUnitByNameNoScope();
-
-        observationUnitByNameNoScope.values()
-                .stream()
-                .filter(obsUnit -> obsUnit.getBrAPIObject()
-                        .getStudyName()
-                        .equals(Utilities.removeProgramKeyAndUnknownAdditionalData(study.getStudyName(), programKey)))
-                .forEach(obsUnit -> {
-                    obsUnit.getBrAPIObject()
-                            .setStudyDbId(study.getStudyDbId());
-                    obsUnit.getBrAPIObject()
-                            .setTrialDbId(study.getTrialDbId());
-                });
+        for (PendingImportObject<BrAPIObservationUnit> obsUnit : pendingData.getObservationUnitByNameNoScope().values()) {
+            JsonElement gid = obsUnit.getBrAPIObject().getAdditionalInfo().getAsJsonObject().get(BrAPIAdditionalInfoFields.GID);
+            if (gid != null && germplasmDbIdByGID.containsKey(gid.getAsString())) {
+                obsUnit.getBrAPIObject().setGermplasmDbId(germplasmDbIdByGID.get(gid.getAsString()));
+            }
+        }
     }
 
-
-    private void updateObservationDependencyValues(PendingData pendingData, Program program) {
-        String programKey = program.getKey();
-        Map<String, PendingImportObject<BrAPIObservationUnit>> observationUnitByNameNoScope = pendingData.getObservationUnitByNameNoScope();
-        Map<String, PendingImportObject<BrAPIObservation>> observationByHash = pendingData.getObservationByHash();
-
-        // update the observations study DbIds, Observation Unit DbIds and Germplasm DbIds
-        observationUnitByNameNoScope.values().stream()
-                .map(PendingImportObject::getBrAPIObject)
-                .forEach(obsUnit -> updateObservationDbIds(pendingData, obsUnit, programKey));
-
-        // Update ObservationVariable DbIds
-        List<Trait> traits = getTraitList(program);
-        CaseInsensitiveMap<String, Trait> traitMap = new CaseInsensitiveMap<>();
-        for ( Trait trait: traits) {
-            traitMap.put(trait.getObservationVariableName(),trait);
-        }
-        for (PendingImportObject<BrAPIObservation> observation : observationByHash.values()) {
+    private void updateObservationVariableDbIds(PendingData pendingData, Program program, ImportLookups lookups) {
+        Map<String, Trait> traitMap = getTraitMap(program, lookups);
+        for (PendingImportObject<BrAPIObservation> observation : pendingData.getObservationByHash().values()) {
             String observationVariableName = observation.getBrAPIObject().getObservationVariableName();
             if (observationVariableName != null && traitMap.containsKey(observationVariableName)) {
                 String observationVariableDbId = traitMap.get(observationVariableName).getObservationVariableDbId();
@@ -340,42 +489,59 @@ public class CommitPendingImportObjectsStep {
         }
     }
 
-    // Update each ovservation's observationUnit DbId, study DbId, and germplasm DbId
-    private void updateObservationDbIds(PendingData pendingData, BrAPIObservationUnit obsUnit, String programKey) {
-        Map<String, PendingImportObject<BrAPIObservation>> observationByHash = pendingData.getObservationByHash();
+    // Update each observation's observationUnit DbId, study DbId, and germplasm DbId
+    private void updateObservationDbIds(EnvironmentCommit environment, String programKey) {
+        Map<String, BrAPIObservationUnit> obsUnitsByKey = new HashMap<>();
+        for (PendingImportObject<BrAPIObservationUnit> obsUnit : environment.observationUnits.values()) {
+            BrAPIObservationUnit brAPIObsUnit = obsUnit.getBrAPIObject();
+            obsUnitsByKey.put(ExperimentUtilities.createObservationUnitKey(
+                    Utilities.removeProgramKeyAndUnknownAdditionalData(brAPIObsUnit.getStudyName(), programKey),
+                    Utilities.removeProgramKeyAndUnknownAdditionalData(brAPIObsUnit.getObservationUnitName(), programKey)), brAPIObsUnit);
+        }
 
-        // FILTER LOGIC: Match on Env and Exp Unit ID
-        observationByHash.values()
-                .stream()
-                .filter(obs -> obs.getBrAPIObject()
-                        .getAdditionalInfo() != null
-                        && obs.getBrAPIObject()
-                        .getAdditionalInfo()
-                        .get(BrAPIAdditionalInfoFields.STUDY_NAME) != null
-                        && obs.getBrAPIObject()
-                        .getAdditionalInfo()
-                        .get(BrAPIAdditionalInfoFields.STUDY_NAME)
-                        .getAsString()
-                        .equals(Utilities.removeProgramKeyAndUnknownAdditionalData(obsUnit.getStudyName(), programKey))
-                        && Utilities.removeProgramKeyAndUnknownAdditionalData(obs.getBrAPIObject().getObservationUnitName(), programKey)
-                        .equals(Utilities.removeProgramKeyAndUnknownAdditionalData(obsUnit.getObservationUnitName(), programKey))
-                )
-                .forEach(obs -> {
-                    if (StringUtils.isBlank(obs.getBrAPIObject().getObservationUnitDbId())) {
-                        obs.getBrAPIObject().setObservationUnitDbId(obsUnit.getObservationUnitDbId());
-                    }
-                    obs.getBrAPIObject().setStudyDbId(obsUnit.getStudyDbId());
-                    obs.getBrAPIObject().setGermplasmDbId(obsUnit.getGermplasmDbId());
-                });
+        for (PendingImportObject<BrAPIObservation> observation : environment.observations.values()) {
+            BrAPIObservation obs = observation.getBrAPIObject();
+            if (obs.getAdditionalInfo() == null
+                    || obs.getAdditionalInfo().get(BrAPIAdditionalInfoFields.STUDY_NAME) == null
+                    || obs.getObservationUnitName() == null) {
+                continue;
+            }
+            BrAPIObservationUnit obsUnit = obsUnitsByKey.get(ExperimentUtilities.createObservationUnitKey(
+                    obs.getAdditionalInfo().get(BrAPIAdditionalInfoFields.STUDY_NAME).getAsString(),
+                    Utilities.removeProgramKeyAndUnknownAdditionalData(obs.getObservationUnitName(), programKey)));
+            if (obsUnit == null) {
+                continue;
+            }
+            if (StringUtils.isBlank(obs.getObservationUnitDbId())) {
+                obs.setObservationUnitDbId(obsUnit.getObservationUnitDbId());
+            }
+            obs.setStudyDbId(obsUnit.getStudyDbId());
+            obs.setGermplasmDbId(obsUnit.getGermplasmDbId());
+        }
     }
 
-    private List<Trait> getTraitList(Program program) {
+    private Map<String, Trait> getTraitMap(Program program, ImportLookups lookups) {
         try {
-            return ontologyService.getTraitsByProgramId(program.getId(), true);
+            return lookups.getProgramTraitsByName(() -> ontologyService.getTraitsByProgramId(program.getId(), true));
         } catch (DoesNotExistException e) {
             log.error(e.getMessage(), e);
             throw new InternalServerException(e.toString(), e);
         }
     }
 
+    /**
+     * The pending objects of one environment, posted as a single chain by {@link #commitEnvironment}.
+     */
+    private static class EnvironmentCommit {
+        private final String name;
+        private final PendingImportObject<BrAPIStudy> study;
+        private final Map<String, PendingImportObject<BrAPIObservationUnit>> observationUnits = new LinkedHashMap<>();
+        private final Map<String, PendingImportObject<BrAPIObservation>> observations = new LinkedHashMap<>();
+
+        private EnvironmentCommit(String name, PendingImportObject<BrAPIStudy> study) {
+            this.name = name;
+            this.study = study;
+        }
+    }
+
 }
@@ -38,6 +38,8 @@ import org.breedinginsight.brapps.importer.model.imports.experimentObservation.E
 import org.breedinginsight.brapps.importer.model.response.ImportObjectState;
 import org.breedinginsight.brapps.importer.model.response.PendingImportObject;
 import org.breedinginsight.brapps.importer.model.workflow.ImportContext;
+import org.breedinginsight.brapps.importer.services.ExternalReferenceSource;
+import org.breedinginsight.brapps.importer.services.ImportCommitCheckpointService;
 import org.breedinginsight.brapps.importer.services.processors.experiment.ExperimentUtilities;
 import org.breedinginsight.brapps.importer.services.processors.experiment.create.model.PendingData;
 import org.breedinginsight.brapps.importer.services.processors.experiment.create.model.PendingImportObjectData;
@@ -47,13 +49,13 @@ import org.breedinginsight.brapps.importer.services.processors.experiment.servic
 import org.breedinginsight.model.Program;
 import org.breedinginsight.model.ProgramLocation;
 import org.breedinginsight.model.User;
+import org.breedinginsight.services.SequenceAllocatorService;
 import org.breedinginsight.services.exceptions.MissingRequiredInfoException;
 import org.breedinginsight.services.exceptions.UnprocessableEntityException;
 import org.breedinginsight.utilities.DatasetUtil;
 import org.breedinginsight.utilities.Utilities;
 import org.breedinginsight.model.DatasetMetadata;
 import org.breedinginsight.model.DatasetLevel;
-import org.jooq.DSLContext;
 import org.breedinginsight.model.Trait;
 import tech.tablesaw.columns.Column;
 
@@ -74,19 +76,22 @@ public class PopulateNewPendingImportObjectsStep {
 
     private final ExperimentSeasonService experimentSeasonService;
     private final BrAPIObservationUnitDAO brAPIObservationUnitDAO;
-    private final DSLContext dsl;
+    private final SequenceAllocatorService sequenceAllocatorService;
+    private final ImportCommitCheckpointService checkpointService;
     private final Gson gson;
-
-    @Property(name = "brapi.server.reference-source")
-    private String BRAPI_REFERENCE_SOURCE;
+    private final String BRAPI_REFERENCE_SOURCE;
 
     @Inject
     public PopulateNewPendingImportObjectsStep(ExperimentSeasonService experimentSeasonService,
                                                BrAPIObservationUnitDAO brAPIObservationUnitDAO,
-                                               DSLContext dsl) {
+                                               SequenceAllocatorService sequenceAllocatorService,
+                                               ImportCommitCheckpointService checkpointService,
+                                               @Property(name = "brapi.server.reference-source") String referenceSource) {
         this.experimentSeasonService = experimentSeasonService;
         this.brAPIObservationUnitDAO = brAPIObservationUnitDAO;
-        this.dsl = dsl;
+        this.sequenceAllocatorService = sequenceAllocatorService;
+        this.checkpointService = checkpointService;
+        this.BRAPI_REFERENCE_SOURCE = referenceSource;
         this.gson = new JSON().getGson();
     }
 
@@ -119,8 +124,14 @@ public class PopulateNewPendingImportObjectsStep {
         boolean commit = importContext.isCommit();
         PendingData pendingData = processContext.getPendingData();
 
+        // A commit resumed after a failure gives new objects the identifiers the earlier attempt posted them with
+        if (commit) {
+            pendingData.setCommitCheckpoints(checkpointService.load(importContext.getUpload()));
+        }
+
         Supplier<BigInteger> expNextVal = getNextExperimentSequenceNumber(program);
-        Supplier<BigInteger> envNextVal = getNextEnvironmentSequenceNumber(program);
+        Supplier<BigInteger> envNextVal = getNextEnvironmentSequenceNumber(program,
+                countNewEnvironments(importRows, pendingData.getStudyByNameNoScope().keySet()));
 
         // NOTE: this was moved to the get existing step and kept in PendingData
         // existingObsByObsHash = fetchExistingObservations(referencedTraits, program);
@@ -134,6 +145,18 @@ public class PopulateNewPendingImportObjectsStep {
             processObservations(importContext,
                     phenotypeData, pendingData, importRow, rowNum, commit, pioData.getObsUnitPIO(), pioData.getStudyPIO());
         }
+
+        if (commit) {
+            pendingData.getCommitCheckpoints().saveAssigned();
+        }
+    }
+
+    /**
+     * Returns the UUID of a new object, the one an earlier attempt to commit this upload gave it if there was one.
+     */
+    private UUID newId(PendingData pendingData, ExternalReferenceSource entityType, String key) {
+        ImportCommitCheckpointService.Checkpoints checkpoints = pendingData.getCommitCheckpoints();
+        return checkpoints != null ? checkpoints.assignId(entityType.getName(), key) : UUID.randomUUID();
     }
 
     // TODO: these sequence methods could be moved to common area
@@ -150,23 +173,25 @@ public class PopulateNewPendingImportObjectsStep {
             log.error(String.format("Program, %s, is missing a value in the exp sequence column.", program.getName()));
             throw new HttpStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "Program is not properly configured for observation unit import");
         }
-        return () -> dsl.nextval(expSequenceName.toLowerCase());
+        // An import creates at most one experiment
+        return sequenceAllocatorService.allocate(expSequenceName.toLowerCase(), 1);
     }
 
     /**
      * Retrieves the next environment sequence number for a given program.
      *
      * @param program The program for which to get the next environment sequence number.
+     * @param environmentCount The most environment numbers the import can need, reserved in one round trip.
      * @return A Supplier representing a function that generates the next environment sequence number.
      * @throws HttpStatusException If the program is not properly configured for environment import.
      */
-    private Supplier<BigInteger> getNextEnvironmentSequenceNumber(Program program) {
+    private Supplier<BigInteger> getNextEnvironmentSequenceNumber(Program program, int environmentCount) {
         String envSequenceName = program.getEnvSequence();
         if (envSequenceName == null) {
             log.error(String.format("Program, %s, is missing a value in the env sequence column.", program.getName()));
             throw new HttpStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "Program is not properly configured for environment import");
         }
-        return () -> dsl.nextval(envSequenceName.toLowerCase());
+        return sequenceAllocatorService.allocate(envSequenceName.toLowerCase(), environmentCount);
     }
 
     /**
@@ -316,10 +341,11 @@ public class PopulateNewPendingImportObjectsStep {
         } else if (!trialByNameNoScope.isEmpty()) {
             throw new UnprocessableEntityException(MULTIPLE_EXP_TITLES);
         } else {
-            UUID id = UUID.randomUUID();
+            UUID id = newId(pendingData, ExternalReferenceSource.TRIALS, importRow.getExpTitle());
             String expSeqValue = null;
             if (commit) {
-                expSeqValue = expNextVal.get().toString();
+                expSeqValue = pendingData.getCommitCheckpoints().assign(BrAPIAdditionalInfoFields.EXPERIMENT_NUMBER,
+                        importRow.getExpTitle(), () -> expNextVal.get().toString());
             }
             BrAPITrial newTrial = importRow.constructBrAPITrial(program, user, commit, BRAPI_REFERENCE_SOURCE, id, expSeqValue);
             trialPio = new PendingImportObject<>(ImportObjectState.NEW, newTrial, id);
@@ -360,7 +386,7 @@ public class PopulateNewPendingImportObjectsStep {
         if (obsVarDatasetByName.containsKey(name)) {
             pio = obsVarDatasetByName.get(name);
         } else {
-            UUID id = UUID.randomUUID();
+            UUID id = newId(pendingData, ExternalReferenceSource.DATASET, name);
             BrAPIListDetails newDataset = importRow.constructDatasetDetails(
                     name,
                     id,
@@ -477,8 +503,12 @@ public class PopulateNewPendingImportObjectsStep {
             // NOTE: specific to this workflow, rest common
             PendingImportObject<BrAPITrial> trialPIO = trialByNameNoScope.get(importRow.getExpTitle());
             UUID trialID = trialPIO.getId();
-            UUID id = UUID.randomUUID();
-            BrAPIStudy newStudy = importRow.constructBrAPIStudy(program, commit, BRAPI_REFERENCE_SOURCE, expSequenceValue, trialID, id, envNextVal);
+            UUID id = newId(pendingData, ExternalReferenceSource.STUDIES, importRow.getEnv());
+            Supplier<BigInteger> envNumber = commit
+                    ? () -> new BigInteger(pendingData.getCommitCheckpoints().assign(BrAPIAdditionalInfoFields.ENVIRONMENT_NUMBER,
+                            importRow.getEnv(), () -> envNextVal.get().toString()))
+                    : envNextVal;
+            BrAPIStudy newStudy = importRow.constructBrAPIStudy(program, commit, BRAPI_REFERENCE_SOURCE, expSequenceValue, trialID, id, envNumber);
             newStudy.setLocationDbId(locationByName.get(importRow.getEnvLocation()).getId().toString()); //set as the BI ID to facilitate looking up locations when saving new studies
 
             // It is assumed that the study has only one season, And that the Years and not
@@ -537,7 +567,7 @@ public class PopulateNewPendingImportObjectsStep {
             }
             PendingImportObject<BrAPIStudy> studyPIO = studyByNameNoScope.get(importRow.getEnv());
             UUID studyID = studyPIO.getId();
-            UUID id = UUID.randomUUID();
+            UUID id = newId(pendingData, ExternalReferenceSource.OBSERVATION_UNITS, key);
             BrAPIObservationUnit newObservationUnit = importRow.constructBrAPIObservationUnit(program, envSeqValue, commit, germplasmName, importRow.getGid(), BRAPI_REFERENCE_SOURCE, trialID, datasetId, studyID, id);
 
             // check for existing units if this is an existing study
@@ -612,7 +642,7 @@ public class PopulateNewPendingImportObjectsStep {
 
             UUID trialID = trialPIO.getId();
             UUID studyID = studyPIO.getId();
-            UUID id = UUID.randomUUID();
+            UUID id = newId(pendingData, ExternalReferenceSource.OBSERVATIONS, key);
             newObservation = importRow.constructBrAPIObservation(value, variableName, seasonDbId, obsUnitPIO.getBrAPIObject(), commit, program, user, BRAPI_REFERENCE_SOURCE, trialID, studyID, obsUnitPIO.getId(), id);
             //NOTE: Can't parse invalid timestamp value, so have to skip if invalid.
             // Validation error should be thrown for offending value, but that doesn't happen until later downstream
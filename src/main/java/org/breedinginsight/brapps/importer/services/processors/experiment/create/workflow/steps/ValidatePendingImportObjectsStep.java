@@ -23,6 +23,7 @@ import com.google.gson.JsonObject;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.map.CaseInsensitiveMap;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.Pair;
 import org.brapi.client.v2.JSON;
 import org.brapi.v2.model.core.BrAPIStudy;
 import org.brapi.v2.model.core.BrAPITrial;
@@ -40,10 +41,14 @@ import org.breedinginsight.brapps.importer.model.response.ImportObjectState;
 import org.breedinginsight.brapps.importer.model.response.PendingImportObject;
 import org.breedinginsight.brapps.importer.model.workflow.ImportContext;
 import org.breedinginsight.brapps.importer.model.workflow.ProcessedData;
+import org.breedinginsight.brapps.importer.services.RowValidationEngine;
 import org.breedinginsight.brapps.importer.services.processors.experiment.ExperimentUtilities;
 import org.breedinginsight.brapps.importer.services.processors.experiment.create.model.PendingData;
 import org.breedinginsight.brapps.importer.services.processors.experiment.create.model.ProcessedPhenotypeData;
+import org.breedinginsight.brapps.importer.services.processors.experiment.service.ObservationService;
 import org.breedinginsight.brapps.importer.services.processors.experiment.services.ExperimentSeasonService;
+import org.breedinginsight.brapps.importer.services.processors.experiment.validator.field.ScaleValidationReport;
+import org.breedinginsight.brapps.importer.services.processors.experiment.validator.field.ScaleValidator;
 import org.breedinginsight.model.Program;
 import org.breedinginsight.model.ProgramLocation;
 import org.breedinginsight.model.Trait;
@@ -68,11 +73,17 @@ public class ValidatePendingImportObjectsStep {
     private static final String ENV_YEAR_MISMATCH = "All years must be the same for a given environment";
 
     private final ExperimentSeasonService experimentSeasonService;
+    private final RowValidationEngine rowValidationEngine;
+    private final ObservationService observationService;
     private final Gson gson;
 
     @Inject
-    public ValidatePendingImportObjectsStep(ExperimentSeasonService experimentSeasonService) {
+    public ValidatePendingImportObjectsStep(ExperimentSeasonService experimentSeasonService,
+                                            RowValidationEngine rowValidationEngine,
+                                            ObservationService observationService) {
         this.experimentSeasonService = experimentSeasonService;
+        this.rowValidationEngine = rowValidationEngine;
+        this.observationService = observationService;
         this.gson = new JSON().getGson();
     }
 
@@ -148,29 +159,77 @@ public class ValidatePendingImportObjectsStep {
                                 PendingData pendingData,
                                 ProcessedPhenotypeData phenotypeData) {
         //fetching any existing observations for any OUs in the import
-        CaseInsensitiveMap<String, Trait> colVarMap = new CaseInsensitiveMap<>();
-        ValidationErrors validationErrors = new ValidationErrors();
+        CaseInsensitiveMap<String, ScaleValidator> scaleValidatorByCol = new CaseInsensitiveMap<>();
 
         for ( Trait trait: referencedTraits) {
-            colVarMap.put(trait.getObservationVariableName(),trait);
+            scaleValidatorByCol.put(trait.getObservationVariableName(), ScaleValidator.of(trait, observationService));
         }
-        Set<String> uniqueStudyAndObsUnit = new HashSet<>();
-        for (int rowNum = 0; rowNum < importRows.size(); rowNum++) {
-            ExperimentObservation importRow = (ExperimentObservation) importRows.get(rowNum);
-            PendingImport mappedImportRow = mappedBrAPIImport.get(rowNum);
-            // NOTE: validate Observations used by both workflows
-            if (StringUtils.isNotBlank(importRow.getGid())) { // if GID is blank, don't bother to check if it is valid.
-                validateGermplasm(importRow, validationErrors, rowNum, mappedImportRow.getGermplasm());
-            }
-            validateTestOrCheck(importRow, validationErrors, rowNum);
-            validateConditionallyRequired(pendingData, validationErrors, rowNum, importRow, program, commit);
-            validateObservationUnits(pendingData, validationErrors, uniqueStudyAndObsUnit, rowNum, importRow);
-            validateObservations(pendingData, phenotypeData, validationErrors, rowNum, importRow, phenotypeCols, colVarMap, commit, user);
+        ScaleValidationReport scaleReport = ScaleValidationReport.of(phenotypeCols, scaleValidatorByCol::get);
+        Map<String, String> seasonDbIdByYear = resolveSeasons(importRows, pendingData, program, commit);
+        // Change log entries of updated observations, added if no row has errors
+        List<Pair<BrAPIObservation, ChangeLogEntry>> changeLogs = Collections.synchronizedList(new ArrayList<>());
+
+        RowValidationEngine.Rules<BrAPIImport> rules = new RowValidationEngine.Rules<BrAPIImport>()
+                .rowRule("germplasm", (row, rowNum, validationErrors) -> {
+                    ExperimentObservation importRow = (ExperimentObservation) row;
+                    if (StringUtils.isNotBlank(importRow.getGid())) { // if GID is blank, don't bother to check if it is valid.
+                        validateGermplasm(importRow, validationErrors, rowNum, mappedBrAPIImport.get(rowNum).getGermplasm());
+                    }
+                })
+                .rowRule("test or check", (row, rowNum, validationErrors) ->
+                        validateTestOrCheck((ExperimentObservation) row, validationErrors, rowNum))
+                .rowRule("conditionally required", (row, rowNum, validationErrors) ->
+                        validateConditionallyRequired(pendingData, validationErrors, rowNum, (ExperimentObservation) row, program, seasonDbIdByYear, commit))
+                .duplicateRule("unique observation units", row -> ExperimentUtilities.createObservationUnitKey((ExperimentObservation) row),
+                        (row, rowNum, validationErrors) -> addDuplicateObsUnitError(validationErrors, rowNum, (ExperimentObservation) row))
+                .rowRule("observation units", (row, rowNum, validationErrors) ->
+                        validateObservationUnits(pendingData, validationErrors, rowNum, (ExperimentObservation) row))
+                .rowRule("observations", (row, rowNum, validationErrors) ->
+                        validateObservations(pendingData, phenotypeData, validationErrors, rowNum, (ExperimentObservation) row, phenotypeCols, scaleReport, commit, user, changeLogs));
+
+        ValidationErrors validationErrors = rowValidationEngine.validate(importRows, rules);
+        if (!validationErrors.hasErrors()) {
+            changeLogs.forEach(changeLog -> addChangeLogEntry(changeLog.getLeft(), changeLog.getRight()));
         }
-
         return validationErrors;
     }
 
+    private void addChangeLogEntry(BrAPIObservation pendingObservation, ChangeLogEntry change) {
+        // create the changelog field in additional info if it does not already exist
+        if (pendingObservation.getAdditionalInfo().isJsonNull()) {
+            pendingObservation.setAdditionalInfo(new JsonObject());
+            pendingObservation.getAdditionalInfo().add(BrAPIAdditionalInfoFields.CHANGELOG, new JsonArray());
+        }
+
+        if (pendingObservation.getAdditionalInfo() != null && !pendingObservation.getAdditionalInfo().has(BrAPIAdditionalInfoFields.CHANGELOG)) {
+            pendingObservation.getAdditionalInfo().add(BrAPIAdditionalInfoFields.CHANGELOG, new JsonArray());
+        }
+
+        // add a new entry to the changelog
+        pendingObservation.getAdditionalInfo().get(BrAPIAdditionalInfoFields.CHANGELOG).getAsJsonArray().add(gson.toJsonTree(change).getAsJsonObject());
+    }
+
+    /**
+     * Looks up the seasons of the years that are validated against existing environments, creating the ones that do
+     * not exist yet, before the rows are validated in parallel.
+     */
+    private Map<String, String> resolveSeasons(List<BrAPIImport> importRows, PendingData pendingData, Program program, boolean commit) {
+        Map<String, String> seasonDbIdByYear = new HashMap<>();
+        if (!commit) {
+            return seasonDbIdByYear;
+        }
+        for (BrAPIImport row : importRows) {
+            ExperimentObservation importRow = (ExperimentObservation) row;
+            ImportObjectState expState = pendingData.getTrialByNameNoScope().get(importRow.getExpTitle()).getState();
+            ImportObjectState envState = pendingData.getStudyByNameNoScope().get(importRow.getEnv()).getState();
+            if ((expState == ImportObjectState.NEW || envState == ImportObjectState.NEW)
+                    && StringUtils.isNotBlank(importRow.getEnvYear()) && !seasonDbIdByYear.containsKey(importRow.getEnvYear())) {
+                seasonDbIdByYear.put(importRow.getEnvYear(), experimentSeasonService.yearToSeasonDbId(importRow.getEnvYear(), program.getId()));
+            }
+        }
+        return seasonDbIdByYear;
+    }
+
     private void validateGermplasm(ExperimentObservation importRow, ValidationErrors validationErrors, int rowNum, PendingImportObject<BrAPIGermplasm> germplasmPIO) {
         // error if GID is not blank but GID does not already exist
         if (StringUtils.isNotBlank(importRow.getGid()) && germplasmPIO == null) {
@@ -188,7 +247,8 @@ public class ValidatePendingImportObjectsStep {
         }
     }
 
-    private void validateConditionallyRequired(PendingData pendingData, ValidationErrors validationErrors, int rowNum, ExperimentObservation importRow, Program program, boolean commit) {
+    private void validateConditionallyRequired(PendingData pendingData, ValidationErrors validationErrors, int rowNum, ExperimentObservation importRow, Program program,
+                                               Map<String, String> seasonDbIdByYear, boolean commit) {
         Map<String, PendingImportObject<BrAPITrial>> trialByNameNoScope = pendingData.getTrialByNameNoScope();
         Map<String, PendingImportObject<BrAPIStudy>> studyByNameNoScope = pendingData.getStudyByNameNoScope();
 
@@ -218,7 +278,7 @@ public class ValidatePendingImportObjectsStep {
                 String studyYear = StringUtils.defaultString(studyByNameNoScope.get(importRow.getEnv()).getBrAPIObject().getSeasons().get(0) );
                 String rowYear = importRow.getEnvYear();
                 if(commit) {
-                    rowYear = experimentSeasonService.yearToSeasonDbId(importRow.getEnvYear(), program.getId());
+                    rowYear = seasonDbIdByYear.get(importRow.getEnvYear());
                 }
                 if(StringUtils.isNotBlank(studyYear) && !studyYear.equals(rowYear)) {
                     ExperimentUtilities.addRowError(ExperimentObservation.Columns.ENV_YEAR, ENV_YEAR_MISMATCH, validationErrors, rowNum);
@@ -254,13 +314,10 @@ public class ValidatePendingImportObjectsStep {
     private void validateObservationUnits(
             PendingData pendingData,
             ValidationErrors validationErrors,
-            Set<String> uniqueStudyAndObsUnit,
             int rowNum,
             ExperimentObservation importRow) {
         Map<String, PendingImportObject<BrAPIObservationUnit>> observationUnitByNameNoScope = pendingData.getObservationUnitByNameNoScope();
 
-        validateUniqueObsUnits(validationErrors, uniqueStudyAndObsUnit, rowNum, importRow);
-
         String key = ExperimentUtilities.createObservationUnitKey(importRow);
         PendingImportObject<BrAPIObservationUnit> ouPIO = observationUnitByNameNoScope.get(key);
         if(ouPIO.getState() == ImportObjectState.NEW && StringUtils.isNotBlank(importRow.getObsUnitID())) {
@@ -271,31 +328,19 @@ public class ValidatePendingImportObjectsStep {
     }
 
     /**
-     * Validate that the observation unit is unique within a study.
-     * <br>
-     * SIDE EFFECTS:  validationErrors and uniqueStudyAndObsUnit can be modified.
+     * Adds the error for an observation unit that is not unique within a study, the rows with the same unit are found
+     * by the duplicate pass of the validation.
      *
      * @param validationErrors      can be modified as a side effect.
-     * @param uniqueStudyAndObsUnit can be modified as a side effect.
-     * @param rowNum                     counter that is always two less the file row being validated
+     * @param rowNum                counter that is always two less the file row being validated
      * @param importRow             the data row being validated
      */
-    private void validateUniqueObsUnits(
+    private void addDuplicateObsUnitError(
             ValidationErrors validationErrors,
-            Set<String> uniqueStudyAndObsUnit,
             int rowNum,
             ExperimentObservation importRow) {
-        String envIdPlusStudyId = ExperimentUtilities.createObservationUnitKey(importRow);
-        if (uniqueStudyAndObsUnit.contains(envIdPlusStudyId)) {
-            String errorMessage = String.format("The ID (%s) is not unique within the environment(%s)", importRow.getExpUnitId(), importRow.getEnv());
-            ExperimentUtilities.addRowError(ExperimentObservation.Columns.EXP_UNIT_ID, errorMessage, validationErrors, rowNum);
-        } else {
-            //Only want to add valid unique study-obs unit combos
-            //To avoid situations like system counting a null value as a unique combo
-            if (!envIdPlusStudyId.isBlank()) {
-                uniqueStudyAndObsUnit.add(envIdPlusStudyId);
-            }
-        }
+        String errorMessage = String.format("The ID (%s) is not unique within the environment(%s)", importRow.getExpUnitId(), importRow.getEnv());
+        ExperimentUtilities.addRowError(ExperimentObservation.Columns.EXP_UNIT_ID, errorMessage, validationErrors, rowNum);
     }
 
     private void validateGeoCoordinates(ValidationErrors validationErrors, int rowNum, ExperimentObservation importRow) {
@@ -375,9 +420,10 @@ public class ValidatePendingImportObjectsStep {
                                       int rowNum,
                                       ExperimentObservation importRow,
                                       List<Column<?>> phenotypeCols,
-                                      CaseInsensitiveMap<String, Trait> colVarMap,
+                                      ScaleValidationReport scaleReport,
                                       boolean commit,
-                                      User user) {
+                                      User user,
+                                      List<Pair<BrAPIObservation, ChangeLogEntry>> changeLogs) {
 
         Map<String, BrAPIObservation> existingObsByObsHash = pendingData.getExistingObsByObsHash();
         Map<String, Column<?>> timeStampColByPheno = phenotypeData.getTimeStampColByPheno();
@@ -407,7 +453,7 @@ public class ValidatePendingImportObjectsStep {
 
                 // different data means validations still need to happen
                 // TODO consider moving these two calls into a separate method since called twice together
-                ExperimentUtilities.validateObservationValue(colVarMap.get(phenoCol.name()), phenoCol.getString(rowNum), phenoCol.name(), validationErrors, rowNum);
+                ExperimentUtilities.validateObservationValue(scaleReport.getResult(phenoCol.name(), rowNum), phenoCol.name(), validationErrors, rowNum);
 
                 //Timestamp validation
                 if(timeStampColByPheno.containsKey(phenoCol.name())) {
@@ -416,8 +462,8 @@ public class ValidatePendingImportObjectsStep {
                 }
 
                 // add a change log entry when updating the value of an observation
-                // only will update and thereby need change log entry if no error
-                if (commit && (!validationErrors.hasErrors())) {
+                // only will update and thereby need change log entry if no error, so they are added once all rows are validated
+                if (commit) {
                     BrAPIObservation pendingObservation = observationByHash.get(importHash).getBrAPIObject();
                     DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd:hh-mm-ssZ");
                     String timestamp = formatter.format(OffsetDateTime.now());
@@ -436,18 +482,7 @@ public class ValidatePendingImportObjectsStep {
                             timestamp
                     );
 
-                    // create the changelog field in additional info if it does not already exist
-                    if (pendingObservation.getAdditionalInfo().isJsonNull()) {
-                        pendingObservation.setAdditionalInfo(new JsonObject());
-                        pendingObservation.getAdditionalInfo().add(BrAPIAdditionalInfoFields.CHANGELOG, new JsonArray());
-                    }
-
-                    if (pendingObservation.getAdditionalInfo() != null && !pendingObservation.getAdditionalInfo().has(BrAPIAdditionalInfoFields.CHANGELOG)) {
-                        pendingObservation.getAdditionalInfo().add(BrAPIAdditionalInfoFields.CHANGELOG, new JsonArray());
-                    }
-
-                    // add a new entry to the changelog
-                    pendingObservation.getAdditionalInfo().get(BrAPIAdditionalInfoFields.CHANGELOG).getAsJsonArray().add(gson.toJsonTree(change).getAsJsonObject());
+                    changeLogs.add(Pair.of(pendingObservation, change));
                 }
 
                 // preview case where observation has already been committed and import ObsVar data is the
@@ -462,7 +497,7 @@ public class ValidatePendingImportObjectsStep {
             } else if(!existingObsByObsHash.containsKey(importHash) && (StringUtils.isBlank(phenoCol.getString(rowNum)))) {
                 observationByHash.get(importHash).setState(ImportObjectState.EXISTING);
             } else {
-                ExperimentUtilities.validateObservationValue(colVarMap.get(phenoCol.name()), phenoCol.getString(rowNum), phenoCol.name(), validationErrors, rowNum);
+                ExperimentUtilities.validateObservationValue(scaleReport.getResult(phenoCol.name(), rowNum), phenoCol.name(), validationErrors, rowNum);
 
                 //Timestamp validation
                 if(timeStampColByPheno.containsKey(phenoCol.name())) {
@@ -3,6 +3,7 @@ package org.breedinginsight.brapps.importer.services.processors.experiment.model
 import lombok.*;
 import org.breedinginsight.brapps.importer.model.ImportUpload;
 import org.breedinginsight.brapps.importer.model.imports.BrAPIImport;
+import org.breedinginsight.brapps.importer.model.imports.ImportLookups;
 import org.breedinginsight.brapps.importer.model.imports.PendingImport;
 import org.breedinginsight.model.Program;
 import org.breedinginsight.model.User;
@@ -25,4 +26,5 @@ public class ImportContext {
     private Program program;
     private User user;
     private boolean commit;
+    private ImportLookups lookups;
 }
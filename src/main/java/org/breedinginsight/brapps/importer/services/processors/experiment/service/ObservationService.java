@@ -40,10 +40,14 @@ import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Singleton
 public class ObservationService {
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ISO_DATE;
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ISO_DATE_TIME;
+    // Digits of the longest whole number that always fits in a long
+    private static final int MAX_LONG_DIGITS = 18;
+
     private final ExperimentUtilities experimentUtilities;
 
     @Inject
@@ -52,16 +56,53 @@ public class ObservationService {
     }
 
     public boolean validCategory(List<BrAPIScaleValidValuesCategories> categories, String value) {
-        Set<String> categoryValues = categories.stream()
-                .map(category -> category.getValue().toLowerCase())
-                .collect(Collectors.toSet());
+        return validCategory(categoryValues(categories), value);
+    }
+
+    /**
+     * @return the lower case values of the categories, to check many values with {@link #validCategory(Set, String)}
+     */
+    public Set<String> categoryValues(List<BrAPIScaleValidValuesCategories> categories) {
+        Set<String> categoryValues = new HashSet<>();
+        for (BrAPIScaleValidValuesCategories category : categories) {
+            categoryValues.add(category.getValue().toLowerCase());
+        }
+        return categoryValues;
+    }
+
+    public boolean validCategory(Set<String> categoryValues, String value) {
         return categoryValues.contains(value.toLowerCase());
     }
+
     public boolean validNumericRange(BigDecimal value, Scale validValues) {
+        return validNumericRange(value, minValue(validValues), maxValue(validValues));
+    }
+
+    /**
+     * @return the lowest valid value of the scale, Long.MIN_VALUE if the scale has no minimum
+     */
+    public long minValue(Scale validValues) {
+        return validValues.getValidValueMin() == null ? Long.MIN_VALUE : validValues.getValidValueMin();
+    }
+
+    /**
+     * @return the highest valid value of the scale, Long.MAX_VALUE if the scale has no maximum
+     */
+    public long maxValue(Scale validValues) {
+        return validValues.getValidValueMax() == null ? Long.MAX_VALUE : validValues.getValidValueMax();
+    }
+
+    public boolean validNumericRange(BigDecimal value, long min, long max) {
+        // Whole numbers that fit in a long are compared as longs, without building decimals for the bounds
+        if (value.scale() <= 0 && value.precision() - value.scale() <= MAX_LONG_DIGITS) {
+            long number = value.longValue();
+            return number >= min && number <= max;
+        }
         // account for empty min or max in valid determination
-        return (validValues.getValidValueMin() == null || value.compareTo(BigDecimal.valueOf(validValues.getValidValueMin())) >= 0) &&
-                (validValues.getValidValueMax() == null || value.compareTo(BigDecimal.valueOf(validValues.getValidValueMax())) <= 0);
+        return (min == Long.MIN_VALUE || value.compareTo(BigDecimal.valueOf(min)) >= 0) &&
+                (max == Long.MAX_VALUE || value.compareTo(BigDecimal.valueOf(max)) <= 0);
     }
+
     public Optional<BigDecimal> validNumericValue(String value) {
         BigDecimal number;
         try {
@@ -79,9 +120,8 @@ public class ObservationService {
         return value.equalsIgnoreCase("NA");
     }
     public boolean validDateTimeValue(String value) {
-        DateTimeFormatter formatter = DateTimeFormatter.ISO_DATE_TIME;
         try {
-            formatter.parse(value);
+            DATE_TIME_FORMAT.parse(value);
         } catch (DateTimeParseException e) {
             return false;
         }
@@ -89,9 +129,8 @@ public class ObservationService {
     }
 
     public boolean validDateValue(String value) {
-        DateTimeFormatter formatter = DateTimeFormatter.ISO_DATE;
         try {
-            formatter.parse(value);
+            DATE_FORMAT.parse(value);
         } catch (DateTimeParseException e) {
             return false;
         }
@@ -20,6 +20,7 @@ package org.breedinginsight.brapps.importer.services.processors.experiment.servi
 import io.micronaut.http.HttpStatus;
 import org.apache.commons.lang3.StringUtils;
 import org.breedinginsight.api.model.v1.response.ValidationError;
+import org.breedinginsight.brapps.importer.model.imports.ImportLookups;
 import org.breedinginsight.brapps.importer.services.processors.experiment.ExperimentUtilities;
 import org.breedinginsight.brapps.importer.services.processors.experiment.model.ExpImportProcessConstants;
 import org.breedinginsight.model.Program;
@@ -52,15 +53,16 @@ public class ObservationVariableService {
      *
      * @param varNames a set of variable names to fetch traits for
      * @param program the program for which traits are fetched
+     * @param lookups the lookups of the import, used to fetch the program traits once
      * @return a list of traits filtered by the provided variable names
      * @throws DoesNotExistException if the program or traits do not exist
      * @throws IllegalStateException if any requested observation variables are missing
      */
-    public List<Trait> fetchTraitsByName(Set<String> varNames, Program program) throws DoesNotExistException, IllegalStateException {
+    public List<Trait> fetchTraitsByName(Set<String> varNames, Program program, ImportLookups lookups) throws DoesNotExistException, IllegalStateException {
         List<Trait> traits = null;
 
         // Fetch all stored traits for the program
-        List<Trait> programTraits = ontologyService.getTraitsByProgramId(program.getId(), true);
+        List<Trait> programTraits = lookups.getProgramTraits(() -> ontologyService.getTraitsByProgramId(program.getId(), true));
 
         // Only keep traits that are in the set of names
         List<String> upperCaseVarNames = varNames.stream().map(String::toUpperCase).collect(Collectors.toList());
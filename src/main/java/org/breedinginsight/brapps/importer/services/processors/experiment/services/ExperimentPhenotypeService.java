@@ -58,7 +58,7 @@ public class ExperimentPhenotypeService {
         Program program = importContext.getProgram();
 
         DynamicColumnParser.DynamicColumnParseResult result = DynamicColumnParser.parse(data, upload.getDynamicColumnNames());
-        List<Trait> traits = experimentValidateService.verifyTraits(program.getId(), result);
+        List<Trait> traits = experimentValidateService.verifyTraits(program.getId(), result, importContext.getLookups());
 
         Map<String, Column<?>> timeStampColByPheno = new HashMap<>();
         //Now know timestamps all valid phenotypes, can associate with phenotype column name for easy retrieval
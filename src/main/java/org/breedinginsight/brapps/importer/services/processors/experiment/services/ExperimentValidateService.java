@@ -21,6 +21,7 @@ import io.micronaut.http.exceptions.HttpStatusException;
 import io.micronaut.http.server.exceptions.InternalServerException;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.breedinginsight.brapps.importer.model.imports.ImportLookups;
 import org.breedinginsight.brapps.importer.services.FileMappingUtil;
 import org.breedinginsight.brapps.importer.services.processors.experiment.DynamicColumnParser.DynamicColumnParseResult;
 import org.breedinginsight.dao.db.tables.pojos.TraitEntity;
@@ -59,10 +60,11 @@ public class ExperimentValidateService {
      *
      * @param programId The UUID of the program.
      * @param cols The dynamic column parse result object containing phenotype and timestamp columns.
+     * @param lookups The lookups of the import, used to fetch the program traits once.
      * @return The list of verified traits.
      * @throws HttpStatusException If ontology terms are not found or timestamp columns lack corresponding phenotype columns.
      */
-    public List<Trait> verifyTraits(UUID programId, DynamicColumnParseResult cols) {
+    public List<Trait> verifyTraits(UUID programId, DynamicColumnParseResult cols, ImportLookups lookups) {
         Set<String> varNames = cols.getPhenotypeCols().stream()
                 .map(Column::name)
                 .collect(Collectors.toSet());
@@ -71,7 +73,7 @@ public class ExperimentValidateService {
                 .collect(Collectors.toSet());
 
         // filter out just traits specified in file
-        List<Trait> filteredTraits = fetchFileTraits(programId, varNames);
+        List<Trait> filteredTraits = fetchFileTraits(programId, varNames, lookups);
 
         // check that all specified ontology terms were found
         if (filteredTraits.size() != varNames.size()) {
@@ -101,10 +103,10 @@ public class ExperimentValidateService {
         return fileMappingUtil.sortByField(phenotypeColNames, filteredTraits, TraitEntity::getObservationVariableName);
     }
 
-    private List<Trait> fetchFileTraits(UUID programId, Collection<String> varNames) {
+    private List<Trait> fetchFileTraits(UUID programId, Collection<String> varNames, ImportLookups lookups) {
         try {
             Collection<String> upperCaseVarNames = varNames.stream().map(String::toUpperCase).collect(Collectors.toList());
-            List<Trait> traits = ontologyService.getTraitsByProgramId(programId, true);
+            List<Trait> traits = lookups.getProgramTraits(() -> ontologyService.getTraitsByProgramId(programId, true));
             // filter out just traits specified in file
             return traits.stream()
                     .filter(e -> upperCaseVarNames.contains(e.getObservationVariableName().toUpperCase()))
@@ -0,0 +1,60 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.brapps.importer.services.processors.experiment.validator.field;
+
+import org.apache.commons.collections4.map.CaseInsensitiveMap;
+import tech.tablesaw.columns.Column;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The scale check results of every cell of the observation columns of an import, by column.
+ *
+ * The result of a cell is stored as a byte per row, so error messages are only built for the cells that are reported.
+ */
+public class ScaleValidationReport {
+
+    private static final ScaleValidator.Result[] RESULTS = ScaleValidator.Result.values();
+
+    private final Map<String, byte[]> resultsByColumn = new CaseInsensitiveMap<>();
+
+    /**
+     * Checks every cell of the columns with the validator of its column, columns without a validator are valid.
+     */
+    public static ScaleValidationReport of(List<Column<?>> columns, Function<String, ScaleValidator> validatorByColumn) {
+        ScaleValidationReport report = new ScaleValidationReport();
+        for (Column<?> column : columns) {
+            ScaleValidator validator = validatorByColumn.apply(column.name());
+            byte[] results = new byte[column.size()];
+            if (validator != null) {
+                for (int row = 0; row < column.size(); row++) {
+                    results[row] = (byte) validator.validate(column.getString(row)).ordinal();
+                }
+            }
+            report.resultsByColumn.put(column.name(), results);
+        }
+        return report;
+    }
+
+    public ScaleValidator.Result getResult(String column, int row) {
+        byte[] results = resultsByColumn.get(column);
+        return results == null ? ScaleValidator.Result.VALID : RESULTS[results[row]];
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.brapps.importer.services.processors.experiment.validator.field;
+
+import org.breedinginsight.brapps.importer.services.processors.experiment.service.ObservationService;
+import org.breedinginsight.dao.db.enums.DataType;
+import org.breedinginsight.model.Scale;
+import org.breedinginsight.model.Trait;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Checks observation values against the scale of a trait, giving the reason a value is invalid so that the caller can
+ * choose the message.
+ *
+ * The scale is read once when the validator is built, with the {@link ObservationService} that defines the checks:
+ * the categories go into a set of lower case values and the bounds are kept as longs, so checking a value does not
+ * go back to the trait. Validators are immutable and can be shared by the threads validating an import.
+ */
+public class ScaleValidator {
+
+    public enum Result {
+        VALID,
+        NON_NUMERIC,
+        OUT_OF_RANGE,
+        INVALID_DATE,
+        UNDEFINED_ORDINAL,
+        UNDEFINED_NOMINAL
+    }
+
+    private final ObservationService observationService;
+    private final DataType dataType;
+    private final long min;
+    private final long max;
+    private final Set<String> categories;
+
+    private ScaleValidator(ObservationService observationService, DataType dataType, long min, long max, Set<String> categories) {
+        this.observationService = observationService;
+        this.dataType = dataType;
+        this.min = min;
+        this.max = max;
+        this.categories = categories;
+    }
+
+    /**
+     * @return a validator for the scale of the trait, one that accepts every value if the trait has no scale
+     */
+    public static ScaleValidator of(Trait trait, ObservationService observationService) {
+        if (trait == null || trait.getScale() == null || trait.getScale().getDataType() == null) {
+            return new ScaleValidator(observationService, null, Long.MIN_VALUE, Long.MAX_VALUE, Collections.emptySet());
+        }
+        Scale scale = trait.getScale();
+        Set<String> categories = scale.getCategories() == null ? Collections.emptySet()
+                                                               : observationService.categoryValues(scale.getCategories());
+        return new ScaleValidator(observationService, scale.getDataType(),
+                                  observationService.minValue(scale), observationService.maxValue(scale), categories);
+    }
+
+    /**
+     * Blank and NA values are always valid.
+     */
+    public Result validate(String value) {
+        if (dataType == null || observationService.isBlankObservation(value) || observationService.isNAObservation(value)) {
+            return Result.VALID;
+        }
+
+        switch (dataType) {
+            case NUMERICAL:
+                Optional<BigDecimal> number = observationService.validNumericValue(value);
+                if (number.isEmpty()) {
+                    return Result.NON_NUMERIC;
+                }
+                return observationService.validNumericRange(number.get(), min, max) ? Result.VALID : Result.OUT_OF_RANGE;
+            case DATE:
+                return observationService.validDateValue(value) ? Result.VALID : Result.INVALID_DATE;
+            case ORDINAL:
+                return observationService.validCategory(categories, value) ? Result.VALID : Result.UNDEFINED_ORDINAL;
+            case NOMINAL:
+                return observationService.validCategory(categories, value) ? Result.VALID : Result.UNDEFINED_NOMINAL;
+            default:
+                return Result.VALID;
+        }
+    }
+}
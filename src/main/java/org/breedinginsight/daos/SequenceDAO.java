@@ -0,0 +1,61 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.daos;
+
+import org.jooq.DSLContext;
+import org.jooq.Sequence;
+import org.jooq.impl.DSL;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+@Singleton
+public class SequenceDAO {
+
+    private final DSLContext dsl;
+
+    @Inject
+    public SequenceDAO(DSLContext dsl) {
+        this.dsl = dsl;
+    }
+
+    /**
+     * Reserves count values of a sequence in a single round trip by calling nextval over generate_series.
+     * Values are unique but not guaranteed to be contiguous when other sessions use the sequence at the same time.
+     *
+     * @return the reserved values in ascending order
+     */
+    public List<BigInteger> nextValues(String sequenceName, int count) {
+        if (count < 1) {
+            return new ArrayList<>();
+        }
+
+        Sequence<BigInteger> sequence = DSL.sequence(DSL.name(sequenceName));
+        List<BigInteger> values = dsl.select(sequence.nextval())
+                .from(DSL.generateSeries(1, count))
+                .fetch(0, BigInteger.class);
+
+        List<BigInteger> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        return sorted;
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.breedinginsight.daos.cache;
+
+import io.micronaut.context.annotation.Property;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.brapi.v2.model.BrAPIExternalReference;
+import org.brapi.v2.model.pheno.BrAPIObservation;
+import org.brapi.v2.model.pheno.BrAPIObservationUnit;
+import org.breedinginsight.brapps.importer.services.ExternalReferenceSource;
+import org.breedinginsight.utilities.Utilities;
+import org.redisson.api.RAtomicLong;
+import org.redisson.api.RBucket;
+import org.redisson.api.RExpirable;
+import org.redisson.api.RMap;
+import org.redisson.api.RSet;
+import org.redisson.api.RedissonClient;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dataset and experiment statistics kept in redis next to the program caches.
+ *
+ * The statistics are sets of dbIds, so they are updated as observation units, observations and dataset variables are
+ * written through the DAOs without reading the rest of the experiment, and counts are read with a single SCARD.
+ * Statistics of a dataset or experiment are only served once they have been seeded from the full data, which happens
+ * the first time they are requested. Writes before that are safe because adding to a set is idempotent.
+ *
+ * Every key expires after the configured ttl so statistics that missed a write are reseeded, and the statistics of a
+ * program are dropped whenever its program caches are repopulated or an import is undone. The keys written for a
+ * program are tracked in a set, so they are dropped without scanning the keyspace.
+ */
+@Slf4j
+@Singleton
+public class ExperimentStatsCache {
+
+    private final RedissonClient connection;
+    private final String referenceSource;
+    private final Duration ttl;
+
+    @Inject
+    public ExperimentStatsCache(RedissonClient connection,
+                                @Property(name = "brapi.server.reference-source") String referenceSource,
+                                @Property(name = "brapi.stats-cache.ttl") Duration ttl) {
+        this.connection = connection;
+        this.referenceSource = referenceSource;
+        this.ttl = ttl;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class DatasetStats {
+        private final int observationUnits;
+        private final int phenotypes;
+        private final int observationsWithData;
+
+        public int getObservations() {
+            return observationUnits * phenotypes;
+        }
+
+        public int getObservationsWithoutData() {
+            return getObservations() - observationsWithData;
+        }
+    }
+
+    /**
+     * Adds newly created observation units to the statistics of their dataset and experiment.
+     */
+    public void recordObservationUnits(UUID programId, Collection<BrAPIObservationUnit> observationUnits) {
+        Map<String, String> datasetByObservationUnit = new HashMap<>();
+        Map<String, Set<String>> observationUnitsByDataset = new HashMap<>();
+        Map<String, Set<String>> germplasmByTrial = new HashMap<>();
+        for (BrAPIObservationUnit ou : observationUnits) {
+            getDatasetId(ou.getExternalReferences()).ifPresent(datasetId -> {
+                datasetByObservationUnit.put(ou.getObservationUnitDbId(), datasetId);
+                observationUnitsByDataset.computeIfAbsent(datasetId, id -> new HashSet<>()).add(ou.getObservationUnitDbId());
+            });
+            if (ou.getTrialDbId() != null && ou.getGermplasmDbId() != null) {
+                germplasmByTrial.computeIfAbsent(ou.getTrialDbId(), id -> new HashSet<>()).add(ou.getGermplasmDbId());
+            }
+        }
+
+        if (!datasetByObservationUnit.isEmpty()) {
+            RMap<String, String> datasets = getDatasetByObservationUnit(programId);
+            datasets.putAll(datasetByObservationUnit);
+            expire(programId, datasets);
+        }
+        observationUnitsByDataset.forEach((datasetId, ouDbIds) -> addAll(programId, getDatasetObservationUnits(programId, datasetId), ouDbIds));
+        germplasmByTrial.forEach((trialDbId, germplasmDbIds) -> addAll(programId, getTrialGermplasm(programId, trialDbId), germplasmDbIds));
+    }
+
+    /**
+     * Updates the observations with data of the datasets of the given observations, observations without a value
+     * are removed.
+     */
+    public void recordObservations(UUID programId, Collection<BrAPIObservation> observations) {
+        Set<String> ouDbIds = new HashSet<>();
+        observations.forEach(observation -> ouDbIds.add(observation.getObservationUnitDbId()));
+        ouDbIds.remove(null);
+        if (ouDbIds.isEmpty()) {
+            return;
+        }
+        Map<String, String> datasetByObservationUnit = getDatasetByObservationUnit(programId).getAll(ouDbIds);
+
+        Map<String, Set<String>> withData = new HashMap<>();
+        Map<String, Set<String>> withoutData = new HashMap<>();
+        for (BrAPIObservation observation : observations) {
+            String datasetId = datasetByObservationUnit.get(observation.getObservationUnitDbId());
+            if (datasetId == null || observation.getObservationDbId() == null) {
+                continue;
+            }
+            (StringUtils.isBlank(observation.getValue()) ? withoutData : withData)
+                    .computeIfAbsent(datasetId, id -> new HashSet<>())
+                    .add(observation.getObservationDbId());
+        }
+        withData.forEach((datasetId, dbIds) -> addAll(programId, getDatasetObservations(programId, datasetId), dbIds));
+        withoutData.forEach((datasetId, dbIds) -> getDatasetObservations(programId, datasetId).removeAll(dbIds));
+    }
+
+    /**
+     * Sets the number of observation variables of a dataset from its observation variable list.
+     */
+    public void recordDatasetVariables(UUID programId, List<BrAPIExternalReference> listReferences, List<String> variables) {
+        getDatasetId(listReferences).ifPresent(datasetId -> setPhenotypes(programId, datasetId, variables == null ? 0 : variables.size()));
+    }
+
+    /**
+     * Drops all statistics of a program, they are reseeded the next time they are requested.
+     */
+    public void invalidate(UUID programId) {
+        log.debug(String.format("Invalidating stats of program %s", programId));
+        RSet<String> keys = getKeys(programId);
+        List<String> names = new ArrayList<>(keys.readAll());
+        names.add(keys.getName());
+        connection.getKeys().delete(names.toArray(new String[0]));
+    }
+
+    /**
+     * @return the statistics of a dataset, if they have been seeded
+     */
+    public Optional<DatasetStats> getDatasetStats(UUID programId, String datasetId) {
+        if (!connection.getBucket(datasetKey(programId, datasetId) + ":seeded").isExists()) {
+            return Optional.empty();
+        }
+        return Optional.of(new DatasetStats(
+                getDatasetObservationUnits(programId, datasetId).size(),
+                (int) connection.getAtomicLong(datasetKey(programId, datasetId) + ":phenotypes").get(),
+                getDatasetObservations(programId, datasetId).size()));
+    }
+
+    /**
+     * Seeds the statistics of a dataset from all of its observation units, variables and observations.
+     */
+    public void seedDatasetStats(UUID programId, String datasetId, Collection<BrAPIObservationUnit> observationUnits, int phenotypes, Collection<BrAPIObservation> observations) {
+        log.debug(String.format("Seeding stats of dataset %s", datasetId));
+        getDatasetObservationUnits(programId, datasetId).delete();
+        getDatasetObservations(programId, datasetId).delete();
+        recordObservationUnits(programId, observationUnits);
+        recordObservations(programId, observations);
+        setPhenotypes(programId, datasetId, phenotypes);
+        setSeeded(programId, datasetKey(programId, datasetId));
+    }
+
+    /**
+     * @return the number of distinct germplasm of an experiment, if it has been seeded
+     */
+    public Optional<Long> getGermplasmCount(UUID programId, String trialDbId) {
+        if (!connection.getBucket(trialKey(programId, trialDbId) + ":seeded").isExists()) {
+            return Optional.empty();
+        }
+        return Optional.of((long) getTrialGermplasm(programId, trialDbId).size());
+    }
+
+    /**
+     * Seeds the germplasm of an experiment from all of its observation units.
+     */
+    public void seedGermplasm(UUID programId, String trialDbId, Collection<BrAPIObservationUnit> observationUnits) {
+        log.debug(String.format("Seeding stats of experiment %s", trialDbId));
+        getTrialGermplasm(programId, trialDbId).delete();
+        recordObservationUnits(programId, observationUnits);
+        setSeeded(programId, trialKey(programId, trialDbId));
+    }
+
+    private void setPhenotypes(UUID programId, String datasetId, long phenotypes) {
+        RAtomicLong count = connection.getAtomicLong(datasetKey(programId, datasetId) + ":phenotypes");
+        count.set(phenotypes);
+        expire(programId, count);
+    }
+
+    private void setSeeded(UUID programId, String key) {
+        RBucket<Boolean> seeded = connection.getBucket(key + ":seeded");
+        track(programId, seeded.getName());
+        seeded.set(Boolean.TRUE, ttl.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void addAll(UUID programId, RSet<String> set, Set<String> dbIds) {
+        set.addAll(dbIds);
+        expire(programId, set);
+    }
+
+    private void expire(UUID programId, RExpirable object) {
+        track(programId, object.getName());
+        object.expire(ttl.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Adds a key to the keys of the program, the set expires with the last of its keys.
+     */
+    private void track(UUID programId, String name) {
+        RSet<String> keys = getKeys(programId);
+        keys.add(name);
+        keys.expire(ttl.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private RSet<String> getKeys(UUID programId) {
+        return connection.getSet(programId + ":stats:keys");
+    }
+
+    private Optional<String> getDatasetId(List<BrAPIExternalReference> references) {
+        if (references == null) {
+            return Optional.empty();
+        }
+        return Utilities.getExternalReference(references, Utilities.generateReferenceSource(referenceSource, ExternalReferenceSource.DATASET))
+                .map(BrAPIExternalReference::getReferenceId);
+    }
+
+    private RMap<String, String> getDatasetByObservationUnit(UUID programId) {
+        return connection.getMap(programId + ":stats:observationunit:dataset");
+    }
+
+    private RSet<String> getDatasetObservationUnits(UUID programId, String datasetId) {
+        return connection.getSet(datasetKey(programId, datasetId) + ":observationunits");
+    }
+
+    private RSet<String> getDatasetObservations(UUID programId, String datasetId) {
+        return connection.getSet(datasetKey(programId, datasetId) + ":observations");
+    }
+
+    private RSet<String> getTrialGermplasm(UUID programId, String trialDbId) {
+        return connection.getSet(trialKey(programId, trialDbId) + ":germplasm");
+    }
+
+    private String datasetKey(UUID programId, String datasetId) {
+        return programId + ":stats:dataset:" + datasetId;
+    }
+
+    private String trialKey(UUID programId, String trialDbId) {
+        return programId + ":stats:trial:" + trialDbId;
+    }
+}
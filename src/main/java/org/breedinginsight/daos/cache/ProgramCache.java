@@ -111,6 +111,7 @@ public class ProgramCache<R> {
                         RMap<String, String> map = connection.getMap(cacheKey);
                         map.clear();
                         map.putAll(entryMap);
+                        bumpVersion(cacheKey);
                     } else {
                         log.debug("No values to cache for key: " + cacheKey);
                     }
@@ -132,13 +133,39 @@ public class ProgramCache<R> {
 
     public void set(@NotNull UUID key, @NotNull String id, @NotNull R value) {
         connection.getMap(generateCacheKey(key)).put(id, gson.toJson(value));
+        bumpVersion(generateCacheKey(key));
     }
 
     public void invalidate(@NotNull UUID key) {
         connection.getMap(generateCacheKey(key)).delete();
+        bumpVersion(generateCacheKey(key));
+    }
+
+    /**
+     * Version of the cached values for a key, changed every time the values are written. Callers that build their
+     * own structures from the cached values can compare versions to know when those structures are stale.
+     */
+    public long getVersion(@NotNull UUID key) {
+        return connection.getAtomicLong(generateCacheKey(key) + ":version").get();
+    }
+
+    private void bumpVersion(String cacheKey) {
+        connection.getAtomicLong(cacheKey + ":version").incrementAndGet();
     }
 
     public Map<String, R> get(UUID key) throws ApiException {
+        Map<String, String> cachedVals = getSerialized(key);
+        try {
+            return deserialize(cachedVals);
+        } catch (Exception e) {
+            throw new ApiException(e);
+        }
+    }
+
+    /**
+     * Gets the cached values as their JSON representation without deserializing them.
+     */
+    public Map<String, String> getSerialized(UUID key) throws ApiException {
         String cacheKey = generateCacheKey(key);
         log.debug("Getting for key: " + cacheKey);
         if (!connection.getBucket(cacheKey).isExists()) {
@@ -157,7 +184,8 @@ public class ProgramCache<R> {
         }
 
         try {
-            return deserialize(connection.getMap(cacheKey));
+            RMap<String, String> map = connection.getMap(cacheKey);
+            return map.readAllMap();
         } catch (Exception e) {
             throw new ApiException(e);
         }
@@ -170,11 +198,19 @@ public class ProgramCache<R> {
     }
 
     public List<R> post(UUID key, Callable<Map<String, R>> postMethod) throws Exception {
+        return post(key, postMethod, true);
+    }
+
+    /**
+     * Posts with postMethod and caches the objects it returns. When repopulate is false the cache is not refreshed
+     * from the BrAPI service, callers posting many chunks call {@link #populate(UUID)} once they are done.
+     */
+    public List<R> post(UUID key, Callable<Map<String, R>> postMethod, boolean repopulate) throws Exception {
         log.debug("posting for key: " + generateCacheKey(key));
         Map<String, R> response = null;
         try {
             response = postMethod.call();
-            return postThese(key, response);
+            return postThese(key, response, repopulate);
         } catch (Exception e) {
             log.error("Error posting data and populating the cache", e);
             invalidate(key);
@@ -183,6 +219,10 @@ public class ProgramCache<R> {
     }
 
     public List<R> postThese(UUID key, Map<String, R> toBePosted) throws Exception {
+        return postThese(key, toBePosted, true);
+    }
+
+    public List<R> postThese(UUID key, Map<String, R> toBePosted, boolean repopulate) throws Exception {
         log.debug("posting for key: " + generateCacheKey(key));
         try {
             String cacheKey = generateCacheKey(key);
@@ -191,7 +231,10 @@ public class ProgramCache<R> {
             for(Map.Entry<String, R> obj : toBePosted.entrySet()) {
                 map.put(obj.getKey(), gson.toJson(obj.getValue()));
             }
-            populate(key);
+            bumpVersion(cacheKey);
+            if (repopulate) {
+                populate(key);
+            }
 
             return new ArrayList<>(toBePosted.values());
         } catch (Exception e) {
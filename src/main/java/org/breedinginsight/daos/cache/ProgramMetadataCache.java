@@ -0,0 +1,116 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.breedinginsight.daos.cache;
+
+import com.google.common.cache.Cache;
+import com.google.gson.Gson;
+import org.brapi.client.v2.JSON;
+import org.brapi.client.v2.model.exceptions.ApiException;
+
+import java.lang.reflect.Type;
+import java.util.*;
+
+/**
+ * In-memory, time limited cache of low churn BrAPI entities (seasons, lists, variables) looked up by a key within a
+ * program. Values are stored as JSON like in {@link ProgramCache}, so every caller gets its own copy.
+ *
+ * DAOs write through on create and update. The TTL bounds how stale an entry can get when the entity was changed by
+ * another api instance or directly on the BrAPI service.
+ *
+ * @param <V> cached value
+ */
+public class ProgramMetadataCache<V> {
+
+    @FunctionalInterface
+    public interface Loader<V> {
+        V load() throws ApiException;
+    }
+
+    @FunctionalInterface
+    public interface BulkLoader<V> {
+        /**
+         * @return the values found for the keys, keys without a value may be left out
+         */
+        Map<String, V> load(List<String> keys) throws ApiException;
+    }
+
+    private final Cache<String, String> cache;
+    private final Type type;
+    private final Gson gson = new JSON().getGson();
+
+    ProgramMetadataCache(Cache<String, String> cache, Type type) {
+        this.cache = cache;
+        this.type = type;
+    }
+
+    /**
+     * Gets a value, loading it when it is not cached. Null values are not cached.
+     */
+    public V get(UUID programId, String key, Loader<V> loader) throws ApiException {
+        String cached = cache.getIfPresent(cacheKey(programId, key));
+        if (cached != null) {
+            return gson.fromJson(cached, type);
+        }
+        V value = loader.load();
+        if (value != null) {
+            put(programId, key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Gets the values of many keys, loading the ones that are not cached with a single call.
+     *
+     * @return values by key, keys without a value are left out
+     */
+    public Map<String, V> getAll(UUID programId, Collection<String> keys, BulkLoader<V> loader) throws ApiException {
+        Map<String, V> values = new LinkedHashMap<>();
+        List<String> missingKeys = new ArrayList<>();
+        for (String key : new LinkedHashSet<>(keys)) {
+            String cached = cache.getIfPresent(cacheKey(programId, key));
+            if (cached != null) {
+                values.put(key, gson.fromJson(cached, type));
+            } else {
+                missingKeys.add(key);
+            }
+        }
+
+        if (!missingKeys.isEmpty()) {
+            Map<String, V> loaded = loader.load(missingKeys);
+            for (String key : missingKeys) {
+                V value = loaded.get(key);
+                if (value != null) {
+                    put(programId, key, value);
+                    values.put(key, value);
+                }
+            }
+        }
+        return values;
+    }
+
+    public void put(UUID programId, String key, V value) {
+        cache.put(cacheKey(programId, key), gson.toJson(value, type));
+    }
+
+    public void invalidate(UUID programId, String key) {
+        cache.invalidate(cacheKey(programId, key));
+    }
+
+    private String cacheKey(UUID programId, String key) {
+        return programId + ":" + key;
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.breedinginsight.daos.cache;
+
+import com.google.common.cache.CacheBuilder;
+import io.micronaut.context.annotation.Property;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.lang.reflect.Type;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+@Singleton
+public class ProgramMetadataCacheProvider {
+
+    private static final long MAX_ENTRIES = 50000;
+
+    private final Duration ttl;
+
+    @Inject
+    public ProgramMetadataCacheProvider(@Property(name = "brapi.metadata-cache.ttl") Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    public <V> ProgramMetadataCache<V> getMetadataCache(Type type) {
+        return new ProgramMetadataCache<>(CacheBuilder.newBuilder()
+                .expireAfterWrite(ttl.toMillis(), TimeUnit.MILLISECONDS)
+                .maximumSize(MAX_ENTRIES)
+                .build(), type);
+    }
+}
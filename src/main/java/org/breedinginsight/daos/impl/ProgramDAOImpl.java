@@ -43,6 +43,7 @@ import org.breedinginsight.services.brapi.BrAPIClientProvider;
 import org.breedinginsight.services.brapi.BrAPIClientType;
 import org.breedinginsight.services.brapi.BrAPIEndpointProvider;
 import org.breedinginsight.services.brapi.BrAPIProvider;
+import org.breedinginsight.services.brapi.BrAPITransport;
 import org.breedinginsight.utilities.Utilities;
 import org.jooq.*;
 import org.jooq.tools.StringUtils;
@@ -71,6 +72,7 @@ public class ProgramDAOImpl extends ProgramDao implements ProgramDAO {
     private BrAPIProvider brAPIProvider;
     private BrAPIClientProvider brAPIClientProvider;
     private final BrAPIEndpointProvider brAPIEndpointProvider;
+    private final BrAPITransport brAPITransport;
 
     private Duration requestTimeout;
 
@@ -82,7 +84,8 @@ public class ProgramDAOImpl extends ProgramDao implements ProgramDAO {
                           @Property(name = "brapi.server.pheno-url") String defaultBrAPIPhenoUrl,
                           @Property(name = "brapi.server.geno-url") String defaultBrAPIGenoUrl,
                           @Property(name = "brapi.server.reference-source") String referenceSource,
-                          @Value(value = "${brapi.read-timeout:5m}") Duration requestTimeout) {
+                          @Value(value = "${brapi.read-timeout:5m}") Duration requestTimeout,
+                          BrAPITransport brAPITransport) {
         super(config);
         this.dsl = dsl;
         this.brAPIProvider = brAPIProvider;
@@ -93,6 +96,7 @@ public class ProgramDAOImpl extends ProgramDao implements ProgramDAO {
         this.defaultBrAPIGenoUrl = defaultBrAPIGenoUrl;
         this.referenceSource = referenceSource;
         this.requestTimeout = requestTimeout;
+        this.brAPITransport = brAPITransport;
     }
 
     @Override
@@ -379,33 +383,20 @@ public class ProgramDAOImpl extends ProgramDao implements ProgramDAO {
     public BrAPIClient getCoreClient(UUID programId) {
         Program program = get(programId).get(0);
         String brapiUrl = !program.getBrapiUrl().equals(SYSTEM_DEFAULT) ? program.getBrapiUrl() : defaultBrAPICoreUrl;
-        BrAPIClient client = new BrAPIClient(brapiUrl);
-        initializeHttpClient(client);
-        return client;
+        return brAPITransport.newClient(brapiUrl, getRequestTimeout());
     }
 
     @Override
     public BrAPIClient getPhenoClient(UUID programId) {
         Program program = get(programId).get(0);
         String brapiUrl = !program.getBrapiUrl().equals(SYSTEM_DEFAULT) ? program.getBrapiUrl() : defaultBrAPIPhenoUrl;
-        BrAPIClient client = new BrAPIClient(brapiUrl);
-        initializeHttpClient(client);
-        return client;
+        return brAPITransport.newClient(brapiUrl, getRequestTimeout());
     }
 
     @Override
     public BrAPIClient getSampleClient(UUID programId) {
         String brapiUrl = defaultBrAPIPhenoUrl;
-        BrAPIClient client = new BrAPIClient(brapiUrl);
-        initializeHttpClient(client);
-        return client;
-    }
-
-    private void initializeHttpClient(BrAPIClient brapiClient) {
-        brapiClient.setHttpClient(brapiClient.getHttpClient()
-                .newBuilder()
-                .readTimeout(getRequestTimeout())
-                .build());
+        return brAPITransport.newClient(brapiUrl, getRequestTimeout());
     }
 
     //TODO figure out why BrAPIServiceFilterIntegrationTest fails when requestTimeout is set in the constructor
@@ -35,6 +35,7 @@ import org.brapi.v2.model.pheno.*;
 import org.brapi.v2.model.pheno.request.BrAPIObservationVariableSearchRequest;
 import org.brapi.v2.model.pheno.response.BrAPIObservationVariableListResponse;
 import org.brapi.v2.model.pheno.response.BrAPIObservationVariableSingleResponse;
+import org.breedinginsight.brapi.v2.dao.BrAPIObservationVariableDAO;
 import org.breedinginsight.brapps.importer.services.ExternalReferenceSource;
 import org.breedinginsight.dao.db.tables.BiUserTable;
 import org.breedinginsight.dao.db.tables.daos.TraitDao;
@@ -76,6 +77,7 @@ public class TraitDAOImpl extends TraitDao implements TraitDAO {
     private final ProgramCache<Trait> cache;
     private final ProgramDAO programDAO;
     private final BrAPIEndpointProvider brAPIEndpointProvider;
+    private final BrAPIObservationVariableDAO brAPIObservationVariableDAO;
     private final Gson gson;
 
     private final static String TAGS_KEY = "tags";
@@ -90,6 +92,7 @@ public class TraitDAOImpl extends TraitDao implements TraitDAO {
                         ProgramDAO programDAO,
                         ProgramCacheProvider programCacheProvider,
                         BrAPIEndpointProvider brAPIEndpointProvider,
+                        BrAPIObservationVariableDAO brAPIObservationVariableDAO,
                         @Property(name = "brapi.server.reference-source") String referenceSource,
                         @Property(name = "micronaut.bi.api.run-scheduled-tasks") Boolean runScheduledTasks) {
         super(config);
@@ -100,6 +103,7 @@ public class TraitDAOImpl extends TraitDao implements TraitDAO {
         this.cache = programCacheProvider.getProgramCache(this::populateCache, Trait.class);
         this.programDAO = programDAO;
         this.brAPIEndpointProvider = brAPIEndpointProvider;
+        this.brAPIObservationVariableDAO = brAPIObservationVariableDAO;
         this.gson = new GsonBuilder().registerTypeAdapter(OffsetDateTime.class, (JsonDeserializer<OffsetDateTime>)
                                                                  (json, type, context) -> OffsetDateTime.parse(json.getAsString()))
                                                          .registerTypeAdapterFactory(new GeometryAdapterFactory())
@@ -165,24 +169,26 @@ public class TraitDAOImpl extends TraitDao implements TraitDAO {
             return new ArrayList<>();
         }
 
-        // Get brapi variables
-        VariableQueryParams variablesRequest = new VariableQueryParams();
-        variablesRequest.externalReferenceSource(referenceSource);
-        variablesRequest.pageSize(10000);
+        // Get the brapi variables of this program's traits only, paged so large ontologies are not truncated
+        BrAPIObservationVariableSearchRequest variablesRequest = new BrAPIObservationVariableSearchRequest()
+                .externalReferenceIDs(programTraits.stream().map(trait -> trait.getId().toString()).collect(Collectors.toList()))
+                .externalReferenceSources(List.of(referenceSource));
 
-        ApiResponse<BrAPIObservationVariableListResponse> brApiVariables;
+        List<BrAPIObservationVariable> brApiVariables;
         try {
-            brApiVariables = brAPIEndpointProvider.get(programDAO.getCoreClient(programId), ObservationVariablesApi.class)
-                                          .variablesGet(variablesRequest);
+            ObservationVariablesApi api = brAPIEndpointProvider.get(programDAO.getCoreClient(programId), ObservationVariablesApi.class);
+            brApiVariables = brAPIDAOUtil.search(
+                    api::searchVariablesPost,
+                    api::searchVariablesSearchResultsDbIdGet,
+                    variablesRequest
+            );
         } catch (ApiException e) {
             log.warn(Utilities.generateApiExceptionLogMessage(e));
             throw new InternalServerException("Error making BrAPI call", e);
         }
 
         Map<String, BrAPIObservationVariable> brApiVariableMap = new HashMap<>();
-        for (BrAPIObservationVariable brApiVariable : brApiVariables.getBody()
-                                                                    .getResult()
-                                                                    .getData()) {
+        for (BrAPIObservationVariable brApiVariable : brApiVariables) {
             List<BrAPIExternalReference> brApiExternalReferences = brApiVariable.getExternalReferences();
             for (BrAPIExternalReference brApiExternalReference : brApiExternalReferences) {
                 if (brApiExternalReference.getReferenceID() != null) {
@@ -485,6 +491,7 @@ public class TraitDAOImpl extends TraitDao implements TraitDAO {
         for (ObservationVariablesApi variablesAPI: variablesAPIS){
             // GET brapi trait
             BrAPIObservationVariable existingVariable = getBrAPIVariable(variablesAPI, trait.getId());
+            String previousVariableName = existingVariable.getObservationVariableName();
 
             // Change method
             existingVariable.getMethod().setMethodName(constructMethodName(trait, program));
@@ -526,6 +533,7 @@ public class TraitDAOImpl extends TraitDao implements TraitDAO {
 
             // PUT brapi trait
             BrAPIObservationVariable updatedVariable = putBrAPIVariable(variablesAPI, existingVariable);
+            brAPIObservationVariableDAO.invalidateVariables(program.getId(), Arrays.asList(previousVariableName, updatedVariable.getObservationVariableName()));
 
             // Retrieve our update trait from the db
             updatedTrait = getTrait(program.getId(), trait.getId()).get();
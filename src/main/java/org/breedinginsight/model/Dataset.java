@@ -35,6 +35,8 @@ public class Dataset {
     public List<BrAPIObservation> data;
     public List<BrAPIObservationUnit> observationUnits;
     public List<Trait> observationVariables;
+    // Cursor of the next window when this dataset is a window that is not the last one
+    public String nextCursor;
 
     public enum DatasetStat {
         OBSERVATION_UNITS("observationUnits"),
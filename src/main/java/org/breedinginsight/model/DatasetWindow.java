@@ -0,0 +1,33 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A window of a dataset along with what is needed to paginate over the rest of it.
+ */
+@Getter
+@AllArgsConstructor
+public class DatasetWindow {
+    private final Dataset dataset;
+    private final int totalObservationUnits;
+    private final int page;
+    private final int pageSize;
+}
@@ -19,6 +19,7 @@ package org.breedinginsight.services;
 
 import lombok.extern.slf4j.Slf4j;
 import org.breedinginsight.api.auth.AuthenticatedUser;
+import org.breedinginsight.api.auth.AuthenticatedUserCache;
 import org.breedinginsight.api.auth.ProgramSecuredRole;
 import org.breedinginsight.api.auth.SecurityService;
 import org.breedinginsight.api.model.v1.request.ProgramUserRequest;
@@ -57,6 +58,8 @@ public class ProgramUserService {
     private DSLContext dsl;
     @Inject
     private SecurityService securityService;
+    @Inject
+    private AuthenticatedUserCache authenticatedUserCache;
 
     public ProgramUser addProgramUser(AuthenticatedUser actingUser, UUID programId, ProgramUserRequest programUserRequest) throws DoesNotExistException, AlreadyExistsException, UnprocessableEntityException {
         /* Add a user to a program. Create the user if they don't exist. */
@@ -100,6 +103,7 @@ public class ProgramUserService {
                 return updateProgramUser(actingUser, programId, user.getId(), roles);
             });
 
+            authenticatedUserCache.invalidateUser(programUser.getUserId());
             return programUser;
 
         } catch(DataAccessException e) {
@@ -195,6 +199,7 @@ public class ProgramUserService {
                 return updateProgramUser(actingUser, programId, user.getId(), roles);
             });
 
+            authenticatedUserCache.invalidateUser(userId);
             return programUser;
         } catch(DataAccessException e) {
             if (e.getCause() instanceof AlreadyExistsException) {
@@ -225,6 +230,7 @@ public class ProgramUserService {
         }
 
         programUserDao.archiveProgramUserRoles(programId, userId);
+        authenticatedUserCache.invalidateUser(userId);
     }
 
     public void removeProgramUser(UUID programId, UUID userId) throws DoesNotExistException {
@@ -241,6 +247,7 @@ public class ProgramUserService {
         }
 
         programUserDao.deleteProgramUserRoles(programId, userId);
+        authenticatedUserCache.invalidateUser(userId);
     }
 
     public List<ProgramUser> getProgramUsers(UUID programId) throws DoesNotExistException {
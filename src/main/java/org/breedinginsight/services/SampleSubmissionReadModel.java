@@ -0,0 +1,159 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.services;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micronaut.context.annotation.Property;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.brapi.client.v2.model.exceptions.ApiException;
+import org.brapi.v2.model.BrAPIExternalReference;
+import org.brapi.v2.model.geno.BrAPIPlate;
+import org.brapi.v2.model.geno.BrAPISample;
+import org.breedinginsight.brapps.importer.daos.BrAPIPlateDAO;
+import org.breedinginsight.brapps.importer.daos.BrAPISampleDAO;
+import org.breedinginsight.brapps.importer.services.ExternalReferenceSource;
+import org.breedinginsight.model.Program;
+import org.breedinginsight.utilities.Utilities;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+/**
+ * The plates and samples of sample submissions, grouped by submission.
+ *
+ * The plates and samples of the submissions that are not cached are read with one plate search and one sample search,
+ * run at the same time on the BrAPI transport, and grouped by the submission ID of their external references in a single pass. The contents
+ * of a submission are cached, so the file downloads and the vendor order of a submission read them from BrAPI once.
+ *
+ * The cached lists are shared by every caller and must not be modified. Entries are invalidated when a submission is
+ * created or its status is updated, and expire after brapi.metadata-cache.ttl.
+ */
+@Slf4j
+@Singleton
+public class SampleSubmissionReadModel {
+
+    private static final long MAX_SUBMISSIONS = 500;
+
+    private final String submissionXrefSource;
+    private final BrAPIPlateDAO plateDAO;
+    private final BrAPISampleDAO sampleDAO;
+    private final Cache<String, SubmissionContents> cache;
+
+    @Getter
+    public static class SubmissionContents {
+        private final List<BrAPIPlate> plates;
+        private final List<BrAPISample> samples;
+
+        SubmissionContents(List<BrAPIPlate> plates, List<BrAPISample> samples) {
+            this.plates = Collections.unmodifiableList(plates);
+            this.samples = Collections.unmodifiableList(samples);
+        }
+    }
+
+    @Inject
+    public SampleSubmissionReadModel(@Property(name = "brapi.server.reference-source") String referenceSource,
+                                     @Property(name = "brapi.metadata-cache.ttl") Duration ttl,
+                                     BrAPIPlateDAO plateDAO,
+                                     BrAPISampleDAO sampleDAO) {
+        this.submissionXrefSource = Utilities.generateReferenceSource(referenceSource, ExternalReferenceSource.PLATE_SUBMISSIONS);
+        this.plateDAO = plateDAO;
+        this.sampleDAO = sampleDAO;
+        this.cache = CacheBuilder.newBuilder()
+                                 .expireAfterWrite(ttl.toMillis(), TimeUnit.MILLISECONDS)
+                                 .maximumSize(MAX_SUBMISSIONS)
+                                 .build();
+    }
+
+    public SubmissionContents get(Program program, UUID submissionId) throws ApiException {
+        return getAll(program, List.of(submissionId)).get(submissionId);
+    }
+
+    /**
+     * @return the contents of every submission, submissions without plates or samples have empty lists
+     */
+    public Map<UUID, SubmissionContents> getAll(Program program, Collection<UUID> submissionIds) throws ApiException {
+        Map<UUID, SubmissionContents> contents = new HashMap<>();
+        List<String> missingIds = new ArrayList<>();
+        for (UUID submissionId : submissionIds) {
+            SubmissionContents cached = cache.getIfPresent(cacheKey(program, submissionId.toString()));
+            if (cached != null) {
+                contents.put(submissionId, cached);
+            } else {
+                missingIds.add(submissionId.toString());
+            }
+        }
+        if (missingIds.isEmpty()) {
+            return contents;
+        }
+
+        CompletableFuture<List<BrAPIPlate>> plates = plateDAO.readPlatesBySubmissionIdsAsync(program, missingIds);
+        CompletableFuture<List<BrAPISample>> samples = sampleDAO.readSamplesBySubmissionIdsAsync(program, missingIds);
+        Map<String, List<BrAPIPlate>> platesBySubmissionId = groupBySubmissionId(join(plates), BrAPIPlate::getExternalReferences, BrAPIPlate::getPlateName);
+        Map<String, List<BrAPISample>> samplesBySubmissionId = groupBySubmissionId(join(samples), BrAPISample::getExternalReferences, BrAPISample::getPlateName);
+
+        for (String submissionId : missingIds) {
+            SubmissionContents loaded = new SubmissionContents(platesBySubmissionId.getOrDefault(submissionId, new ArrayList<>()),
+                                                               samplesBySubmissionId.getOrDefault(submissionId, new ArrayList<>()));
+            cache.put(cacheKey(program, submissionId), loaded);
+            contents.put(UUID.fromString(submissionId), loaded);
+        }
+        return contents;
+    }
+
+    public void invalidate(Program program, UUID submissionId) {
+        cache.invalidate(cacheKey(program, submissionId.toString()));
+    }
+
+    private <T> Map<String, List<T>> groupBySubmissionId(List<T> entities,
+                                                         Function<T, List<BrAPIExternalReference>> externalReferences,
+                                                         Function<T, String> plateName) {
+        Map<String, List<T>> bySubmissionId = new HashMap<>();
+        for (T entity : entities) {
+            BrAPIExternalReference submissionXref = Utilities.getExternalReference(externalReferences.apply(entity), submissionXrefSource)
+                                                             .orElseThrow(() -> new IllegalStateException(String.format("Plate %s does not have a submission ID", plateName.apply(entity))));
+            bySubmissionId.computeIfAbsent(submissionXref.getReferenceId(), id -> new ArrayList<>()).add(entity);
+        }
+        return bySubmissionId;
+    }
+
+    private String cacheKey(Program program, String submissionId) {
+        return program.getId() + ":" + submissionId;
+    }
+
+    private static <T> T join(Future<T> future) throws ApiException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading sample submission contents", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ApiException) {
+                throw (ApiException) e.getCause();
+            } else if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -19,7 +19,6 @@ package org.breedinginsight.services;
 
 import io.micronaut.context.annotation.Property;
 import io.micronaut.context.annotation.Value;
-import io.micronaut.scheduling.annotation.Scheduled;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.brapi.client.v2.ApiResponse;
@@ -28,7 +27,6 @@ import org.brapi.client.v2.auth.Authentication;
 import org.brapi.client.v2.auth.OAuth;
 import org.brapi.client.v2.model.exceptions.ApiException;
 import org.brapi.client.v2.modules.genotype.VendorApi;
-import org.brapi.v2.model.BrAPIExternalReference;
 import org.brapi.v2.model.geno.*;
 import org.brapi.v2.model.geno.request.BrAPIVendorOrderSubmissionRequest;
 import org.brapi.v2.model.geno.response.BrAPIVendorOrderStatusResponse;
@@ -40,12 +38,12 @@ import org.breedinginsight.brapps.importer.daos.BrAPISampleDAO;
 import org.breedinginsight.brapps.importer.model.ImportUpload;
 import org.breedinginsight.brapps.importer.model.exports.FileType;
 import org.breedinginsight.brapps.importer.model.imports.sample.SampleSubmissionImport;
-import org.breedinginsight.brapps.importer.services.ExternalReferenceSource;
 import org.breedinginsight.daos.ProgramDAO;
 import org.breedinginsight.daos.SampleSubmissionDAO;
 import org.breedinginsight.model.*;
 import org.breedinginsight.services.brapi.BrAPIEndpointProvider;
-import org.breedinginsight.utilities.FileUtil;
+import org.breedinginsight.services.brapi.BrAPITransport;
+import org.breedinginsight.services.writers.CSVWriter;
 import org.breedinginsight.utilities.Utilities;
 import org.jooq.DSLContext;
 import org.jooq.JSONB;
@@ -58,6 +56,7 @@ import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Singleton
@@ -71,12 +70,13 @@ public class SampleSubmissionService {
     private final String dartClientId;
     private final String dartToken;
     private final  Duration requestTimeout;
-    private final boolean brapiSubmissionEnabled;
 
     private final SampleSubmissionDAO submissionDAO;
     private final BrAPIPlateDAO plateDAO;
     private final BrAPISampleDAO sampleDAO;
+    private final SampleSubmissionReadModel submissionReadModel;
     private final BrAPIEndpointProvider brAPIEndpointProvider;
+    private final BrAPITransport brAPITransport;
     private final ProgramDAO programDAO;
     private final DSLContext dsl;
 
@@ -86,11 +86,12 @@ public class SampleSubmissionService {
                                    @Property(name = "brapi.vendors.dart.client-id") String dartClientId,
                                    @Property(name = "brapi.vendors.dart.token") String dartToken,
                                    @Value(value = "${brapi.read-timeout:5m}") Duration requestTimeout,
-                                   @Property(name = "brapi.vendor-submission-enabled") boolean brapiSubmissionEnabled,
                                    SampleSubmissionDAO submissionDAO,
                                    BrAPIPlateDAO plateDAO,
                                    BrAPISampleDAO sampleDAO,
+                                   SampleSubmissionReadModel submissionReadModel,
                                    BrAPIEndpointProvider brAPIEndpointProvider,
+                                   BrAPITransport brAPITransport,
                                    ProgramDAO programDAO,
                                    DSLContext dsl) {
         this.referenceSource = referenceSource;
@@ -98,34 +99,16 @@ public class SampleSubmissionService {
         this.dartClientId = dartClientId;
         this.dartToken = dartToken;
         this.requestTimeout = requestTimeout;
-        this.brapiSubmissionEnabled = brapiSubmissionEnabled;
         this.submissionDAO = submissionDAO;
         this.plateDAO = plateDAO;
         this.sampleDAO = sampleDAO;
+        this.submissionReadModel = submissionReadModel;
         this.brAPIEndpointProvider = brAPIEndpointProvider;
+        this.brAPITransport = brAPITransport;
         this.programDAO = programDAO;
         this.dsl = dsl;
     }
 
-    @Scheduled(fixedDelay = "${brapi.vendor-check-frequency}", initialDelay = "10s")
-    void checkSubmissionStatuses() {
-        if(!brapiSubmissionEnabled) {
-            return;
-        }
-        log.trace("checking vendor order statuses");
-        List<SampleSubmission> submittedAndNotCompleted = submissionDAO.getSubmittedAndNotComplete();
-        log.trace(submittedAndNotCompleted.size() + " orders to check");
-        for(var order : submittedAndNotCompleted) {
-            try {
-                this.checkVendorStatus(order);
-            } catch (ApiException e) {
-                log.error("Error checking vendor order status: \n\n" + Utilities.generateApiExceptionLogMessage(e), e);
-                throw new RuntimeException(e);
-            }
-        }
-        log.trace("vendor order status checks complete, sleeping");
-    }
-
     public SampleSubmission createSubmission(SampleSubmission submission, Program program, ImportUpload upload) throws ApiException {
         submission.setProgramId(program.getId());
         submission.setCreatedByUser(upload.getCreatedByUser());
@@ -144,6 +127,7 @@ public class SampleSubmissionService {
             List<BrAPISample> savedSamples = sampleDAO.createSamples(program, samplesToSave, upload);
             submission.setSamples(savedSamples);
         });
+        submissionReadModel.invalidate(program, submission.getId());
 
         return submission;
     }
@@ -161,30 +145,13 @@ public class SampleSubmissionService {
     }
 
     private List<SampleSubmission> populateSubmissions(Program program, List<SampleSubmission> submissions) throws ApiException {
-        List<String> submissionIds = submissions.stream().map(s -> s.getId().toString()).collect(Collectors.toList());
-        List<BrAPIPlate> plates = plateDAO.readPlatesBySubmissionIds(program, submissionIds);
-        List<BrAPISample> samples = sampleDAO.readSamplesBySubmissionIds(program, submissionIds);
-
-        Map<String, List<BrAPIPlate>> platesBySubmissionId = new HashMap<>();
-        String submissionXrefSource = Utilities.generateReferenceSource(referenceSource, ExternalReferenceSource.PLATE_SUBMISSIONS);
-        plates.forEach(plate -> {
-            BrAPIExternalReference brAPIExternalReference = Utilities.getExternalReference(plate.getExternalReferences(), submissionXrefSource).orElseThrow(() -> new IllegalStateException(String.format("Plate %s does not have a submission ID", plate.getPlateName())));
-            List<BrAPIPlate> submissionPlates = platesBySubmissionId.getOrDefault(brAPIExternalReference.getReferenceId(), new ArrayList<>());
-            submissionPlates.add(plate);
-            platesBySubmissionId.putIfAbsent(brAPIExternalReference.getReferenceId(), submissionPlates);
-        });
-
-        Map<String, List<BrAPISample>> samplesBySubmissionId = new HashMap<>();
-        samples.forEach(sample -> {
-            BrAPIExternalReference brAPIExternalReference = Utilities.getExternalReference(sample.getExternalReferences(), submissionXrefSource).orElseThrow(() -> new IllegalStateException(String.format("Plate %s does not have a submission ID", sample.getPlateName())));
-            List<BrAPISample> submissionSamples = samplesBySubmissionId.getOrDefault(brAPIExternalReference.getReferenceId(), new ArrayList<>());
-            submissionSamples.add(sample);
-            samplesBySubmissionId.putIfAbsent(brAPIExternalReference.getReferenceId(), submissionSamples);
-        });
-
+        Map<UUID, SampleSubmissionReadModel.SubmissionContents> contentsById = submissionReadModel.getAll(program, submissions.stream()
+                                                                                                                         .map(SampleSubmission::getId)
+                                                                                                                         .collect(Collectors.toList()));
         submissions.forEach(submission -> {
-            submission.setPlates(platesBySubmissionId.get(submission.getId().toString()));
-            submission.setSamples(samplesBySubmissionId.get(submission.getId().toString()));
+            SampleSubmissionReadModel.SubmissionContents contents = contentsById.get(submission.getId());
+            submission.setPlates(contents.getPlates());
+            submission.setSamples(contents.getSamples());
         });
 
         return submissions;
@@ -211,23 +178,18 @@ public class SampleSubmissionService {
         columns.add(Column.builder().value(SampleSubmissionImport.Columns.COMMENTS).dataType(Column.ColumnDataType.STRING).build());
 
         //TODO sort the samples first
-        List<Map<String, Object>> rows = new ArrayList<>();
-        submission.get().getSamples().forEach(sample -> {
-            Map<String, Object> row = new HashMap<>();
-            row.put(SampleSubmissionImport.Columns.PLATE_ID, sample.getPlateName());
-            row.put(SampleSubmissionImport.Columns.ROW, sample.getRow());
-            row.put(SampleSubmissionImport.Columns.COLUMN, sample.getColumn());
-            row.put(SampleSubmissionImport.Columns.ORGANISM, sample.getAdditionalInfo().get(BrAPIAdditionalInfoFields.SAMPLE_ORGANISM).getAsString());
-            row.put(SampleSubmissionImport.Columns.SPECIES, sample.getAdditionalInfo().has(BrAPIAdditionalInfoFields.SAMPLE_SPECIES) ? sample.getAdditionalInfo().get(BrAPIAdditionalInfoFields.SAMPLE_SPECIES).getAsString() : "");
-            row.put(COLUMN_GENOTYPE, sample.getSampleName());
-            row.put(SampleSubmissionImport.Columns.TISSUE, sample.getTissueType());
-            row.put(SampleSubmissionImport.Columns.COMMENTS, sample.getSampleDescription());
-
-            rows.add(row);
+        Stream<Object[]> rows = submission.get().getSamples().stream().map(sample -> new Object[]{
+                sample.getPlateName(),
+                sample.getRow(),
+                sample.getColumn(),
+                sample.getAdditionalInfo().get(BrAPIAdditionalInfoFields.SAMPLE_ORGANISM).getAsString(),
+                sample.getAdditionalInfo().has(BrAPIAdditionalInfoFields.SAMPLE_SPECIES) ? sample.getAdditionalInfo().get(BrAPIAdditionalInfoFields.SAMPLE_SPECIES).getAsString() : "",
+                sample.getSampleName(),
+                sample.getTissueType(),
+                sample.getSampleDescription()
         });
 
-
-        return Optional.of(new DownloadFile(filename, FileUtil.writeToStreamedFile(columns, rows, FileType.CSV, "Data")));
+        return Optional.of(new DownloadFile(filename, CSVWriter.writeRowsToDownload(columns, rows, FileType.CSV)));
     }
 
     public Optional<DownloadFile> generateLookupFile(Program program, UUID submissionId) throws ApiException, IOException {
@@ -246,18 +208,13 @@ public class SampleSubmissionService {
         columns.add(Column.builder().value(SampleSubmissionImport.Columns.GERMPLASM_GID).dataType(Column.ColumnDataType.STRING).build());
 
         //TODO sort the samples first
-        List<Map<String, Object>> rows = new ArrayList<>();
-        submission.get().getSamples().forEach(sample -> {
-            Map<String, Object> row = new HashMap<>();
-            row.put(COLUMN_GENOTYPE, sample.getSampleName());
-            row.put(SampleSubmissionImport.Columns.GERMPLASM_NAME, sample.getAdditionalInfo().get(BrAPIAdditionalInfoFields.GERMPLASM_NAME).getAsString());
-            row.put(SampleSubmissionImport.Columns.GERMPLASM_GID, sample.getAdditionalInfo().get(BrAPIAdditionalInfoFields.GID).getAsString());
-
-            rows.add(row);
+        Stream<Object[]> rows = submission.get().getSamples().stream().map(sample -> new Object[]{
+                sample.getSampleName(),
+                sample.getAdditionalInfo().get(BrAPIAdditionalInfoFields.GERMPLASM_NAME).getAsString(),
+                sample.getAdditionalInfo().get(BrAPIAdditionalInfoFields.GID).getAsString()
         });
 
-
-        return Optional.of(new DownloadFile(filename, FileUtil.writeToStreamedFile(columns, rows, FileType.CSV, "Data")));
+        return Optional.of(new DownloadFile(filename, CSVWriter.writeRowsToDownload(columns, rows, FileType.CSV)));
     }
 
     public Optional<BrAPIVendorOrderSubmission> submitOrder(Program program, UUID submissionId, User submittingUser, GenotypeVendor vendor) throws ApiException, IllegalStateException {
@@ -302,13 +259,8 @@ public class SampleSubmissionService {
 
         //TODO get info for the specific vendor, and verify program has an account
         BrAPIVendorOrderSubmissionRequest order = new BrAPIVendorOrderSubmissionRequest();
-        VendorApi vendorApi;
-        if(GenotypeVendor.DART.equals(vendor)) {
-            order.setClientId(dartClientId);
-            vendorApi = getVendorApi(dartBrapiUrl, dartToken);
-        } else {
-            throw new IllegalStateException("Unrecognized vendor");
-        }
+        VendorApi vendorApi = getVendorApi(vendor);
+        order.setClientId(dartClientId);
 
         order.setNumberOfSamples(submission.getSamples().size());
         order.setPlates(new ArrayList<>(platesForOrder.values()));
@@ -354,11 +306,22 @@ public class SampleSubmissionService {
     }
 
     private SampleSubmission checkVendorStatus(SampleSubmission submission) throws ApiException {
+        return checkVendorStatus(submission, getVendorApi(getVendor(submission)));
+    }
+
+    /**
+     * @return the vendor the submission was sent to
+     */
+    GenotypeVendor getVendor(SampleSubmission submission) {
+        //TODO the vendor is not stored with the submission, all orders are currently DArT orders
+        return GenotypeVendor.DART;
+    }
+
+    SampleSubmission checkVendorStatus(SampleSubmission submission, VendorApi vendorApi) throws ApiException {
         if(submission.getVendorOrderId() == null || BrAPIVendorOrderStatusResponseResult.StatusEnum.COMPLETED.name().equalsIgnoreCase(submission.getVendorStatus())) {
             return submission;
         }
 
-        VendorApi vendorApi = getVendorApi(dartBrapiUrl, dartToken);
         ApiResponse<BrAPIVendorOrderStatusResponse> response = vendorApi.vendorOrdersOrderIdStatusGet(submission.getVendorOrderId());
         if (response.getBody() == null) {
             throw new ApiException("Response is missing body", response.getStatusCode(), response.getHeaders(), null);
@@ -381,12 +344,15 @@ public class SampleSubmissionService {
         return submission;
     }
 
+    VendorApi getVendorApi(GenotypeVendor vendor) {
+        if(GenotypeVendor.DART.equals(vendor)) {
+            return getVendorApi(dartBrapiUrl, dartToken);
+        }
+        throw new IllegalStateException("Unrecognized vendor");
+    }
+
     private VendorApi getVendorApi(String url, String authToken) {
-        BrAPIClient client = new BrAPIClient(url);
-        client.setHttpClient(client.getHttpClient()
-                .newBuilder()
-                .readTimeout(requestTimeout)
-                .build());
+        BrAPIClient client = brAPITransport.newClient(url, requestTimeout);
 
         Authentication authorizationToken = client.getAuthentication("AuthorizationToken");
         if(authorizationToken instanceof OAuth) {
@@ -421,6 +387,7 @@ public class SampleSubmissionService {
                     submission.setVendorStatus(null);
                 }
 
+                submissionReadModel.invalidate(program, submissionId);
                 return Optional.ofNullable(submissionDAO.update(submission, user));
             }
         }
@@ -0,0 +1,90 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.breedinginsight.daos.SequenceDAO;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Supplier;
+
+/**
+ * Hands out program sequence values (GIDs, experiment and environment numbers) from blocks reserved in the
+ * database, so an import makes a handful of sequence round trips instead of one per new record.
+ */
+@Slf4j
+@Singleton
+public class SequenceAllocatorService {
+
+    static final int MAX_BLOCK_SIZE = 10000;
+
+    private final SequenceDAO sequenceDAO;
+
+    @Inject
+    public SequenceAllocatorService(SequenceDAO sequenceDAO) {
+        this.sequenceDAO = sequenceDAO;
+    }
+
+    /**
+     * Returns a supplier of sequence values meant to be used for the duration of a single import. Nothing is
+     * reserved until the first value is requested.
+     *
+     * Values reserved but not handed out are lost, the same as with a rolled back nextval. The expected count
+     * should be the number of values the import is going to need so the sequence stays as dense as possible;
+     * if more are requested the block size grows geometrically.
+     *
+     * @param sequenceName  name of the sequence
+     * @param expectedCount number of values the caller expects to use
+     */
+    public Supplier<BigInteger> allocate(String sequenceName, int expectedCount) {
+        return new SequenceBlock(sequenceName, expectedCount);
+    }
+
+    class SequenceBlock implements Supplier<BigInteger> {
+        private final String sequenceName;
+        private final Deque<BigInteger> reserved = new ArrayDeque<>();
+        private int nextBlockSize;
+        private int roundTrips = 0;
+
+        SequenceBlock(String sequenceName, int expectedCount) {
+            this.sequenceName = sequenceName;
+            this.nextBlockSize = Math.max(1, Math.min(expectedCount, MAX_BLOCK_SIZE));
+        }
+
+        @Override
+        public synchronized BigInteger get() {
+            if (reserved.isEmpty()) {
+                reserved.addAll(sequenceDAO.nextValues(sequenceName, nextBlockSize));
+                roundTrips++;
+                log.debug(String.format("Reserved %d values of %s, %d round trips", nextBlockSize, sequenceName, roundTrips));
+
+                // The caller underestimated, grow so large imports stay at a few round trips
+                nextBlockSize = Math.min(nextBlockSize * 2, MAX_BLOCK_SIZE);
+            }
+            return reserved.poll();
+        }
+
+        synchronized int getRoundTrips() {
+            return roundTrips;
+        }
+    }
+}
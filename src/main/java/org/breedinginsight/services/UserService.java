@@ -21,6 +21,7 @@ import com.nimbusds.jwt.SignedJWT;
 import io.micronaut.context.annotation.Property;
 import lombok.extern.slf4j.Slf4j;
 import org.breedinginsight.api.auth.AuthenticatedUser;
+import org.breedinginsight.api.auth.AuthenticatedUserCache;
 import org.breedinginsight.api.model.v1.auth.SignUpJWT;
 import org.breedinginsight.api.auth.SecurityService;
 import org.breedinginsight.api.model.v1.request.SystemRolesRequest;
@@ -74,11 +75,13 @@ public class UserService {
     private EmailUtil emailUtil;
     private EmailTemplates emailTemplates;
     private SecurityService securityService;
+    private AuthenticatedUserCache authenticatedUserCache;
 
     @Inject
     public UserService(UserDAO dao, SystemUserRoleDao systemUserRoleDao, SystemRoleDao systemRoleDao,
                        ProgramUserDAO programUserDAO, DSLContext dsl, SignUpJwtService signUpJwtService,
-                       EmailUtil emailUtil, EmailTemplates emailTemplates, SecurityService securityService) {
+                       EmailUtil emailUtil, EmailTemplates emailTemplates, SecurityService securityService,
+                       AuthenticatedUserCache authenticatedUserCache) {
         this.dao = dao;
         this.systemUserRoleDao = systemUserRoleDao;
         this.systemRoleDao = systemRoleDao;
@@ -88,6 +91,7 @@ public class UserService {
         this.emailUtil = emailUtil;
         this.emailTemplates = emailTemplates;
         this.securityService = securityService;
+        this.authenticatedUserCache = authenticatedUserCache;
     }
 
 
@@ -203,6 +207,7 @@ public class UserService {
         biUser.setCreatedBy(actingUser.getId());
         biUser.setUpdatedBy(actingUser.getId());
         dao.update(biUser);
+        authenticatedUserCache.invalidateUser(userId);
 
         return getById(userId).get();
     }
@@ -219,6 +224,7 @@ public class UserService {
             deleteSystemRoles(userId);
             dao.deleteById(userId);
         });
+        authenticatedUserCache.invalidateUser(userId);
     }
 
     public void archive(AuthenticatedUser actingUser, UUID userId) throws DoesNotExistException, AuthorizationException {
@@ -238,6 +244,7 @@ public class UserService {
             biUser.setActive(false);
             dao.update(biUser);
         });
+        authenticatedUserCache.invalidateUser(userId);
     }
 
     private boolean userEmailInUse(String email) {
@@ -306,6 +313,7 @@ public class UserService {
                 insertSystemRoles(actingUser, userId, systemRoles);
                 return getById(userId).get();
             });
+            authenticatedUserCache.invalidateUser(userId);
             return user;
         } catch(DataAccessException e) {
             if (e.getCause() instanceof DoesNotExistException) {
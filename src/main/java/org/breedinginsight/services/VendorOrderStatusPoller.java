@@ -0,0 +1,224 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.services;
+
+import io.micronaut.context.annotation.Property;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.scheduling.annotation.Scheduled;
+import lombok.extern.slf4j.Slf4j;
+import org.brapi.client.v2.model.exceptions.ApiException;
+import org.brapi.client.v2.modules.genotype.VendorApi;
+import org.breedinginsight.daos.SampleSubmissionDAO;
+import org.breedinginsight.model.GenotypeVendor;
+import org.breedinginsight.model.SampleSubmission;
+import org.breedinginsight.utilities.Utilities;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Checks the status of the submitted vendor orders that are not complete, every brapi.vendor-check-frequency.
+ *
+ * Orders are checked on the vendor-status-check executor, brapi.vendor-check-concurrency at a time, so a sweep over
+ * many orders does not flood the vendor. The orders of a vendor share one client for the sweep. An order whose status
+ * has not changed for a while is checked less often: it is next checked after half the time since its last status
+ * change, at most brapi.vendor-check-max-backoff later. An order that fails to be checked is retried after the check
+ * frequency, doubling with every further failure up to the same maximum, and does not stop the other orders from
+ * being checked.
+ *
+ * Poll counts and latencies are kept in {@link Metrics} and logged after every sweep.
+ */
+@Slf4j
+@Singleton
+public class VendorOrderStatusPoller {
+
+    private final boolean brapiSubmissionEnabled;
+    private final Duration checkFrequency;
+    private final Duration maxBackoff;
+    private final SampleSubmissionDAO submissionDAO;
+    private final SampleSubmissionService submissionService;
+
+    private final ExecutorService executor;
+    private final Map<UUID, OrderState> orderStates = new ConcurrentHashMap<>();
+
+    private final LongAdder sweeps = new LongAdder();
+    private final AtomicLong pendingOrders = new AtomicLong();
+    private final LongAdder checkedOrders = new LongAdder();
+    private final LongAdder skippedOrders = new LongAdder();
+    private final LongAdder failedOrders = new LongAdder();
+    private final LongAdder statusChanges = new LongAdder();
+    private final LongAdder pollNanos = new LongAdder();
+    private final AtomicLong maxPollNanos = new AtomicLong();
+
+    private static class OrderState {
+        private volatile String status;
+        private volatile OffsetDateTime lastStatusChange;
+        private volatile OffsetDateTime nextCheck;
+        private volatile int failures;
+
+        private OrderState(SampleSubmission order) {
+            this.status = order.getVendorStatus();
+            this.lastStatusChange = order.getSubmittedDate();
+        }
+    }
+
+    @lombok.Value
+    public static class Metrics {
+        long sweeps;
+        long pendingOrders;
+        long checkedOrders;
+        long skippedOrders;
+        long failedOrders;
+        long statusChanges;
+        long pollCount;
+        long averagePollMillis;
+        long maxPollMillis;
+    }
+
+    @Inject
+    public VendorOrderStatusPoller(@Property(name = "brapi.vendor-submission-enabled") boolean brapiSubmissionEnabled,
+                                   @Value("${brapi.vendor-check-frequency}") Duration checkFrequency,
+                                   @Value("${brapi.vendor-check-max-backoff}") Duration maxBackoff,
+                                   SampleSubmissionDAO submissionDAO,
+                                   SampleSubmissionService submissionService,
+                                   @Named("vendor-status-check") ExecutorService executor) {
+        this.brapiSubmissionEnabled = brapiSubmissionEnabled;
+        this.checkFrequency = checkFrequency;
+        this.maxBackoff = maxBackoff;
+        this.submissionDAO = submissionDAO;
+        this.submissionService = submissionService;
+        this.executor = executor;
+    }
+
+    @Scheduled(fixedDelay = "${brapi.vendor-check-frequency}", initialDelay = "10s")
+    void checkSubmissionStatuses() {
+        if(!brapiSubmissionEnabled) {
+            return;
+        }
+        log.trace("checking vendor order statuses");
+        List<SampleSubmission> submittedAndNotCompleted = submissionDAO.getSubmittedAndNotComplete();
+        OffsetDateTime now = OffsetDateTime.now();
+
+        // Orders that were completed since the last sweep are no longer tracked
+        orderStates.keySet().retainAll(submittedAndNotCompleted.stream().map(SampleSubmission::getId).collect(Collectors.toSet()));
+
+        // Built by the first check of each vendor, a vendor that fails to build one fails its checks
+        Map<GenotypeVendor, VendorApi> vendorApis = new ConcurrentHashMap<>();
+        List<Future<?>> checks = new ArrayList<>();
+        for(var order : submittedAndNotCompleted) {
+            OrderState state = orderStates.computeIfAbsent(order.getId(), id -> new OrderState(order));
+            if(state.nextCheck != null && now.isBefore(state.nextCheck)) {
+                skippedOrders.increment();
+                continue;
+            }
+            GenotypeVendor vendor = submissionService.getVendor(order);
+            checks.add(executor.submit(() -> check(order, state, vendor, vendorApis)));
+        }
+        log.trace(checks.size() + " of " + submittedAndNotCompleted.size() + " orders to check");
+
+        for(Future<?> check : checks) {
+            try {
+                check.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Interrupted while checking vendor order statuses");
+                return;
+            } catch (ExecutionException e) {
+                // check() handles its own failures, this is an Error
+                log.error("Error checking vendor order status", e.getCause());
+            }
+        }
+
+        sweeps.increment();
+        pendingOrders.set(submittedAndNotCompleted.size());
+        if (log.isDebugEnabled()) {
+            log.debug("vendor order status checks complete: " + getMetrics());
+        }
+        log.trace("vendor order status checks complete, sleeping");
+    }
+
+    public Metrics getMetrics() {
+        long pollCount = checkedOrders.sum() + failedOrders.sum();
+        return new Metrics(sweeps.sum(),
+                           pendingOrders.get(),
+                           checkedOrders.sum(),
+                           skippedOrders.sum(),
+                           failedOrders.sum(),
+                           statusChanges.sum(),
+                           pollCount,
+                           pollCount == 0 ? 0 : pollNanos.sum() / pollCount / 1_000_000,
+                           maxPollNanos.get() / 1_000_000);
+    }
+
+    private void check(SampleSubmission order, OrderState state, GenotypeVendor vendor, Map<GenotypeVendor, VendorApi> vendorApis) {
+        long start = System.nanoTime();
+        try {
+            VendorApi vendorApi = vendorApis.computeIfAbsent(vendor, submissionService::getVendorApi);
+            SampleSubmission checked = submissionService.checkVendorStatus(order, vendorApi);
+            OffsetDateTime checkedAt = OffsetDateTime.now();
+            if(!Objects.equals(state.status, checked.getVendorStatus())) {
+                state.status = checked.getVendorStatus();
+                state.lastStatusChange = checkedAt;
+                statusChanges.increment();
+            }
+            state.failures = 0;
+            state.nextCheck = nextCheck(checkedAt, state.lastStatusChange, 0, checkFrequency, maxBackoff);
+            checkedOrders.increment();
+        } catch (ApiException e) {
+            failed(state);
+            log.error(String.format("Error checking vendor order status of order %s: \n\n%s", order.getVendorOrderId(), Utilities.generateApiExceptionLogMessage(e)), e);
+        } catch (RuntimeException e) {
+            failed(state);
+            log.error(String.format("Error checking vendor order status of order %s", order.getVendorOrderId()), e);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            pollNanos.add(elapsed);
+            maxPollNanos.accumulateAndGet(elapsed, Math::max);
+        }
+    }
+
+    private void failed(OrderState state) {
+        state.failures++;
+        state.nextCheck = nextCheck(OffsetDateTime.now(), state.lastStatusChange, state.failures, checkFrequency, maxBackoff);
+        failedOrders.increment();
+    }
+
+    /**
+     * @return when to next check an order checked at lastCheck, after the given number of failures in a row
+     */
+    static OffsetDateTime nextCheck(OffsetDateTime lastCheck, OffsetDateTime lastStatusChange, int failures,
+                                    Duration checkFrequency, Duration maxBackoff) {
+        Duration delay;
+        if(failures > 0) {
+            delay = checkFrequency.multipliedBy(1L << Math.min(failures - 1, 20));
+        } else if(lastStatusChange == null || lastStatusChange.isAfter(lastCheck)) {
+            delay = Duration.ZERO;
+        } else {
+            delay = Duration.between(lastStatusChange, lastCheck).dividedBy(2);
+        }
+        return lastCheck.plus(delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay);
+    }
+}
@@ -23,7 +23,6 @@ import org.brapi.client.v2.BrAPIClient;
 
 import javax.inject.Inject;
 import java.time.Duration;
-import java.time.temporal.ChronoUnit;
 import java.util.Comparator;
 import java.util.Set;
 import java.util.TreeSet;
@@ -32,6 +31,7 @@ import java.util.TreeSet;
 public class BrAPIClientProvider {
 
     private final Duration requestTimeout;
+    private final BrAPITransport brAPITransport;
 
     private BrAPIClient coreClient;
     private BrAPIClient phenoClient;
@@ -39,8 +39,10 @@ public class BrAPIClientProvider {
     private BrAPIClient brapiClient;
 
     @Inject
-    public BrAPIClientProvider(@Value(value = "${brapi.read-timeout:5m}") Duration requestTimeout) {
+    public BrAPIClientProvider(@Value(value = "${brapi.read-timeout:5m}") Duration requestTimeout,
+                               BrAPITransport brAPITransport) {
         this.requestTimeout = requestTimeout;
+        this.brAPITransport = brAPITransport;
     }
 
     public void setCoreClient(String url){
@@ -81,19 +83,7 @@ public class BrAPIClientProvider {
     }
 
     private void initializeHttpClient(BrAPIClient brapiClient) {
-        brapiClient.setHttpClient(brapiClient.getHttpClient()
-                                             .newBuilder()
-                                             .readTimeout(getRequestTimeout())
-                                             .build());
-    }
-
-    //TODO figure out why BrAPIServiceFilterIntegrationTest fails when requestTimeout is set in the constructor
-    private Duration getRequestTimeout() {
-        if(requestTimeout != null) {
-            return requestTimeout;
-        }
-
-        return Duration.of(5, ChronoUnit.MINUTES);
+        brAPITransport.initializeHttpClient(brapiClient, requestTimeout);
     }
 
 }
@@ -0,0 +1,124 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.services.brapi;
+
+import io.micronaut.context.annotation.Property;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import org.brapi.client.v2.BrAPIClient;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.time.Duration;
+import java.util.concurrent.*;
+
+/**
+ * The HTTP transport shared by every BrAPI client.
+ *
+ * A BrAPIClient builds its own OkHttpClient, with its own connection pool and dispatcher, so the clients created for
+ * every request used to open new connections to the same BrAPI server. Clients created here share one connection pool
+ * and dispatcher, and keep up to brapi.transport.max-idle-connections connections alive between requests.
+ *
+ * The generated BrAPI APIs block the calling thread, so {@link #call} runs them on the brapi-call executor, and
+ * {@link #call(Callable, long)} delays a call without holding a thread while it waits. Searches waiting on a 202 response only hold a thread while a poll is in flight.
+ */
+@Slf4j
+@Singleton
+public class BrAPITransport {
+
+    private final ConnectionPool connectionPool;
+    private final Dispatcher dispatcher;
+    private final ExecutorService callExecutor;
+
+    @Inject
+    public BrAPITransport(@Property(name = "brapi.transport.max-idle-connections") int maxIdleConnections,
+                          @Property(name = "brapi.transport.keep-alive") Duration keepAlive,
+                          @Named("brapi-call") ExecutorService callExecutor) {
+        this.connectionPool = new ConnectionPool(Math.max(1, maxIdleConnections), keepAlive.toMillis(), TimeUnit.MILLISECONDS);
+        this.dispatcher = new Dispatcher();
+        this.callExecutor = callExecutor;
+    }
+
+    /**
+     * Stops the dispatcher threads and closes the idle connections when the application shuts down
+     */
+    @PreDestroy
+    public void close() {
+        dispatcher.executorService().shutdown();
+        connectionPool.evictAll();
+    }
+
+    /**
+     * @return a client for the BrAPI server at url that uses the shared connection pool
+     */
+    public BrAPIClient newClient(String url, Duration readTimeout) {
+        BrAPIClient client = new BrAPIClient(url);
+        initializeHttpClient(client, readTimeout);
+        return client;
+    }
+
+    /**
+     * Moves an existing client onto the shared connection pool, keeping the interceptors and authentication it was
+     * built with
+     */
+    public void initializeHttpClient(BrAPIClient client, Duration readTimeout) {
+        client.setHttpClient(client.getHttpClient()
+                                   .newBuilder()
+                                   .connectionPool(connectionPool)
+                                   .dispatcher(dispatcher)
+                                   .readTimeout(readTimeout)
+                                   .build());
+    }
+
+    /**
+     * Runs a blocking BrAPI call on the call pool
+     */
+    public <T> CompletableFuture<T> call(Callable<T> call) {
+        return call(call, 0);
+    }
+
+    /**
+     * Runs a blocking BrAPI call on the call pool after delayMillis, without holding a thread in the meantime
+     */
+    public <T> CompletableFuture<T> call(Callable<T> call, long delayMillis) {
+        Executor executor = delayMillis > 0 ? CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS, callExecutor) : callExecutor;
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    result.complete(call.call());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of open connections to BrAPI servers, idle or in use
+     */
+    public int getConnectionCount() {
+        return connectionPool.connectionCount();
+    }
+}
@@ -563,9 +563,13 @@ public class GigwaGenotypeServiceImpl implements GenotypeService {
                         Optional.ofNullable(gigwaProgress.get("error"))
                                 .ifPresent(jsonElement -> error.set(jsonElement.getAsString()));
                         completed = getBooleanValue(gigwaProgress, "complete", false);
-                        progress.setMessage(gigwaProgress.get("progressDescription")
-                                                         .getAsString());
-                        importDAO.updateProgress(progress);
+                        String progressDescription = gigwaProgress.get("progressDescription")
+                                                                  .getAsString();
+                        // Gigwa is polled every second, only save the progress once it has moved on
+                        if (!progressDescription.equals(progress.getMessage())) {
+                            progress.setMessage(progressDescription);
+                            importDAO.updateProgress(progress);
+                        }
                     }
                 } else if(response.code() == 204) {
                     error.set("No status response returned, assuming error");
@@ -28,6 +28,7 @@ import org.jetbrains.annotations.NotNull;
 
 import java.io.*;
 import java.util.*;
+import java.util.stream.Stream;
 
 /*
  * This csv writer creates a csv file with the first row as column names and subsequent rows
@@ -48,6 +49,25 @@ public class CSVWriter {
         }
     }
 
+    /**
+     * Writes rows given as values in the order of the columns, without building a map per row.
+     */
+    public static StreamedFile writeRowsToDownload(List<Column> columns, Stream<Object[]> rows, FileType extension) throws IOException {
+        String[] headers = columns.stream().map(Column::getValue).toArray(String[]::new);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (CSVPrinter csvPrinter = new CSVPrinter(new PrintWriter(out), CSVFormat.EXCEL.withHeader(headers))) {
+            Iterator<Object[]> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                csvPrinter.printRecord(iterator.next());
+            }
+        } catch (IOException e) {
+            log.info(e.getMessage());
+            throw e;
+        }
+        MediaType fileVal = new MediaType(extension.getMimeType(), extension.getName());
+        return new StreamedFile(new ByteArrayInputStream(out.toByteArray()), fileVal);
+    }
+
     //Writes to csv with desired columns and data
     public static ByteArrayOutputStream writeToCSV(List<Column> columns, List<Map<String, Object>> data) {
 
@@ -30,6 +30,7 @@ import org.brapi.v2.model.*;
 import org.brapi.v2.model.germ.BrAPIGermplasm;
 import org.brapi.v2.model.germ.response.BrAPIGermplasmSingleResponse;
 import org.breedinginsight.brapps.importer.model.ImportUpload;
+import org.breedinginsight.services.brapi.BrAPITransport;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -37,6 +38,8 @@ import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import static org.brapi.v2.model.BrAPIWSMIMEDataTypes.APPLICATION_JSON;
 
@@ -48,16 +51,19 @@ public class BrAPIDAOUtil {
     private final Duration searchTimeout;
     private final int pageSize;
     private final int postGroupSize;
+    private final BrAPITransport transport;
 
     @Inject
     public BrAPIDAOUtil(@Property(name = "brapi.search.wait-time") int searchWaitTime,
                         @Property(name = "brapi.read-timeout") Duration searchTimeout,
                         @Property(name = "brapi.page-size") int pageSize,
-                        @Property(name = "brapi.post-group-size") int postGroupSize) {
+                        @Property(name = "brapi.post-group-size") int postGroupSize,
+                        BrAPITransport transport) {
         this.searchWaitTime = searchWaitTime;
         this.searchTimeout = searchTimeout;
         this.pageSize = pageSize;
         this.postGroupSize = postGroupSize;
+        this.transport = transport;
     }
 
     public <T, U extends BrAPISearchRequestParametersPaging, V> List<V> search(Function<U, ApiResponse<Pair<Optional<T>, Optional<BrAPIAcceptedSearchResponse>>>> searchMethod,
@@ -86,57 +92,26 @@ public class BrAPIDAOUtil {
             searchBody.pageSize(10000000);
             ApiResponse<Pair<Optional<T>, Optional<BrAPIAcceptedSearchResponse>>> response = searchMethod.apply(searchBody);
             if (response.getBody().getLeft().isPresent()) {
-                BrAPIResponse listResponse = (BrAPIResponse) response.getBody().getLeft().get();
-                listResult = getListResult(response);
-
             /*  NOTE: may want to check for additional pages depending on whether BrAPI standard specifies how
                 pagination params are handled for POST search endpoints or the corresponding endpoints in Breedbase are
                 changed or updated
              */
-                if(hasMorePages(listResponse)) {
-                    int currentPage = listResponse.getMetadata().getPagination().getCurrentPage() + 1;
-                    int totalPages = listResponse.getMetadata().getPagination().getTotalPages();
-
-                    while (currentPage < totalPages) {
-                        searchBody.setPage(currentPage);
-                        response = searchMethod.apply(searchBody);
-                        if (response.getBody().getLeft().isPresent()) {
-                            listResult.addAll(getListResult(response));
-                        }
-
-                        currentPage++;
-                    }
-                }
+                listResult = collectPages(response, page -> {
+                    searchBody.setPage(page);
+                    return searchMethod.apply(searchBody);
+                });
             } else {
                 // Hit the get endpoint until we get a response
                 Integer accruedWait = 0;
                 Boolean searchFinished = false;
-                int currentPage = 0;
                 while (!searchFinished) {
                     BrAPIAcceptedSearchResponse searchResult = response.getBody().getRight().get();
 
                     ApiResponse<Pair<Optional<T>, Optional<BrAPIAcceptedSearchResponse>>> searchGetResponse =
-                            searchGetResponse(searchGetMethod, searchGetMethodWithMimeType, searchResult, currentPage);
+                            searchGetResponse(searchGetMethod, searchGetMethodWithMimeType, searchResult, 0);
                     if (searchGetResponse.getBody().getLeft().isPresent()) {
                         searchFinished = true;
-                        BrAPIResponse listResponse = (BrAPIResponse) searchGetResponse.getBody().getLeft().get();
-                        listResult = getListResult(searchGetResponse);
-
-                        if(hasMorePages(listResponse)) {
-                            currentPage++;
-                            int totalPages = listResponse.getMetadata()
-                                    .getPagination()
-                                    .getTotalPages();
-
-                            while (currentPage < totalPages) {
-                                searchGetResponse = searchGetResponse(searchGetMethod, searchGetMethodWithMimeType, searchResult, currentPage);
-                                if (searchGetResponse.getBody().getLeft().isPresent()) {
-                                    listResult.addAll(getListResult(searchGetResponse));
-                                }
-
-                                currentPage++;
-                            }
-                        }
+                        listResult = collectPages(searchGetResponse, page -> searchGetResponse(searchGetMethod, searchGetMethodWithMimeType, searchResult, page));
                     } else {
                         // Wait a bit before we call again
                         Thread.sleep(searchWaitTime);
@@ -158,6 +133,57 @@ public class BrAPIDAOUtil {
         }
     }
 
+    /**
+     * Runs a search without blocking the caller. The search calls run on the BrAPI transport's call pool, and the
+     * wait between polls of a 202 response does not hold a thread, so many searches can wait on the BrAPI server at
+     * the same time.
+     *
+     * The future fails with the same exceptions {@link #search} throws, wrapped in a CompletionException.
+     */
+    public <T, U extends BrAPISearchRequestParametersPaging, V> CompletableFuture<List<V>> searchAsync(Function<U, ApiResponse<Pair<Optional<T>, Optional<BrAPIAcceptedSearchResponse>>>> searchMethod,
+                                                                                                       Function3<String, Integer, Integer, ApiResponse<Pair<Optional<T>, Optional<BrAPIAcceptedSearchResponse>>>> searchGetMethod,
+                                                                                                       U searchBody) {
+        //NOTE: See searchInternal for why the page size is set to a large value
+        searchBody.pageSize(10000000);
+        CompletableFuture<List<V>> result = transport.call(() -> searchMethod.apply(searchBody))
+                .thenCompose(response -> {
+                    if (response.getBody().getLeft().isPresent()) {
+                        return transport.<List<V>>call(() -> collectPages(response, page -> {
+                            searchBody.setPage(page);
+                            return searchMethod.apply(searchBody);
+                        }));
+                    }
+                    return this.<T, V>pollSearch(searchGetMethod, response.getBody().getRight().get(), 0);
+                });
+        return result.exceptionally(e -> {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof ApiException) {
+                log.warn(Utilities.generateApiExceptionLogMessage((ApiException) cause));
+                throw new CompletionException(cause);
+            }
+            log.debug("error", cause);
+            throw new CompletionException(cause instanceof RuntimeException ? cause : new InternalServerException(cause.toString(), cause));
+        });
+    }
+
+    private <T, V> CompletableFuture<List<V>> pollSearch(Function3<String, Integer, Integer, ApiResponse<Pair<Optional<T>, Optional<BrAPIAcceptedSearchResponse>>>> searchGetMethod,
+                                                         BrAPIAcceptedSearchResponse searchResult,
+                                                         long accruedWait) {
+        long delay = accruedWait == 0 ? 0 : searchWaitTime;
+        return transport.call(() -> searchGetResponse(searchGetMethod, null, searchResult, 0), delay)
+                        .thenCompose(searchGetResponse -> {
+                            if (searchGetResponse.getBody().getLeft().isPresent()) {
+                                return transport.<List<V>>call(() -> collectPages(searchGetResponse, page -> searchGetResponse(searchGetMethod, null, searchResult, page)));
+                            }
+                            // Wait a bit before we call again
+                            long waited = accruedWait + searchWaitTime;
+                            if (waited >= searchTimeout.toMillis()) {
+                                return CompletableFuture.<List<V>>failedFuture(new ApiException("Search response timeout"));
+                            }
+                            return this.<T, V>pollSearch(searchGetMethod, searchResult, waited);
+                        });
+    }
+
     public <T, U extends BrAPISearchRequestParametersTokenPaging, V> List<V> searchWithToken(Function<U, ApiResponse<Pair<Optional<T>, Optional<BrAPIAcceptedSearchResponse>>>> searchMethod,
                                                                                Function3<String, String, Integer, ApiResponse<Pair<Optional<T>, Optional<BrAPIAcceptedSearchResponse>>>> searchGetMethod,
                                                                                U searchBody
@@ -260,6 +286,30 @@ public class BrAPIDAOUtil {
                 searchGetMethodWithMimeType.apply(APPLICATION_JSON, searchResult.getResult().getSearchResultsDbId(), currentPage, pageSize);
     }
 
+    /**
+     * @return the results of the first page of a search and of every page after it, read with pageMethod
+     */
+    private <T, V> List<V> collectPages(ApiResponse<Pair<Optional<T>, Optional<BrAPIAcceptedSearchResponse>>> firstPage,
+                                        Function<Integer, ApiResponse<Pair<Optional<T>, Optional<BrAPIAcceptedSearchResponse>>>> pageMethod) throws Exception {
+        BrAPIResponse listResponse = (BrAPIResponse) firstPage.getBody().getLeft().get();
+        List<V> listResult = getListResult(firstPage);
+
+        if(hasMorePages(listResponse)) {
+            int currentPage = listResponse.getMetadata().getPagination().getCurrentPage() + 1;
+            int totalPages = listResponse.getMetadata().getPagination().getTotalPages();
+
+            while (currentPage < totalPages) {
+                ApiResponse<Pair<Optional<T>, Optional<BrAPIAcceptedSearchResponse>>> response = pageMethod.apply(currentPage);
+                if (response.getBody().getLeft().isPresent()) {
+                    listResult.addAll(getListResult(response));
+                }
+
+                currentPage++;
+            }
+        }
+        return listResult;
+    }
+
     private boolean hasMorePages(BrAPIResponse listResponse) {
         return listResponse.getMetadata() != null
                 && listResponse.getMetadata().getPagination() != null
@@ -290,16 +340,14 @@ public class BrAPIDAOUtil {
         try {
             // Make the POST calls in chunks so we don't overload the brapi server
             Integer currentRightBorder = 0;
-            // Set our finished to our current value for different objects were posted before
-            Integer finished = upload != null && upload.getProgress().getFinished() != null ?
-                    Math.toIntExact(upload.getProgress().getFinished()) : 0;
             while (currentRightBorder < brapiObjects.size()) {
                 List<T> postChunk = brapiObjects.size() > (currentRightBorder + postGroupSize) ?
                         brapiObjects.subList(currentRightBorder, currentRightBorder + postGroupSize) :
                         brapiObjects.subList(currentRightBorder, brapiObjects.size());
-                // Update our progress in the db
+                // Report our progress. Other entities of the same upload may be posted at the same time,
+                // so progress is moved in increments under the upload's lock and saved outside of it
                 if (upload != null) {
-                    upload.updateProgress(finished, postChunk.size());
+                    upload.startProgress(postChunk.size());
                     progressUpdateMethod.accept(upload);
                 }
                 ApiResponse response = postMethod.apply(postChunk);
@@ -320,13 +368,14 @@ public class BrAPIDAOUtil {
                     throw new ApiException("Number of brapi objects returned does not equal number sent");
                 }
                 listResult.addAll(data);
-                finished += data.size();
+                if (upload != null) {
+                    upload.finishProgress(data.size());
+                }
                 currentRightBorder += postGroupSize;
             }
 
             if (upload != null) {
-                // Set finished count, reset inProgress count to 0.
-                upload.updateProgress(finished, 0);
+                // Save the finished count of the last chunk
                 progressUpdateMethod.accept(upload);
             }
 
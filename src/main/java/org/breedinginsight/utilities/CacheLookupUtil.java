@@ -0,0 +1,80 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.utilities;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Lookups of many keys against the values of a program cache.
+ *
+ * Callers pass the keys as any collection, usually a list built from an import file. Testing every cached value
+ * against a list is O(values * keys), so the keys are turned into a hash set once, or the cache map is probed
+ * directly when it is keyed by the value being looked up.
+ */
+public class CacheLookupUtil {
+
+    private CacheLookupUtil() {
+    }
+
+    /**
+     * @return the keys as a set with constant time lookups, the collection itself when it already is a hash set
+     */
+    public static <K> Set<K> toLookupSet(Collection<K> keys) {
+        if (keys instanceof HashSet) {
+            return (HashSet<K>) keys;
+        }
+        return new HashSet<>(keys);
+    }
+
+    /**
+     * Filters values by a key derived from each value.
+     *
+     * @return the values whose key is one of the keys, in the iteration order of the values
+     */
+    public static <T, K> List<T> filterByKeys(Collection<T> values, Function<T, K> keyOf, Collection<K> keys) {
+        List<T> matches = new ArrayList<>();
+        if (keys.isEmpty()) {
+            return matches;
+        }
+        Set<K> lookup = toLookupSet(keys);
+        for (T value : values) {
+            if (lookup.contains(keyOf.apply(value))) {
+                matches.add(value);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Gets the values of a map by probing each key instead of scanning the map.
+     *
+     * @return the values found, in the order of the keys with duplicate keys returned once
+     */
+    public static <K, V> List<V> getByKeys(Map<K, V> map, Collection<K> keys) {
+        List<V> matches = new ArrayList<>();
+        Collection<K> distinctKeys = keys instanceof Set ? keys : new LinkedHashSet<>(keys);
+        for (K key : distinctKeys) {
+            V value = map.get(key);
+            if (value != null) {
+                matches.add(value);
+            }
+        }
+        return matches;
+    }
+}
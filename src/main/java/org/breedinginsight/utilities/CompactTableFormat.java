@@ -0,0 +1,181 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.utilities;
+
+import lombok.extern.slf4j.Slf4j;
+import org.breedinginsight.services.parsers.ParsingException;
+import org.breedinginsight.services.parsers.ParsingExceptionType;
+import tech.tablesaw.api.StringColumn;
+import tech.tablesaw.api.Table;
+import tech.tablesaw.columns.Column;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Binary format for storing uploaded tables, much smaller and faster to read than the JSON the tables used to be
+ * stored as.
+ *
+ * The data is stored column by column. Every column has a dictionary of its distinct values and each cell is the
+ * index of its value, so the repeated values of an upload (study names, locations, years, ...) are stored once. The
+ * columns are then deflated.
+ *
+ * Layout: the magic bytes "BIT" and a version byte, followed by the deflated column count, row count and columns.
+ * A column is its name, the size of its dictionary, the dictionary values and a cell index per row, where index 0 is
+ * a missing value. Lengths and indexes are variable length integers. Cells are read back as strings, as they are when
+ * read from JSON.
+ */
+@Slf4j
+public class CompactTableFormat {
+
+    private static final byte[] MAGIC = {'B', 'I', 'T'};
+    public static final int VERSION = 1;
+
+    private CompactTableFormat() {}
+
+    public static byte[] write(Table table) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(MAGIC, 0, MAGIC.length);
+        bytes.write(VERSION);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new DeflaterOutputStream(bytes)))) {
+            writeVarInt(out, table.columnCount());
+            writeVarInt(out, table.rowCount());
+            for (Column<?> column : table.columns()) {
+                writeColumn(out, column);
+            }
+        } catch (IOException e) {
+            // Only written to memory
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @return true if the data was written by {@link #write(Table)}, of any version
+     */
+    public static boolean isCompact(byte[] data) {
+        return data != null && data.length > MAGIC.length
+                && data[0] == MAGIC[0] && data[1] == MAGIC[1] && data[2] == MAGIC[2];
+    }
+
+    public static Table read(byte[] data) throws ParsingException {
+        if (!isCompact(data)) {
+            throw new ParsingException(ParsingExceptionType.ERROR_READING_FILE);
+        }
+        int version = data[MAGIC.length];
+        InputStream deflated = new ByteArrayInputStream(data, MAGIC.length + 1, data.length - MAGIC.length - 1);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new InflaterInputStream(deflated)))) {
+            if (version == 1) {
+                return readVersion1(in);
+            }
+            log.error("Unknown compact table version " + version);
+            throw new ParsingException(ParsingExceptionType.ERROR_READING_FILE);
+        } catch (IOException e) {
+            log.debug(e.getMessage());
+            throw new ParsingException(ParsingExceptionType.ERROR_READING_FILE);
+        }
+    }
+
+    private static void writeColumn(DataOutputStream out, Column<?> column) throws IOException {
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<String> values = new ArrayList<>();
+        int[] cells = new int[column.size()];
+        for (int row = 0; row < column.size(); row++) {
+            if (column.isMissing(row)) {
+                continue;
+            }
+            cells[row] = dictionary.computeIfAbsent(column.getString(row), value -> {
+                values.add(value);
+                return values.size();
+            });
+        }
+
+        writeString(out, column.name());
+        writeVarInt(out, values.size());
+        for (String value : values) {
+            writeString(out, value);
+        }
+        for (int cell : cells) {
+            writeVarInt(out, cell);
+        }
+    }
+
+    private static Table readVersion1(DataInputStream in) throws IOException {
+        int columnCount = readVarInt(in);
+        int rowCount = readVarInt(in);
+        Table table = Table.create();
+        for (int i = 0; i < columnCount; i++) {
+            StringColumn column = StringColumn.create(readString(in));
+            String[] values = new String[readVarInt(in) + 1];
+            for (int value = 1; value < values.length; value++) {
+                values[value] = readString(in);
+            }
+            for (int row = 0; row < rowCount; row++) {
+                int cell = readVarInt(in);
+                if (cell >= values.length) {
+                    throw new IOException("Cell refers to a value missing from the dictionary");
+                }
+                if (cell == 0) {
+                    column.appendMissing();
+                } else {
+                    column.append(values[cell]);
+                }
+            }
+            table.addColumns(column);
+        }
+        return table;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, utf8.length);
+        out.write(utf8);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] utf8 = new byte[readVarInt(in)];
+        in.readFully(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable length integer");
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+-- dbIds acknowledged by the BrAPI service while committing an import, so a failed commit can be resumed
+-- without posting the same objects again
+CREATE TABLE importer_commit_checkpoint (
+    like base_entity INCLUDING DEFAULTS INCLUDING CONSTRAINTS INCLUDING INDEXES,
+    importer_import_id UUID NOT NULL,
+    entity_type TEXT NOT NULL,
+    chunk_key TEXT NOT NULL,
+    db_ids JSONB NOT NULL,
+    like base_edit_track_entity INCLUDING DEFAULTS INCLUDING CONSTRAINTS INCLUDING INDEXES
+);
+ALTER TABLE importer_commit_checkpoint ADD FOREIGN KEY (importer_import_id) REFERENCES importer_import (id) ON DELETE CASCADE;
+ALTER TABLE importer_commit_checkpoint ADD FOREIGN KEY (created_by) REFERENCES bi_user (id);
+ALTER TABLE importer_commit_checkpoint ADD FOREIGN KEY (updated_by) REFERENCES bi_user (id);
+CREATE UNIQUE INDEX importer_commit_checkpoint_chunk ON importer_commit_checkpoint (importer_import_id, entity_type, chunk_key);
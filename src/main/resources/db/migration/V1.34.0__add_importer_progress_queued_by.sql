@@ -0,0 +1,25 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+-- Imports are queued in memory by the server instance they were uploaded to. queued_by holds that instance while the
+-- import waits for a worker, and the instance records a heartbeat in importer_instance so other instances can tell
+-- when it has stopped.
+CREATE TABLE importer_instance (
+    id TEXT PRIMARY KEY,
+    heartbeat_at TIMESTAMPTZ NOT NULL
+);
+ALTER TABLE importer_progress ADD COLUMN queued_by TEXT;
+CREATE INDEX importer_progress_queued_by ON importer_progress (queued_by) WHERE queued_by IS NOT NULL;
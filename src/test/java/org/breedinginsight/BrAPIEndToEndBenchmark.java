@@ -0,0 +1,197 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight;
+
+import org.brapi.client.v2.BrAPIClient;
+import org.brapi.client.v2.JSON;
+import org.brapi.client.v2.model.exceptions.ApiException;
+import org.brapi.client.v2.modules.phenotype.ObservationUnitsApi;
+import org.brapi.client.v2.modules.phenotype.ObservationsApi;
+import org.brapi.v2.model.germ.BrAPIGermplasm;
+import org.brapi.v2.model.pheno.BrAPIObservation;
+import org.brapi.v2.model.pheno.BrAPIObservationUnit;
+import org.brapi.v2.model.pheno.request.BrAPIObservationSearchRequest;
+import org.brapi.v2.model.pheno.request.BrAPIObservationUnitSearchRequest;
+import org.breedinginsight.api.v1.controller.metadata.SortOrder;
+import org.breedinginsight.brapi.v2.dao.BrAPIGermplasmDAO;
+import org.breedinginsight.brapi.v2.model.request.query.GermplasmQuery;
+import org.breedinginsight.brapps.importer.services.ImportProgressReporter;
+import org.breedinginsight.daos.ProgramDAO;
+import org.breedinginsight.daos.cache.FetchFunction;
+import org.breedinginsight.daos.cache.ProgramCache;
+import org.breedinginsight.daos.cache.ProgramCacheProvider;
+import org.breedinginsight.model.Program;
+import org.breedinginsight.services.brapi.BrAPIEndpointProvider;
+import org.breedinginsight.services.brapi.BrAPITransport;
+import org.breedinginsight.utilities.BrAPIDAOUtil;
+import org.breedinginsight.utilities.response.ResponseUtils;
+import org.breedinginsight.utilities.response.mappers.GermplasmQueryMapper;
+import org.openjdk.jmh.annotations.*;
+import org.redisson.api.RBucket;
+import org.redisson.api.RMap;
+import org.redisson.api.RedissonClient;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the BrAPI facing side of bi-api's heaviest user flows against a {@link StubBrAPIServer} holding one synthetic
+ * program, over real HTTP with the generated BrAPI client, the shared {@link BrAPITransport} and {@link BrAPIDAOUtil}:
+ * <ul>
+ *     <li>refreshGermplasmCache: the germplasm search and display processing a germplasm cache refresh does</li>
+ *     <li>listGermplasm: a sorted page of the germplasm list, read from a populated germplasm cache</li>
+ *     <li>searchTrialObservations: concurrent observation unit and observation searches of a trial, joined by unit,
+ *     as an experiment export fetches them</li>
+ *     <li>postObservations: posting a new observation for every observation unit of the trial, as an import
+ *     commits them</li>
+ * </ul>
+ * The program's database record and the Redis cache are stubbed, so the results measure bi-api and the BrAPI exchange
+ * without Postgres or Redis. The last two cover the BrAPI calls only, not the rest of the export and import services.
+ * SampleTime reports p50 and p99 latencies and Throughput reports operations per second. Run with -prof gc for
+ * allocation rates and heap churn.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.SampleTime, Mode.Throughput})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class BrAPIEndToEndBenchmark {
+
+    @Param({"1000", "10000"})
+    private int germplasm;
+
+    @Param({"0", "2"})
+    private int asyncPolls;
+
+    @Param({"0", "5"})
+    private int latencyMillis;
+
+    private StubBrAPIServer server;
+    private BrAPIDAOUtil brAPIDAOUtil;
+    private BrAPIGermplasmDAO germplasmDAO;
+    private FetchFunction<UUID, Map<String, BrAPIGermplasm>> fetchGermplasm;
+    private ObservationUnitsApi observationUnitsApi;
+    private ObservationsApi observationsApi;
+    private List<BrAPIObservation> newObservations;
+    private ExecutorService callExecutor;
+
+    @Setup
+    public void setup() throws Exception {
+        server = StubBrAPIServer.start(StubBrAPIServer.Settings.builder()
+                                                               .germplasm(germplasm)
+                                                               .observationUnits(germplasm)
+                                                               .asyncPolls(asyncPolls)
+                                                               .latency(Duration.ofMillis(latencyMillis))
+                                                               .build());
+        callExecutor = Executors.newFixedThreadPool(16);
+        BrAPITransport transport = new BrAPITransport(16, Duration.ofMinutes(5), callExecutor);
+        brAPIDAOUtil = new BrAPIDAOUtil(50, Duration.ofMinutes(10), 1000, 1000, transport);
+        BrAPIClient client = transport.newClient(server.getUrl(), Duration.ofMinutes(10));
+        observationUnitsApi = new ObservationUnitsApi(client);
+        observationsApi = new ObservationsApi(client);
+
+        ProgramDAO programDAO = mock(ProgramDAO.class, withSettings().stubOnly());
+        when(programDAO.getCoreClient(any(UUID.class))).thenReturn(client);
+        when(programDAO.get(any(UUID.class))).thenReturn(List.of(Program.builder()
+                                                                        .id(server.getProgramId())
+                                                                        .key(StubBrAPIServer.PROGRAM_KEY)
+                                                                        .build()));
+
+        // The germplasm cache is always populated, with the germplasm a refresh fetches from the stub
+        RedissonClient redisson = mock(RedissonClient.class, withSettings().stubOnly());
+        RBucket<Object> bucket = mock(RBucket.class, withSettings().stubOnly());
+        when(bucket.isExists()).thenReturn(true);
+        doReturn(bucket).when(redisson).getBucket(anyString());
+        RMap<Object, Object> cachedGermplasm = mock(RMap.class, withSettings().stubOnly());
+        doReturn(cachedGermplasm).when(redisson).getMap(anyString());
+
+        ProgramCacheProvider programCacheProvider = mock(ProgramCacheProvider.class, withSettings().stubOnly());
+        when(programCacheProvider.getProgramCache(any(), any())).thenAnswer(invocation -> {
+            fetchGermplasm = invocation.getArgument(0);
+            return new ProgramCache<>(redisson, fetchGermplasm, invocation.getArgument(1));
+        });
+        germplasmDAO = new BrAPIGermplasmDAO(programDAO, mock(ImportProgressReporter.class, withSettings().stubOnly()), brAPIDAOUtil,
+                                             programCacheProvider, new BrAPIEndpointProvider(), server.getSettings().getReferenceSource());
+
+        JSON json = new JSON();
+        Map<Object, Object> serialized = fetchGermplasm.apply(server.getProgramId()).entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> json.getGson().toJson(entry.getValue())));
+        when(cachedGermplasm.readAllMap()).thenReturn(serialized);
+
+        newObservations = server.getObservationUnits().stream()
+                .map(unit -> new BrAPIObservation()
+                        .observationUnitDbId(unit.getObservationUnitDbId())
+                        .observationVariableDbId("variable-new")
+                        .value("1"))
+                .collect(Collectors.toList());
+    }
+
+    @TearDown
+    public void teardown() {
+        server.close();
+        callExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public Map<String, BrAPIGermplasm> refreshGermplasmCache() throws ApiException {
+        return fetchGermplasm.apply(server.getProgramId());
+    }
+
+    @Benchmark
+    public Object listGermplasm() throws ApiException {
+        GermplasmQuery query = new GermplasmQuery();
+        query.setPage(0);
+        query.setPageSize(50);
+        query.setSortField("defaultDisplayName");
+        query.setSortOrder(SortOrder.DESC);
+        List<BrAPIGermplasm> programGermplasm = germplasmDAO.getGermplasm(server.getProgramId());
+        return ResponseUtils.getBrapiQueryResponse(programGermplasm, new GermplasmQueryMapper(), query, query.constructSearchRequest());
+    }
+
+    @Benchmark
+    public Map<String, List<BrAPIObservation>> searchTrialObservations() {
+        CompletableFuture<List<BrAPIObservationUnit>> units = brAPIDAOUtil.searchAsync(observationUnitsApi::searchObservationunitsPost,
+                                                                                       observationUnitsApi::searchObservationunitsSearchResultsDbIdGet,
+                                                                                       new BrAPIObservationUnitSearchRequest().trialDbIds(List.of(StubBrAPIServer.TRIAL_DB_ID)));
+        CompletableFuture<List<BrAPIObservation>> observations = brAPIDAOUtil.searchAsync(observationsApi::searchObservationsPost,
+                                                                                          observationsApi::searchObservationsSearchResultsDbIdGet,
+                                                                                          new BrAPIObservationSearchRequest().trialDbIds(List.of(StubBrAPIServer.TRIAL_DB_ID)));
+        Map<String, List<BrAPIObservation>> observationsByUnit = observations.join().stream()
+                .collect(Collectors.groupingBy(BrAPIObservation::getObservationUnitDbId));
+        Map<String, List<BrAPIObservation>> rows = new LinkedHashMap<>();
+        for (BrAPIObservationUnit unit : units.join()) {
+            rows.put(unit.getObservationUnitDbId(), observationsByUnit.getOrDefault(unit.getObservationUnitDbId(), Collections.emptyList()));
+        }
+        return rows;
+    }
+
+    @Benchmark
+    public List<BrAPIObservation> postObservations() throws ApiException {
+        return brAPIDAOUtil.post(newObservations, observationsApi::observationsPost);
+    }
+}
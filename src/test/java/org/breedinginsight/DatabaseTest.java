@@ -98,6 +98,9 @@ public class DatabaseTest implements TestPropertyProvider {
         String containerIp = dbContainer.getContainerIpAddress();
         properties.put("datasources.default.url", String.format("jdbc:postgresql://%s:%s/%s", containerIp, containerPort, dbName));
         properties.put("micronaut.bi.api.run-scheduled-tasks", "false");
+        // Tests change roles directly in the database, so resolved users must not outlive a request
+        properties.put("micronaut.bi.api.user-cache.ttl", "0s");
+        properties.put("brapi.metadata-cache.ttl", "0s");
         properties.put("datasources.default.initialization-fail-timeout", "10");
 
         Integer redisContainerPort = redisContainer.getMappedPort(6379);
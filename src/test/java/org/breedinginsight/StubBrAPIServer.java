@@ -0,0 +1,316 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.reflect.TypeToken;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.brapi.client.v2.JSON;
+import org.brapi.v2.model.*;
+import org.brapi.v2.model.germ.BrAPIGermplasm;
+import org.brapi.v2.model.germ.response.BrAPIGermplasmListResponse;
+import org.brapi.v2.model.germ.response.BrAPIGermplasmListResponseResult;
+import org.brapi.v2.model.pheno.BrAPIObservation;
+import org.brapi.v2.model.pheno.BrAPIObservationUnit;
+import org.brapi.v2.model.pheno.response.BrAPIObservationListResponse;
+import org.brapi.v2.model.pheno.response.BrAPIObservationListResponseResult;
+import org.brapi.v2.model.pheno.response.BrAPIObservationUnitListResponse;
+import org.brapi.v2.model.pheno.response.BrAPIObservationUnitListResponseResult;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An in-process BrAPI v2 server for tests and benchmarks that cannot start the brapi-java-server containers of
+ * {@link BrAPITest}.
+ *
+ * The server holds one {@link SyntheticData} program with {@link Settings#germplasm} germplasm, {@link Settings#observationUnits}
+ * observation units and {@link Settings#observationsPerUnit} observations for every unit, referenced the way bi-api
+ * stores them. It serves the germplasm, observation unit and observation searches, with every search returning all the
+ * records of its type, and appends observations. Appended observations are given database IDs and returned but not
+ * stored, so repeated imports do not grow the program.
+ *
+ * Every response is delayed by {@link Settings#latency}, pages hold at most {@link Settings#pageSize} records, and a
+ * search answers {@link Settings#asyncPolls} polls with a 202 response before returning its results.
+ */
+@Slf4j
+public class StubBrAPIServer implements AutoCloseable {
+
+    public static final String BASE_PATH = "/brapi/v2";
+    public static final String PROGRAM_KEY = "STUB";
+    public static final String PROGRAM_DB_ID = "program-1";
+    public static final String TRIAL_DB_ID = "trial-1";
+
+    @Getter
+    @Builder
+    public static class Settings {
+        @Builder.Default
+        private final String referenceSource = "breedinginsight.org";
+        @Builder.Default
+        private final int germplasm = 1000;
+        @Builder.Default
+        private final int observationUnits = 1000;
+        @Builder.Default
+        private final int observationsPerUnit = 5;
+        @Builder.Default
+        private final Duration latency = Duration.ZERO;
+        @Builder.Default
+        private final int pageSize = 1000;
+        @Builder.Default
+        private final int asyncPolls = 0;
+    }
+
+    @Getter
+    private final Settings settings;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Gson gson = new JSON().getGson();
+
+    @Getter
+    private final UUID programId = UUID.nameUUIDFromBytes(PROGRAM_DB_ID.getBytes(StandardCharsets.UTF_8));
+    @Getter
+    private final UUID trialId = UUID.nameUUIDFromBytes(TRIAL_DB_ID.getBytes(StandardCharsets.UTF_8));
+    @Getter
+    private final List<BrAPIGermplasm> germplasm;
+    @Getter
+    private final List<BrAPIObservationUnit> observationUnits;
+    @Getter
+    private final List<BrAPIObservation> observations;
+
+    private final Map<String, Search> searches = new ConcurrentHashMap<>();
+    private final AtomicInteger searchIds = new AtomicInteger();
+    private final AtomicLong observationDbIds = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+
+    private static class Search {
+        private final String entity;
+        private final AtomicInteger pollsLeft;
+
+        private Search(String entity, int polls) {
+            this.entity = entity;
+            this.pollsLeft = new AtomicInteger(polls);
+        }
+    }
+
+    private StubBrAPIServer(Settings settings) throws IOException {
+        this.settings = settings;
+        Random random = new Random(42);
+        this.germplasm = Collections.unmodifiableList(SyntheticData.germplasm(settings.getGermplasm(), settings.getReferenceSource(), programId, PROGRAM_KEY, random));
+        this.observationUnits = Collections.unmodifiableList(SyntheticData.observationUnits(settings.getObservationUnits(), settings.getGermplasm(), settings.getReferenceSource(),
+                                                                                            PROGRAM_KEY, PROGRAM_DB_ID, TRIAL_DB_ID, trialId));
+        this.observations = Collections.unmodifiableList(SyntheticData.observations(observationUnits, settings.getObservationsPerUnit(), settings.getReferenceSource(), PROGRAM_KEY, random));
+
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "stub-brapi-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.createContext(BASE_PATH + "/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+        log.debug(String.format("stub BrAPI server started at %s with %d germplasm, %d observation units and %d observations",
+                                getUrl(), germplasm.size(), observationUnits.size(), observations.size()));
+    }
+
+    public static StubBrAPIServer start(Settings settings) throws IOException {
+        return new StubBrAPIServer(settings);
+    }
+
+    /**
+     * @return the base URL of the server's BrAPI v2 endpoints, to build a BrAPIClient with
+     */
+    public String getUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + BASE_PATH;
+    }
+
+    /**
+     * @return the number of requests served
+     */
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try {
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            if (!settings.getLatency().isZero()) {
+                Thread.sleep(settings.getLatency().toMillis());
+            }
+
+            String[] path = exchange.getRequestURI().getPath().substring(BASE_PATH.length() + 1).split("/");
+            String method = exchange.getRequestMethod();
+            if ("POST".equals(method) && path.length == 2 && "search".equals(path[0])) {
+                searchPost(exchange, path[1], body);
+            } else if ("GET".equals(method) && path.length == 3 && "search".equals(path[0])) {
+                searchGet(exchange, path[2]);
+            } else if ("POST".equals(method) && path.length == 1 && "observations".equals(path[0])) {
+                postObservations(exchange, body);
+            } else {
+                respond(exchange, 404, "{}");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            respond(exchange, 503, "{}");
+        } catch (RuntimeException e) {
+            log.error("stub BrAPI server error", e);
+            respond(exchange, 500, "{}");
+        }
+    }
+
+    private void searchPost(HttpExchange exchange, String entity, String body) throws IOException {
+        if (!isSearchable(entity)) {
+            respond(exchange, 404, "{}");
+            return;
+        }
+        if (settings.getAsyncPolls() > 0) {
+            String searchId = "search-" + searchIds.incrementAndGet();
+            searches.put(searchId, new Search(entity, settings.getAsyncPolls()));
+            respond(exchange, 202, accepted(searchId));
+            return;
+        }
+        JsonObject request = body.isBlank() ? new JsonObject() : JsonParser.parseString(body).getAsJsonObject();
+        respond(exchange, 200, page(entity, intParam(request, "page"), intParam(request, "pageSize")));
+    }
+
+    private void searchGet(HttpExchange exchange, String searchId) throws IOException {
+        Search search = searches.get(searchId);
+        if (search == null) {
+            respond(exchange, 404, "{}");
+            return;
+        }
+        if (search.pollsLeft.getAndDecrement() > 0) {
+            respond(exchange, 202, accepted(searchId));
+            return;
+        }
+        Map<String, String> query = queryParams(exchange);
+        respond(exchange, 200, page(search.entity, parseInt(query.get("page")), parseInt(query.get("pageSize"))));
+    }
+
+    private void postObservations(HttpExchange exchange, String body) throws IOException {
+        List<BrAPIObservation> posted = gson.fromJson(body, new TypeToken<List<BrAPIObservation>>() {}.getType());
+        for (BrAPIObservation observation : posted) {
+            observation.setObservationDbId("posted-observation-" + observationDbIds.incrementAndGet());
+        }
+        BrAPIObservationListResponse response = new BrAPIObservationListResponse();
+        response.setMetadata(new BrAPIMetadata());
+        response.setResult(new BrAPIObservationListResponseResult().data(posted));
+        respond(exchange, 200, gson.toJson(response));
+    }
+
+    private boolean isSearchable(String entity) {
+        return "germplasm".equals(entity) || "observationunits".equals(entity) || "observations".equals(entity);
+    }
+
+    private String page(String entity, Integer requestedPage, Integer requestedPageSize) {
+        int size = requestedPageSize == null ? settings.getPageSize() : Math.min(requestedPageSize, settings.getPageSize());
+        int page = requestedPage == null ? 0 : requestedPage;
+        switch (entity) {
+            case "germplasm":
+                BrAPIGermplasmListResponse germplasmResponse = new BrAPIGermplasmListResponse();
+                germplasmResponse.setMetadata(metadata(page, size, germplasm.size()));
+                germplasmResponse.setResult(new BrAPIGermplasmListResponseResult().data(slice(germplasm, page, size)));
+                return gson.toJson(germplasmResponse);
+            case "observationunits":
+                BrAPIObservationUnitListResponse unitResponse = new BrAPIObservationUnitListResponse();
+                unitResponse.setMetadata(metadata(page, size, observationUnits.size()));
+                unitResponse.setResult(new BrAPIObservationUnitListResponseResult().data(slice(observationUnits, page, size)));
+                return gson.toJson(unitResponse);
+            default:
+                BrAPIObservationListResponse observationResponse = new BrAPIObservationListResponse();
+                observationResponse.setMetadata(metadata(page, size, observations.size()));
+                observationResponse.setResult(new BrAPIObservationListResponseResult().data(slice(observations, page, size)));
+                return gson.toJson(observationResponse);
+        }
+    }
+
+    private <T> List<T> slice(List<T> records, int page, int size) {
+        int from = Math.min(page * size, records.size());
+        int to = Math.min(from + size, records.size());
+        return records.subList(from, to);
+    }
+
+    private BrAPIMetadata metadata(int page, int size, int totalCount) {
+        BrAPIIndexPagination pagination = new BrAPIIndexPagination();
+        pagination.setCurrentPage(page);
+        pagination.setPageSize(size);
+        pagination.setTotalCount(totalCount);
+        pagination.setTotalPages(Math.max(1, (totalCount + size - 1) / size));
+        return new BrAPIMetadata().pagination(pagination);
+    }
+
+    private String accepted(String searchId) {
+        BrAPIAcceptedSearchResponse response = new BrAPIAcceptedSearchResponse();
+        response.setMetadata(new BrAPIMetadata());
+        response.setResult(new BrAPIAcceptedSearchResponseResult().searchResultsDbId(searchId));
+        return gson.toJson(response);
+    }
+
+    private void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private Map<String, String> queryParams(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String query = exchange.getRequestURI().getQuery();
+        if (query != null) {
+            for (String param : query.split("&")) {
+                int separator = param.indexOf('=');
+                if (separator > 0) {
+                    params.put(param.substring(0, separator), param.substring(separator + 1));
+                }
+            }
+        }
+        return params;
+    }
+
+    private Integer intParam(JsonObject request, String name) {
+        return request.has(name) && !request.get(name).isJsonNull() ? request.get(name).getAsInt() : null;
+    }
+
+    private Integer parseInt(String value) {
+        return value == null ? null : Integer.valueOf(value);
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight;
+
+import lombok.SneakyThrows;
+import org.brapi.client.v2.BrAPIClient;
+import org.brapi.client.v2.modules.germplasm.GermplasmApi;
+import org.brapi.client.v2.modules.phenotype.ObservationUnitsApi;
+import org.brapi.client.v2.modules.phenotype.ObservationsApi;
+import org.brapi.v2.model.germ.BrAPIGermplasm;
+import org.brapi.v2.model.germ.request.BrAPIGermplasmSearchRequest;
+import org.brapi.v2.model.pheno.BrAPIObservation;
+import org.brapi.v2.model.pheno.BrAPIObservationUnit;
+import org.brapi.v2.model.pheno.request.BrAPIObservationSearchRequest;
+import org.brapi.v2.model.pheno.request.BrAPIObservationUnitSearchRequest;
+import org.breedinginsight.services.brapi.BrAPITransport;
+import org.breedinginsight.utilities.BrAPIDAOUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StubBrAPIServerUnitTest {
+
+    private final BrAPITransport transport = new BrAPITransport(4, Duration.ofMinutes(5), Executors.newFixedThreadPool(4));
+    private final BrAPIDAOUtil brAPIDAOUtil = new BrAPIDAOUtil(10, Duration.ofMinutes(1), 100, 50, transport);
+    private StubBrAPIServer server;
+
+    @AfterEach
+    public void teardown() {
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    public void pagesSearchResults() {
+        server = StubBrAPIServer.start(StubBrAPIServer.Settings.builder().germplasm(250).pageSize(100).build());
+        GermplasmApi germplasmApi = new GermplasmApi(client());
+
+        List<BrAPIGermplasm> germplasm = brAPIDAOUtil.search(germplasmApi::searchGermplasmPost, germplasmApi::searchGermplasmSearchResultsDbIdGet, new BrAPIGermplasmSearchRequest());
+
+        assertEquals(250, germplasm.size());
+        assertEquals(server.getGermplasm().stream().map(BrAPIGermplasm::getGermplasmDbId).collect(Collectors.toList()),
+                     germplasm.stream().map(BrAPIGermplasm::getGermplasmDbId).collect(Collectors.toList()));
+        // One request for each of the three pages
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    @SneakyThrows
+    public void answersSearchesWithAccepted() {
+        server = StubBrAPIServer.start(StubBrAPIServer.Settings.builder()
+                                                               .observationUnits(150)
+                                                               .observationsPerUnit(2)
+                                                               .pageSize(100)
+                                                               .asyncPolls(2)
+                                                               .build());
+        BrAPIClient client = client();
+        ObservationUnitsApi unitsApi = new ObservationUnitsApi(client);
+        ObservationsApi observationsApi = new ObservationsApi(client);
+
+        List<BrAPIObservationUnit> units = brAPIDAOUtil.search(unitsApi::searchObservationunitsPost, unitsApi::searchObservationunitsSearchResultsDbIdGet, new BrAPIObservationUnitSearchRequest());
+        List<BrAPIObservation> observations = brAPIDAOUtil.<BrAPIObservation>searchAsync(observationsApi::searchObservationsPost, observationsApi::searchObservationsSearchResultsDbIdGet, new BrAPIObservationSearchRequest()).get();
+
+        assertEquals(150, units.size());
+        assertEquals(300, observations.size());
+        // Each search is posted, polled twice while it is accepted, then read a page at a time
+        assertEquals((1 + 2 + 2) + (1 + 2 + 3), server.getRequestCount());
+    }
+
+    @Test
+    @SneakyThrows
+    public void appendsObservations() {
+        server = StubBrAPIServer.start(StubBrAPIServer.Settings.builder().observationUnits(10).build());
+        ObservationsApi observationsApi = new ObservationsApi(client());
+        List<BrAPIObservation> toPost = server.getObservationUnits().stream()
+                                              .map(unit -> new BrAPIObservation().observationUnitDbId(unit.getObservationUnitDbId()).value("1"))
+                                              .collect(Collectors.toList());
+
+        List<BrAPIObservation> posted = brAPIDAOUtil.post(toPost, observationsApi::observationsPost);
+
+        assertEquals(10, posted.size());
+        assertTrue(posted.stream().allMatch(observation -> observation.getObservationDbId() != null));
+        assertEquals(50, server.getObservations().size());
+    }
+
+    @Test
+    @SneakyThrows
+    public void germplasmHaveParents() {
+        server = StubBrAPIServer.start(StubBrAPIServer.Settings.builder().germplasm(5).build());
+
+        assertNull(server.getGermplasm().get(0).getPedigree());
+        assertNotNull(server.getGermplasm().get(4).getPedigree());
+        assertTrue(server.getGermplasm().get(4).getAdditionalInfo().has("femaleParentUUID"));
+    }
+
+    private BrAPIClient client() {
+        return transport.newClient(server.getUrl(), Duration.ofMinutes(1));
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight;
+
+import com.google.gson.JsonObject;
+import org.brapi.v2.model.BrAPIExternalReference;
+import org.brapi.v2.model.germ.BrAPIGermplasm;
+import org.brapi.v2.model.germ.BrAPIGermplasmSynonyms;
+import org.brapi.v2.model.pheno.BrAPIObservation;
+import org.brapi.v2.model.pheno.BrAPIObservationUnit;
+import org.brapi.v2.model.pheno.BrAPIScaleValidValuesCategories;
+import org.breedinginsight.brapi.v2.constants.BrAPIAdditionalInfoFields;
+import org.breedinginsight.brapps.importer.model.imports.experimentObservation.ExperimentObservation.Columns;
+import org.breedinginsight.brapps.importer.services.ExternalReferenceSource;
+import org.breedinginsight.dao.db.enums.DataType;
+import org.breedinginsight.model.Method;
+import org.breedinginsight.model.ProgramObservationLevel;
+import org.breedinginsight.model.Scale;
+import org.breedinginsight.model.Trait;
+import org.breedinginsight.utilities.Utilities;
+import tech.tablesaw.api.StringColumn;
+import tech.tablesaw.api.Table;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Generates program sized germplasm, observation units, observations, traits and experiment uploads for benchmarks
+ * and the {@link StubBrAPIServer}. Records are referenced and named the way bi-api stores them in a BrAPI server, and
+ * the same random seed always generates the same records.
+ */
+public class SyntheticData {
+
+    public static final int STUDIES = 4;
+    public static final int TRAITS = 10;
+
+    private static final DataType[] DATA_TYPES = {DataType.NUMERICAL, DataType.NUMERICAL, DataType.ORDINAL, DataType.NOMINAL, DataType.TEXT, DataType.DATE};
+    private static final String[] LEVELS = {"Plot", "Plant"};
+
+    /**
+     * @return count germplasm with GIDs 1 to count. Every germplasm after the first two has two earlier germplasm as
+     * parents, and every tenth germplasm has a synonym.
+     */
+    public static List<BrAPIGermplasm> germplasm(int count, String referenceSource, UUID programId, String programKey, Random random) {
+        String programSource = Utilities.generateReferenceSource(referenceSource, ExternalReferenceSource.PROGRAMS);
+        List<BrAPIGermplasm> generated = new ArrayList<>(count);
+        for (int gid = 1; gid <= count; gid++) {
+            JsonObject additionalInfo = new JsonObject();
+            additionalInfo.addProperty(BrAPIAdditionalInfoFields.GERMPLASM_IMPORT_ENTRY_NUMBER, String.valueOf(gid));
+            additionalInfo.addProperty(BrAPIAdditionalInfoFields.GERMPLASM_BREEDING_METHOD_ID, "breeding-method-" + random.nextInt(10));
+            BrAPIGermplasm germplasm = new BrAPIGermplasm()
+                    .germplasmDbId("germplasm-" + gid)
+                    .germplasmName(germplasmName(gid, programKey))
+                    .defaultDisplayName("Germplasm " + gid)
+                    .accessionNumber(String.valueOf(gid))
+                    .seedSource("Stub Seed " + random.nextInt(20))
+                    .additionalInfo(additionalInfo)
+                    .externalReferences(List.of(reference(referenceSource, germplasmId(gid)),
+                                                reference(programSource, programId.toString())));
+            if (gid % 10 == 0) {
+                germplasm.setSynonyms(new ArrayList<>(List.of(new BrAPIGermplasmSynonyms()
+                        .synonym(Utilities.appendProgramKey("Synonym " + gid, programKey, String.valueOf(gid))))));
+            }
+            if (gid > 2) {
+                int female = 1 + random.nextInt(gid - 1);
+                int male = 1 + random.nextInt(gid - 1);
+                germplasm.setPedigree(germplasmName(female, programKey) + "/" + germplasmName(male, programKey));
+                additionalInfo.addProperty(BrAPIAdditionalInfoFields.GERMPLASM_FEMALE_PARENT_GID, String.valueOf(female));
+                additionalInfo.addProperty(BrAPIAdditionalInfoFields.GERMPLASM_FEMALE_PARENT_UUID, germplasmId(female));
+                additionalInfo.addProperty(BrAPIAdditionalInfoFields.GERMPLASM_MALE_PARENT_GID, String.valueOf(male));
+                additionalInfo.addProperty(BrAPIAdditionalInfoFields.GERMPLASM_MALE_PARENT_UUID, germplasmId(male));
+            }
+            generated.add(germplasm);
+        }
+        return generated;
+    }
+
+    /**
+     * @return count observation units of one trial, spread over {@link #STUDIES} studies, with the germplasm assigned
+     * in turn
+     */
+    public static List<BrAPIObservationUnit> observationUnits(int count, int germplasmCount, String referenceSource, String programKey,
+                                                              String programDbId, String trialDbId, UUID trialId) {
+        String unitSource = Utilities.generateReferenceSource(referenceSource, ExternalReferenceSource.OBSERVATION_UNITS);
+        String trialSource = Utilities.generateReferenceSource(referenceSource, ExternalReferenceSource.TRIALS);
+        List<BrAPIObservationUnit> generated = new ArrayList<>(count);
+        for (int unit = 1; unit <= count; unit++) {
+            int gid = germplasmCount == 0 ? 0 : 1 + (unit - 1) % germplasmCount;
+            generated.add(new BrAPIObservationUnit()
+                    .observationUnitDbId("observation-unit-" + unit)
+                    .observationUnitName("Plot " + unit)
+                    .germplasmDbId("germplasm-" + gid)
+                    .germplasmName(germplasmName(gid, programKey))
+                    .studyDbId("study-" + (unit % STUDIES))
+                    .trialDbId(trialDbId)
+                    .programDbId(programDbId)
+                    .externalReferences(List.of(reference(unitSource, uuid("observation-unit-" + unit)),
+                                                reference(trialSource, trialId.toString()))));
+        }
+        return generated;
+    }
+
+    /**
+     * @return perUnit observations of every unit, cycling through {@link #TRAITS} traits
+     */
+    public static List<BrAPIObservation> observations(List<BrAPIObservationUnit> units, int perUnit, String referenceSource, String programKey, Random random) {
+        String observationSource = Utilities.generateReferenceSource(referenceSource, ExternalReferenceSource.OBSERVATIONS);
+        List<BrAPIObservation> generated = new ArrayList<>(units.size() * perUnit);
+        for (BrAPIObservationUnit unit : units) {
+            for (int trait = 0; trait < perUnit; trait++) {
+                String observationDbId = unit.getObservationUnitDbId() + "-observation-" + trait;
+                generated.add(new BrAPIObservation()
+                        .observationDbId(observationDbId)
+                        .observationUnitDbId(unit.getObservationUnitDbId())
+                        .observationUnitName(unit.getObservationUnitName())
+                        .observationVariableDbId("variable-" + trait % TRAITS)
+                        .observationVariableName(Utilities.appendProgramKey(traitName(trait % TRAITS), programKey))
+                        .germplasmDbId(unit.getGermplasmDbId())
+                        .studyDbId(unit.getStudyDbId())
+                        .value(String.format(Locale.ROOT, "%.2f", random.nextDouble() * 100))
+                        .externalReferences(List.of(reference(observationSource, uuid(observationDbId)))));
+            }
+        }
+        return generated;
+    }
+
+    /**
+     * @return count traits with a mix of numerical, categorical, text and date scales
+     */
+    public static List<Trait> traits(int count, Random random) {
+        List<Trait> generated = new ArrayList<>(count);
+        for (int trait = 0; trait < count; trait++) {
+            DataType dataType = DATA_TYPES[trait % DATA_TYPES.length];
+            Scale.ScaleBuilder<?, ?> scale = Scale.builder()
+                    .scaleName(dataType.getLiteral().toLowerCase())
+                    .dataType(dataType);
+            if (dataType == DataType.NUMERICAL) {
+                scale.decimalPlaces(random.nextInt(3)).validValueMin(0).validValueMax(100 + random.nextInt(900));
+            } else if (dataType == DataType.ORDINAL || dataType == DataType.NOMINAL) {
+                List<BrAPIScaleValidValuesCategories> categories = new ArrayList<>();
+                for (int category = 1; category <= 5; category++) {
+                    categories.add(new BrAPIScaleValidValuesCategories().label(String.valueOf(category)).value("category " + category));
+                }
+                scale.categories(categories);
+            }
+            generated.add(Trait.builder()
+                    .id(UUID.nameUUIDFromBytes(("trait-" + trait).getBytes(StandardCharsets.UTF_8)))
+                    .observationVariableName(traitName(trait))
+                    .observationVariableDbId("variable-" + trait)
+                    .traitDescription("Synthetic trait " + trait)
+                    .entity("Plant")
+                    .attribute("Attribute " + random.nextInt(count))
+                    .mainAbbreviation("T" + trait)
+                    .synonyms(List.of(traitName(trait), "T" + trait))
+                    .active(trait % 20 != 19)
+                    .programObservationLevel(ProgramObservationLevel.builder().name(LEVELS[trait % LEVELS.length]).build())
+                    .method(Method.builder().description("Measured").methodClass("Measurement").build())
+                    .scale(scale.build())
+                    .build());
+        }
+        return generated;
+    }
+
+    /**
+     * @return an experiment import upload of rows new observation units over the template's columns, with a column of
+     * values for every trait
+     */
+    public static Table experimentUpload(int rows, int germplasmCount, List<Trait> traits, Random random) {
+        Map<String, StringColumn> columns = new LinkedHashMap<>();
+        for (String name : List.of(Columns.GERMPLASM_GID, Columns.TEST_CHECK, Columns.EXP_TITLE, Columns.EXP_UNIT, Columns.EXP_TYPE,
+                                   Columns.ENV, Columns.ENV_LOCATION, Columns.ENV_YEAR, Columns.EXP_UNIT_ID, Columns.REP_NUM,
+                                   Columns.BLOCK_NUM, Columns.ROW, Columns.COLUMN, Columns.OBS_UNIT_ID)) {
+            columns.put(name, StringColumn.create(name));
+        }
+        for (Trait trait : traits) {
+            columns.put(trait.getObservationVariableName(), StringColumn.create(trait.getObservationVariableName()));
+        }
+        for (int row = 0; row < rows; row++) {
+            columns.get(Columns.GERMPLASM_GID).append(String.valueOf(1 + random.nextInt(Math.max(1, germplasmCount))));
+            columns.get(Columns.TEST_CHECK).append(row % 20 == 0 ? "C" : "T");
+            columns.get(Columns.EXP_TITLE).append("Synthetic Experiment");
+            columns.get(Columns.EXP_UNIT).append("Plot");
+            columns.get(Columns.EXP_TYPE).append("Phenotyping");
+            columns.get(Columns.ENV).append("Env " + row % STUDIES);
+            columns.get(Columns.ENV_LOCATION).append("Location " + row % STUDIES);
+            columns.get(Columns.ENV_YEAR).append(String.valueOf(2020 + row % STUDIES));
+            columns.get(Columns.EXP_UNIT_ID).append("Plot " + row);
+            columns.get(Columns.REP_NUM).append(String.valueOf(1 + row % 2));
+            columns.get(Columns.BLOCK_NUM).append(String.valueOf(1 + row % 10));
+            columns.get(Columns.ROW).append(String.valueOf(1 + row / 50));
+            columns.get(Columns.COLUMN).append(String.valueOf(1 + row % 50));
+            columns.get(Columns.OBS_UNIT_ID).append("");
+            for (Trait trait : traits) {
+                columns.get(trait.getObservationVariableName()).append(value(trait, random));
+            }
+        }
+        return Table.create("upload", columns.values().toArray(new StringColumn[0]));
+    }
+
+    public static String germplasmName(int gid, String programKey) {
+        return Utilities.appendProgramKey("Germplasm " + gid, programKey, String.valueOf(gid));
+    }
+
+    public static String traitName(int trait) {
+        return "Trait " + trait;
+    }
+
+    private static String value(Trait trait, Random random) {
+        Scale scale = trait.getScale();
+        switch (scale.getDataType()) {
+            case NUMERICAL:
+                return String.format(Locale.ROOT, "%." + scale.getDecimalPlaces() + "f", random.nextDouble() * scale.getValidValueMax());
+            case ORDINAL:
+            case NOMINAL:
+                return scale.getCategories().get(random.nextInt(scale.getCategories().size())).getLabel();
+            case DATE:
+                return String.format("2023-%02d-%02d", 1 + random.nextInt(12), 1 + random.nextInt(28));
+            default:
+                return random.nextInt(10) == 0 ? "NA" : "note " + random.nextInt(100);
+        }
+    }
+
+    private static String germplasmId(int gid) {
+        return uuid("germplasm-" + gid);
+    }
+
+    private static String uuid(String dbId) {
+        return UUID.nameUUIDFromBytes(dbId.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    private static BrAPIExternalReference reference(String source, String id) {
+        return new BrAPIExternalReference().referenceSource(source).referenceID(id);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.api.auth;
+
+import org.breedinginsight.model.ProgramUser;
+import org.breedinginsight.model.Role;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AuthenticatedUserUnitTest {
+
+    @Test
+    public void programRolesResolvedPerProgram() {
+        UUID programA = UUID.randomUUID();
+        UUID programB = UUID.randomUUID();
+        UUID programC = UUID.randomUUID();
+
+        List<ProgramUser> programUsers = new ArrayList<>();
+        programUsers.add(programUser(programA, true, ProgramSecuredRole.PROGRAM_ADMIN));
+        programUsers.add(programUser(programB, true, ProgramSecuredRole.READ_ONLY));
+        programUsers.add(programUser(programC, false, ProgramSecuredRole.PROGRAM_ADMIN));
+
+        AuthenticatedUser user = new AuthenticatedUser("test", new ArrayList<>(), UUID.randomUUID(), programUsers);
+
+        assertEquals(EnumSet.of(ProgramSecuredRole.PROGRAM_ADMIN), user.getProgramSecuredRoles(programA));
+        assertEquals(EnumSet.of(ProgramSecuredRole.READ_ONLY), user.getProgramSecuredRoles(programB));
+        assertTrue(user.getProgramSecuredRoles(programC).isEmpty(), "Inactive program roles should not be granted");
+        assertTrue(user.getProgramSecuredRoles(UUID.randomUUID()).isEmpty());
+    }
+
+    @Test
+    public void systemRolesApplyToEveryProgram() {
+        UUID programId = UUID.randomUUID();
+        List<ProgramUser> programUsers = new ArrayList<>();
+        programUsers.add(programUser(programId, true, ProgramSecuredRole.READ_ONLY));
+
+        // Login builds system roles in upper case, lookups are case insensitive
+        AuthenticatedUser user = new AuthenticatedUser("test", List.of("SYSTEM ADMINISTRATOR"), UUID.randomUUID(), programUsers);
+
+        assertTrue(user.hasSystemRole(ProgramSecuredRole.SYSTEM_ADMIN));
+        assertEquals(EnumSet.of(ProgramSecuredRole.SYSTEM_ADMIN, ProgramSecuredRole.READ_ONLY), user.getProgramSecuredRoles(programId));
+        assertEquals(EnumSet.of(ProgramSecuredRole.SYSTEM_ADMIN), user.getProgramSecuredRoles(UUID.randomUUID()));
+
+        // Returned sets are copies, callers are free to intersect them
+        user.getProgramSecuredRoles(programId).clear();
+        assertEquals(2, user.getProgramSecuredRoles(programId).size());
+    }
+
+    @Test
+    public void cacheInvalidation() {
+        AuthenticatedUserCache cache = new AuthenticatedUserCache(Duration.ofMinutes(1));
+        AuthenticatedUser user = new AuthenticatedUser("test", new ArrayList<>(), UUID.randomUUID(), new ArrayList<>());
+
+        cache.putUser(user);
+        assertTrue(cache.getUser(user.getId()).isPresent());
+
+        cache.invalidateUser(user.getId());
+        assertFalse(cache.getUser(user.getId()).isPresent());
+
+        AuthenticatedUserCache disabledCache = new AuthenticatedUserCache(Duration.ZERO);
+        disabledCache.putUser(user);
+        assertFalse(disabledCache.getUser(user.getId()).isPresent());
+    }
+
+    @Test
+    public void cachedUsersAreCopies() {
+        UUID programId = UUID.randomUUID();
+        AuthenticatedUserCache cache = new AuthenticatedUserCache(Duration.ofMinutes(1));
+        List<ProgramUser> programUsers = new ArrayList<>();
+        programUsers.add(programUser(programId, true, ProgramSecuredRole.PROGRAM_ADMIN));
+        AuthenticatedUser user = new AuthenticatedUser("test", new ArrayList<>(), UUID.randomUUID(), programUsers);
+        cache.putUser(user);
+
+        // Changing the instance that was cached, or one handed out, does not change what other requests see
+        user.setProgramRoles(new ArrayList<>());
+        AuthenticatedUser first = cache.getUser(user.getId()).get();
+        first.setProgramRoles(new ArrayList<>());
+        AuthenticatedUser second = cache.getUser(user.getId()).get();
+
+        assertNotSame(first, second);
+        assertEquals(1, second.getProgramRoles().size());
+        assertEquals(EnumSet.of(ProgramSecuredRole.PROGRAM_ADMIN), second.getProgramSecuredRoles(programId));
+    }
+
+    private ProgramUser programUser(UUID programId, boolean active, ProgramSecuredRole role) {
+        List<Role> roles = new ArrayList<>();
+        roles.add(Role.builder().id(UUID.randomUUID()).domain(role.toString()).build());
+        return ProgramUser.builder()
+                .id(UUID.randomUUID())
+                .programId(programId)
+                .active(active)
+                .roles(roles)
+                .build();
+    }
+}
@@ -293,6 +293,48 @@ public class ExperimentControllerIntegrationTest extends BrAPITest {
         FileUtils.deleteDirectory(new File(tempDir));
     }
 
+    @Test
+    @SneakyThrows
+    public void getDatasetWindow() {
+        BrAPITrial experiment = experimentService.getTrialDataByUUID(program.getId(), UUID.fromString(experimentId), false);
+        String datasetId = DatasetUtil.getTopLevelDataset(experiment).getId().toString();
+        String observationVariableDbId = traits.get(0).getObservationVariableDbId();
+        String windowUrl = String.format("/programs/%s/experiments/%s/dataset/%s/window?pageSize=1&observationVariableDbIds=%s",
+                program.getId().toString(), experimentId, datasetId, observationVariableDbId);
+
+        // First window holds the observation unit of Env1 and its observation of the requested variable
+        JsonObject firstResponse = getWindow(windowUrl);
+        JsonObject pagination = firstResponse.getAsJsonObject("metadata").getAsJsonObject("pagination");
+        assertEquals(2, pagination.get("totalCount").getAsInt());
+        assertEquals(2, pagination.get("totalPages").getAsInt());
+        assertEquals(1, pagination.get("currentPage").getAsInt());
+        JsonObject firstWindow = firstResponse.getAsJsonObject("result");
+        assertEquals(1, firstWindow.getAsJsonArray("observationUnits").size());
+        assertEquals(1, firstWindow.getAsJsonArray("observationVariables").size());
+        assertEquals(1, firstWindow.getAsJsonArray("data").size());
+        assertEquals(observationVariableDbId, firstWindow.getAsJsonArray("data").get(0).getAsJsonObject().get("observationVariableDbId").getAsString());
+        assertTrue(firstWindow.has("nextCursor"));
+
+        // The cursor continues with the observation unit of Env2, which is the last one
+        JsonObject secondResponse = getWindow(windowUrl + "&cursor=" + firstWindow.get("nextCursor").getAsString());
+        assertEquals(2, secondResponse.getAsJsonObject("metadata").getAsJsonObject("pagination").get("currentPage").getAsInt());
+        JsonObject secondWindow = secondResponse.getAsJsonObject("result");
+        assertEquals(1, secondWindow.getAsJsonArray("observationUnits").size());
+        assertNotEquals(firstWindow.getAsJsonArray("observationUnits").get(0).getAsJsonObject().get("observationUnitDbId"),
+                secondWindow.getAsJsonArray("observationUnits").get(0).getAsJsonObject().get("observationUnitDbId"));
+        assertEquals(0, secondWindow.getAsJsonArray("data").size());
+        assertFalse(secondWindow.has("nextCursor"));
+    }
+
+    private JsonObject getWindow(String url) {
+        Flowable<HttpResponse<String>> call = client.exchange(
+                GET(url).cookie(new NettyCookie("phylo-token", "test-registered-user")), String.class
+        );
+        HttpResponse<String> response = call.blockingFirst();
+        assertEquals(HttpStatus.OK, response.getStatus());
+        return JsonParser.parseString(Objects.requireNonNull(response.body())).getAsJsonObject();
+    }
+
     /**
      * Tests creating and subsequently downloading a sub-entity dataset.
      * It also ensures no regressions with the top-level dataset download are introduced by the sub-entity features.
@@ -19,21 +19,40 @@ package org.breedinginsight.api.v1.controller.brapi;
 
 import lombok.SneakyThrows;
 import org.breedinginsight.services.brapi.BrAPIClientProvider;
+import org.breedinginsight.services.brapi.BrAPITransport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 public class BrAPIClientProviderUnitTest {
 
     private final Duration requestTimeout = Duration.of(5, ChronoUnit.MINUTES);
+    private ExecutorService callExecutor;
+    private BrAPITransport transport;
+
+    @BeforeEach
+    public void setup() {
+        callExecutor = Executors.newFixedThreadPool(4);
+        transport = new BrAPITransport(5, Duration.of(5, ChronoUnit.MINUTES), callExecutor);
+    }
+
+    @AfterEach
+    public void teardown() {
+        transport.close();
+        callExecutor.shutdownNow();
+    }
 
     @Test
     @SneakyThrows
     public void getUnqiueClientsAllUnique() {
-        BrAPIClientProvider brAPIClientProvider = new BrAPIClientProvider(requestTimeout);
+        BrAPIClientProvider brAPIClientProvider = new BrAPIClientProvider(requestTimeout, transport);
         brAPIClientProvider.setPhenoClient("http://test-url.org");
         brAPIClientProvider.setGenoClient("http://test-url1.org");
         brAPIClientProvider.setCoreClient("http://test-url2.org");
@@ -44,7 +63,7 @@ public class BrAPIClientProviderUnitTest {
     @Test
     @SneakyThrows
     public void getUniqueClientsTwoUnique() {
-        BrAPIClientProvider brAPIClientProvider = new BrAPIClientProvider(requestTimeout);
+        BrAPIClientProvider brAPIClientProvider = new BrAPIClientProvider(requestTimeout, transport);
         brAPIClientProvider.setPhenoClient("http://test-url.org");
         brAPIClientProvider.setGenoClient("http://test-url1.org");
         brAPIClientProvider.setCoreClient("http://test-url1.org");
@@ -55,7 +74,7 @@ public class BrAPIClientProviderUnitTest {
     @Test
     @SneakyThrows
     public void getUniqueClientsOneUnique() {
-        BrAPIClientProvider brAPIClientProvider = new BrAPIClientProvider(requestTimeout);
+        BrAPIClientProvider brAPIClientProvider = new BrAPIClientProvider(requestTimeout, transport);
         brAPIClientProvider.setPhenoClient("http://test-url.org");
         brAPIClientProvider.setGenoClient("http://test-url.org");
         brAPIClientProvider.setCoreClient("http://test-url.org");
@@ -67,7 +86,7 @@ public class BrAPIClientProviderUnitTest {
     @SneakyThrows
     public void getUniqueClientsNestedPaths() {
 
-        BrAPIClientProvider brAPIClientProvider = new BrAPIClientProvider(requestTimeout);
+        BrAPIClientProvider brAPIClientProvider = new BrAPIClientProvider(requestTimeout, transport);
         brAPIClientProvider.setPhenoClient("http://test-url.org/pheno");
         brAPIClientProvider.setGenoClient("http://test-url1.org/geno");
         brAPIClientProvider.setCoreClient("http://test-url2.org/core");
@@ -51,6 +51,7 @@ import org.breedinginsight.services.ProgramService;
 import org.breedinginsight.services.brapi.BrAPIClientProvider;
 import org.breedinginsight.services.brapi.BrAPIEndpointProvider;
 import org.breedinginsight.services.brapi.BrAPIProvider;
+import org.breedinginsight.services.brapi.BrAPITransport;
 import org.jooq.Configuration;
 import org.jooq.DSLContext;
 import org.junit.jupiter.api.*;
@@ -97,7 +98,7 @@ public class BrAPIServiceFilterIntegrationTest extends DatabaseTest {
     @Inject
     private BrAPIClientProvider brAPIClientProvider;
     @MockBean(BrAPIClientProvider.class)
-    BrAPIClientProvider brAPIClientProvider() { return mock(BrAPIClientProvider.class, CALLS_REAL_METHODS); }
+    BrAPIClientProvider brAPIClientProvider() { return new BrAPIClientProvider(Duration.of(10, ChronoUnit.MINUTES), brAPITransport); }
 
     @Inject
     private ProgramDAO programDAO;
@@ -119,6 +120,9 @@ public class BrAPIServiceFilterIntegrationTest extends DatabaseTest {
     @Inject
     private BrAPIEndpointProvider brAPIEndpointProvider;
 
+    @Inject
+    private BrAPITransport brAPITransport;
+
     @Property(name = "brapi.server.core-url")
     private String defaultBrAPICoreUrl;
     @Property(name = "brapi.server.pheno-url")
@@ -130,7 +134,7 @@ public class BrAPIServiceFilterIntegrationTest extends DatabaseTest {
 
     @MockBean(ProgramDAO.class)
     ProgramDAO programDAO() {
-        return spy(new ProgramDAOImpl(config, dsl, brAPIProvider, brAPIClientProvider, brAPIEndpointProvider, defaultBrAPICoreUrl, defaultBrAPIPhenoUrl, defaultBrAPIGenoUrl, referenceSource, Duration.of(10, ChronoUnit.MINUTES)));
+        return spy(new ProgramDAOImpl(config, dsl, brAPIProvider, brAPIClientProvider, brAPIEndpointProvider, defaultBrAPICoreUrl, defaultBrAPIPhenoUrl, defaultBrAPIGenoUrl, referenceSource, Duration.of(10, ChronoUnit.MINUTES), brAPITransport));
     }
 
     @Inject
@@ -0,0 +1,99 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.brapi.v2.dao;
+
+import com.google.gson.Gson;
+import org.brapi.client.v2.JSON;
+import org.brapi.v2.model.pheno.BrAPIObservation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ObservationColumnStoreUnitTest {
+
+    private final Gson gson = new JSON().getGson();
+    private ObservationColumnStore store;
+
+    @BeforeEach
+    public void setup() {
+        Map<String, String> cached = new HashMap<>();
+        int id = 0;
+        for (int study = 0; study < 2; study++) {
+            for (int ou = 0; ou < 3; ou++) {
+                for (int variable = 0; variable < 4; variable++) {
+                    BrAPIObservation observation = new BrAPIObservation()
+                            .observationDbId("obs-" + id)
+                            .observationUnitDbId("ou-" + study + "-" + ou)
+                            .observationVariableDbId("var-" + variable)
+                            .studyDbId("study-" + study)
+                            .value(String.valueOf(id));
+                    cached.put(UUID.randomUUID().toString(), gson.toJson(observation));
+                    id++;
+                }
+            }
+        }
+        // an observation without any ids should not break the indexes
+        cached.put(UUID.randomUUID().toString(), gson.toJson(new BrAPIObservation().value("orphan")));
+        store = ObservationColumnStore.build(7, cached);
+    }
+
+    @Test
+    public void buildsFromCachedJson() {
+        assertEquals(7, store.getVersion());
+        assertEquals(25, store.size());
+    }
+
+    @Test
+    public void getsByObservationUnits() {
+        List<BrAPIObservation> observations = store.getByObservationUnits(List.of("ou-0-1", "ou-1-2", "ou-0-1", "missing"));
+
+        assertEquals(8, observations.size());
+        assertTrue(observations.stream().allMatch(o -> Set.of("ou-0-1", "ou-1-2").contains(o.getObservationUnitDbId())));
+        assertEquals(8, observations.stream().map(BrAPIObservation::getObservationDbId).distinct().count());
+    }
+
+    @Test
+    public void getsByObservationUnitsAndVariables() {
+        List<BrAPIObservation> observations = store.getByObservationUnitsAndVariables(List.of("ou-0-0", "ou-1-0"), Set.of("var-1", "var-3", "missing"));
+
+        assertEquals(4, observations.size());
+        assertEquals(Set.of("var-1", "var-3"), observations.stream().map(BrAPIObservation::getObservationVariableDbId).collect(Collectors.toSet()));
+        assertTrue(store.getByObservationUnitsAndVariables(List.of("ou-0-0"), Set.of("missing")).isEmpty());
+    }
+
+    @Test
+    public void getsByObservationUnitsAndStudies() {
+        List<BrAPIObservation> observations = store.getByObservationUnitsAndStudies(List.of("ou-0-0", "ou-1-0"), List.of("study-1"));
+
+        assertEquals(4, observations.size());
+        assertTrue(observations.stream().allMatch(o -> "ou-1-0".equals(o.getObservationUnitDbId())));
+    }
+
+    @Test
+    public void getsByDbIds() {
+        List<BrAPIObservation> observations = store.getByDbIds(List.of("obs-3", "obs-20", "missing"));
+
+        assertEquals(List.of("obs-3", "obs-20"), observations.stream().map(BrAPIObservation::getObservationDbId).collect(Collectors.toList()));
+        assertEquals("20", observations.get(1).getValue());
+    }
+}
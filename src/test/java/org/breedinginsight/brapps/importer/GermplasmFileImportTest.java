@@ -714,7 +714,8 @@ public class GermplasmFileImportTest extends BrAPITest {
         HttpResponse<String> upload = importTestUtils.getUploadedFile(importId, client, validProgram, germplasmMappingId);
         JsonObject result = JsonParser.parseString(upload.body()).getAsJsonObject().getAsJsonObject("result");
         assertEquals(422, result.getAsJsonObject("progress").get("statuscode").getAsInt());
-        assertEquals(GermplasmProcessor.circularDependency, result.getAsJsonObject("progress").get("message").getAsString());
+        assertEquals(String.format(GermplasmProcessor.circularDependencyMembers, GermplasmProcessor.circularDependency, "Germplasm 1, Germplasm 2, Germplasm 3"),
+                     result.getAsJsonObject("progress").get("message").getAsString());
     }
 
     @Test
@@ -730,7 +731,8 @@ public class GermplasmFileImportTest extends BrAPITest {
         HttpResponse<String> upload = importTestUtils.getUploadedFile(importId, client, validProgram, germplasmMappingId);
         JsonObject result = JsonParser.parseString(upload.body()).getAsJsonObject().getAsJsonObject("result");
         assertEquals(422, result.getAsJsonObject("progress").get("statuscode").getAsInt());
-        assertEquals(GermplasmProcessor.circularDependency, result.getAsJsonObject("progress").get("message").getAsString());
+        assertEquals(String.format(GermplasmProcessor.circularDependencyMembers, GermplasmProcessor.circularDependency, "Germplasm 1, Germplasm 2, Germplasm 3"),
+                     result.getAsJsonObject("progress").get("message").getAsString());
     }
 
     private JsonObject importGermplasm(String pathname, String listName, String listDescription, Boolean commit) throws InterruptedException {
@@ -0,0 +1,56 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.brapps.importer.model;
+
+import io.micronaut.http.server.exceptions.InternalServerException;
+import org.jooq.JSONB;
+import org.junit.jupiter.api.Test;
+import tech.tablesaw.api.Table;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ImportUploadUnitTest {
+
+    @Test
+    public void parsesFileDataOnFirstUse() {
+        ImportUpload upload = new ImportUpload();
+        upload.setFileData(JSONB.valueOf("[{\"Germplasm Name\":\"A\",\"Source\":\"X\"},{\"Germplasm Name\":\"B\",\"Source\":\"Y\"}]"));
+
+        Table table = upload.getFileDataTable();
+
+        assertEquals(2, table.rowCount());
+        assertEquals("B", table.stringColumn("Germplasm Name").get(1));
+        assertSame(table, upload.getFileDataTable());
+    }
+
+    @Test
+    public void uploadsWithoutDataHaveNoTables() {
+        ImportUpload upload = new ImportUpload();
+
+        assertNull(upload.getFileDataTable());
+        assertNull(upload.getModifiedDataTable());
+    }
+
+    @Test
+    public void unreadableDataFailsWhenUsed() {
+        ImportUpload upload = new ImportUpload();
+        upload.setModifiedData(JSONB.valueOf("{\"not\": \"a table\""));
+
+        assertThrows(InternalServerException.class, upload::getModifiedDataTable);
+    }
+}
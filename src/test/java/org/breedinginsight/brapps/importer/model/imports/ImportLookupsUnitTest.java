@@ -0,0 +1,84 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.brapps.importer.model.imports;
+
+import org.breedinginsight.model.Trait;
+import org.breedinginsight.services.exceptions.DoesNotExistException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ImportLookupsUnitTest {
+
+    @Test
+    public void loadsTraitsOnce() throws Exception {
+        ImportLookups lookups = new ImportLookups();
+        AtomicInteger loads = new AtomicInteger();
+        ImportLookups.Loader<List<Trait>, DoesNotExistException> loader = () -> {
+            loads.incrementAndGet();
+            return List.of(trait("Plant Height"), trait("Leaf Count"));
+        };
+
+        List<Trait> traits = lookups.getProgramTraits(loader);
+        Map<String, Trait> traitsByName = lookups.getProgramTraitsByName(loader);
+        lookups.getProgramTraitsByName(loader);
+
+        assertEquals(1, loads.get());
+        assertEquals(2, traits.size());
+        assertSame(traits.get(0), traitsByName.get("PLANT HEIGHT"));
+        assertEquals(2, lookups.getLoadCount());
+        assertEquals(2, lookups.getReuseCount());
+    }
+
+    @Test
+    public void sharedValuesAreReadOnly() throws Exception {
+        ImportLookups lookups = new ImportLookups();
+        List<Trait> loaded = new ArrayList<>(List.of(trait("Plant Height")));
+
+        List<Trait> traits = lookups.getProgramTraits(() -> loaded);
+        loaded.clear();
+
+        assertEquals(1, traits.size());
+        assertThrows(UnsupportedOperationException.class, () -> traits.add(trait("Leaf Count")));
+        assertThrows(UnsupportedOperationException.class, () -> lookups.getProgramTraitsByName(() -> loaded).clear());
+    }
+
+    @Test
+    public void failedLoadsAreRetried() throws Exception {
+        ImportLookups lookups = new ImportLookups();
+
+        assertThrows(DoesNotExistException.class, () -> lookups.getProgramTraits(() -> {
+            throw new DoesNotExistException("Program does not exist");
+        }));
+        List<Trait> traits = lookups.getProgramTraits(() -> List.of(trait("Plant Height")));
+
+        assertEquals(1, traits.size());
+        assertEquals(1, lookups.getLoadCount());
+    }
+
+    private Trait trait(String name) {
+        Trait trait = new Trait();
+        trait.setObservationVariableName(name);
+        return trait;
+    }
+}
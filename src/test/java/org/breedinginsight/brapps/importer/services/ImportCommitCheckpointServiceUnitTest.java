@@ -0,0 +1,104 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.brapps.importer.services;
+
+import org.breedinginsight.brapps.importer.daos.ImportCommitCheckpointDAO;
+import org.breedinginsight.brapps.importer.model.ImportUpload;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class ImportCommitCheckpointServiceUnitTest {
+
+    private ImportCommitCheckpointDAO checkpointDAO;
+    private ImportCommitCheckpointService checkpointService;
+    private ImportUpload upload;
+
+    @BeforeEach
+    public void setup() {
+        checkpointDAO = mock(ImportCommitCheckpointDAO.class);
+        checkpointService = new ImportCommitCheckpointService(checkpointDAO, Duration.ofDays(7));
+        upload = new ImportUpload();
+        upload.setId(UUID.randomUUID());
+        upload.setUpdatedBy(UUID.randomUUID());
+    }
+
+    @Test
+    public void resumesFromEarlierAttempt() {
+        when(checkpointDAO.getDbIds(upload.getId()))
+                .thenReturn(Map.of("studies", Map.of("Env 1", "study-1")));
+
+        ImportCommitCheckpointService.Checkpoints checkpoints = checkpointService.load(upload);
+
+        assertEquals(Optional.of("study-1"), checkpoints.getDbId("studies", "Env 1"));
+        assertEquals(Optional.empty(), checkpoints.getDbId("studies", "Env 2"));
+        assertEquals(Optional.empty(), checkpoints.getDbId("observations", "Env 1"));
+    }
+
+    @Test
+    public void acknowledgedChunksArePersisted() {
+        when(checkpointDAO.getDbIds(upload.getId())).thenReturn(Map.of());
+        ImportCommitCheckpointService.Checkpoints checkpoints = checkpointService.load(upload);
+
+        checkpoints.acknowledge("observationunits", "Env 1/0", Map.of("Env 1:1", "ou-1"));
+        checkpoints.acknowledge("observationunits", "Env 1/1", Map.of());
+
+        assertEquals(Optional.of("ou-1"), checkpoints.getDbId("observationunits", "Env 1:1"));
+        verify(checkpointDAO).save(upload.getId(), "observationunits", "Env 1/0", Map.of("Env 1:1", "ou-1"), upload.getUpdatedBy());
+        verify(checkpointDAO, never()).save(any(), anyString(), eq("Env 1/1"), any(), any());
+    }
+
+    @Test
+    public void assignedIdentifiersAreReused() {
+        when(checkpointDAO.getDbIds(upload.getId()))
+                .thenReturn(Map.of("assigned:environmentNumber", Map.of("Env 1", "7")));
+        ImportCommitCheckpointService.Checkpoints checkpoints = checkpointService.load(upload);
+
+        assertEquals("7", checkpoints.assign("environmentNumber", "Env 1", () -> "8"));
+        assertEquals("8", checkpoints.assign("environmentNumber", "Env 2", () -> "8"));
+        assertEquals("8", checkpoints.assign("environmentNumber", "Env 2", () -> "9"));
+        checkpoints.saveAssigned();
+        checkpoints.saveAssigned();
+
+        verify(checkpointDAO, times(1)).save(upload.getId(), "assigned:environmentNumber", "assigned", Map.of("Env 2", "8"), upload.getUpdatedBy());
+    }
+
+    @Test
+    public void clearRemovesCheckpoints() {
+        checkpointService.clear(upload);
+        verify(checkpointDAO).deleteByImportId(upload.getId());
+    }
+
+    @Test
+    public void expiredCheckpointsAreRemoved() {
+        OffsetDateTime before = OffsetDateTime.now().minusDays(7);
+        checkpointService.removeExpired();
+        OffsetDateTime after = OffsetDateTime.now().minusDays(7);
+
+        verify(checkpointDAO).deleteImportsUpdatedBefore(argThat(cutoff -> !cutoff.isBefore(before) && !cutoff.isAfter(after)));
+    }
+}
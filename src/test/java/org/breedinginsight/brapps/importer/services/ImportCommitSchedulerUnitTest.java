@@ -0,0 +1,130 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.brapps.importer.services;
+
+import org.breedinginsight.brapps.importer.model.ImportProgress;
+import org.breedinginsight.brapps.importer.model.ImportUpload;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ImportCommitSchedulerUnitTest {
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void setup() {
+        executor = Executors.newFixedThreadPool(8);
+    }
+
+    @AfterEach
+    public void teardown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void runsTasksInOrderWithoutParallelism() throws Exception {
+        ImportCommitScheduler scheduler = new ImportCommitScheduler(1, executor);
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        List<ImportCommitScheduler.CommitTask> tasks = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            int index = i;
+            tasks.add(() -> order.add(index));
+        }
+
+        scheduler.runAll(tasks);
+
+        assertEquals(List.of(0, 1, 2, 3, 4), order);
+    }
+
+    @Test
+    public void boundsRunningTasks() throws Exception {
+        ImportCommitScheduler scheduler = new ImportCommitScheduler(3, executor);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch allStarted = new CountDownLatch(3);
+        List<ImportCommitScheduler.CommitTask> tasks = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            tasks.add(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                allStarted.countDown();
+                // hold the first tasks until every worker is busy
+                allStarted.await(5, TimeUnit.SECONDS);
+                running.decrementAndGet();
+            });
+        }
+
+        scheduler.runAll(tasks);
+
+        assertEquals(3, maxRunning.get());
+        assertEquals(0, running.get());
+    }
+
+    @Test
+    public void stopsAfterFailure() {
+        ImportCommitScheduler scheduler = new ImportCommitScheduler(2, executor);
+        AtomicInteger completed = new AtomicInteger();
+        List<ImportCommitScheduler.CommitTask> tasks = new ArrayList<>();
+        tasks.add(() -> {
+            throw new IllegalStateException("environment failed");
+        });
+        for (int i = 0; i < 100; i++) {
+            tasks.add(() -> {
+                Thread.sleep(5);
+                completed.incrementAndGet();
+            });
+        }
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> scheduler.runAll(tasks));
+
+        assertEquals("environment failed", e.getMessage());
+        assertTrue(completed.get() < 100);
+    }
+
+    @Test
+    public void concurrentProgressIsAccurate() throws Exception {
+        ImportCommitScheduler scheduler = new ImportCommitScheduler(8, executor);
+        ImportUpload upload = new ImportUpload();
+        upload.setProgress(new ImportProgress());
+        List<ImportCommitScheduler.CommitTask> tasks = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            tasks.add(() -> {
+                for (int chunk = 0; chunk < 20; chunk++) {
+                    upload.startProgress(10);
+                    upload.finishProgress(10);
+                }
+            });
+        }
+
+        scheduler.runAll(tasks);
+
+        assertEquals(50 * 20 * 10, upload.getProgress().getFinished());
+        assertEquals(0, upload.getProgress().getInProgress());
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.brapps.importer.services;
+
+import org.breedinginsight.brapps.importer.daos.ImportDAO;
+import org.breedinginsight.brapps.importer.model.ImportProgress;
+import org.breedinginsight.brapps.importer.model.ImportUpload;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class ImportProgressReporterUnitTest {
+
+    private ImportDAO importDAO;
+    private ImportProgressReporter reporter;
+
+    @BeforeEach
+    public void setup() {
+        importDAO = mock(ImportDAO.class);
+        // Background writes are scheduled by micronaut, the tests flush the changed progress themselves
+        reporter = new ImportProgressReporter(importDAO);
+    }
+
+    @Test
+    public void coalescesReportedProgress() {
+        ImportUpload upload = upload();
+        for (int i = 0; i < 100; i++) {
+            upload.startProgress(10);
+            reporter.report(upload);
+        }
+        verify(importDAO, never()).updateProgress(any());
+
+        reporter.flushChanged();
+        reporter.flushChanged();
+
+        verify(importDAO, times(1)).updateProgress(upload.getProgress());
+        verify(importDAO, never()).update(any());
+    }
+
+    @Test
+    public void flushWritesNow() {
+        ImportUpload upload = upload();
+        reporter.report(upload);
+        reporter.flush(upload);
+        reporter.flushChanged();
+
+        verify(importDAO, times(1)).updateProgress(upload.getProgress());
+    }
+
+    @Test
+    public void failedWritesDoNotStopOtherUploads() {
+        ImportUpload failing = upload();
+        ImportUpload other = upload();
+        doThrow(new RuntimeException("connection lost")).when(importDAO).updateProgress(failing.getProgress());
+
+        reporter.report(failing);
+        reporter.report(other);
+        reporter.flushChanged();
+
+        verify(importDAO, times(1)).updateProgress(other.getProgress());
+    }
+
+    private ImportUpload upload() {
+        ImportUpload upload = new ImportUpload();
+        upload.setProgress(ImportProgress.builder().id(UUID.randomUUID()).build());
+        return upload;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.brapps.importer.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ImportSchedulerUnitTest {
+
+    private final UUID programA = UUID.randomUUID();
+    private final UUID programB = UUID.randomUUID();
+
+    @Test
+    public void limitsImportsPerProgram() throws Exception {
+        ImportScheduler scheduler = new ImportScheduler(3, 2, 10, Executors.newFixedThreadPool(3));
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(6);
+        for (int i = 0; i < 6; i++) {
+            scheduler.submit(programA, () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                await(release);
+                running.decrementAndGet();
+                done.countDown();
+            });
+        }
+
+        assertTrue(scheduler.isBusy(programA));
+        assertFalse(scheduler.isBusy(programB));
+        release.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(2, maxRunning.get());
+    }
+
+    @Test
+    public void programsTakeTurns() throws Exception {
+        ImportScheduler scheduler = new ImportScheduler(1, 1, 10, Executors.newFixedThreadPool(1));
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(4);
+
+        scheduler.submit(programA, () -> {
+            await(release);
+            order.add("A1");
+            done.countDown();
+        });
+        for (String name : List.of("A2", "A3")) {
+            scheduler.submit(programA, () -> {
+                order.add(name);
+                done.countDown();
+            });
+        }
+        scheduler.submit(programB, () -> {
+            order.add("B1");
+            done.countDown();
+        });
+        assertEquals(3, scheduler.getStats().getQueued());
+        release.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("A1", "A2", "B1", "A3"), order);
+    }
+
+    @Test
+    public void failedImportsFreeTheirWorker() throws Exception {
+        ImportScheduler scheduler = new ImportScheduler(1, 1, 10, Executors.newFixedThreadPool(1));
+        CountDownLatch done = new CountDownLatch(1);
+
+        scheduler.submit(programA, () -> {
+            throw new IllegalStateException("import failed");
+        });
+        scheduler.submit(programA, done::countDown);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (scheduler.getStats().getCompleted() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        ImportScheduler.Stats stats = scheduler.getStats();
+        assertEquals(2, stats.getCompleted());
+        assertEquals(0, stats.getRunning());
+        assertEquals(0, stats.getQueued());
+    }
+
+    @Test
+    public void rejectsImportsWhenTheQueueIsFull() throws Exception {
+        ImportScheduler scheduler = new ImportScheduler(1, 1, 1, Executors.newFixedThreadPool(1));
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(2);
+
+        assertFalse(scheduler.submit(programA, () -> {
+            await(release);
+            done.countDown();
+        }));
+        assertTrue(scheduler.submit(programB, done::countDown));
+        assertThrows(RejectedExecutionException.class, () -> scheduler.submit(programB, done::countDown));
+        assertEquals(1, scheduler.getStats().getQueued());
+        release.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.brapps.importer.services;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.breedinginsight.brapps.importer.model.imports.BrAPIImport;
+import org.breedinginsight.brapps.importer.model.imports.BrAPIImportService;
+import org.breedinginsight.brapps.importer.model.imports.experimentObservation.ExperimentImportService;
+import org.breedinginsight.brapps.importer.model.imports.germplasm.GermplasmImportService;
+import org.breedinginsight.brapps.importer.model.mapping.ImportMapping;
+import org.breedinginsight.brapps.importer.model.mapping.MappingField;
+import org.openjdk.jmh.annotations.*;
+import tech.tablesaw.api.StringColumn;
+import tech.tablesaw.api.Table;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maps uploads of the germplasm and experiment templates with the system mappings from the migrations. Every mapped
+ * column of the upload holds numbers, so any integer field of the templates is valid.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class MappingManagerBenchmark {
+
+    private static final Pattern MAPPING_LITERAL = Pattern.compile("'(\\[\\{\"id\".*?\\])'", Pattern.DOTALL);
+
+    @Param({"1000", "10000"})
+    private int rowCount;
+
+    private MappingManager mappingManager;
+    private ImportMapping germplasmMapping;
+    private Table germplasmData;
+    private ImportMapping experimentMapping;
+    private Table experimentData;
+
+    @Setup
+    public void setup() throws IOException {
+        mappingManager = new MappingManager(new ImportConfigManager(new BrAPIImportService[]{
+                new GermplasmImportService(null, null), new ExperimentImportService(null)}));
+
+        germplasmMapping = mapping("GermplasmImport", "/db/migration/V1.30.0__update_germplasm_import_map.sql");
+        germplasmData = table(germplasmMapping);
+        experimentMapping = mapping("ExperimentImport", "/db/migration/V1.0.1__add_experiment_template_system_mapping.sql");
+        experimentData = table(experimentMapping);
+    }
+
+    @Benchmark
+    public List<BrAPIImport> mapGermplasm() throws Exception {
+        return mappingManager.map(germplasmMapping, germplasmData);
+    }
+
+    @Benchmark
+    public List<BrAPIImport> mapExperiment() throws Exception {
+        return mappingManager.map(experimentMapping, experimentData);
+    }
+
+    private ImportMapping mapping(String importTypeId, String migration) throws IOException {
+        String sql;
+        try (InputStream in = getClass().getResourceAsStream(migration)) {
+            sql = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        Matcher matcher = MAPPING_LITERAL.matcher(sql);
+        if (!matcher.find()) {
+            throw new IllegalStateException("No mapping found in " + migration);
+        }
+        ObjectMapper objectMapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        ImportMapping importMapping = new ImportMapping();
+        importMapping.setImportTypeId(importTypeId);
+        importMapping.setMappingConfig(Arrays.asList(objectMapper.readValue(matcher.group(1), MappingField[].class)));
+        return importMapping;
+    }
+
+    private Table table(ImportMapping importMapping) {
+        Set<String> columnNames = new LinkedHashSet<>();
+        collectColumns(importMapping.getMappingConfig(), columnNames);
+        Table table = Table.create("upload");
+        for (String columnName : columnNames) {
+            StringColumn column = StringColumn.create(columnName);
+            for (int row = 0; row < rowCount; row++) {
+                column.append(String.valueOf(row % 100 + 1));
+            }
+            table.addColumns(column);
+        }
+        return table;
+    }
+
+    private void collectColumns(List<MappingField> mappings, Set<String> columnNames) {
+        if (mappings == null) {
+            return;
+        }
+        for (MappingField mappingField : mappings) {
+            if (mappingField.getValue() != null) {
+                if (mappingField.getValue().getFileFieldName() != null) {
+                    columnNames.add(mappingField.getValue().getFileFieldName());
+                }
+                if (mappingField.getValue().getRelationMap() != null && mappingField.getValue().getRelationMap().getReference() != null) {
+                    columnNames.add(mappingField.getValue().getRelationMap().getReference());
+                }
+            }
+            collectColumns(mappingField.getMapping(), columnNames);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.brapps.importer.services;
+
+import org.breedinginsight.api.model.v1.response.RowValidationErrors;
+import org.breedinginsight.brapps.importer.model.imports.BrAPIImport;
+import org.breedinginsight.brapps.importer.model.imports.BrAPIImportService;
+import org.breedinginsight.brapps.importer.model.imports.germplasm.GermplasmImport;
+import org.breedinginsight.brapps.importer.model.imports.germplasm.GermplasmImportService;
+import org.breedinginsight.brapps.importer.model.mapping.ImportMapping;
+import org.breedinginsight.brapps.importer.model.mapping.MappingField;
+import org.breedinginsight.brapps.importer.model.mapping.MappingValue;
+import org.breedinginsight.services.exceptions.UnprocessableEntityException;
+import org.breedinginsight.services.exceptions.ValidatorException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tech.tablesaw.api.StringColumn;
+import tech.tablesaw.api.Table;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappingManagerUnitTest {
+
+    private MappingManager mappingManager;
+
+    @BeforeEach
+    public void setup() {
+        mappingManager = new MappingManager(new ImportConfigManager(new BrAPIImportService[]{
+                new GermplasmImportService(null, null)}));
+    }
+
+    @Test
+    public void mapsEveryRow() throws Exception {
+        Table data = table(new String[]{"A", "B"}, new String[]{"1", "2"});
+
+        List<BrAPIImport> imports = mappingManager.map(germplasmMapping("Entry No"), data);
+
+        assertEquals(2, imports.size());
+        GermplasmImport second = (GermplasmImport) imports.get(1);
+        assertEquals("B", second.getGermplasm().getGermplasmName());
+        assertEquals("2", second.getGermplasm().getEntryNo());
+        assertEquals("Crosses", second.getGermplasm().getSynonyms());
+        assertNull(second.getGermplasm().getExternalUID());
+    }
+
+    @Test
+    public void blankRequiredValuesAreReportedByRow() {
+        Table data = table(new String[]{"A", ""}, new String[]{"1", "2"});
+
+        ValidatorException e = assertThrows(ValidatorException.class,
+                () -> mappingManager.map(germplasmMapping("Entry No"), data));
+
+        List<RowValidationErrors> rowErrors = e.getErrors().getRowErrors();
+        assertEquals(1, rowErrors.size());
+        assertEquals(3, rowErrors.get(0).getRowIndex());
+    }
+
+    @Test
+    public void missingColumnsFailTheMapping() {
+        Table data = table(new String[]{"A"}, new String[]{"1"});
+
+        UnprocessableEntityException e = assertThrows(UnprocessableEntityException.class,
+                () -> mappingManager.map(germplasmMapping("Entry Number"), data));
+
+        assertEquals(MappingManager.missingColumn.replace("%s", "Entry Number"), e.getMessage());
+    }
+
+    @Test
+    public void nonIntegerValuesFailTheMapping() {
+        Table data = table(new String[]{"A", "B"}, new String[]{"1", "two"});
+
+        assertThrows(UnprocessableEntityException.class, () -> mappingManager.map(germplasmMapping("Entry No"), data));
+    }
+
+    @Test
+    public void emptyUploadsMapToNothing() throws Exception {
+        Table data = table(new String[]{}, new String[]{});
+
+        assertTrue(mappingManager.map(germplasmMapping("Entry No"), data).isEmpty());
+    }
+
+    private Table table(String[] names, String[] entryNumbers) {
+        StringColumn sources = StringColumn.create("Source");
+        StringColumn methods = StringColumn.create("Breeding Method");
+        for (int row = 0; row < names.length; row++) {
+            sources.append("Cross");
+            methods.append("UBM");
+        }
+        return Table.create("upload", StringColumn.create("Name", names), StringColumn.create("Entry No", entryNumbers),
+                sources, methods);
+    }
+
+    private ImportMapping germplasmMapping(String entryNoColumn) {
+        MappingField germplasm = new MappingField();
+        germplasm.setObjectId("Germplasm");
+        germplasm.setMapping(List.of(
+                fileField("germplasmName", "Name"),
+                fileField("breedingMethod", "Breeding Method"),
+                fileField("germplasmSource", "Source"),
+                fileField("entryNo", entryNoColumn),
+                constantField("synonyms", "Crosses")));
+
+        ImportMapping importMapping = new ImportMapping();
+        importMapping.setImportTypeId("GermplasmImport");
+        importMapping.setMappingConfig(List.of(germplasm));
+        return importMapping;
+    }
+
+    private MappingField fileField(String objectId, String column) {
+        MappingValue value = new MappingValue();
+        value.setFileFieldName(column);
+        MappingField field = new MappingField();
+        field.setObjectId(objectId);
+        field.setValue(value);
+        return field;
+    }
+
+    private MappingField constantField(String objectId, String constant) {
+        MappingValue value = new MappingValue();
+        value.setConstantValue(constant);
+        MappingField field = new MappingField();
+        field.setObjectId(objectId);
+        field.setValue(value);
+        return field;
+    }
+}
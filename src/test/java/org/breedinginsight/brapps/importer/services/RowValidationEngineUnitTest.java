@@ -0,0 +1,117 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.brapps.importer.services;
+
+import io.micronaut.http.HttpStatus;
+import org.breedinginsight.api.model.v1.response.RowValidationErrors;
+import org.breedinginsight.api.model.v1.response.ValidationError;
+import org.breedinginsight.api.model.v1.response.ValidationErrors;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RowValidationEngineUnitTest {
+
+    // Small chunks, so the rows below are validated by several threads
+    private final RowValidationEngine engine = new RowValidationEngine(Executors.newFixedThreadPool(4), 3);
+
+    @Test
+    public void mergesChunkErrorsInRowOrder() {
+        List<String> rows = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            rows.add(i % 2 == 0 ? "" : "value " + i);
+        }
+
+        ValidationErrors errors = engine.validate(rows, new RowValidationEngine.Rules<String>()
+                .rowRule("required", (row, rowNum, validationErrors) -> {
+                    if (row.isBlank()) validationErrors.addError(rowNum, error("Value", "blank"));
+                })
+                .rowRule("length", (row, rowNum, validationErrors) -> {
+                    if (row.length() < 8) validationErrors.addError(rowNum, error("Value", "short"));
+                }));
+
+        List<Integer> errorRows = errors.getRowErrors().stream().map(RowValidationErrors::getRowIndex).collect(Collectors.toList());
+        List<Integer> expectedRows = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            if (i % 2 == 0 || i < 10) expectedRows.add(i);
+        }
+        assertEquals(expectedRows, errorRows);
+
+        // Errors of a row come in the order of the rules
+        List<ValidationError> rowZero = errors.getRowErrors().get(0).getErrors();
+        assertEquals(List.of("blank", "short"), rowZero.stream().map(ValidationError::getErrorMessage).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void reportsRowsRepeatingAnEarlierKey() {
+        List<String> rows = List.of("a", "b", "a", "", "", "b", "a");
+
+        ValidationErrors errors = engine.validate(rows, new RowValidationEngine.Rules<String>()
+                .duplicateRule("unique", row -> row, (row, rowNum, validationErrors) ->
+                        validationErrors.addError(rowNum, error("Value", "duplicate"))));
+
+        List<Integer> errorRows = errors.getRowErrors().stream().map(RowValidationErrors::getRowIndex).collect(Collectors.toList());
+        assertEquals(List.of(2, 5, 6), errorRows);
+    }
+
+    @Test
+    public void duplicateErrorsComeInTheOrderOfTheRules() {
+        List<String> rows = List.of("a", "b", "c", "d", "a", "f", "g", "a");
+
+        ValidationErrors errors = engine.validate(rows, new RowValidationEngine.Rules<String>()
+                .rowRule("first", (row, rowNum, validationErrors) -> validationErrors.addError(rowNum, error("Value", "first")))
+                .duplicateRule("unique", row -> row, (row, rowNum, validationErrors) ->
+                        validationErrors.addError(rowNum, error("Value", "duplicate")))
+                .rowRule("last", (row, rowNum, validationErrors) -> validationErrors.addError(rowNum, error("Value", "last"))));
+
+        for (int rowNum : List.of(4, 7)) {
+            List<ValidationError> rowErrors = errors.getRowErrors().get(rowNum).getErrors();
+            assertEquals(List.of("first", "duplicate", "last"), rowErrors.stream().map(ValidationError::getErrorMessage).collect(Collectors.toList()));
+        }
+        assertEquals(2, errors.getRowErrors().get(0).getErrors().size());
+    }
+
+    @Test
+    public void ruleFailuresAreRethrown() {
+        List<String> rows = List.of("a", "b", "c", "d", "e", "f", "g");
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> engine.validate(rows, new RowValidationEngine.Rules<String>()
+                .rowRule("failing", (row, rowNum, validationErrors) -> {
+                    if (row.equals("f")) throw new IllegalStateException("missing study");
+                })));
+
+        assertEquals("missing study", e.getMessage());
+    }
+
+    @Test
+    public void noRowsHaveNoErrors() {
+        ValidationErrors errors = engine.validate(List.<String>of(), new RowValidationEngine.Rules<String>()
+                .rowRule("never", (row, rowNum, validationErrors) -> fail()));
+
+        assertFalse(errors.hasErrors());
+    }
+
+    private ValidationError error(String field, String message) {
+        return new ValidationError(field, message, HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+}
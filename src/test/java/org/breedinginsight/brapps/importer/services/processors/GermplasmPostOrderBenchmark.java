@@ -0,0 +1,87 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.brapps.importer.services.processors;
+
+import org.brapi.v2.model.germ.BrAPIGermplasm;
+import org.breedinginsight.brapi.v2.constants.BrAPIAdditionalInfoFields;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Orders germplasm imports for posting. The deep pedigree is a single line in which every germplasm is the progeny of
+ * the one before it, the wide pedigree has five generations each crossing random parents of the one before it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class GermplasmPostOrderBenchmark {
+
+    private static final int GENERATIONS = 5;
+
+    @Param({"10000", "50000"})
+    private int germplasmCount;
+
+    private List<BrAPIGermplasm> deepPedigree;
+    private List<BrAPIGermplasm> widePedigree;
+
+    @Setup
+    public void setup() {
+        deepPedigree = new ArrayList<>(germplasmCount);
+        deepPedigree.add(germplasm("G0", null));
+        for (int i = 1; i < germplasmCount; i++) {
+            deepPedigree.add(germplasm("G" + i, "G" + (i - 1)));
+        }
+        Collections.reverse(deepPedigree);
+
+        int width = germplasmCount / GENERATIONS;
+        Random random = new Random(42);
+        widePedigree = new ArrayList<>(germplasmCount);
+        for (int g = 0; g < GENERATIONS; g++) {
+            for (int i = 0; i < width; i++) {
+                String pedigree = g == 0 ? null : String.format("G%d-%d/G%d-%d", g - 1, random.nextInt(width), g - 1, random.nextInt(width));
+                widePedigree.add(germplasm(String.format("G%d-%d", g, i), pedigree));
+            }
+        }
+        Collections.shuffle(widePedigree, random);
+    }
+
+    @Benchmark
+    public List<List<BrAPIGermplasm>> deepPedigree() {
+        return GermplasmPostOrder.create(deepPedigree, Set.of());
+    }
+
+    @Benchmark
+    public List<List<BrAPIGermplasm>> widePedigree() {
+        return GermplasmPostOrder.create(widePedigree, Set.of());
+    }
+
+    private BrAPIGermplasm germplasm(String name, String pedigree) {
+        BrAPIGermplasm germplasm = new BrAPIGermplasm()
+                .germplasmName(name)
+                .defaultDisplayName(name)
+                .pedigree(pedigree);
+        germplasm.putAdditionalInfoItem(BrAPIAdditionalInfoFields.FEMALE_PARENT_UNKNOWN, false);
+        germplasm.putAdditionalInfoItem(BrAPIAdditionalInfoFields.MALE_PARENT_UNKNOWN, false);
+        return germplasm;
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.brapps.importer.services.processors;
+
+import org.brapi.v2.model.germ.BrAPIGermplasm;
+import org.breedinginsight.brapi.v2.constants.BrAPIAdditionalInfoFields;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GermplasmPostOrderUnitTest {
+
+    @Test
+    public void generationsFollowPedigree() {
+        List<BrAPIGermplasm> germplasm = new ArrayList<>();
+        germplasm.add(germplasm("C", "A/B"));
+        germplasm.add(germplasm("A", null));
+        germplasm.add(germplasm("D", "C/Existing"));
+        germplasm.add(germplasm("B", null));
+        germplasm.add(germplasm("E", "Existing"));
+
+        List<List<BrAPIGermplasm>> postOrder = GermplasmPostOrder.create(germplasm, Set.of("Existing"));
+
+        assertEquals(List.of(List.of("A", "B", "E"), List.of("C"), List.of("D")), names(postOrder));
+    }
+
+    @Test
+    public void unknownParentsAreNotDependencies() {
+        List<BrAPIGermplasm> germplasm = new ArrayList<>();
+        BrAPIGermplasm child = germplasm("B", "/A");
+        child.putAdditionalInfoItem(BrAPIAdditionalInfoFields.FEMALE_PARENT_UNKNOWN, true);
+        germplasm.add(child);
+        germplasm.add(germplasm("A", null));
+
+        List<List<BrAPIGermplasm>> postOrder = GermplasmPostOrder.create(germplasm, Set.of());
+
+        assertEquals(List.of(List.of("A"), List.of("B")), names(postOrder));
+    }
+
+    @Test
+    public void cycleMembersAreNamed() {
+        List<BrAPIGermplasm> germplasm = new ArrayList<>();
+        germplasm.add(germplasm("A", null));
+        germplasm.add(germplasm("B", "A/C"));
+        germplasm.add(germplasm("C", "B"));
+        germplasm.add(germplasm("D", "C"));
+        germplasm.add(germplasm("E", "E"));
+
+        GermplasmPostOrder.CircularDependencyException e = assertThrows(GermplasmPostOrder.CircularDependencyException.class,
+                () -> GermplasmPostOrder.create(germplasm, Set.of()));
+
+        // D only waits on the cycle so it is not reported
+        assertEquals(List.of("B", "C", "E"), e.getGermplasmNames());
+    }
+
+    @Test
+    public void missingParentIsReported() {
+        List<BrAPIGermplasm> germplasm = new ArrayList<>();
+        germplasm.add(germplasm("A", "Missing"));
+
+        GermplasmPostOrder.CircularDependencyException e = assertThrows(GermplasmPostOrder.CircularDependencyException.class,
+                () -> GermplasmPostOrder.create(germplasm, Set.of()));
+
+        assertEquals(List.of("A"), e.getGermplasmNames());
+    }
+
+    @Test
+    public void deepPedigree() {
+        // A single line of generations, every germplasm is the progeny of the one before it
+        int size = 100;
+        List<BrAPIGermplasm> germplasm = new ArrayList<>(size);
+        germplasm.add(germplasm("G0", null));
+        for (int i = 1; i < size; i++) {
+            germplasm.add(germplasm("G" + i, "G" + (i - 1)));
+        }
+        Collections.reverse(germplasm);
+
+        List<List<BrAPIGermplasm>> postOrder = GermplasmPostOrder.create(germplasm, Set.of());
+
+        assertEquals(size, postOrder.size());
+        assertEquals("G0", postOrder.get(0).get(0).getGermplasmName());
+        assertEquals("G" + (size - 1), postOrder.get(size - 1).get(0).getGermplasmName());
+    }
+
+    @Test
+    public void widePedigree() {
+        // Founders and generations of progeny crossing random parents of the previous generation
+        int width = 50;
+        int generations = 3;
+        Random random = new Random(42);
+        List<BrAPIGermplasm> germplasm = new ArrayList<>(width * generations);
+        for (int g = 0; g < generations; g++) {
+            for (int i = 0; i < width; i++) {
+                String pedigree = g == 0 ? null : String.format("G%d-%d/G%d-%d", g - 1, random.nextInt(width), g - 1, random.nextInt(width));
+                germplasm.add(germplasm(String.format("G%d-%d", g, i), pedigree));
+            }
+        }
+        Collections.shuffle(germplasm, random);
+
+        List<List<BrAPIGermplasm>> postOrder = GermplasmPostOrder.create(germplasm, Set.of());
+
+        assertEquals(generations, postOrder.size());
+        for (int g = 0; g < generations; g++) {
+            String prefix = "G" + g + "-";
+            assertEquals(width, postOrder.get(g).size());
+            assertTrue(postOrder.get(g).stream().allMatch(germ -> germ.getGermplasmName().startsWith(prefix)));
+        }
+    }
+
+    private BrAPIGermplasm germplasm(String name, String pedigree) {
+        BrAPIGermplasm germplasm = new BrAPIGermplasm()
+                .germplasmName(name)
+                .defaultDisplayName(name)
+                .pedigree(pedigree);
+        germplasm.putAdditionalInfoItem(BrAPIAdditionalInfoFields.FEMALE_PARENT_UNKNOWN, false);
+        germplasm.putAdditionalInfoItem(BrAPIAdditionalInfoFields.MALE_PARENT_UNKNOWN, false);
+        return germplasm;
+    }
+
+    private List<List<String>> names(List<List<BrAPIGermplasm>> postOrder) {
+        return postOrder.stream()
+                .map(batch -> batch.stream().map(BrAPIGermplasm::getGermplasmName).collect(Collectors.toList()))
+                .collect(Collectors.toList());
+    }
+}
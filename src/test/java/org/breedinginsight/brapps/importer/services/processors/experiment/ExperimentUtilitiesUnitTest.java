@@ -0,0 +1,45 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.brapps.importer.services.processors.experiment;
+
+import org.breedinginsight.brapps.importer.model.imports.BrAPIImport;
+import org.breedinginsight.brapps.importer.model.imports.experimentObservation.ExperimentObservation;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ExperimentUtilitiesUnitTest {
+
+    @Test
+    public void countNewEnvironmentsSkipsExisting() {
+        List<BrAPIImport> rows = List.of(row("env1"), row("env1"), row("env2"), row("env3"), row(null));
+
+        assertEquals(3, ExperimentUtilities.countNewEnvironments(rows, Set.of()));
+        assertEquals(1, ExperimentUtilities.countNewEnvironments(rows, Set.of("env1", "env2")));
+        assertEquals(0, ExperimentUtilities.countNewEnvironments(rows, Set.of("env1", "env2", "env3")));
+    }
+
+    private BrAPIImport row(String env) {
+        ExperimentObservation row = new ExperimentObservation();
+        row.setEnv(env);
+        return row;
+    }
+}
@@ -0,0 +1,299 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.brapps.importer.services.processors.experiment.create.workflow.steps;
+
+import io.micronaut.http.server.exceptions.InternalServerException;
+import org.brapi.client.v2.model.exceptions.ApiException;
+import org.brapi.v2.model.BrAPIExternalReference;
+import org.brapi.v2.model.core.BrAPIListSummary;
+import org.brapi.v2.model.core.BrAPIProgram;
+import org.brapi.v2.model.core.BrAPIStudy;
+import org.brapi.v2.model.core.BrAPITrial;
+import org.brapi.v2.model.core.request.BrAPIListNewRequest;
+import org.brapi.v2.model.germ.BrAPIGermplasm;
+import org.brapi.v2.model.pheno.BrAPIObservation;
+import org.brapi.v2.model.pheno.BrAPIObservationUnit;
+import org.breedinginsight.brapi.v2.dao.BrAPIListDAO;
+import org.breedinginsight.brapi.v2.dao.BrAPIObservationDAO;
+import org.breedinginsight.brapi.v2.dao.BrAPIObservationUnitDAO;
+import org.breedinginsight.brapi.v2.dao.BrAPIStudyDAO;
+import org.breedinginsight.brapi.v2.dao.BrAPITrialDAO;
+import org.breedinginsight.brapps.importer.daos.ImportCommitCheckpointDAO;
+import org.breedinginsight.brapps.importer.model.ImportUpload;
+import org.breedinginsight.brapps.importer.model.imports.ImportLookups;
+import org.breedinginsight.brapps.importer.model.imports.experimentObservation.ExperimentObservation;
+import org.breedinginsight.brapps.importer.model.response.ImportObjectState;
+import org.breedinginsight.brapps.importer.model.response.PendingImportObject;
+import org.breedinginsight.brapps.importer.model.workflow.ImportContext;
+import org.breedinginsight.brapps.importer.model.workflow.ProcessedData;
+import org.breedinginsight.brapps.importer.services.ExternalReferenceSource;
+import org.breedinginsight.brapps.importer.services.ImportCommitCheckpointService;
+import org.breedinginsight.brapps.importer.services.ImportCommitScheduler;
+import org.breedinginsight.brapps.importer.services.processors.experiment.create.model.PendingData;
+import org.breedinginsight.brapps.importer.services.processors.experiment.create.model.ProcessContext;
+import org.breedinginsight.brapps.importer.services.processors.experiment.create.model.ProcessedPhenotypeData;
+import org.breedinginsight.brapps.importer.services.processors.experiment.services.ExperimentSeasonService;
+import org.breedinginsight.model.Program;
+import org.breedinginsight.model.ProgramLocation;
+import org.breedinginsight.model.Trait;
+import org.breedinginsight.model.User;
+import org.breedinginsight.services.OntologyService;
+import org.breedinginsight.services.ProgramLocationService;
+import org.breedinginsight.services.SequenceAllocatorService;
+import org.breedinginsight.utilities.Utilities;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import tech.tablesaw.api.StringColumn;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class CommitPendingImportObjectsStepUnitTest {
+
+    private static final String REFERENCE_SOURCE = "test";
+    private static final String TRAIT = "Height";
+
+    private BrAPITrialDAO trialDAO;
+    private BrAPIStudyDAO studyDAO;
+    private BrAPIObservationUnitDAO observationUnitDAO;
+    private BrAPIObservationDAO observationDAO;
+    private Map<String, AtomicLong> sequences;
+    private PopulateNewPendingImportObjectsStep populateStep;
+    private CommitPendingImportObjectsStep commitStep;
+
+    private Program program;
+    private User user;
+    private ImportUpload upload;
+    private Trait trait;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        program = Program.builder()
+                .id(UUID.randomUUID())
+                .key("TEST")
+                .expSequence("exp_seq")
+                .envSequence("env_seq")
+                .brapiProgram(new BrAPIProgram().programDbId("program-1").programName("Test"))
+                .build();
+        user = User.builder().id(UUID.randomUUID()).name("tester").build();
+        upload = new ImportUpload();
+        upload.setId(UUID.randomUUID());
+        upload.setUpdatedBy(user.getId());
+        upload.setUpdatedByUser(user);
+        trait = Trait.builder().observationVariableName(TRAIT).observationVariableDbId("variable-1").build();
+
+        ExperimentSeasonService seasonService = mock(ExperimentSeasonService.class);
+        when(seasonService.yearToSeasonDbId(any(), any())).thenReturn("season-1");
+
+        sequences = new HashMap<>();
+        SequenceAllocatorService sequenceAllocatorService = mock(SequenceAllocatorService.class);
+        when(sequenceAllocatorService.allocate(anyString(), anyInt())).thenAnswer(invocation -> {
+            AtomicLong sequence = sequences.computeIfAbsent(invocation.getArgument(0), name -> new AtomicLong());
+            return (Supplier<BigInteger>) () -> BigInteger.valueOf(sequence.incrementAndGet());
+        });
+
+        ImportCommitCheckpointService checkpointService = new ImportCommitCheckpointService(inMemoryCheckpointDAO(), Duration.ofDays(7));
+
+        trialDAO = mock(BrAPITrialDAO.class);
+        when(trialDAO.createBrAPITrials(anyList(), any(), any())).thenAnswer(invocation -> {
+            List<BrAPITrial> trials = invocation.getArgument(0);
+            trials.forEach(trial -> trial.setTrialDbId("trial-1"));
+            return trials;
+        });
+        studyDAO = mock(BrAPIStudyDAO.class);
+        when(studyDAO.createBrAPIStudies(anyList(), any(), any(), eq(false))).thenAnswer(invocation -> {
+            List<BrAPIStudy> studies = invocation.getArgument(0);
+            studies.forEach(study -> study.setStudyDbId("study-1"));
+            return studies;
+        });
+        BrAPIListDAO listDAO = mock(BrAPIListDAO.class);
+        when(listDAO.createBrAPILists(anyList(), any(), any())).thenAnswer(invocation -> {
+            List<BrAPIListNewRequest> lists = invocation.getArgument(0);
+            List<BrAPIListSummary> created = new ArrayList<>();
+            lists.forEach(list -> created.add(new BrAPIListSummary().listName(list.getListName()).listDbId("list-1")));
+            return created;
+        });
+        observationUnitDAO = mock(BrAPIObservationUnitDAO.class);
+        observationDAO = mock(BrAPIObservationDAO.class);
+        when(observationDAO.createBrAPIObservations(anyList(), any(), any(), eq(false))).thenAnswer(invocation -> {
+            List<BrAPIObservation> observations = invocation.getArgument(0);
+            observations.forEach(observation -> observation.setObservationDbId("observation-" + observation.getObservationUnitDbId()));
+            return observations;
+        });
+        ProgramLocationService locationService = mock(ProgramLocationService.class);
+        when(locationService.create(any(), any(), anyList())).thenAnswer(invocation -> {
+            ProgramLocation location = new ProgramLocation();
+            location.setName("Location 1");
+            location.setLocationDbId("location-1");
+            return List.of(location);
+        });
+        OntologyService ontologyService = mock(OntologyService.class);
+        when(ontologyService.getTraitsByProgramId(any(), anyBoolean())).thenReturn(List.of(trait));
+
+        populateStep = new PopulateNewPendingImportObjectsStep(seasonService, observationUnitDAO, sequenceAllocatorService,
+                checkpointService, REFERENCE_SOURCE);
+        commitStep = new CommitPendingImportObjectsStep(listDAO, trialDAO, studyDAO, observationDAO, observationUnitDAO,
+                locationService, ontologyService, new ImportCommitScheduler(1, mock(ExecutorService.class)), checkpointService,
+                REFERENCE_SOURCE, 100);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void resumedCommitReferencesPostedTrialAndStudy() throws Exception {
+        // The first attempt fails once the trial and study are posted
+        when(observationUnitDAO.createBrAPIObservationUnits(anyList(), any(), any(), eq(false)))
+                .thenThrow(new ApiException("BrAPI server went away"))
+                .thenAnswer(invocation -> {
+                    List<BrAPIObservationUnit> units = invocation.getArgument(0);
+                    units.forEach(unit -> unit.setObservationUnitDbId("unit-" + Utilities.removeProgramKeyAndUnknownAdditionalData(unit.getObservationUnitName(), program.getKey())));
+                    return units;
+                });
+
+        assertThrows(InternalServerException.class, this::commit);
+
+        ArgumentCaptor<List<BrAPITrial>> trials = ArgumentCaptor.forClass(List.class);
+        verify(trialDAO).createBrAPITrials(trials.capture(), any(), any());
+        ArgumentCaptor<List<BrAPIStudy>> studies = ArgumentCaptor.forClass(List.class);
+        verify(studyDAO).createBrAPIStudies(studies.capture(), any(), any(), eq(false));
+        String trialId = referenceId(trials.getValue().get(0).getExternalReferences(), ExternalReferenceSource.TRIALS);
+        String studyId = referenceId(studies.getValue().get(0).getExternalReferences(), ExternalReferenceSource.STUDIES);
+
+        commit();
+
+        // The trial and study are not posted again and keep their experiment and environment numbers
+        verify(trialDAO, times(1)).createBrAPITrials(anyList(), any(), any());
+        verify(studyDAO, times(1)).createBrAPIStudies(anyList(), any(), any(), eq(false));
+        assertEquals(1, sequences.get("exp_seq").get());
+        assertEquals(1, sequences.get("env_seq").get());
+
+        ArgumentCaptor<List<BrAPIObservationUnit>> units = ArgumentCaptor.forClass(List.class);
+        verify(observationUnitDAO, times(2)).createBrAPIObservationUnits(units.capture(), any(), any(), eq(false));
+        List<BrAPIObservationUnit> resumedUnits = units.getAllValues().get(1);
+        assertEquals(2, resumedUnits.size());
+        for (BrAPIObservationUnit unit : resumedUnits) {
+            assertEquals("trial-1", unit.getTrialDbId());
+            assertEquals("study-1", unit.getStudyDbId());
+            assertEquals(trialId, referenceId(unit.getExternalReferences(), ExternalReferenceSource.TRIALS));
+            assertEquals(studyId, referenceId(unit.getExternalReferences(), ExternalReferenceSource.STUDIES));
+        }
+
+        ArgumentCaptor<List<BrAPIObservation>> observations = ArgumentCaptor.forClass(List.class);
+        verify(observationDAO).createBrAPIObservations(observations.capture(), any(), any(), eq(false));
+        assertEquals(2, observations.getValue().size());
+        for (BrAPIObservation observation : observations.getValue()) {
+            assertEquals("study-1", observation.getStudyDbId());
+            assertTrue(observation.getObservationUnitDbId().startsWith("unit-"));
+            assertEquals(trialId, referenceId(observation.getExternalReferences(), ExternalReferenceSource.TRIALS));
+            assertEquals(studyId, referenceId(observation.getExternalReferences(), ExternalReferenceSource.STUDIES));
+        }
+
+        // Each attempt refreshes the program caches once, failed or not
+        verify(studyDAO, times(2)).repopulateCache(program.getId());
+        verify(observationUnitDAO, times(2)).repopulateCache(program.getId());
+        verify(observationDAO, times(2)).repopulateCache(program.getId());
+    }
+
+    private void commit() throws Exception {
+        List<ExperimentObservation> rows = List.of(row("A1"), row("A2"));
+        ImportContext importContext = ImportContext.builder()
+                .upload(upload)
+                .importRows(new ArrayList<>(rows))
+                .program(program)
+                .user(user)
+                .commit(true)
+                .lookups(new ImportLookups())
+                .build();
+
+        BrAPIGermplasm germplasm = new BrAPIGermplasm().germplasmName("Germplasm 1").accessionNumber("1").germplasmDbId("germplasm-1");
+        Map<String, PendingImportObject<BrAPIGermplasm>> germplasmByGID = new HashMap<>();
+        germplasmByGID.put("1", new PendingImportObject<>(ImportObjectState.EXISTING, germplasm));
+        PendingData pendingData = PendingData.builder()
+                .observationUnitByNameNoScope(new HashMap<>())
+                .trialByNameNoScope(new HashMap<>())
+                .studyByNameNoScope(new HashMap<>())
+                .locationByName(new HashMap<>())
+                .obsVarDatasetByName(new HashMap<>())
+                .existingGermplasmByGID(germplasmByGID)
+                .existingObsByObsHash(new HashMap<>())
+                .observationByHash(new HashMap<>())
+                .build();
+        ProcessContext processContext = ProcessContext.builder()
+                .importContext(importContext)
+                .pendingData(pendingData)
+                .build();
+        ProcessedPhenotypeData phenotypeData = ProcessedPhenotypeData.builder()
+                .phenotypeCols(List.of(StringColumn.create(TRAIT, "5", "7")))
+                .timeStampColByPheno(new HashMap<>())
+                .referencedTraits(List.of(trait))
+                .build();
+
+        populateStep.process(processContext, phenotypeData);
+        ProcessedData processedData = new ProcessedData();
+        processedData.setMappedBrAPIImport(new HashMap<>());
+        commitStep.process(processContext, processedData);
+    }
+
+    private ExperimentObservation row(String expUnitId) {
+        ExperimentObservation row = new ExperimentObservation();
+        row.setExpTitle("Experiment 1");
+        row.setExpType("Phenotyping");
+        row.setExpUnit("Plot");
+        row.setExpUnitId(expUnitId);
+        row.setEnv("Env 1");
+        row.setEnvLocation("Location 1");
+        row.setEnvYear("2024");
+        row.setGid("1");
+        row.setGermplasmName("Germplasm 1");
+        return row;
+    }
+
+    private String referenceId(List<BrAPIExternalReference> references, ExternalReferenceSource source) {
+        return Utilities.getExternalReference(references, REFERENCE_SOURCE, source)
+                .map(BrAPIExternalReference::getReferenceId)
+                .orElseThrow();
+    }
+
+    private ImportCommitCheckpointDAO inMemoryCheckpointDAO() {
+        Map<String, Map<String, String>> saved = new HashMap<>();
+        ImportCommitCheckpointDAO checkpointDAO = mock(ImportCommitCheckpointDAO.class);
+        when(checkpointDAO.getDbIds(any())).thenAnswer(invocation -> {
+            Map<String, Map<String, String>> copy = new HashMap<>();
+            saved.forEach((entityType, dbIds) -> copy.put(entityType, new HashMap<>(dbIds)));
+            return copy;
+        });
+        doAnswer(invocation -> {
+            Map<String, String> dbIds = invocation.getArgument(3);
+            saved.computeIfAbsent(invocation.getArgument(1), entityType -> new HashMap<>()).putAll(dbIds);
+            return null;
+        }).when(checkpointDAO).save(any(), anyString(), anyString(), anyMap(), any());
+        doAnswer(invocation -> {
+            saved.clear();
+            return null;
+        }).when(checkpointDAO).deleteByImportId(any());
+        return checkpointDAO;
+    }
+}
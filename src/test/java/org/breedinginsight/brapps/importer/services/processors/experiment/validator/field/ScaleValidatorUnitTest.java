@@ -0,0 +1,150 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.brapps.importer.services.processors.experiment.validator.field;
+
+import org.brapi.v2.model.pheno.BrAPIScaleValidValuesCategories;
+import org.breedinginsight.brapps.importer.services.processors.experiment.ExperimentUtilities;
+import org.breedinginsight.brapps.importer.services.processors.experiment.service.ObservationService;
+import org.breedinginsight.dao.db.enums.DataType;
+import org.breedinginsight.model.Scale;
+import org.breedinginsight.model.Trait;
+import org.junit.jupiter.api.Test;
+import tech.tablesaw.api.StringColumn;
+import tech.tablesaw.columns.Column;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScaleValidatorUnitTest {
+
+    private final ObservationService observationService = new ObservationService(new ExperimentUtilities());
+
+    @Test
+    public void numericalBounds() {
+        ScaleValidator validator = ScaleValidator.of(trait("Height", DataType.NUMERICAL, 1, 10), observationService);
+
+        assertEquals(ScaleValidator.Result.VALID, validator.validate("1"));
+        assertEquals(ScaleValidator.Result.VALID, validator.validate("10"));
+        assertEquals(ScaleValidator.Result.VALID, validator.validate("+5"));
+        assertEquals(ScaleValidator.Result.VALID, validator.validate("9.99"));
+        assertEquals(ScaleValidator.Result.VALID, validator.validate("1e1"));
+        assertEquals(ScaleValidator.Result.VALID, validator.validate("10.0"));
+        assertEquals(ScaleValidator.Result.OUT_OF_RANGE, validator.validate("1.1e1"));
+        assertEquals(ScaleValidator.Result.OUT_OF_RANGE, validator.validate("0"));
+        assertEquals(ScaleValidator.Result.OUT_OF_RANGE, validator.validate("-3"));
+        assertEquals(ScaleValidator.Result.OUT_OF_RANGE, validator.validate("10.01"));
+        assertEquals(ScaleValidator.Result.OUT_OF_RANGE, validator.validate("99999999999999999999999"));
+        assertEquals(ScaleValidator.Result.NON_NUMERIC, validator.validate("tall"));
+        assertEquals(ScaleValidator.Result.NON_NUMERIC, validator.validate("-"));
+        assertEquals(ScaleValidator.Result.NON_NUMERIC, validator.validate(" 5"));
+    }
+
+    @Test
+    public void numericalWithoutBounds() {
+        ScaleValidator validator = ScaleValidator.of(trait("Height", DataType.NUMERICAL, null, null), observationService);
+
+        assertEquals(ScaleValidator.Result.VALID, validator.validate("-99999999999999999999999"));
+        assertEquals(ScaleValidator.Result.VALID, validator.validate("123456789012345678"));
+        assertEquals(ScaleValidator.Result.NON_NUMERIC, validator.validate("1,000"));
+    }
+
+    @Test
+    public void blankAndNAAreValid() {
+        ScaleValidator validator = ScaleValidator.of(trait("Height", DataType.NUMERICAL, 1, 10), observationService);
+
+        assertEquals(ScaleValidator.Result.VALID, validator.validate(null));
+        assertEquals(ScaleValidator.Result.VALID, validator.validate(""));
+        assertEquals(ScaleValidator.Result.VALID, validator.validate("  "));
+        assertEquals(ScaleValidator.Result.VALID, validator.validate("na"));
+        assertEquals(ScaleValidator.Result.VALID, validator.validate("NA"));
+    }
+
+    @Test
+    public void dates() {
+        ScaleValidator validator = ScaleValidator.of(trait("Planted", DataType.DATE, null, null), observationService);
+
+        assertEquals(ScaleValidator.Result.VALID, validator.validate("2021-03-04"));
+        assertEquals(ScaleValidator.Result.INVALID_DATE, validator.validate("03/04/2021"));
+        assertEquals(ScaleValidator.Result.INVALID_DATE, validator.validate("2021-13-01"));
+    }
+
+    @Test
+    public void categoriesIgnoreCase() {
+        Trait ordinal = trait("Vigor", DataType.ORDINAL, null, null);
+        ordinal.getScale().setCategories(categories("low", "High"));
+        Trait nominal = trait("Color", DataType.NOMINAL, null, null);
+        nominal.getScale().setCategories(categories("red", "blue"));
+
+        assertEquals(ScaleValidator.Result.VALID, ScaleValidator.of(ordinal, observationService).validate("LOW"));
+        assertEquals(ScaleValidator.Result.VALID, ScaleValidator.of(ordinal, observationService).validate("high"));
+        assertEquals(ScaleValidator.Result.UNDEFINED_ORDINAL, ScaleValidator.of(ordinal, observationService).validate("medium"));
+        assertEquals(ScaleValidator.Result.VALID, ScaleValidator.of(nominal, observationService).validate("Blue"));
+        assertEquals(ScaleValidator.Result.UNDEFINED_NOMINAL, ScaleValidator.of(nominal, observationService).validate("green"));
+    }
+
+    @Test
+    public void missingScaleIsValid() {
+        assertEquals(ScaleValidator.Result.VALID, ScaleValidator.of(null, observationService).validate("anything"));
+        assertEquals(ScaleValidator.Result.VALID, ScaleValidator.of(new Trait(), observationService).validate("anything"));
+        assertEquals(ScaleValidator.Result.VALID, ScaleValidator.of(trait("Notes", DataType.TEXT, null, null), observationService).validate("anything"));
+    }
+
+    @Test
+    public void reportByColumn() {
+        Map<String, ScaleValidator> validators = Map.of(
+                "Height", ScaleValidator.of(trait("Height", DataType.NUMERICAL, 1, 10), observationService),
+                "Planted", ScaleValidator.of(trait("Planted", DataType.DATE, null, null), observationService));
+        List<Column<?>> columns = List.of(
+                StringColumn.create("Height", new String[]{"5", "tall", "", "11"}),
+                StringColumn.create("Planted", new String[]{"2021-03-04", "2021-03-04", "yesterday", ""}),
+                StringColumn.create("Notes", new String[]{"a", "b", "c", "d"}));
+
+        ScaleValidationReport report = ScaleValidationReport.of(columns, validators::get);
+
+        assertEquals(ScaleValidator.Result.VALID, report.getResult("Height", 0));
+        assertEquals(ScaleValidator.Result.NON_NUMERIC, report.getResult("Height", 1));
+        assertEquals(ScaleValidator.Result.VALID, report.getResult("Height", 2));
+        assertEquals(ScaleValidator.Result.OUT_OF_RANGE, report.getResult("height", 3));
+        assertEquals(ScaleValidator.Result.INVALID_DATE, report.getResult("Planted", 2));
+        assertEquals(ScaleValidator.Result.VALID, report.getResult("Notes", 0));
+        assertEquals(ScaleValidator.Result.VALID, report.getResult("Unknown", 0));
+    }
+
+    private Trait trait(String name, DataType dataType, Integer min, Integer max) {
+        Scale scale = new Scale();
+        scale.setScaleName(name);
+        scale.setDataType(dataType);
+        scale.setValidValueMin(min);
+        scale.setValidValueMax(max);
+        Trait trait = new Trait();
+        trait.setObservationVariableName(name);
+        trait.setScale(scale);
+        return trait;
+    }
+
+    private List<BrAPIScaleValidValuesCategories> categories(String... values) {
+        List<BrAPIScaleValidValuesCategories> categories = new ArrayList<>();
+        for (String value : values) {
+            categories.add(new BrAPIScaleValidValuesCategories().value(value));
+        }
+        return categories;
+    }
+}
@@ -4,6 +4,7 @@ import com.google.gson.JsonObject;
 import lombok.SneakyThrows;
 import org.apache.commons.lang3.tuple.Pair;
 import org.brapi.client.v2.ApiResponse;
+import org.brapi.client.v2.model.exceptions.ApiException;
 import org.brapi.v2.model.*;
 import org.brapi.v2.model.germ.BrAPIGermplasm;
 import org.brapi.v2.model.germ.request.BrAPIGermplasmSearchRequest;
@@ -11,6 +12,7 @@ import org.brapi.v2.model.germ.response.BrAPIGermplasmListResponse;
 import org.brapi.v2.model.germ.response.BrAPIGermplasmListResponseResult;
 import org.breedinginsight.brapps.importer.services.ExternalReferenceSource;
 import org.breedinginsight.model.Program;
+import org.breedinginsight.services.brapi.BrAPITransport;
 import org.breedinginsight.utilities.BrAPIDAOUtil;
 import org.breedinginsight.utilities.Utilities;
 import org.junit.jupiter.api.BeforeEach;
@@ -20,6 +22,11 @@ import java.lang.reflect.Field;
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
@@ -62,7 +69,7 @@ public class BrAPIDAOUtilUnitTest {
     @BeforeEach
     void setup() {
         //Create instance of DAO
-        brAPIDAOUtil = new BrAPIDAOUtil(1000, Duration.of(10, ChronoUnit.MINUTES), 1, 100);
+        brAPIDAOUtil = new BrAPIDAOUtil(1000, Duration.of(10, ChronoUnit.MINUTES), 1, 100, new BrAPITransport(5, Duration.ofMinutes(5), Executors.newFixedThreadPool(4)));
 
         //Set the page size field
         Field pageSize = BrAPIDAOUtil.class.getDeclaredField("pageSize");
@@ -176,4 +183,47 @@ public class BrAPIDAOUtilUnitTest {
                     ));
         }
     }
+
+    @Test
+    @SneakyThrows
+    public void searchGermplasmAsyncPollsUntilReady() {
+        BrAPIDAOUtil asyncUtil = new BrAPIDAOUtil(10, Duration.of(10, ChronoUnit.MINUTES), 1, 100, new BrAPITransport(5, Duration.ofMinutes(5), Executors.newFixedThreadPool(4)));
+        AtomicInteger firstPagePolls = new AtomicInteger();
+
+        List<BrAPIGermplasm> searchResult = asyncUtil.<BrAPIGermplasmListResponse, BrAPIGermplasmSearchRequest, BrAPIGermplasm>searchAsync(
+                searchBody -> searchAccepted(),
+                (searchId, page, pageSize) -> {
+                    if (page == 0 && firstPagePolls.incrementAndGet() < 3) {
+                        return searchAccepted();
+                    }
+                    return getStubbedGermplasm(page, pageSize);
+                },
+                germplasmSearch
+        ).get();
+
+        assertEquals(3, firstPagePolls.get());
+        assertEquals(germplasm.size(), searchResult.size());
+        for (BrAPIGermplasm accession : germplasm) {
+            assertTrue(searchResult.contains(accession));
+        }
+    }
+
+    @Test
+    public void searchGermplasmAsyncTimesOut() {
+        BrAPIDAOUtil asyncUtil = new BrAPIDAOUtil(10, Duration.of(30, ChronoUnit.MILLIS), 1, 100, new BrAPITransport(5, Duration.ofMinutes(5), Executors.newFixedThreadPool(4)));
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> asyncUtil.<BrAPIGermplasmListResponse, BrAPIGermplasmSearchRequest, BrAPIGermplasm>searchAsync(
+                searchBody -> searchAccepted(),
+                (searchId, page, pageSize) -> searchAccepted(),
+                germplasmSearch
+        ).get());
+
+        assertTrue(e.getCause() instanceof ApiException);
+    }
+
+    private ApiResponse<Pair<Optional<BrAPIGermplasmListResponse>, Optional<BrAPIAcceptedSearchResponse>>> searchAccepted() {
+        BrAPIAcceptedSearchResponse searchPostResponse = new BrAPIAcceptedSearchResponse();
+        searchPostResponse.setResult(new BrAPIAcceptedSearchResponseResult().searchResultsDbId("search-1"));
+        return new ApiResponse<>(202, new HashMap<>(), Pair.of(Optional.empty(), Optional.of(searchPostResponse)));
+    }
 }
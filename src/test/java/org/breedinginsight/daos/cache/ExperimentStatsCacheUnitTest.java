@@ -0,0 +1,146 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.daos.cache;
+
+import org.brapi.v2.model.BrAPIExternalReference;
+import org.brapi.v2.model.pheno.BrAPIObservation;
+import org.brapi.v2.model.pheno.BrAPIObservationUnit;
+import org.breedinginsight.DatabaseTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class ExperimentStatsCacheUnitTest extends DatabaseTest {
+
+    private static final String REFERENCE_SOURCE = "breedinginsight.org";
+
+    private ExperimentStatsCache statsCache;
+    private UUID programId;
+    private String datasetId;
+
+    @BeforeEach
+    public void setup() {
+        statsCache = new ExperimentStatsCache(super.getRedisConnection(), REFERENCE_SOURCE, Duration.ofHours(1));
+        programId = UUID.randomUUID();
+        datasetId = UUID.randomUUID().toString();
+    }
+
+    @Test
+    public void statsAreMaintainedAfterSeeding() {
+        List<BrAPIObservationUnit> ous = observationUnits(0, 3);
+        statsCache.seedDatasetStats(programId, datasetId, ous, 2, List.of(observation("obs-0", "ou-0", "1")));
+        assertEquals(1, statsCache.getDatasetStats(programId, datasetId).orElseThrow().getObservationsWithData());
+
+        // An import adds units and observations, then an observation is cleared
+        statsCache.recordObservationUnits(programId, observationUnits(3, 2));
+        statsCache.recordObservations(programId, List.of(observation("obs-1", "ou-4", "2"), observation("obs-2", "ou-1", "3")));
+        statsCache.recordObservations(programId, List.of(observation("obs-0", "ou-0", "")));
+
+        ExperimentStatsCache.DatasetStats stats = statsCache.getDatasetStats(programId, datasetId).orElseThrow();
+        assertEquals(5, stats.getObservationUnits());
+        assertEquals(2, stats.getPhenotypes());
+        assertEquals(10, stats.getObservations());
+        assertEquals(2, stats.getObservationsWithData());
+        assertEquals(8, stats.getObservationsWithoutData());
+    }
+
+    @Test
+    public void statsAreNotServedBeforeSeeding() {
+        statsCache.recordObservationUnits(programId, observationUnits(0, 4));
+
+        assertEquals(Optional.empty(), statsCache.getDatasetStats(programId, datasetId));
+        assertEquals(Optional.empty(), statsCache.getGermplasmCount(programId, "trial-1"));
+
+        // Units recorded before seeding are still counted once
+        statsCache.seedGermplasm(programId, "trial-1", observationUnits(0, 4));
+        assertEquals(Optional.of(2L), statsCache.getGermplasmCount(programId, "trial-1"));
+    }
+
+    @Test
+    public void datasetVariablesAreRecordedFromTheirList() {
+        statsCache.seedDatasetStats(programId, datasetId, observationUnits(0, 1), 1, List.of());
+
+        statsCache.recordDatasetVariables(programId, List.of(datasetReference()), List.of("var-1", "var-2", "var-3"));
+
+        assertEquals(3, statsCache.getDatasetStats(programId, datasetId).orElseThrow().getPhenotypes());
+    }
+
+    @Test
+    public void invalidatedStatsAreReseeded() {
+        statsCache.seedDatasetStats(programId, datasetId, observationUnits(0, 4), 2, List.of(observation("obs-0", "ou-0", "1")));
+        statsCache.seedGermplasm(programId, "trial-1", observationUnits(0, 4));
+
+        // An undone import leaves nothing in the stats to serve until they are reseeded
+        statsCache.invalidate(programId);
+        assertEquals(Optional.empty(), statsCache.getDatasetStats(programId, datasetId));
+        assertEquals(Optional.empty(), statsCache.getGermplasmCount(programId, "trial-1"));
+
+        statsCache.seedDatasetStats(programId, datasetId, observationUnits(0, 2), 2, List.of());
+        ExperimentStatsCache.DatasetStats stats = statsCache.getDatasetStats(programId, datasetId).orElseThrow();
+        assertEquals(2, stats.getObservationUnits());
+        assertEquals(0, stats.getObservationsWithData());
+    }
+
+    @Test
+    public void invalidateOnlyDropsTheKeysOfTheProgram() {
+        UUID otherProgramId = UUID.randomUUID();
+        statsCache.seedDatasetStats(programId, datasetId, observationUnits(0, 2), 1, List.of());
+        statsCache.seedDatasetStats(otherProgramId, datasetId, observationUnits(0, 2), 1, List.of());
+
+        statsCache.invalidate(programId);
+
+        assertEquals(0, super.getRedisConnection().getKeys().countExists(
+                programId + ":stats:keys",
+                programId + ":stats:observationunit:dataset",
+                programId + ":stats:dataset:" + datasetId + ":observationunits",
+                programId + ":stats:dataset:" + datasetId + ":phenotypes"));
+        assertEquals(2, statsCache.getDatasetStats(otherProgramId, datasetId).orElseThrow().getObservationUnits());
+    }
+
+    private List<BrAPIObservationUnit> observationUnits(int from, int count) {
+        List<BrAPIObservationUnit> ous = new ArrayList<>();
+        for (int i = from; i < from + count; i++) {
+            ous.add(new BrAPIObservationUnit()
+                    .observationUnitDbId("ou-" + i)
+                    .trialDbId("trial-1")
+                    .germplasmDbId("germplasm-" + (i % 2))
+                    .externalReferences(new ArrayList<>(List.of(datasetReference()))));
+        }
+        return ous;
+    }
+
+    private BrAPIObservation observation(String dbId, String ouDbId, String value) {
+        return new BrAPIObservation().observationDbId(dbId).observationUnitDbId(ouDbId).value(value);
+    }
+
+    private BrAPIExternalReference datasetReference() {
+        BrAPIExternalReference reference = new BrAPIExternalReference();
+        reference.setReferenceSource(REFERENCE_SOURCE + "/dataset");
+        reference.setReferenceID(datasetId);
+        return reference;
+    }
+}
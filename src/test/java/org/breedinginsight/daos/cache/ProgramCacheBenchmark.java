@@ -0,0 +1,99 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.daos.cache;
+
+import org.brapi.client.v2.JSON;
+import org.brapi.client.v2.model.exceptions.ApiException;
+import org.brapi.v2.model.germ.BrAPIGermplasm;
+import org.brapi.v2.model.pheno.BrAPIObservation;
+import org.brapi.v2.model.pheno.BrAPIObservationUnit;
+import org.breedinginsight.SyntheticData;
+import org.openjdk.jmh.annotations.*;
+import org.redisson.api.RBucket;
+import org.redisson.api.RMap;
+import org.redisson.api.RedissonClient;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Reads a populated program cache of germplasm and of observations. Redis is stubbed to return the cached JSON, so
+ * get measures deserializing every cached value and getSerialized the lookup alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class ProgramCacheBenchmark {
+
+    @Param({"10000", "100000"})
+    private int cacheSize;
+
+    private final UUID programId = UUID.randomUUID();
+    private ProgramCache<BrAPIGermplasm> germplasmCache;
+    private ProgramCache<BrAPIObservation> observationCache;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        List<BrAPIGermplasm> germplasm = SyntheticData.germplasm(cacheSize, "breedinginsight.org", programId, "BENCH", random);
+        List<BrAPIObservationUnit> units = SyntheticData.observationUnits(cacheSize / 5, cacheSize, "breedinginsight.org", "BENCH",
+                                                                          "program-1", "trial-1", UUID.randomUUID());
+        List<BrAPIObservation> observations = SyntheticData.observations(units, 5, "breedinginsight.org", "BENCH", random);
+
+        germplasmCache = new ProgramCache<>(redisson(germplasm, BrAPIGermplasm::getGermplasmDbId), id -> Map.of(), BrAPIGermplasm.class);
+        observationCache = new ProgramCache<>(redisson(observations, BrAPIObservation::getObservationDbId), id -> Map.of(), BrAPIObservation.class);
+    }
+
+    @Benchmark
+    public Map<String, BrAPIGermplasm> getGermplasm() throws ApiException {
+        return germplasmCache.get(programId);
+    }
+
+    @Benchmark
+    public Map<String, String> getSerializedGermplasm() throws ApiException {
+        return germplasmCache.getSerialized(programId);
+    }
+
+    @Benchmark
+    public Map<String, BrAPIObservation> getObservations() throws ApiException {
+        return observationCache.get(programId);
+    }
+
+    private <T> RedissonClient redisson(List<T> values, Function<T, String> key) {
+        JSON json = new JSON();
+        Map<String, String> serialized = values.stream()
+                .collect(Collectors.toMap(key, value -> json.getGson().toJson(value)));
+
+        RedissonClient redisson = mock(RedissonClient.class, withSettings().stubOnly());
+        RBucket<Object> bucket = mock(RBucket.class, withSettings().stubOnly());
+        when(bucket.isExists()).thenReturn(true);
+        doReturn(bucket).when(redisson).getBucket(anyString());
+        RMap<String, String> map = mock(RMap.class, withSettings().stubOnly());
+        when(map.readAllMap()).thenReturn(serialized);
+        doReturn(map).when(redisson).getMap(anyString());
+        return redisson;
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.daos.cache;
+
+import org.brapi.v2.model.core.BrAPISeason;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProgramMetadataCacheUnitTest {
+
+    private ProgramMetadataCache<BrAPISeason> cache;
+    private final UUID programId = UUID.randomUUID();
+
+    @BeforeEach
+    public void setup() {
+        cache = new ProgramMetadataCacheProvider(Duration.ofMinutes(1)).getMetadataCache(BrAPISeason.class);
+    }
+
+    @Test
+    public void loadsOnce() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        ProgramMetadataCache.Loader<BrAPISeason> loader = () -> {
+            loads.incrementAndGet();
+            return new BrAPISeason().seasonDbId("1").year(2021);
+        };
+
+        BrAPISeason first = cache.get(programId, "1", loader);
+        BrAPISeason second = cache.get(programId, "1", loader);
+
+        assertEquals(1, loads.get());
+        assertEquals("1", second.getSeasonDbId());
+        assertEquals(2021, second.getYear());
+        assertNotSame(first, second, "Cached values should be copies");
+    }
+
+    @Test
+    public void doesNotCacheMissingValues() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        ProgramMetadataCache.Loader<BrAPISeason> loader = () -> {
+            loads.incrementAndGet();
+            return null;
+        };
+
+        assertNull(cache.get(programId, "1", loader));
+        assertNull(cache.get(programId, "1", loader));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void bulkLoadsOnlyMissingKeys() throws Exception {
+        cache.put(programId, "1", new BrAPISeason().seasonDbId("1"));
+        List<List<String>> requested = new ArrayList<>();
+
+        Map<String, BrAPISeason> seasons = cache.getAll(programId, List.of("1", "2", "3"), keys -> {
+            requested.add(keys);
+            return Map.of("2", new BrAPISeason().seasonDbId("2"));
+        });
+
+        assertEquals(List.of(List.of("2", "3")), requested);
+        assertEquals(Set.of("1", "2"), seasons.keySet());
+    }
+
+    @Test
+    public void invalidateIsScopedToProgram() throws Exception {
+        UUID otherProgramId = UUID.randomUUID();
+        cache.put(programId, "1", new BrAPISeason().seasonDbId("1"));
+        cache.put(otherProgramId, "1", new BrAPISeason().seasonDbId("1"));
+
+        cache.invalidate(programId, "1");
+
+        assertNull(cache.get(programId, "1", () -> null));
+        assertNotNull(cache.get(otherProgramId, "1", () -> null));
+    }
+}
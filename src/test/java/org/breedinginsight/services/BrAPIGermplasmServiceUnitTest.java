@@ -13,7 +13,7 @@ import org.breedinginsight.DatabaseTest;
 import org.breedinginsight.brapi.v2.dao.BrAPIGermplasmDAO;
 import org.breedinginsight.brapi.v2.services.BrAPIGermplasmService;
 import org.breedinginsight.brapi.v2.dao.BrAPIListDAO;
-import org.breedinginsight.brapps.importer.daos.ImportDAO;
+import org.breedinginsight.brapps.importer.services.ImportProgressReporter;
 import org.breedinginsight.brapps.importer.model.exports.FileType;
 import org.breedinginsight.daos.ProgramDAO;
 import org.breedinginsight.daos.cache.ProgramCacheProvider;
@@ -29,7 +29,6 @@ import org.junit.jupiter.api.TestInstance;
 import tech.tablesaw.api.Table;
 
 import java.io.InputStream;
-import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
@@ -60,12 +59,8 @@ public class BrAPIGermplasmServiceUnitTest extends DatabaseTest {
         programDAO = mock(ProgramDAO.class);
         brAPIDAOUtil = mock(BrAPIDAOUtil.class);
         cacheProvider = new ProgramCacheProvider(super.getRedisConnection());
-        germplasmDAO = new BrAPIGermplasmDAO(programDAO, mock(ImportDAO.class), brAPIDAOUtil, cacheProvider, new BrAPIEndpointProvider());
+        germplasmDAO = new BrAPIGermplasmDAO(programDAO, mock(ImportProgressReporter.class), brAPIDAOUtil, cacheProvider, new BrAPIEndpointProvider(), referenceSource);
         programService = mock(ProgramService.class);
-
-        Field externalReferenceSource = BrAPIGermplasmDAO.class.getDeclaredField("referenceSource");
-        externalReferenceSource.setAccessible(true);
-        externalReferenceSource.set(germplasmDAO, referenceSource);
     }
 
     @Test
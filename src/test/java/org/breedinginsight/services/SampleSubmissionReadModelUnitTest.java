@@ -0,0 +1,147 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.services;
+
+import lombok.SneakyThrows;
+import org.brapi.v2.model.BrAPIExternalReference;
+import org.brapi.v2.model.geno.BrAPIPlate;
+import org.brapi.v2.model.geno.BrAPISample;
+import org.breedinginsight.brapps.importer.daos.BrAPIPlateDAO;
+import org.breedinginsight.brapps.importer.daos.BrAPISampleDAO;
+import org.breedinginsight.brapps.importer.services.ExternalReferenceSource;
+import org.breedinginsight.model.Program;
+import org.breedinginsight.utilities.Utilities;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+public class SampleSubmissionReadModelUnitTest {
+
+    private static final String REFERENCE_SOURCE = "breedinginsight.org";
+
+    private BrAPIPlateDAO plateDAO;
+    private BrAPISampleDAO sampleDAO;
+    private SampleSubmissionReadModel readModel;
+    private Program program;
+    private UUID first;
+    private UUID second;
+
+    @BeforeEach
+    @SneakyThrows
+    public void setup() {
+        plateDAO = mock(BrAPIPlateDAO.class);
+        sampleDAO = mock(BrAPISampleDAO.class);
+        readModel = new SampleSubmissionReadModel(REFERENCE_SOURCE, Duration.ofMinutes(10), plateDAO, sampleDAO);
+        program = Program.builder().id(UUID.randomUUID()).build();
+        first = UUID.randomUUID();
+        second = UUID.randomUUID();
+
+        when(plateDAO.readPlatesBySubmissionIdsAsync(any(), anyList())).thenReturn(CompletableFuture.completedFuture(List.of(
+                plate("plate1", first), plate("plate2", second), plate("plate3", first))));
+        when(sampleDAO.readSamplesBySubmissionIdsAsync(any(), anyList())).thenReturn(CompletableFuture.completedFuture(List.of(
+                sample("sample1", first), sample("sample2", first), sample("sample3", second))));
+    }
+
+    @Test
+    @SneakyThrows
+    public void groupsBySubmission() {
+        Map<UUID, SampleSubmissionReadModel.SubmissionContents> contents = readModel.getAll(program, List.of(first, second));
+
+        assertEquals(List.of("plate1", "plate3"), plateNames(contents.get(first)));
+        assertEquals(List.of("plate2"), plateNames(contents.get(second)));
+        assertEquals(2, contents.get(first).getSamples().size());
+        assertEquals("sample3", contents.get(second).getSamples().get(0).getSampleName());
+    }
+
+    @Test
+    @SneakyThrows
+    public void readsSubmissionOnce() {
+        readModel.get(program, first);
+        readModel.get(program, first);
+
+        verify(plateDAO, times(1)).readPlatesBySubmissionIdsAsync(any(), anyList());
+        verify(sampleDAO, times(1)).readSamplesBySubmissionIdsAsync(any(), anyList());
+    }
+
+    @Test
+    @SneakyThrows
+    public void onlyMissingSubmissionsAreRead() {
+        readModel.get(program, first);
+        readModel.getAll(program, List.of(first, second));
+
+        verify(sampleDAO).readSamplesBySubmissionIdsAsync(program, List.of(first.toString()));
+        verify(sampleDAO).readSamplesBySubmissionIdsAsync(program, List.of(second.toString()));
+    }
+
+    @Test
+    @SneakyThrows
+    public void invalidateRereads() {
+        readModel.get(program, first);
+        readModel.invalidate(program, first);
+        readModel.get(program, first);
+
+        verify(sampleDAO, times(2)).readSamplesBySubmissionIdsAsync(program, List.of(first.toString()));
+    }
+
+    @Test
+    @SneakyThrows
+    public void emptySubmission() {
+        UUID empty = UUID.randomUUID();
+        SampleSubmissionReadModel.SubmissionContents contents = readModel.get(program, empty);
+
+        assertTrue(contents.getPlates().isEmpty());
+        assertTrue(contents.getSamples().isEmpty());
+    }
+
+    @Test
+    @SneakyThrows
+    public void missingSubmissionReference() {
+        when(plateDAO.readPlatesBySubmissionIdsAsync(any(), anyList())).thenReturn(CompletableFuture.completedFuture(List.of(new BrAPIPlate().plateName("orphan"))));
+
+        assertThrows(IllegalStateException.class, () -> readModel.get(program, first));
+    }
+
+    private List<String> plateNames(SampleSubmissionReadModel.SubmissionContents contents) {
+        return contents.getPlates().stream().map(BrAPIPlate::getPlateName).collect(Collectors.toList());
+    }
+
+    private BrAPIPlate plate(String name, UUID submissionId) {
+        return new BrAPIPlate().plateName(name).externalReferences(List.of(submissionReference(submissionId)));
+    }
+
+    private BrAPISample sample(String name, UUID submissionId) {
+        return new BrAPISample().sampleName(name).externalReferences(List.of(submissionReference(submissionId)));
+    }
+
+    private BrAPIExternalReference submissionReference(UUID submissionId) {
+        return new BrAPIExternalReference()
+                .referenceSource(Utilities.generateReferenceSource(REFERENCE_SOURCE, ExternalReferenceSource.PLATE_SUBMISSIONS))
+                .referenceID(submissionId.toString());
+    }
+}
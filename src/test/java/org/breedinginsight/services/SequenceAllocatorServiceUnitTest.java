@@ -0,0 +1,89 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.services;
+
+import org.breedinginsight.daos.SequenceDAO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class SequenceAllocatorServiceUnitTest {
+
+    private SequenceDAO sequenceDAO;
+    private SequenceAllocatorService sequenceAllocatorService;
+    private long current;
+
+    @BeforeEach
+    public void setup() {
+        current = 0;
+        sequenceDAO = mock(SequenceDAO.class);
+        when(sequenceDAO.nextValues(anyString(), anyInt())).thenAnswer(invocation -> {
+            int count = invocation.getArgument(1);
+            List<BigInteger> values = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                values.add(BigInteger.valueOf(++current));
+            }
+            return values;
+        });
+        sequenceAllocatorService = new SequenceAllocatorService(sequenceDAO);
+    }
+
+    @Test
+    public void largeImportUsesFewRoundTrips() {
+        int rows = 100000;
+        Supplier<BigInteger> nextVal = sequenceAllocatorService.allocate("test_germplasm_sequence", rows);
+
+        Set<BigInteger> values = new HashSet<>();
+        for (int i = 0; i < rows; i++) {
+            values.add(nextVal.get());
+        }
+
+        assertEquals(rows, values.size());
+        verify(sequenceDAO, times(rows / SequenceAllocatorService.MAX_BLOCK_SIZE)).nextValues(anyString(), anyInt());
+        // Nothing was reserved beyond what the import asked for
+        assertEquals(rows, current);
+    }
+
+    @Test
+    public void nothingReservedUntilUsed() {
+        sequenceAllocatorService.allocate("test_env_sequence", 5);
+        verify(sequenceDAO, never()).nextValues(anyString(), anyInt());
+    }
+
+    @Test
+    public void blocksGrowWhenUnderestimated() {
+        Supplier<BigInteger> nextVal = sequenceAllocatorService.allocate("test_env_sequence", 1);
+        for (int i = 1; i <= 7; i++) {
+            assertEquals(BigInteger.valueOf(i), nextVal.get());
+        }
+
+        // blocks of 1, 2 and 4
+        verify(sequenceDAO, times(3)).nextValues(anyString(), anyInt());
+    }
+}
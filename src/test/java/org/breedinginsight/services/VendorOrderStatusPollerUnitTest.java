@@ -0,0 +1,149 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.services;
+
+import lombok.SneakyThrows;
+import org.brapi.client.v2.model.exceptions.ApiException;
+import org.brapi.client.v2.modules.genotype.VendorApi;
+import org.breedinginsight.daos.SampleSubmissionDAO;
+import org.breedinginsight.model.GenotypeVendor;
+import org.breedinginsight.model.SampleSubmission;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class VendorOrderStatusPollerUnitTest {
+
+    private static final Duration FREQUENCY = Duration.ofHours(1);
+    private static final Duration MAX_BACKOFF = Duration.ofDays(7);
+
+    private SampleSubmissionDAO submissionDAO;
+    private SampleSubmissionService submissionService;
+    private ExecutorService executor;
+    private VendorOrderStatusPoller poller;
+
+    @BeforeEach
+    public void setup() {
+        submissionDAO = mock(SampleSubmissionDAO.class);
+        submissionService = mock(SampleSubmissionService.class);
+        when(submissionService.getVendor(any())).thenReturn(GenotypeVendor.DART);
+        executor = Executors.newFixedThreadPool(2);
+        poller = new VendorOrderStatusPoller(true, FREQUENCY, MAX_BACKOFF, submissionDAO, submissionService, executor);
+    }
+
+    @AfterEach
+    public void teardown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void recentlyChangedOrdersAreCheckedSoon() {
+        OffsetDateTime now = OffsetDateTime.now();
+
+        assertEquals(now.plusMinutes(30), VendorOrderStatusPoller.nextCheck(now, now.minusHours(1), 0, FREQUENCY, MAX_BACKOFF));
+        assertEquals(now, VendorOrderStatusPoller.nextCheck(now, null, 0, FREQUENCY, MAX_BACKOFF));
+    }
+
+    @Test
+    public void unchangedOrdersBackOffToMaximum() {
+        OffsetDateTime now = OffsetDateTime.now();
+
+        assertEquals(now.plusDays(2), VendorOrderStatusPoller.nextCheck(now, now.minusDays(4), 0, FREQUENCY, MAX_BACKOFF));
+        assertEquals(now.plus(MAX_BACKOFF), VendorOrderStatusPoller.nextCheck(now, now.minusDays(60), 0, FREQUENCY, MAX_BACKOFF));
+    }
+
+    @Test
+    public void failuresDoubleTheRetryDelay() {
+        OffsetDateTime now = OffsetDateTime.now();
+
+        assertEquals(now.plusHours(1), VendorOrderStatusPoller.nextCheck(now, now, 1, FREQUENCY, MAX_BACKOFF));
+        assertEquals(now.plusHours(4), VendorOrderStatusPoller.nextCheck(now, now, 3, FREQUENCY, MAX_BACKOFF));
+        assertEquals(now.plus(MAX_BACKOFF), VendorOrderStatusPoller.nextCheck(now, now, 100, FREQUENCY, MAX_BACKOFF));
+    }
+
+    @Test
+    @SneakyThrows
+    public void failedOrderDoesNotStopOthers() {
+        SampleSubmission failing = order("failing");
+        SampleSubmission working = order("working");
+        when(submissionDAO.getSubmittedAndNotComplete()).thenReturn(List.of(failing, working));
+        when(submissionService.checkVendorStatus(eq(failing), any())).thenThrow(new ApiException("vendor unavailable"));
+        when(submissionService.checkVendorStatus(eq(working), any())).thenAnswer(invocation -> {
+            SampleSubmission order = invocation.getArgument(0);
+            return order.setVendorStatus("INPROGRESS");
+        });
+
+        poller.checkSubmissionStatuses();
+
+        verify(submissionService).checkVendorStatus(eq(working), any());
+        VendorOrderStatusPoller.Metrics metrics = poller.getMetrics();
+        assertEquals(1, metrics.getCheckedOrders());
+        assertEquals(1, metrics.getFailedOrders());
+        assertEquals(1, metrics.getStatusChanges());
+        assertEquals(2, metrics.getPendingOrders());
+    }
+
+    @Test
+    @SneakyThrows
+    public void failedOrderIsNotRetriedInTheNextSweep() {
+        SampleSubmission failing = order("failing");
+        when(submissionDAO.getSubmittedAndNotComplete()).thenReturn(List.of(failing));
+        when(submissionService.checkVendorStatus(eq(failing), any())).thenThrow(new RuntimeException("bad response"));
+
+        poller.checkSubmissionStatuses();
+        poller.checkSubmissionStatuses();
+
+        verify(submissionService, times(1)).checkVendorStatus(eq(failing), any());
+        assertEquals(1, poller.getMetrics().getSkippedOrders());
+    }
+
+    @Test
+    @SneakyThrows
+    public void ordersOfAVendorShareAClient() {
+        VendorApi vendorApi = mock(VendorApi.class);
+        when(submissionService.getVendorApi(GenotypeVendor.DART)).thenReturn(vendorApi);
+        when(submissionDAO.getSubmittedAndNotComplete()).thenReturn(List.of(order("first"), order("second"), order("third")));
+        when(submissionService.checkVendorStatus(any(), eq(vendorApi))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        poller.checkSubmissionStatuses();
+
+        verify(submissionService, times(1)).getVendorApi(GenotypeVendor.DART);
+        verify(submissionService, times(3)).checkVendorStatus(any(), eq(vendorApi));
+    }
+
+    private SampleSubmission order(String vendorOrderId) {
+        SampleSubmission order = new SampleSubmission();
+        order.setId(UUID.randomUUID());
+        order.setVendorOrderId(vendorOrderId);
+        order.setVendorStatus("SUBMITTED");
+        order.setSubmittedDate(OffsetDateTime.now());
+        return order;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.services.brapi;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.SneakyThrows;
+import org.brapi.client.v2.BrAPIClient;
+import org.brapi.client.v2.modules.genotype.PlatesApi;
+import org.brapi.v2.model.geno.BrAPIPlate;
+import org.brapi.v2.model.geno.request.BrAPIPlateSearchRequest;
+import org.breedinginsight.utilities.BrAPIDAOUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs many BrAPI searches at once against a local server that answers every search with a 202 response, and checks
+ * they all complete on a few call threads over no more connections than call threads.
+ */
+public class BrAPITransportUnitTest {
+
+    private static final int CALL_THREADS = 4;
+    private static final int SEARCHES = 100;
+    private static final int POLLS_PER_SEARCH = 3;
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private final Map<String, AtomicInteger> pollsBySearch = new ConcurrentHashMap<>();
+    private final AtomicInteger searchIds = new AtomicInteger();
+
+    private ExecutorService callExecutor;
+    private BrAPITransport transport;
+    private BrAPIDAOUtil brAPIDAOUtil;
+
+    @BeforeEach
+    @SneakyThrows
+    public void setup() {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/brapi/v2/search/plates", this::handle);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        callExecutor = Executors.newFixedThreadPool(CALL_THREADS);
+        transport = new BrAPITransport(CALL_THREADS, Duration.ofMinutes(5), callExecutor);
+        brAPIDAOUtil = new BrAPIDAOUtil(20, Duration.ofMinutes(1), 1000, 100, transport);
+    }
+
+    @AfterEach
+    public void teardown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+        transport.close();
+        callExecutor.shutdownNow();
+    }
+
+    @Test
+    @SneakyThrows
+    public void concurrentSearchesShareConnections() {
+        BrAPIClient client = transport.newClient("http://localhost:" + server.getAddress().getPort() + "/brapi/v2", Duration.ofMinutes(1));
+        PlatesApi platesApi = new PlatesApi(client);
+
+        List<CompletableFuture<List<BrAPIPlate>>> searches = new ArrayList<>();
+        for (int i = 0; i < SEARCHES; i++) {
+            searches.add(brAPIDAOUtil.searchAsync(platesApi::searchPlatesPost, platesApi::searchPlatesSearchResultsDbIdGet, new BrAPIPlateSearchRequest()));
+        }
+        CompletableFuture.allOf(searches.toArray(new CompletableFuture[0])).get(1, TimeUnit.MINUTES);
+
+        for (CompletableFuture<List<BrAPIPlate>> search : searches) {
+            assertEquals(1, search.get().size());
+        }
+        assertEquals(SEARCHES, pollsBySearch.size());
+        assertTrue(transport.getConnectionCount() <= CALL_THREADS, "Connections were not reused: " + transport.getConnectionCount());
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        if ("POST".equals(exchange.getRequestMethod())) {
+            String searchId = "search-" + searchIds.incrementAndGet();
+            pollsBySearch.put(searchId, new AtomicInteger());
+            respond(exchange, 202, accepted(searchId));
+            return;
+        }
+
+        String path = exchange.getRequestURI().getPath();
+        String searchId = path.substring(path.lastIndexOf('/') + 1);
+        if (pollsBySearch.get(searchId).incrementAndGet() < POLLS_PER_SEARCH) {
+            respond(exchange, 202, accepted(searchId));
+        } else {
+            respond(exchange, 200, plates(searchId));
+        }
+    }
+
+    private void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private String accepted(String searchId) {
+        return "{\"metadata\":{},\"result\":{\"searchResultsDbId\":\"" + searchId + "\"}}";
+    }
+
+    private String plates(String searchId) {
+        return "{\"metadata\":{\"pagination\":{\"currentPage\":0,\"pageSize\":1000,\"totalCount\":1,\"totalPages\":1}}," +
+                "\"result\":{\"data\":[{\"plateDbId\":\"" + searchId + "\",\"plateName\":\"" + searchId + "\"}]}}";
+    }
+}
@@ -64,6 +64,7 @@ import org.breedinginsight.model.User;
 import org.breedinginsight.services.brapi.BrAPIClientProvider;
 import org.breedinginsight.services.brapi.BrAPIEndpointProvider;
 import org.breedinginsight.services.brapi.BrAPIProvider;
+import org.breedinginsight.services.brapi.BrAPITransport;
 import org.breedinginsight.services.exceptions.AuthorizationException;
 import org.breedinginsight.services.exceptions.DoesNotExistException;
 import org.breedinginsight.utilities.BrAPIDAOUtil;
@@ -152,6 +153,9 @@ public class GigwaGenotypeServiceImplIntegrationTest extends DatabaseTest {
     @Inject
     private BrAPIEndpointProvider brAPIEndpointProvider;
 
+    @Inject
+    private BrAPITransport brAPITransport;
+
     @Property(name = "gigwa.host")
     private String gigwaHost;
 
@@ -169,7 +173,7 @@ public class GigwaGenotypeServiceImplIntegrationTest extends DatabaseTest {
 
     @MockBean(ProgramDAO.class)
     ProgramDAO programDAO() {
-        return spy(new ProgramDAOImpl(config, dsl, brAPIProvider, brAPIClientProvider, brAPIEndpointProvider, defaultBrAPICoreUrl, defaultBrAPIPhenoUrl, defaultBrAPIGenoUrl, referenceSource, Duration.of(10, ChronoUnit.MINUTES)));
+        return spy(new ProgramDAOImpl(config, dsl, brAPIProvider, brAPIClientProvider, brAPIEndpointProvider, defaultBrAPICoreUrl, defaultBrAPIPhenoUrl, defaultBrAPIGenoUrl, referenceSource, Duration.of(10, ChronoUnit.MINUTES), brAPITransport));
     }
 
     @MockBean(UserDAO.class)
@@ -196,7 +200,7 @@ public class GigwaGenotypeServiceImplIntegrationTest extends DatabaseTest {
 
     @MockBean(BrAPIDAOUtil.class)
     BrAPIDAOUtil brAPIDAOUtil() {
-        return spy(new BrAPIDAOUtil(1000, Duration.of(10, ChronoUnit.MINUTES), 1000, 100));
+        return spy(new BrAPIDAOUtil(1000, Duration.of(10, ChronoUnit.MINUTES), 1000, 100, brAPITransport));
     }
 
     @MockBean(SimpleStorageService.class)
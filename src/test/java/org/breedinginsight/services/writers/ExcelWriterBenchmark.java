@@ -0,0 +1,115 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.services.writers;
+
+import org.apache.poi.ss.usermodel.Workbook;
+import org.brapi.v2.model.pheno.BrAPIObservation;
+import org.brapi.v2.model.pheno.BrAPIObservationUnit;
+import org.breedinginsight.SyntheticData;
+import org.breedinginsight.brapps.importer.model.exports.FileType;
+import org.breedinginsight.brapps.importer.model.imports.experimentObservation.ExperimentObservation;
+import org.breedinginsight.dao.db.enums.DataType;
+import org.breedinginsight.model.Column;
+import org.breedinginsight.model.Trait;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Writes an experiment export, one row for every observation unit and a column for every trait, to xlsx and xls
+ * workbooks. Numerical trait values are written as numbers and the GIDs as integers, as the experiment export does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class ExcelWriterBenchmark {
+
+    @Param({"1000", "10000"})
+    private int rowCount;
+
+    @Param({"10", "50"})
+    private int traitCount;
+
+    private List<Column> columns;
+    private List<Map<String, Object>> data;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        List<Trait> traits = SyntheticData.traits(traitCount, random);
+        List<BrAPIObservationUnit> units = SyntheticData.observationUnits(rowCount, rowCount, "breedinginsight.org", "BENCH",
+                                                                          "program-1", "trial-1", UUID.randomUUID());
+        Map<String, List<BrAPIObservation>> observationsByUnit = SyntheticData.observations(units, traitCount, "breedinginsight.org", "BENCH", random)
+                .stream()
+                .collect(Collectors.groupingBy(BrAPIObservation::getObservationUnitDbId));
+
+        columns = new ArrayList<>();
+        columns.add(new Column(ExperimentObservation.Columns.GERMPLASM_NAME, Column.ColumnDataType.STRING));
+        columns.add(new Column(ExperimentObservation.Columns.GERMPLASM_GID, Column.ColumnDataType.INTEGER));
+        columns.add(new Column(ExperimentObservation.Columns.ENV, Column.ColumnDataType.STRING));
+        columns.add(new Column(ExperimentObservation.Columns.EXP_UNIT_ID, Column.ColumnDataType.STRING));
+        columns.add(new Column(ExperimentObservation.Columns.OBS_UNIT_ID, Column.ColumnDataType.STRING));
+        for (Trait trait : traits) {
+            boolean numerical = trait.getScale().getDataType() == DataType.NUMERICAL;
+            columns.add(new Column(trait.getObservationVariableName(), numerical ? Column.ColumnDataType.DOUBLE : Column.ColumnDataType.STRING));
+        }
+
+        data = new ArrayList<>(rowCount);
+        for (BrAPIObservationUnit unit : units) {
+            Map<String, Object> row = new HashMap<>();
+            row.put(ExperimentObservation.Columns.GERMPLASM_NAME, unit.getGermplasmName());
+            row.put(ExperimentObservation.Columns.GERMPLASM_GID, Integer.valueOf(unit.getGermplasmDbId().substring("germplasm-".length())));
+            row.put(ExperimentObservation.Columns.ENV, unit.getStudyDbId());
+            row.put(ExperimentObservation.Columns.EXP_UNIT_ID, unit.getObservationUnitName());
+            row.put(ExperimentObservation.Columns.OBS_UNIT_ID, unit.getExternalReferences().get(0).getReferenceID());
+            List<BrAPIObservation> observations = observationsByUnit.get(unit.getObservationUnitDbId());
+            for (int trait = 0; trait < traits.size(); trait++) {
+                boolean numerical = traits.get(trait).getScale().getDataType() == DataType.NUMERICAL;
+                String value = observations.get(trait).getValue();
+                row.put(traits.get(trait).getObservationVariableName(), numerical ? (Object) Double.valueOf(value) : value);
+            }
+            data.add(row);
+        }
+    }
+
+    @Benchmark
+    public Workbook writeXlsxWorkbook() {
+        return ExcelWriter.writeToWorkbook("Experiment Data", columns, data, FileType.XLSX);
+    }
+
+    @Benchmark
+    public Workbook writeXlsWorkbook() {
+        return ExcelWriter.writeToWorkbook("Experiment Data", columns, data, FileType.XLS);
+    }
+
+    @Benchmark
+    public byte[] writeXlsxFile() throws IOException {
+        try (Workbook workbook = ExcelWriter.writeToWorkbook("Experiment Data", columns, data, FileType.XLSX);
+             ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            workbook.write(out);
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.utilities;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Looks up import sized key lists in program sized caches, comparing the list scan the DAOs used to do with
+ * {@link CacheLookupUtil}. The list scan is quadratic and takes seconds per operation at the largest sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class CacheLookupUtilBenchmark {
+
+    @Param({"1000", "10000"})
+    private int keyCount;
+
+    @Param({"50000", "500000"})
+    private int cacheSize;
+
+    private Map<String, String> cache;
+    private List<String> keys;
+
+    @Setup
+    public void setup() {
+        cache = new HashMap<>(cacheSize * 2);
+        for (int i = 0; i < cacheSize; i++) {
+            cache.put(UUID.randomUUID().toString(), "name" + i);
+        }
+
+        // Keys are spread over the cache, a tenth of them are not in it
+        Random random = new Random(42);
+        List<String> cacheKeys = new ArrayList<>(cache.keySet());
+        keys = new ArrayList<>(keyCount);
+        for (int i = 0; i < keyCount; i++) {
+            keys.add(i % 10 == 0 ? UUID.randomUUID().toString() : cacheKeys.get(random.nextInt(cacheSize)));
+        }
+    }
+
+    @Benchmark
+    public List<String> listScan() {
+        return cache.entrySet().stream()
+                .filter(entry -> keys.contains(entry.getKey()))
+                .map(Map.Entry::getValue)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<String> filterByKeys() {
+        return CacheLookupUtil.filterByKeys(cache.keySet(), key -> key, keys);
+    }
+
+    @Benchmark
+    public List<String> getByKeys() {
+        return CacheLookupUtil.getByKeys(cache, keys);
+    }
+}
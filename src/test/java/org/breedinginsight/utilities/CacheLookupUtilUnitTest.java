@@ -0,0 +1,61 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.utilities;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CacheLookupUtilUnitTest {
+
+    @Test
+    public void filterKeepsValueOrder() {
+        List<String> values = List.of("c1", "a1", "b1", "a2", "d1");
+
+        List<String> matches = CacheLookupUtil.filterByKeys(values, value -> value.substring(0, 1), List.of("b", "a", "a"));
+
+        assertEquals(List.of("a1", "b1", "a2"), matches);
+    }
+
+    @Test
+    public void filterWithoutKeys() {
+        assertTrue(CacheLookupUtil.filterByKeys(List.of("a"), value -> value, Collections.emptyList()).isEmpty());
+    }
+
+    @Test
+    public void getByKeysKeepsKeyOrder() {
+        Map<String, Integer> map = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            map.put("key" + i, i);
+        }
+
+        List<Integer> matches = CacheLookupUtil.getByKeys(map, List.of("key42", "missing", "key7", "key42", "key99"));
+
+        assertEquals(List.of(42, 7, 99), matches);
+    }
+
+    @Test
+    public void reusesHashSets() {
+        Set<String> keys = new HashSet<>(List.of("a", "b"));
+
+        assertSame(keys, CacheLookupUtil.toLookupSet(keys));
+        assertEquals(keys, CacheLookupUtil.toLookupSet(List.of("a", "b", "a")));
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.utilities;
+
+import org.openjdk.jmh.annotations.*;
+import tech.tablesaw.api.StringColumn;
+import tech.tablesaw.api.Table;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes and reads an experiment sized upload as the JSON the file data used to be stored as and in
+ * {@link CompactTableFormat}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class CompactTableFormatBenchmark {
+
+    @Param({"10000", "100000"})
+    private int rowCount;
+
+    private Table table;
+    private String json;
+    private byte[] compact;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        StringColumn germplasm = StringColumn.create("Germplasm GID");
+        StringColumn env = StringColumn.create("Env");
+        StringColumn location = StringColumn.create("Env Location");
+        StringColumn year = StringColumn.create("Env Year");
+        StringColumn expUnitId = StringColumn.create("Exp Unit ID");
+        StringColumn height = StringColumn.create("Plant Height");
+        for (int row = 0; row < rowCount; row++) {
+            germplasm.append(String.valueOf(random.nextInt(2000)));
+            env.append("Env " + row % 20);
+            location.append("Location " + row % 5);
+            year.append(String.valueOf(2020 + row % 4));
+            expUnitId.append("Plot " + row);
+            height.append(String.format("%.1f", random.nextDouble() * 200));
+        }
+        table = Table.create("upload", germplasm, env, location, year, expUnitId, height);
+        json = writeJson();
+        compact = writeCompact();
+    }
+
+    @Benchmark
+    public String writeJson() {
+        return table.write().toString("json");
+    }
+
+    @Benchmark
+    public Table readJson() throws Exception {
+        return FileUtil.parseTableFromJson(json);
+    }
+
+    @Benchmark
+    public byte[] writeCompact() {
+        return CompactTableFormat.write(table);
+    }
+
+    @Benchmark
+    public Table readCompact() throws Exception {
+        return CompactTableFormat.read(compact);
+    }
+}
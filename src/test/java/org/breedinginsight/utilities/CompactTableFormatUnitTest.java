@@ -0,0 +1,89 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.utilities;
+
+import org.breedinginsight.services.parsers.ParsingException;
+import org.junit.jupiter.api.Test;
+import tech.tablesaw.api.IntColumn;
+import tech.tablesaw.api.StringColumn;
+import tech.tablesaw.api.Table;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompactTableFormatUnitTest {
+
+    @Test
+    public void readsBackWrittenTable() throws Exception {
+        Table table = Table.create(
+                StringColumn.create("Germplasm Name", "Gnome-1", "Gnome-2", "Gnome-3"),
+                StringColumn.create("Source", "USDA", "", "USDA"),
+                StringColumn.create("Notes", "ünïcödé, \"quoted\"", "a\nb", ""));
+
+        Table read = CompactTableFormat.read(CompactTableFormat.write(table));
+
+        assertEquals(table.columnNames(), read.columnNames());
+        assertEquals(3, read.rowCount());
+        for (String column : table.columnNames()) {
+            assertEquals(table.stringColumn(column).asList(), read.stringColumn(column).asList());
+        }
+        assertTrue(read.stringColumn("Source").isMissing(1));
+    }
+
+    @Test
+    public void readsOtherColumnTypesAsStrings() throws Exception {
+        Table table = Table.create(IntColumn.create("Entry No", 1, 2, 3));
+
+        Table read = CompactTableFormat.read(CompactTableFormat.write(table));
+
+        assertEquals(Arrays.asList("1", "2", "3"), read.stringColumn("Entry No").asList());
+    }
+
+    @Test
+    public void readsEmptyTable() throws Exception {
+        Table read = CompactTableFormat.read(CompactTableFormat.write(Table.create(StringColumn.create("Name"))));
+
+        assertEquals(1, read.columnCount());
+        assertEquals(0, read.rowCount());
+    }
+
+    @Test
+    public void storesRepeatedValuesOnce() {
+        StringColumn location = StringColumn.create("Location");
+        for (int i = 0; i < 10000; i++) {
+            location.append("Location " + (i % 10));
+        }
+        Table table = Table.create(location);
+
+        byte[] compact = CompactTableFormat.write(table);
+
+        assertTrue(compact.length < table.write().toString("json").getBytes(StandardCharsets.UTF_8).length / 20);
+    }
+
+    @Test
+    public void rejectsUnknownData() {
+        byte[] data = CompactTableFormat.write(Table.create(StringColumn.create("Name", "a")));
+        data[3] = 99;
+
+        assertThrows(ParsingException.class, () -> CompactTableFormat.read(data));
+        assertThrows(ParsingException.class, () -> CompactTableFormat.read("[]".getBytes(StandardCharsets.UTF_8)));
+        assertFalse(CompactTableFormat.isCompact(null));
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.utilities;
+
+import org.breedinginsight.SyntheticData;
+import org.breedinginsight.brapps.importer.model.exports.FileType;
+import org.breedinginsight.model.Column;
+import org.breedinginsight.services.parsers.ParsingException;
+import org.breedinginsight.services.writers.ExcelWriter;
+import org.openjdk.jmh.annotations.*;
+import tech.tablesaw.api.Table;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses an experiment upload with traits from xlsx, xls and csv files, as the importer does when a file is uploaded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class FileUtilBenchmark {
+
+    @Param({"1000", "10000"})
+    private int rowCount;
+
+    @Param({"10", "50"})
+    private int traitCount;
+
+    private byte[] xlsx;
+    private byte[] xls;
+    private byte[] csv;
+
+    @Setup
+    public void setup() throws IOException {
+        Random random = new Random(42);
+        Table upload = SyntheticData.experimentUpload(rowCount, rowCount, SyntheticData.traits(traitCount, random), random);
+
+        List<Column> columns = new ArrayList<>();
+        List<Map<String, Object>> data = new ArrayList<>();
+        for (String name : upload.columnNames()) {
+            columns.add(new Column(name, Column.ColumnDataType.STRING));
+        }
+        for (int row = 0; row < upload.rowCount(); row++) {
+            Map<String, Object> values = new HashMap<>();
+            for (String name : upload.columnNames()) {
+                values.put(name, upload.stringColumn(name).get(row));
+            }
+            data.add(values);
+        }
+        xlsx = ExcelWriter.writeToInputStream(FileUtil.EXCEL_DATA_SHEET_NAME, columns, data, FileType.XLSX).readAllBytes();
+        xls = ExcelWriter.writeToInputStream(FileUtil.EXCEL_DATA_SHEET_NAME, columns, data, FileType.XLS).readAllBytes();
+        csv = upload.write().toString("csv").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Table parseXlsx() throws ParsingException {
+        return FileUtil.parseTableFromExcel(new ByteArrayInputStream(xlsx), 0);
+    }
+
+    @Benchmark
+    public Table parseXls() throws ParsingException {
+        return FileUtil.parseTableFromExcel(new ByteArrayInputStream(xls), 0);
+    }
+
+    @Benchmark
+    public Table parseCsv() throws ParsingException {
+        return FileUtil.parseTableFromCsv(new ByteArrayInputStream(csv));
+    }
+}
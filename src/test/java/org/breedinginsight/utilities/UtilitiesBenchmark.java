@@ -0,0 +1,78 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.utilities;
+
+import org.brapi.v2.model.germ.BrAPIGermplasm;
+import org.breedinginsight.SyntheticData;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Removes the program key from the names and pedigrees of a program's germplasm with each of the ways
+ * {@link Utilities} offers, as germplasm display processing and the importers do for every record.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class UtilitiesBenchmark {
+
+    private static final String PROGRAM_KEY = "BENCH";
+
+    @Param({"10000", "100000"})
+    private int germplasmCount;
+
+    private List<BrAPIGermplasm> germplasm;
+
+    @Setup
+    public void setup() {
+        germplasm = SyntheticData.germplasm(germplasmCount, "breedinginsight.org", UUID.randomUUID(), PROGRAM_KEY, new Random(42));
+    }
+
+    @Benchmark
+    public void removeProgramKey(Blackhole blackhole) {
+        for (BrAPIGermplasm record : germplasm) {
+            blackhole.consume(Utilities.removeProgramKey(record.getGermplasmName(), PROGRAM_KEY, record.getAccessionNumber()));
+        }
+    }
+
+    @Benchmark
+    public void removeProgramKeyAnyAccession(Blackhole blackhole) {
+        for (BrAPIGermplasm record : germplasm) {
+            blackhole.consume(Utilities.removeProgramKeyAnyAccession(record.getGermplasmName(), PROGRAM_KEY));
+        }
+    }
+
+    @Benchmark
+    public void removeProgramKeyAndUnknownAdditionalData(Blackhole blackhole) {
+        for (BrAPIGermplasm record : germplasm) {
+            if (record.getPedigree() != null) {
+                for (String parent : record.getPedigree().split("/", -1)) {
+                    blackhole.consume(Utilities.removeProgramKeyAndUnknownAdditionalData(parent, PROGRAM_KEY));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.breedinginsight.utilities.response;
+
+import org.brapi.v2.model.germ.BrAPIGermplasm;
+import org.breedinginsight.SyntheticData;
+import org.breedinginsight.api.model.v1.request.query.FilterRequest;
+import org.breedinginsight.api.model.v1.request.query.QueryParams;
+import org.breedinginsight.api.model.v1.request.query.SearchRequest;
+import org.breedinginsight.api.v1.controller.metadata.SortOrder;
+import org.breedinginsight.brapi.v2.model.request.query.GermplasmQuery;
+import org.breedinginsight.model.Trait;
+import org.breedinginsight.utilities.response.mappers.GermplasmQueryMapper;
+import org.breedinginsight.utilities.response.mappers.TraitQueryMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sorts, filters and pages the germplasm list and the trait list the way their controllers do. The lists are copied
+ * for every operation, as the DAOs return a new list for every request and sorting reorders it in place.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class ResponseUtilsBenchmark {
+
+    @Param({"10000", "100000"})
+    private int germplasmCount;
+
+    private List<BrAPIGermplasm> germplasm;
+    private List<Trait> traits;
+    private GermplasmQueryMapper germplasmQueryMapper;
+    private TraitQueryMapper traitQueryMapper;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        germplasm = SyntheticData.germplasm(germplasmCount, "breedinginsight.org", UUID.randomUUID(), "BENCH", random);
+        traits = SyntheticData.traits(germplasmCount / 100, random);
+        germplasmQueryMapper = new GermplasmQueryMapper();
+        traitQueryMapper = new TraitQueryMapper();
+    }
+
+    @Benchmark
+    public Object sortGermplasm() {
+        GermplasmQuery query = germplasmQuery();
+        query.setSortField("defaultDisplayName");
+        query.setSortOrder(SortOrder.DESC);
+        return ResponseUtils.getBrapiQueryResponse(new ArrayList<>(germplasm), germplasmQueryMapper, query, query.constructSearchRequest());
+    }
+
+    @Benchmark
+    public Object searchGermplasm() {
+        GermplasmQuery query = germplasmQuery();
+        SearchRequest searchRequest = new SearchRequest(List.of(filter("defaultDisplayName", "12"), filter("seedSource", "seed 1")));
+        return ResponseUtils.getBrapiQueryResponse(new ArrayList<>(germplasm), germplasmQueryMapper, query, searchRequest);
+    }
+
+    @Benchmark
+    public Object sortTraits() {
+        QueryParams queryParams = traitQuery();
+        queryParams.setSortField("name");
+        return ResponseUtils.getQueryResponse(new ArrayList<>(traits), traitQueryMapper, queryParams);
+    }
+
+    @Benchmark
+    public Object searchTraits() {
+        SearchRequest searchRequest = new SearchRequest(List.of(filter("synonyms", "t1"), filter("level", "plot")));
+        return ResponseUtils.getQueryResponse(new ArrayList<>(traits), traitQueryMapper, searchRequest, traitQuery());
+    }
+
+    private GermplasmQuery germplasmQuery() {
+        GermplasmQuery query = new GermplasmQuery();
+        query.setPage(0);
+        query.setPageSize(50);
+        return query;
+    }
+
+    private QueryParams traitQuery() {
+        QueryParams queryParams = new QueryParams();
+        queryParams.setPage(1);
+        queryParams.setPageSize(50);
+        return queryParams;
+    }
+
+    private FilterRequest filter(String field, String value) {
+        return FilterRequest.builder().field(field).value(value).build();
+    }
+}